@@ -0,0 +1,154 @@
+package edu.ccrm.bench;
+
+import edu.ccrm.domain.Student;
+import edu.ccrm.io.FileService;
+import edu.ccrm.io.TranscriptExport;
+import edu.ccrm.service.CourseService;
+import edu.ccrm.service.StudentService;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+import org.openjdk.jmh.annotations.Warmup;
+
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * CSV import and export and the bulk transcript export, one whole file per call. Each
+ * benchmark takes only the state it reads, so a run prepares only the data it needs.
+ */
+@BenchmarkMode(Mode.SingleShotTime)
+@OutputTimeUnit(TimeUnit.MILLISECONDS)
+@Warmup(iterations = 3)
+@Measurement(iterations = 10)
+@Fork(1)
+public class FileBenchmarks {
+    
+    /**
+     * Students not registered anywhere, and a file holding them
+     */
+    @State(Scope.Benchmark)
+    public static class StudentRows {
+        @Param({"10000", "100000", "1000000"})
+        public int rows;
+        
+        final FileService fileService = new FileService();
+        List<Student> students;
+        Path file;
+        
+        @Setup
+        public void setUp() throws Exception {
+            students = new SyntheticData(Fixtures.SEED).students(rows);
+            file = Files.createTempFile("ccrm-bench", ".csv");
+            fileService.exportStudents(students, file);
+        }
+        
+        @TearDown
+        public void tearDown() throws IOException {
+            Files.deleteIfExists(file);
+        }
+    }
+    
+    /**
+     * A populated context with this many enrollments, and a file holding them
+     */
+    @State(Scope.Benchmark)
+    public static class EnrollmentRows {
+        @Param({"10000", "100000", "1000000"})
+        public int rows;
+        
+        final FileService fileService = new FileService();
+        List<Student> students;
+        Path file;
+        
+        @Setup
+        public void setUp() throws Exception {
+            students = Fixtures.populated(Fixtures.studentsForRows(rows)).getStudentService().getAllStudents();
+            file = Files.createTempFile("ccrm-bench", ".csv");
+            fileService.exportEnrollments(students, file);
+        }
+        
+        @TearDown
+        public void tearDown() throws IOException {
+            Files.deleteIfExists(file);
+        }
+    }
+    
+    /**
+     * Fresh services holding the students and courses of EnrollmentRows but no enrollments,
+     * rebuilt before every import
+     */
+    @State(Scope.Benchmark)
+    public static class ImportTarget {
+        StudentService students;
+        CourseService courses;
+        
+        @Setup(Level.Invocation)
+        public void setUp(EnrollmentRows source) {
+            int studentCount = Fixtures.studentsForRows(source.rows);
+            students = new StudentService();
+            courses = new CourseService();
+            students.addListener(courses);
+            SyntheticData data = new SyntheticData(Fixtures.SEED);
+            data.courses(SyntheticData.courseCountFor(studentCount)).forEach(courses::addCourse);
+            data.students(studentCount).forEach(students::addStudent);
+        }
+    }
+    
+    /**
+     * A scratch file for exports
+     */
+    @State(Scope.Benchmark)
+    public static class Target {
+        Path file;
+        
+        @Setup
+        public void setUp() throws IOException {
+            file = Files.createTempFile("ccrm-bench", ".out");
+        }
+        
+        @TearDown
+        public void tearDown() throws IOException {
+            Files.deleteIfExists(file);
+        }
+    }
+    
+    @Benchmark
+    public void exportStudents(StudentRows source, Target target) throws Exception {
+        source.fileService.exportStudents(source.students, target.file);
+    }
+    
+    @Benchmark
+    public int importStudents(StudentRows source) throws Exception {
+        return source.fileService.importStudents(source.file).size();
+    }
+    
+    @Benchmark
+    public void exportEnrollments(EnrollmentRows source, Target target) throws Exception {
+        source.fileService.exportEnrollments(source.students, target.file);
+    }
+    
+    @Benchmark
+    public int importEnrollments(EnrollmentRows source, ImportTarget target) throws Exception {
+        return source.fileService.importEnrollments(source.file, target.students, target.courses, 1000).getAccepted();
+    }
+    
+    @Benchmark
+    public long exportTranscripts(EnrollmentRows source, Target target) throws Exception {
+        return new TranscriptExport.Builder().build()
+            .run(source.students, target.file, TranscriptExport.Layout.SINGLE_FILE, null)
+            .getBytes();
+    }
+}
\ No newline at end of file
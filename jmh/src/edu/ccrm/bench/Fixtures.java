@@ -0,0 +1,47 @@
+package edu.ccrm.bench;
+
+import edu.ccrm.config.ApplicationContext;
+
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.stream.Stream;
+
+/**
+ * Shared set-up for the benchmarks. Contexts are wired exactly as the application wires
+ * them (listeners included) but without a journal, so benchmarks measure in-memory work
+ * rather than disk syncs.
+ */
+final class Fixtures {
+    static final long SEED = 42;
+    
+    private Fixtures() {
+    }
+    
+    /**
+     * A service context filled with synthetic students, courses and graded enrollments
+     */
+    static ApplicationContext populated(int students) {
+        ApplicationContext context = new ApplicationContext();
+        new SyntheticData(SEED).populate(context.getStudentService(), context.getCourseService(), students);
+        return context;
+    }
+    
+    /**
+     * Students whose enrollments make up the given number of CSV rows
+     */
+    static int studentsForRows(int enrollmentRows) {
+        return Math.max(1, enrollmentRows / SyntheticData.COURSES_PER_STUDENT);
+    }
+    
+    static void deleteRecursively(Path path) throws IOException {
+        if (Files.isDirectory(path)) {
+            try (Stream<Path> children = Files.list(path)) {
+                for (Path child : (Iterable<Path>) children::iterator) {
+                    deleteRecursively(child);
+                }
+            }
+        }
+        Files.deleteIfExists(path);
+    }
+}
\ No newline at end of file
@@ -0,0 +1,41 @@
+package edu.ccrm.bench;
+
+import edu.ccrm.domain.Grade;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Grading over marks spread evenly across 0-100, so every band is taken
+ */
+@State(Scope.Thread)
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public class GradeBenchmark {
+    private final double[] marks = new double[1024];
+    private int next;
+    
+    public GradeBenchmark() {
+        for (int i = 0; i < marks.length; i++) {
+            marks[i] = (i * 100.0) / marks.length;
+        }
+    }
+    
+    @Benchmark
+    public Grade fromMarks() {
+        Grade grade = Grade.fromMarks(marks[next]);
+        next = (next + 1) & (marks.length - 1);
+        return grade;
+    }
+}
\ No newline at end of file
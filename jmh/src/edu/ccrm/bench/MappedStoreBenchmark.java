@@ -0,0 +1,73 @@
+package edu.ccrm.bench;
+
+import edu.ccrm.domain.Course;
+import edu.ccrm.domain.Student;
+import edu.ccrm.service.CourseService;
+import edu.ccrm.service.MappedStudentStore;
+import edu.ccrm.service.StudentService;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+import org.openjdk.jmh.annotations.Warmup;
+
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Lookups in the alumni directory. The directory is ten times its cache and lookups cycle
+ * through all of it, so most of them build the student from the mapped records.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.SECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(1)
+public class MappedStoreBenchmark {
+    @Param({"10000", "100000", "1000000"})
+    public int students;
+    
+    private Path directory;
+    private StudentService alumni;
+    private String[] regNos;
+    private int next;
+    
+    @Setup
+    public void setUp() throws IOException {
+        directory = Files.createTempDirectory("ccrm-bench-alumni");
+        SyntheticData data = new SyntheticData(Fixtures.SEED);
+        CourseService courses = new CourseService();
+        List<Course> catalog = data.courses(SyntheticData.courseCountFor(students));
+        catalog.forEach(courses::addCourse);
+        alumni = new StudentService(
+            new MappedStudentStore(directory, courses::findByCode, Math.max(1, students / 10)), "alumni");
+        List<Student> created = data.students(students);
+        created.forEach(alumni::addStudent);
+        alumni.enrollAll(data.enrollments(created, catalog));
+        regNos = created.stream().map(Student::getRegNo).toArray(String[]::new);
+    }
+    
+    @TearDown
+    public void tearDown() throws IOException {
+        alumni.close();
+        Fixtures.deleteRecursively(directory);
+    }
+    
+    @Benchmark
+    public Student findByRegNo() {
+        Student student = alumni.findByRegNo(regNos[next]);
+        next = next + 1 == regNos.length ? 0 : next + 1;
+        return student;
+    }
+}
\ No newline at end of file
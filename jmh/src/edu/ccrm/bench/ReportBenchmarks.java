@@ -0,0 +1,67 @@
+package edu.ccrm.bench;
+
+import edu.ccrm.config.ApplicationContext;
+import edu.ccrm.service.RankingService;
+import edu.ccrm.service.ReportEngine;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+import org.openjdk.jmh.infra.Blackhole;
+
+import java.util.Comparator;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.TimeUnit;
+import java.util.stream.Collectors;
+
+/**
+ * The three reports offered by the Reports menu, computed as the menu computes them
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MILLISECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(1)
+public class ReportBenchmarks {
+    @Param({"10000", "100000", "1000000"})
+    public int students;
+    
+    private ReportEngine reportEngine;
+    private RankingService rankingService;
+    
+    @Setup
+    public void setUp() {
+        ApplicationContext context = Fixtures.populated(students);
+        reportEngine = context.getReportEngine();
+        rankingService = context.getRankingService();
+    }
+    
+    @Benchmark
+    public void gpaDistribution(Blackhole blackhole) {
+        ReportEngine.TermReport report = reportEngine.generate();
+        for (ReportEngine.GpaBand band : ReportEngine.GpaBand.values()) {
+            blackhole.consume(report.getStudentsInBand(band));
+        }
+    }
+    
+    @Benchmark
+    public List<Map.Entry<String, Long>> courseEnrollments() {
+        return reportEngine.generate().getEnrollmentCounts().entrySet().stream()
+            .sorted(Map.Entry.<String, Long>comparingByValue(Comparator.reverseOrder()))
+            .collect(Collectors.toList());
+    }
+    
+    @Benchmark
+    public List<RankingService.RankedStudent> topStudents() {
+        return rankingService.getLeaderboard(5);
+    }
+}
\ No newline at end of file
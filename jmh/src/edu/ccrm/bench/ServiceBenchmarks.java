@@ -0,0 +1,85 @@
+package edu.ccrm.bench;
+
+import edu.ccrm.config.ApplicationContext;
+import edu.ccrm.domain.Course;
+import edu.ccrm.domain.Semester;
+import edu.ccrm.domain.Student;
+import edu.ccrm.service.StudentService;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Student lookups, enrollment and GPA. Each call moves on to the next student, so a run
+ * cycles through the whole population rather than hitting one cached record.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.SECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(1)
+public class ServiceBenchmarks {
+    @Param({"10000", "100000", "1000000"})
+    public int students;
+    
+    private StudentService studentService;
+    private List<Student> all;
+    private String[] regNos;
+    private Course extra;
+    private int next;
+    
+    @Setup
+    public void setUp() {
+        ApplicationContext context = Fixtures.populated(students);
+        studentService = context.getStudentService();
+        all = studentService.getAllStudents();
+        regNos = all.stream().map(Student::getRegNo).toArray(String[]::new);
+        extra = new Course.Builder()
+            .code("BENCH1")
+            .title("Benchmark Elective")
+            .credits(2)
+            .instructor("Dr. Bench")
+            .department("Benchmarks")
+            .semester(Semester.FALL)
+            .build();
+        context.getCourseService().addCourse(extra);
+    }
+    
+    private int advance() {
+        int current = next;
+        next = current + 1 == all.size() ? 0 : current + 1;
+        return current;
+    }
+    
+    @Benchmark
+    public Student findByRegNo() {
+        return studentService.findByRegNo(regNos[advance()]);
+    }
+    
+    /**
+     * Enrolls a student in one extra course and drops it again, so state does not drift
+     */
+    @Benchmark
+    public boolean enrollInCourse() throws Exception {
+        Student student = all.get(advance());
+        studentService.enrollInCourse(student, extra);
+        return studentService.unenrollFromCourse(student, extra.getCode());
+    }
+    
+    @Benchmark
+    public double calculateGPA() {
+        return all.get(advance()).calculateGPA();
+    }
+}
\ No newline at end of file
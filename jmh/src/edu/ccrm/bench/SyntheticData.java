@@ -0,0 +1,135 @@
+package edu.ccrm.bench;
+
+import edu.ccrm.domain.Course;
+import edu.ccrm.domain.Enrollment;
+import edu.ccrm.domain.Semester;
+import edu.ccrm.domain.Student;
+import edu.ccrm.service.BulkEnrollmentResult;
+import edu.ccrm.service.CourseService;
+import edu.ccrm.service.StudentService;
+
+import java.time.LocalDate;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Locale;
+import java.util.Random;
+
+/**
+ * Deterministic synthetic records for benchmarks and load tests.
+ * The same seed always produces the same students, courses and marks, so runs on
+ * different builds measure identical data. Every student takes
+ * {@link #COURSES_PER_STUDENT} distinct courses, which stays within the credit limit,
+ * and about nine in ten enrollments are graded.
+ */
+public final class SyntheticData {
+    public static final int COURSES_PER_STUDENT = 4;
+    
+    private static final String[] FIRST_NAMES = {
+        "Aarav", "Priya", "John", "Jane", "Wei", "Fatima", "Carlos", "Olga", "Kwame", "Yuki",
+        "Liam", "Sofia", "Arjun", "Mei", "Omar", "Elena", "Noah", "Ananya", "Lucas", "Zara"
+    };
+    private static final String[] LAST_NAMES = {
+        "Sharma", "Smith", "Chen", "Garcia", "Okafor", "Tanaka", "Ivanova", "Khan", "Mueller", "Patel",
+        "Johnson", "Silva", "Nguyen", "Brown", "Kumar", "Rossi", "Haddad", "Kim", "Mensah", "Lopez"
+    };
+    private static final String[] DEPARTMENTS = {
+        "Computer Science", "Mathematics", "Physics", "Chemistry", "Biology",
+        "Economics", "History", "Mechanical Engineering", "Electrical Engineering", "Literature"
+    };
+    private static final String[] SUBJECTS = {
+        "Foundations", "Methods", "Systems", "Theory", "Laboratory", "Seminar", "Analysis", "Design"
+    };
+    private static final LocalDate FIRST_ENROLLMENT_DATE = LocalDate.of(2015, 1, 1);
+    
+    private final Random random;
+    
+    public SyntheticData(long seed) {
+        this.random = new Random(seed);
+    }
+    
+    /**
+     * Courses for a catalog sized to the student body: one per 100 students, at least 20
+     */
+    public static int courseCountFor(int students) {
+        return Math.max(20, students / 100);
+    }
+    
+    public List<Course> courses(int count) {
+        List<Course> courses = new ArrayList<>(count);
+        Semester[] semesters = Semester.values();
+        for (int i = 0; i < count; i++) {
+            String department = DEPARTMENTS[i % DEPARTMENTS.length];
+            courses.add(new Course.Builder()
+                .code(String.format("C%05d", i))
+                .title(department + " " + SUBJECTS[random.nextInt(SUBJECTS.length)] + " " + (100 + i % 400))
+                .credits(2 + random.nextInt(3))
+                .instructor("Dr. " + LAST_NAMES[random.nextInt(LAST_NAMES.length)] + " " + (i % 97))
+                .department(department)
+                .semester(semesters[random.nextInt(semesters.length)])
+                .build());
+        }
+        return courses;
+    }
+    
+    public List<Student> students(int count) {
+        List<Student> students = new ArrayList<>(count);
+        for (int i = 0; i < count; i++) {
+            String first = FIRST_NAMES[random.nextInt(FIRST_NAMES.length)];
+            String last = LAST_NAMES[random.nextInt(LAST_NAMES.length)];
+            students.add(new Student.Builder()
+                .id(String.format("S%07d", i))
+                .regNo(String.format("R%08d", i))
+                .fullName(first + " " + last)
+                .email(first.toLowerCase(Locale.ROOT) + "." + i + "@university.edu")
+                .build());
+        }
+        return students;
+    }
+    
+    /**
+     * {@link #COURSES_PER_STUDENT} distinct courses per student, most with marks already recorded
+     */
+    public List<Enrollment> enrollments(List<Student> students, List<Course> courses) {
+        List<Enrollment> enrollments = new ArrayList<>(students.size() * COURSES_PER_STUDENT);
+        int[] picked = new int[COURSES_PER_STUDENT];
+        for (Student student : students) {
+            for (int k = 0; k < COURSES_PER_STUDENT; k++) {
+                int course;
+                do {
+                    course = random.nextInt(courses.size());
+                } while (contains(picked, k, course));
+                picked[k] = course;
+                Enrollment enrollment = new Enrollment(student, courses.get(course),
+                    FIRST_ENROLLMENT_DATE.plusDays(random.nextInt(3650)));
+                if (random.nextInt(10) != 0) {
+                    enrollment.recordMarks(Math.round((35 + random.nextDouble() * 65) * 10) / 10.0);
+                }
+                enrollments.add(enrollment);
+            }
+        }
+        return enrollments;
+    }
+    
+    /**
+     * Fill the services with the given number of students and a matching catalog
+     */
+    public void populate(StudentService studentService, CourseService courseService, int students) {
+        List<Course> courses = courses(courseCountFor(students));
+        courses.forEach(courseService::addCourse);
+        List<Student> created = students(students);
+        created.forEach(studentService::addStudent);
+        BulkEnrollmentResult result = studentService.enrollAll(enrollments(created, courses));
+        if (result.getRejected() > 0) {
+            throw new IllegalStateException("Synthetic enrollments were rejected: " + result);
+        }
+    }
+    
+    private static boolean contains(int[] values, int count, int value) {
+        for (int i = 0; i < count; i++) {
+            if (values[i] == value) {
+                return true;
+            }
+        }
+        return false;
+    }
+}
\ No newline at end of file
@@ -1,17 +1,120 @@
 package edu.ccrm;
 
+import edu.ccrm.cli.BatchRunner;
 import edu.ccrm.cli.CLIMenu;
 import edu.ccrm.config.AppConfig;
+import edu.ccrm.config.ApplicationContext;
+import edu.ccrm.server.ApiServer;
+
+import java.io.BufferedReader;
+import java.io.IOException;
+import java.io.InputStreamReader;
+import java.io.PrintWriter;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Paths;
 
 public class Main {
+    private static final String USAGE =
+        "Usage: java edu.ccrm.Main [--batch <script|-> [--threads N] [--stop-on-error]]\n"
+        + "       java edu.ccrm.Main --serve [port] [--max-concurrent N]";
+    
     public static void main(String[] args) {
-        System.out.println("=== Campus Course & Records Manager (CCRM) ===");
+        AppConfig config = AppConfig.getInstance();
+        String script = null;
+        boolean serve = false;
+        int threads = Runtime.getRuntime().availableProcessors();
+        boolean stopOnError = false;
+        for (int i = 0; i < args.length; i++) {
+            if (args[i].equals("--batch") && i + 1 < args.length) {
+                script = args[++i];
+            } else if (args[i].equals("--serve")) {
+                serve = true;
+                if (i + 1 < args.length && !args[i + 1].startsWith("--")) {
+                    config.setServerPort(parseCount(args[++i]));
+                }
+            } else if (args[i].equals("--max-concurrent") && i + 1 < args.length) {
+                config.setServerMaxConcurrentRequests(parseCount(args[++i]));
+            } else if (args[i].equals("--threads") && i + 1 < args.length) {
+                threads = parseCount(args[++i]);
+            } else if (args[i].equals("--stop-on-error")) {
+                stopOnError = true;
+            } else {
+                System.err.println(USAGE);
+                System.exit(2);
+            }
+        }
+        
+        if (serve && script != null) {
+            System.err.println(USAGE);
+            System.exit(2);
+        }
+        if (script == null) {
+            System.out.println("=== Campus Course & Records Manager (CCRM) ===");
+        }
         
         // Singleton pattern demonstration
-        AppConfig config = AppConfig.getInstance();
         config.loadConfiguration();
         
-        CLIMenu menu = new CLIMenu();
-        menu.start();
+        ApplicationContext context = new ApplicationContext();
+        context.start();
+        if (serve) {
+            serve(context, config);
+            return;
+        }
+        if (script == null) {
+            CLIMenu menu = new CLIMenu(context);
+            menu.start();
+            return;
+        }
+        
+        // Batch mode: "-" reads commands from standard input
+        int exitCode;
+        try (BufferedReader in = script.equals("-")
+                 ? new BufferedReader(new InputStreamReader(System.in, StandardCharsets.UTF_8))
+                 : Files.newBufferedReader(Paths.get(script), StandardCharsets.UTF_8)) {
+            PrintWriter out = BatchRunner.bufferedOutput();
+            exitCode = new BatchRunner(context, threads, stopOnError).run(in, out);
+        } catch (IOException e) {
+            System.err.println("Batch failed: " + e.getMessage());
+            exitCode = 2;
+        } finally {
+            context.close();
+        }
+        System.exit(exitCode);
+    }
+    
+    // Server mode: runs until the process is interrupted, then flushes the journal
+    private static void serve(ApplicationContext context, AppConfig config) {
+        ApiServer server = new ApiServer(context, config.getServerPort(), config.getServerMaxConcurrentRequests());
+        try {
+            server.start();
+        } catch (IOException e) {
+            System.err.println("Could not start server: " + e.getMessage());
+            context.close();
+            System.exit(1);
+        }
+        Runtime.getRuntime().addShutdownHook(new Thread(() -> {
+            server.close();
+            context.close();
+        }, "ccrm-shutdown"));
+        System.out.printf("Serving http://%s:%d/api (%s, at most %d concurrent requests); Ctrl+C to stop%n",
+            server.getAddress().getHostString(), server.getAddress().getPort(),
+            server.isUsingVirtualThreads() ? "virtual threads" : "platform thread pool",
+            server.getMaxConcurrentRequests());
+    }
+    
+    private static int parseCount(String text) {
+        try {
+            int value = Integer.parseInt(text);
+            if (value > 0) {
+                return value;
+            }
+        } catch (NumberFormatException e) {
+            // Reported below
+        }
+        System.err.println(USAGE);
+        System.exit(2);
+        return 0;
     }
 }
\ No newline at end of file
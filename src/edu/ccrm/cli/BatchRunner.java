@@ -0,0 +1,715 @@
+package edu.ccrm.cli;
+
+import edu.ccrm.config.AppConfig;
+import edu.ccrm.config.ApplicationContext;
+import edu.ccrm.domain.Course;
+import edu.ccrm.domain.Enrollment;
+import edu.ccrm.domain.Semester;
+import edu.ccrm.domain.Student;
+import edu.ccrm.io.FileService;
+import edu.ccrm.io.JournalService;
+import edu.ccrm.io.TranscriptExport;
+import edu.ccrm.metrics.MemoryFootprint;
+import edu.ccrm.service.BulkEnrollmentResult;
+import edu.ccrm.service.CourseService;
+import edu.ccrm.service.MappedStudentStore;
+import edu.ccrm.service.RankingService;
+import edu.ccrm.service.ReportEngine;
+import edu.ccrm.service.StudentService;
+import edu.ccrm.util.ValidationUtil;
+
+import java.io.BufferedReader;
+import java.io.BufferedWriter;
+import java.io.IOException;
+import java.io.OutputStreamWriter;
+import java.io.PrintWriter;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Locale;
+import java.util.Map;
+import java.util.TreeMap;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.atomic.AtomicInteger;
+
+/**
+ * Runs a script of commands against the services without the interactive menu.
+ * One command per line; tokens are separated by whitespace and may be double-quoted;
+ * blank lines and lines starting with # are ignored. Commands between "parallel [threads]"
+ * and "end" are independent of each other and are spread over worker threads.
+ *
+ * Each command writes into its own buffer, and buffers are emitted in script order, so
+ * output is identical whether or not a block ran in parallel. A per-command timing
+ * summary follows the output. Journal syncs are shared rather than paid per change: each
+ * run of up to SYNC_INTERVAL plain commands syncs once, and each parallel block once per
+ * worker, so a long script does not hold all of its changes unsynced until it ends.
+ */
+public class BatchRunner {
+    private static final int OUTPUT_BUFFER_SIZE = 1 << 16;
+    private static final int SEARCH_LIMIT = 20;
+    // Plain commands run under one deferred journal sync
+    private static final int SYNC_INTERVAL = 256;
+    
+    // A command body; failures are reported by throwing
+    private interface Command {
+        void run(String[] args, StringBuilder out) throws Exception;
+    }
+    
+    private static final class CommandSpec {
+        final String usage;
+        final int minArgs;
+        final int maxArgs;
+        final Command command;
+        
+        CommandSpec(String usage, int minArgs, int maxArgs, Command command) {
+            this.usage = usage;
+            this.minArgs = minArgs;
+            this.maxArgs = maxArgs;
+            this.command = command;
+        }
+    }
+    
+    // One script line, its output and how long it took
+    private static final class Step {
+        final int line;
+        final String name;
+        final String[] args;
+        final StringBuilder output = new StringBuilder();
+        long nanos;
+        boolean failed;
+        
+        Step(int line, String[] tokens) {
+            this.line = line;
+            this.name = tokens[0].toLowerCase(Locale.ROOT);
+            this.args = Arrays.copyOfRange(tokens, 1, tokens.length);
+        }
+    }
+    
+    private static final class Timing {
+        int count;
+        int failures;
+        long totalNanos;
+        long maxNanos;
+    }
+    
+    private final ApplicationContext context;
+    private final StudentService studentService;
+    private final CourseService courseService;
+    private final RankingService rankingService;
+    private final ReportEngine reportEngine;
+    private final FileService fileService;
+    private final AppConfig config;
+    private final int defaultThreads;
+    private final boolean stopOnError;
+    private final Map<String, CommandSpec> commands = new LinkedHashMap<>();
+    private final Map<String, Timing> timings = new TreeMap<>();
+    private int executed;
+    private int failed;
+    
+    /**
+     * @param defaultThreads workers for a parallel block that does not give its own count
+     * @param stopOnError    stop after the first failed command (or block containing one)
+     */
+    public BatchRunner(ApplicationContext context, int defaultThreads, boolean stopOnError) {
+        this.context = context;
+        this.studentService = context.getStudentService();
+        this.courseService = context.getCourseService();
+        this.rankingService = context.getRankingService();
+        this.reportEngine = context.getReportEngine();
+        this.fileService = context.getFileService();
+        this.config = context.getConfig();
+        this.defaultThreads = Math.max(1, defaultThreads);
+        this.stopOnError = stopOnError;
+        registerCommands();
+    }
+    
+    /**
+     * Run every command read from the script and print the timing summary.
+     * @return 0 if every command succeeded, 1 otherwise
+     */
+    public int run(BufferedReader script, PrintWriter out) throws IOException {
+        long start = System.nanoTime();
+        try {
+            execute(script, out);
+        } finally {
+            printSummary(out, System.nanoTime() - start);
+            out.flush();
+        }
+        return failed == 0 ? 0 : 1;
+    }
+    
+    /**
+     * Output writer with a large buffer, so commands do not each pay for a console write
+     */
+    public static PrintWriter bufferedOutput() {
+        return new PrintWriter(new BufferedWriter(
+            new OutputStreamWriter(System.out, StandardCharsets.UTF_8), OUTPUT_BUFFER_SIZE));
+    }
+    
+    private void execute(BufferedReader script, PrintWriter out) throws IOException {
+        // Plain commands read but not yet run; they run before anything else is reported
+        List<Step> sequential = new ArrayList<>();
+        List<Step> block = null;
+        int blockThreads = 0;
+        int blockLine = 0;
+        int lineNumber = 0;
+        String line;
+        while ((line = script.readLine()) != null) {
+            lineNumber++;
+            String[] tokens;
+            try {
+                tokens = tokenize(line);
+            } catch (IllegalArgumentException e) {
+                if (!runSequential(sequential, out)) {
+                    return;
+                }
+                reportFailure(out, lineNumber, e.getMessage());
+                if (stopOnError) {
+                    return;
+                }
+                continue;
+            }
+            if (tokens.length == 0) {
+                continue;
+            }
+            String keyword = tokens[0].toLowerCase(Locale.ROOT);
+            if ((keyword.equals("parallel") || keyword.equals("end")) && !runSequential(sequential, out)) {
+                return;
+            }
+            
+            if (keyword.equals("parallel")) {
+                if (block != null) {
+                    reportFailure(out, lineNumber, "parallel blocks cannot be nested");
+                    if (stopOnError) {
+                        return;
+                    }
+                    continue;
+                }
+                blockThreads = defaultThreads;
+                if (tokens.length > 1) {
+                    try {
+                        blockThreads = Math.max(1, Integer.parseInt(tokens[1]));
+                    } catch (NumberFormatException e) {
+                        reportFailure(out, lineNumber, "invalid thread count: " + tokens[1]);
+                    }
+                }
+                block = new ArrayList<>();
+                blockLine = lineNumber;
+            } else if (keyword.equals("end")) {
+                if (block == null) {
+                    reportFailure(out, lineNumber, "end without parallel");
+                    if (stopOnError) {
+                        return;
+                    }
+                    continue;
+                }
+                boolean ok = runParallel(block, blockThreads, out);
+                block = null;
+                if (!ok && stopOnError) {
+                    return;
+                }
+            } else if (block != null) {
+                block.add(new Step(lineNumber, tokens));
+            } else {
+                sequential.add(new Step(lineNumber, tokens));
+                if (sequential.size() == SYNC_INTERVAL && !runSequential(sequential, out)) {
+                    return;
+                }
+            }
+        }
+        if (!runSequential(sequential, out)) {
+            return;
+        }
+        if (block != null) {
+            reportFailure(out, blockLine, "parallel block is missing its end");
+        }
+    }
+    
+    /**
+     * Run the pending plain commands under one journal sync, record them and clear the list
+     * @return false if one failed and the script should stop
+     */
+    private boolean runSequential(List<Step> steps, PrintWriter out) {
+        int[] ran = {0};
+        context.withDeferredSync(() -> {
+            for (Step step : steps) {
+                runStep(step);
+                ran[0]++;
+                if (step.failed && stopOnError) {
+                    break;
+                }
+            }
+        });
+        boolean ok = true;
+        for (Step step : steps.subList(0, ran[0])) {
+            record(step, out);
+            ok &= !step.failed;
+        }
+        steps.clear();
+        return ok || !stopOnError;
+    }
+    
+    // Workers take the next unclaimed step until the block is drained; output keeps script order
+    private boolean runParallel(List<Step> block, int threads, PrintWriter out) throws IOException {
+        int workers = Math.min(threads, block.size());
+        if (workers <= 1) {
+            context.withDeferredSync(() -> block.forEach(this::runStep));
+        } else {
+            AtomicInteger next = new AtomicInteger();
+            ExecutorService pool = Executors.newFixedThreadPool(workers, runnable -> {
+                Thread thread = new Thread(runnable, "ccrm-batch");
+                thread.setDaemon(true);
+                return thread;
+            });
+            try {
+                List<Future<?>> running = new ArrayList<>();
+                for (int w = 0; w < workers; w++) {
+                    // Each worker's changes share one journal sync
+                    running.add(pool.submit(() -> {
+                        context.withDeferredSync(() -> {
+                            int i;
+                            while ((i = next.getAndIncrement()) < block.size()) {
+                                runStep(block.get(i));
+                            }
+                        });
+                        return null;
+                    }));
+                }
+                for (Future<?> worker : running) {
+                    worker.get();
+                }
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+                throw new IOException("Interrupted while running parallel block", e);
+            } catch (ExecutionException e) {
+                throw new IOException("Parallel worker failed: " + e.getCause(), e.getCause());
+            } finally {
+                pool.shutdownNow();
+            }
+        }
+        boolean ok = true;
+        for (Step step : block) {
+            record(step, out);
+            ok &= !step.failed;
+        }
+        return ok;
+    }
+    
+    private void runStep(Step step) {
+        long start = System.nanoTime();
+        try {
+            CommandSpec spec = commands.get(step.name);
+            if (spec == null) {
+                throw new IllegalArgumentException("unknown command '" + step.name + "'");
+            }
+            if (step.args.length < spec.minArgs || step.args.length > spec.maxArgs) {
+                throw new IllegalArgumentException("usage: " + spec.usage);
+            }
+            spec.command.run(step.args, step.output);
+        } catch (Exception e) {
+            step.failed = true;
+            step.output.append("line ").append(step.line).append(": ").append(step.name)
+                .append(" failed: ").append(e.getMessage()).append('\n');
+        }
+        step.nanos = System.nanoTime() - start;
+    }
+    
+    // Called on the main thread only, in script order
+    private void record(Step step, PrintWriter out) {
+        out.print(step.output);
+        executed++;
+        Timing timing = timings.computeIfAbsent(step.name, name -> new Timing());
+        timing.count++;
+        timing.totalNanos += step.nanos;
+        timing.maxNanos = Math.max(timing.maxNanos, step.nanos);
+        if (step.failed) {
+            timing.failures++;
+            failed++;
+        }
+    }
+    
+    private void reportFailure(PrintWriter out, int line, String message) {
+        out.println("line " + line + ": " + message);
+        failed++;
+    }
+    
+    private void printSummary(PrintWriter out, long wallNanos) {
+        out.println();
+        out.println("=== Batch Summary ===");
+        out.printf("%-20s %7s %7s %11s %10s %10s%n", "Command", "Count", "Failed", "Total (ms)", "Mean (ms)", "Max (ms)");
+        timings.forEach((name, t) -> out.printf("%-20s %7d %7d %11.2f %10.3f %10.3f%n",
+            name, t.count, t.failures, t.totalNanos / 1e6, t.totalNanos / 1e6 / t.count, t.maxNanos / 1e6));
+        double seconds = wallNanos / 1e9;
+        out.printf("%d commands, %d failed, %.2fs wall time (%.0f commands/s)%n",
+            executed, failed, seconds, seconds > 0 ? executed / seconds : 0);
+    }
+    
+    /**
+     * Split a line into tokens; double quotes group words and \" or \\ escape inside them
+     */
+    static String[] tokenize(String line) {
+        List<String> tokens = new ArrayList<>();
+        StringBuilder token = new StringBuilder();
+        boolean quoted = false;
+        boolean inToken = false;
+        for (int i = 0; i < line.length(); i++) {
+            char c = line.charAt(i);
+            if (quoted) {
+                if (c == '\\' && i + 1 < line.length()) {
+                    token.append(line.charAt(++i));
+                } else if (c == '"') {
+                    quoted = false;
+                } else {
+                    token.append(c);
+                }
+            } else if (c == '"') {
+                quoted = true;
+                inToken = true;
+            } else if (Character.isWhitespace(c)) {
+                if (inToken) {
+                    tokens.add(token.toString());
+                    token.setLength(0);
+                    inToken = false;
+                }
+            } else if (c == '#' && !inToken) {
+                break; // Comment runs to the end of the line
+            } else {
+                token.append(c);
+                inToken = true;
+            }
+        }
+        if (quoted) {
+            throw new IllegalArgumentException("unterminated quote");
+        }
+        if (inToken) {
+            tokens.add(token.toString());
+        }
+        return tokens.toArray(new String[0]);
+    }
+    
+    private void register(String name, String usage, int minArgs, int maxArgs, Command command) {
+        commands.put(name, new CommandSpec(name + (usage.isEmpty() ? "" : " " + usage), minArgs, maxArgs, command));
+    }
+    
+    private void registerCommands() {
+        register("echo", "[text...]", 0, Integer.MAX_VALUE, (args, out) ->
+            out.append(String.join(" ", args)).append('\n'));
+        
+        register("add-student", "<id> <regNo> <fullName> <email>", 4, 4, (args, out) -> {
+            if (!ValidationUtil.isValidRegNo(args[1])) {
+                throw new IllegalArgumentException("invalid registration number " + args[1]);
+            }
+            if (!ValidationUtil.isValidEmail(args[3])) {
+                throw new IllegalArgumentException("invalid email " + args[3]);
+            }
+            studentService.addStudent(new Student.Builder()
+                .id(args[0])
+                .regNo(args[1])
+                .fullName(args[2])
+                .email(args[3])
+                .build());
+            out.append("Added student ").append(args[0]).append('\n');
+        });
+        register("update-student", "<id> <fullName> <email>", 3, 3, (args, out) -> {
+            if (!ValidationUtil.isValidEmail(args[2])) {
+                throw new IllegalArgumentException("invalid email " + args[2]);
+            }
+            if (!studentService.updateStudent(args[0], args[1], args[2])) {
+                throw new IllegalArgumentException("student not found: " + args[0]);
+            }
+            out.append("Updated student ").append(args[0]).append('\n');
+        });
+        register("deactivate-student", "<id>", 1, 1, (args, out) -> {
+            if (!studentService.deactivateStudent(args[0])) {
+                throw new IllegalArgumentException("student not found: " + args[0]);
+            }
+            out.append("Deactivated student ").append(args[0]).append('\n');
+        });
+        
+        register("add-course", "<code> <title> <credits> <instructor> <department> <semester>", 6, 6, (args, out) -> {
+            int credits = parseCredits(args[2]);
+            courseService.addCourse(new Course.Builder()
+                .code(args[0])
+                .title(args[1])
+                .credits(credits)
+                .instructor(args[3])
+                .department(args[4])
+                .semester(parseSemester(args[5]))
+                .build());
+            out.append("Added course ").append(args[0]).append('\n');
+        });
+        register("update-course", "<code> <title> <credits> <instructor> [department]", 4, 5, (args, out) -> {
+            int credits = parseCredits(args[2]);
+            boolean updated = args.length == 5
+                ? courseService.updateCourse(args[0], args[1], credits, args[3], args[4])
+                : courseService.updateCourse(args[0], args[1], credits, args[3]);
+            if (!updated) {
+                throw new IllegalArgumentException("course not found: " + args[0]);
+            }
+            out.append("Updated course ").append(args[0]).append('\n');
+        });
+        register("deactivate-course", "<code>", 1, 1, (args, out) -> {
+            if (!courseService.deactivateCourse(args[0])) {
+                throw new IllegalArgumentException("course not found: " + args[0]);
+            }
+            out.append("Deactivated course ").append(args[0]).append('\n');
+        });
+        
+        register("enroll", "<regNo> <courseCode>", 2, 2, (args, out) -> {
+            studentService.enrollInCourse(requireStudent(args[0]), requireCourse(args[1]));
+            out.append("Enrolled ").append(args[0]).append(" in ").append(args[1]).append('\n');
+        });
+        register("unenroll", "<regNo> <courseCode>", 2, 2, (args, out) -> {
+            if (!studentService.unenrollFromCourse(requireStudent(args[0]), args[1])) {
+                throw new IllegalArgumentException(args[0] + " is not enrolled in " + args[1]);
+            }
+            out.append("Unenrolled ").append(args[0]).append(" from ").append(args[1]).append('\n');
+        });
+        register("marks", "<regNo> <courseCode> <marks>", 3, 3, (args, out) -> {
+            Student student = requireStudent(args[0]);
+            double marks = parseNumber(args[2]);
+            if (marks < 0 || marks > 100) {
+                throw new IllegalArgumentException("marks must be between 0 and 100");
+            }
+            // Checked on the result, so an unenroll on another worker cannot slip in between
+            Enrollment enrollment = studentService.recordMarks(student, args[1], marks);
+            if (enrollment == null) {
+                throw new IllegalArgumentException(args[0] + " is not enrolled in " + args[1]);
+            }
+            out.append(String.format("Recorded %s %s: %.1f (%s)%n", args[0], args[1], marks, enrollment.getGrade()));
+        });
+        
+        register("import-students", "<file>", 1, 1, (args, out) -> {
+            int[] imported = {0};
+            fileService.importStudents(dataFile(args[0]), batch -> {
+                for (Student student : batch) {
+                    try {
+                        studentService.addStudent(student);
+                        imported[0]++;
+                    } catch (IllegalArgumentException e) {
+                        out.append("Skipped: ").append(e.getMessage()).append('\n');
+                    }
+                }
+            }, config.getImportBatchSize());
+            out.append("Imported ").append(imported[0]).append(" students\n");
+        });
+        register("import-courses", "<file>", 1, 1, (args, out) -> {
+            int[] imported = {0};
+            fileService.importCourses(dataFile(args[0]), batch -> {
+                for (Course course : batch) {
+                    try {
+                        courseService.addCourse(course);
+                        imported[0]++;
+                    } catch (IllegalArgumentException e) {
+                        out.append("Skipped: ").append(e.getMessage()).append('\n');
+                    }
+                }
+            }, config.getImportBatchSize());
+            out.append("Imported ").append(imported[0]).append(" courses\n");
+        });
+        register("import-enrollments", "<file>", 1, 1, (args, out) -> {
+            BulkEnrollmentResult result = fileService.importEnrollments(
+                dataFile(args[0]), studentService, courseService, config.getImportBatchSize());
+            out.append("Imported ").append(result.getAccepted()).append(" enrollments");
+            if (result.getRejected() > 0) {
+                out.append(", rejected ").append(result.getRejected());
+            }
+            out.append('\n');
+        });
+        register("export-students", "<file>", 1, 1, (args, out) -> {
+            fileService.exportStudents(studentService.getAllStudents(), dataFile(args[0]));
+            out.append("Exported students to ").append(dataFile(args[0])).append('\n');
+        });
+        register("export-courses", "<file>", 1, 1, (args, out) -> {
+            fileService.exportCourses(courseService.getAllCourses(), dataFile(args[0]));
+            out.append("Exported courses to ").append(dataFile(args[0])).append('\n');
+        });
+        register("export-enrollments", "<file>", 1, 1, (args, out) -> {
+            fileService.exportEnrollments(studentService.getAllStudents(), dataFile(args[0]));
+            out.append("Exported enrollments to ").append(dataFile(args[0])).append('\n');
+        });
+        register("export-transcripts", "<per-student|single> <target> [course=CODE] [regno=PREFIX] [min-gpa=N]", 2, 5, (args, out) -> {
+            TranscriptExport.Layout layout;
+            switch (args[0].toLowerCase(Locale.ROOT)) {
+                case "per-student":
+                    layout = TranscriptExport.Layout.FILE_PER_STUDENT;
+                    break;
+                case "single":
+                    layout = TranscriptExport.Layout.SINGLE_FILE;
+                    break;
+                default:
+                    throw new IllegalArgumentException("layout must be per-student or single: " + args[0]);
+            }
+            String courseCode = null;
+            String regNoPrefix = null;
+            Double minGpa = null;
+            for (int i = 2; i < args.length; i++) {
+                int split = args[i].indexOf('=');
+                String key = split < 0 ? args[i] : args[i].substring(0, split).toLowerCase(Locale.ROOT);
+                String value = args[i].substring(split + 1);
+                switch (key) {
+                    case "course":
+                        courseCode = value;
+                        break;
+                    case "regno":
+                        regNoPrefix = value;
+                        break;
+                    case "min-gpa":
+                        minGpa = parseNumber(value);
+                        break;
+                    default:
+                        throw new IllegalArgumentException("unknown filter: " + args[i]);
+                }
+            }
+            List<Student> cohort = studentService.search(TranscriptExport.cohort(courseCode, regNoPrefix, minGpa));
+            TranscriptExport.Result result = new TranscriptExport.Builder().build()
+                .run(cohort, dataFile(args[1]), layout, null);
+            out.append("Exported ").append(result).append(" to ").append(dataFile(args[1])).append('\n');
+        });
+        
+        register("report", "", 0, 0, (args, out) -> {
+            ReportEngine.TermReport report = reportEngine.generate();
+            for (ReportEngine.GpaBand band : ReportEngine.GpaBand.values()) {
+                out.append(String.format("%-15s: %d students%n", band.getLabel(), report.getStudentsInBand(band)));
+            }
+            report.getEnrollmentCounts().forEach((code, count) ->
+                out.append(String.format("Course %s: %d enrollments%n", code, count)));
+        });
+        register("top", "[k]", 0, 1, (args, out) -> {
+            int k = args.length == 0 ? 5 : (int) parseNumber(args[0]);
+            for (RankingService.RankedStudent ranked : rankingService.getLeaderboard(k)) {
+                out.append(String.format("%s - GPA: %.2f%n", ranked.getStudent().getFullName(), ranked.getGpa()));
+            }
+        });
+        register("alumni-find", "<regNo|id>", 1, 1, (args, out) -> {
+            StudentService alumni = context.getAlumniService();
+            Student student = alumni.findByRegNo(args[0]);
+            if (student == null) {
+                student = alumni.findById(args[0]);
+            }
+            if (student == null) {
+                throw new IllegalArgumentException("not in the alumni directory: " + args[0]);
+            }
+            out.append(student.getProfileInfo()).append('\n');
+            for (Enrollment enrollment : student.getEnrollments()) {
+                out.append(String.format("  %s %s%n", enrollment.getCourse().getCode(),
+                    enrollment.isGraded() ? enrollment.getGrade() : "not graded"));
+            }
+        });
+        register("alumni-archive", "<regNo>", 1, 1, (args, out) -> {
+            BulkEnrollmentResult result = context.getAlumniService().addCopy(requireStudent(args[0]));
+            out.append("Archived ").append(args[0]).append(" with ").append(result.getAccepted()).append(" enrollments");
+            if (result.getRejected() > 0) {
+                out.append(", rejected ").append(result.getRejected());
+            }
+            out.append('\n');
+        });
+        register("alumni-import", "<studentsFile> [enrollmentsFile]", 1, 2, (args, out) -> {
+            StudentService alumni = context.getAlumniService();
+            int[] imported = {0};
+            fileService.importStudents(dataFile(args[0]), batch -> {
+                for (Student student : batch) {
+                    try {
+                        alumni.addStudent(student);
+                        imported[0]++;
+                    } catch (IllegalArgumentException e) {
+                        out.append("Skipped: ").append(e.getMessage()).append('\n');
+                    }
+                }
+            }, config.getImportBatchSize());
+            out.append("Imported ").append(imported[0]).append(" alumni");
+            if (args.length == 2) {
+                BulkEnrollmentResult result = fileService.importEnrollments(
+                    dataFile(args[1]), alumni, courseService, config.getImportBatchSize());
+                out.append(" and ").append(result.getAccepted()).append(" enrollments");
+                if (result.getRejected() > 0) {
+                    out.append(", rejected ").append(result.getRejected());
+                }
+            }
+            out.append('\n');
+        });
+        register("alumni-stats", "", 0, 0, (args, out) -> {
+            MappedStudentStore store = (MappedStudentStore) context.getAlumniService().getStore();
+            out.append(String.format("Alumni: %d, enrollments: %d, on disk: %d bytes, cached: %d, hits: %d, loads: %d%n",
+                store.size(), store.getEnrollmentCount(), store.getMappedBytes(), store.getCachedCount(),
+                store.getCacheHits(), store.getCacheMisses()));
+        });
+        register("footprint", "", 0, 0, (args, out) -> out.append(MemoryFootprint.measure(
+            studentService.getAllStudents(), courseService.getAllCourses(),
+            context.getEnrollmentStore().getFootprintBytes()).format()));
+        register("search-students", "<text>", 1, 1, (args, out) -> {
+            for (Student student : context.getSearchService().searchStudents(args[0], SEARCH_LIMIT)) {
+                out.append(student.getRegNo()).append(' ').append(student.getFullName()).append('\n');
+            }
+        });
+        register("search-courses", "<text>", 1, 1, (args, out) -> {
+            for (Course course : context.getSearchService().searchCourses(args[0], SEARCH_LIMIT)) {
+                out.append(course.getCode()).append(' ').append(course.getTitle()).append('\n');
+            }
+        });
+        
+        register("snapshot", "", 0, 0, (args, out) -> {
+            out.append("Saved ").append(context.getSnapshotService().save(
+                config.getSnapshotFile(), studentService, courseService)).append('\n');
+        });
+        register("compact", "", 0, 0, (args, out) -> {
+            JournalService journal = context.getJournal();
+            if (journal == null) {
+                throw new IllegalStateException("journaling is not active");
+            }
+            journal.saveToFile(config.getSnapshotFile().toString());
+            out.append("Compacted journal into ").append(config.getSnapshotFile()).append('\n');
+        });
+    }
+    
+    private Student requireStudent(String regNo) {
+        Student student = studentService.findByRegNo(regNo);
+        if (student == null) {
+            throw new IllegalArgumentException("student not found: " + regNo);
+        }
+        return student;
+    }
+    
+    private Course requireCourse(String code) {
+        Course course = courseService.findByCode(code);
+        if (course == null) {
+            throw new IllegalArgumentException("course not found: " + code);
+        }
+        return course;
+    }
+    
+    private Path dataFile(String name) {
+        return config.getDataDirectory().resolve(name);
+    }
+    
+    private static int parseCredits(String text) {
+        int credits = (int) parseNumber(text);
+        if (!ValidationUtil.isValidCredits(credits)) {
+            throw new IllegalArgumentException("invalid credits " + text + ", must be between 1 and 6");
+        }
+        return credits;
+    }
+    
+    private static double parseNumber(String text) {
+        try {
+            return Double.parseDouble(text);
+        } catch (NumberFormatException e) {
+            throw new IllegalArgumentException("not a number: " + text);
+        }
+    }
+    
+    private static Semester parseSemester(String text) {
+        for (Semester semester : Semester.values()) {
+            if (semester.name().equalsIgnoreCase(text)) {
+                return semester;
+            }
+        }
+        throw new IllegalArgumentException("unknown semester " + text);
+    }
+}
\ No newline at end of file
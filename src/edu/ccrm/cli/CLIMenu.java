@@ -2,39 +2,74 @@ package edu.ccrm.cli;
 
 import edu.ccrm.domain.*;
 import edu.ccrm.service.StudentService;
+import edu.ccrm.service.BulkEnrollmentResult;
+import edu.ccrm.service.CourseField;
 import edu.ccrm.service.CourseService;
+import edu.ccrm.service.MappedStudentStore;
+import edu.ccrm.service.Query;
+import edu.ccrm.service.RankingService;
+import edu.ccrm.service.ReportEngine;
+import edu.ccrm.service.SearchService;
+import edu.ccrm.service.StudentField;
+import edu.ccrm.service.TranscriptCache;
 import edu.ccrm.io.FileService;
+import edu.ccrm.io.ImportPipeline;
+import edu.ccrm.io.JournalService;
+import edu.ccrm.io.SnapshotService;
+import edu.ccrm.io.TranscriptExport;
+import edu.ccrm.metrics.MemoryFootprint;
+import edu.ccrm.metrics.MetricsRegistry;
+import edu.ccrm.metrics.MetricsReporter;
+import edu.ccrm.metrics.OperationMetrics;
 import edu.ccrm.config.AppConfig;
+import edu.ccrm.config.ApplicationContext;
 import edu.ccrm.exception.DuplicateEnrollmentException;
 import edu.ccrm.exception.MaxCreditLimitExceededException;
 import edu.ccrm.service.DataAccessException;
 import edu.ccrm.util.ValidationUtil;
 import edu.ccrm.util.RecursiveFileLister;
 
+import java.io.IOException;
 import java.nio.file.Path;
 import java.nio.file.Files;
 import java.time.LocalDateTime;
 import java.time.format.DateTimeFormatter;
+import java.util.Arrays;
 import java.util.List;
+import java.util.OptionalDouble;
+import java.util.OptionalInt;
 import java.util.Scanner;
 import java.util.stream.Collectors;
 
 public class CLIMenu {
+    private static final int SEARCH_LIMIT = 20;
+    
     private Scanner scanner;
     private StudentService studentService;
     private CourseService courseService;
+    private RankingService rankingService;
+    private SearchService searchService;
+    private ReportEngine reportEngine;
+    private TranscriptCache transcriptCache;
     private FileService fileService;
+    private SnapshotService snapshotService;
+    private ApplicationContext context;
     private AppConfig config;
+    private OperationMetrics backupMetrics;
     
-    public CLIMenu() {
+    public CLIMenu(ApplicationContext context) {
         this.scanner = new Scanner(System.in);
-        this.studentService = new StudentService();
-        this.courseService = new CourseService();
-        this.fileService = new FileService();
-        this.config = AppConfig.getInstance();
-        
-        // Load sample data
-        loadSampleData();
+        this.context = context;
+        this.studentService = context.getStudentService();
+        this.courseService = context.getCourseService();
+        this.rankingService = context.getRankingService();
+        this.searchService = context.getSearchService();
+        this.reportEngine = context.getReportEngine();
+        this.transcriptCache = context.getTranscriptCache();
+        this.fileService = context.getFileService();
+        this.snapshotService = context.getSnapshotService();
+        this.config = context.getConfig();
+        this.backupMetrics = MetricsRegistry.getInstance().operation("backup.create");
     }
     
     public void start() {
@@ -68,8 +103,12 @@ public class CLIMenu {
                 case 8:
                     printJavaPlatformInfo();
                     break;
+                case 9:
+                    metricsOperations();
+                    break;
                 case 0:
                     System.out.println("Thank you for using CCRM. Goodbye!");
+                    context.close();
                     break mainLoop;
                 default:
                     System.out.println("Invalid choice. Please try again.");
@@ -88,6 +127,7 @@ public class CLIMenu {
         System.out.println("6. Backup Operations");
         System.out.println("7. Generate Reports");
         System.out.println("8. Java Platform Info");
+        System.out.println("9. Metrics");
         System.out.println("0. Exit");
         System.out.println("======================");
     }
@@ -103,6 +143,7 @@ public class CLIMenu {
             System.out.println("4. Deactivate Student");
             System.out.println("5. Search Students");
             System.out.println("6. View Student Transcript");
+            System.out.println("7. Alumni Directory");
             System.out.println("0. Back to Main Menu");
             
             choice = getIntInput("Enter your choice: ");
@@ -126,6 +167,9 @@ public class CLIMenu {
                 case 6:
                     viewStudentTranscript();
                     break;
+                case 7:
+                    alumniDirectory();
+                    break;
                 case 0:
                     return;
                 default:
@@ -156,6 +200,10 @@ public class CLIMenu {
             System.out.println("Student with ID " + id + " already exists.");
             return;
         }
+        if (studentService.findByRegNo(regNo) != null) {
+            System.out.println("Student with registration number " + regNo + " already exists.");
+            return;
+        }
         
         Student student = new Student.Builder()
             .id(id)
@@ -196,16 +244,16 @@ public class CLIMenu {
         String fullName = getStringInput("New Full Name (press enter to keep current): ");
         String email = getStringInput("New Email (press enter to keep current): ");
         
-        if (!fullName.isEmpty()) {
-            student.setFullName(fullName);
+        if (fullName.isEmpty()) {
+            fullName = student.getFullName();
         }
-        if (!email.isEmpty()) {
-            if (!ValidationUtil.isValidEmail(email)) {
-                System.out.println("Invalid email format. Email not updated.");
-            } else {
-                student.setEmail(email);
-            }
+        if (email.isEmpty()) {
+            email = student.getEmail();
+        } else if (!ValidationUtil.isValidEmail(email)) {
+            System.out.println("Invalid email format. Email not updated.");
+            email = student.getEmail();
         }
+        studentService.updateStudent(id, fullName, email);
         
         System.out.println("Student updated successfully!");
     }
@@ -223,17 +271,14 @@ public class CLIMenu {
     
     private void searchStudents() {
         System.out.println("\n--- Search Students ---");
-        String searchTerm = getStringInput("Enter name or email to search: ").toLowerCase();
+        String searchTerm = getStringInput("Enter name or email to search: ");
         
-        List<Student> results = studentService.search(student -> 
-            student.getFullName().toLowerCase().contains(searchTerm) ||
-            student.getEmail().toLowerCase().contains(searchTerm)
-        );
+        List<Student> results = searchService.searchStudents(searchTerm, SEARCH_LIMIT);
         
         if (results.isEmpty()) {
             System.out.println("No students found matching: " + searchTerm);
         } else {
-            System.out.println("Found " + results.size() + " student(s):");
+            System.out.println("Top " + results.size() + " student(s):");
             results.forEach(System.out::println);
         }
     }
@@ -247,31 +292,128 @@ public class CLIMenu {
             System.out.println("Student not found.");
             return;
         }
+        System.out.print(transcriptCache.get(student).format());
+    }
+    
+    // Alumni Directory Methods
+    private void alumniDirectory() {
+        StudentService alumni;
+        try {
+            alumni = context.getAlumniService();
+        } catch (IOException e) {
+            System.out.println("Could not open the alumni directory: " + e.getMessage());
+            return;
+        }
+        int choice;
+        do {
+            System.out.println("\n=== Alumni Directory ===");
+            System.out.println("1. Look Up Alumnus");
+            System.out.println("2. Archive Student");
+            System.out.println("3. Import Alumni from CSV");
+            System.out.println("4. Directory Statistics");
+            System.out.println("0. Back to Student Management");
+            
+            choice = getIntInput("Enter your choice: ");
+            
+            switch (choice) {
+                case 1:
+                    lookUpAlumnus(alumni);
+                    break;
+                case 2:
+                    archiveStudent(alumni);
+                    break;
+                case 3:
+                    importAlumniFromCSV(alumni);
+                    break;
+                case 4:
+                    printAlumniStatistics(alumni);
+                    break;
+                case 0:
+                    return;
+                default:
+                    System.out.println("Invalid choice.");
+            }
+        } while (choice != 0);
+    }
+    
+    private void lookUpAlumnus(StudentService alumni) {
+        System.out.println("\n--- Look Up Alumnus ---");
+        String key = getStringInput("Enter Registration Number or Student ID: ");
+        
+        Student student = alumni.findByRegNo(key);
+        if (student == null) {
+            student = alumni.findById(key);
+        }
+        if (student == null) {
+            System.out.println("Not found in the alumni directory.");
+            return;
+        }
+        // Not cached: the cache follows current students, who may share an id with an alumnus
+        System.out.print(Transcript.of(student).format());
+    }
+    
+    private void archiveStudent(StudentService alumni) {
+        System.out.println("\n--- Archive Student ---");
+        String regNo = getStringInput("Enter Registration Number of the student to archive: ");
         
-        System.out.println("\n=== Transcript for " + student.getFullName() + " ===");
-        System.out.println("Student ID: " + student.getId());
-        System.out.println("Registration No: " + student.getRegNo());
-        System.out.println("Email: " + student.getEmail());
-        System.out.println("\nEnrolled Courses:");
-        System.out.println("-----------------");
+        Student student = studentService.findByRegNo(regNo);
+        if (student == null) {
+            System.out.println("Student not found.");
+            return;
+        }
+        try {
+            BulkEnrollmentResult result = alumni.addCopy(student);
+            System.out.println("Archived " + student.getFullName() + " with " + result.getAccepted() + " enrollments.");
+            if (result.getRejected() > 0) {
+                System.out.println("Rejected " + result.getRejected() + " enrollments (" + result + ").");
+            }
+        } catch (IllegalArgumentException e) {
+            System.out.println("Archive failed: " + e.getMessage());
+        }
+    }
+    
+    private void importAlumniFromCSV(StudentService alumni) {
+        System.out.println("\n--- Import Alumni from CSV ---");
+        String studentsFile = getStringInput("Students CSV filename (in data folder): ");
+        String enrollmentsFile = getStringInput("Enrollments CSV filename (press enter to skip): ");
         
-        if (student.getEnrollments().isEmpty()) {
-            System.out.println("No courses enrolled.");
-        } else {
-            student.getEnrollments().forEach(enrollment -> {
-                Course course = enrollment.getCourse();
-                String status = enrollment.isGraded() ? 
-                    String.format("Marks: %.2f, Grade: %s", enrollment.getMarks(), enrollment.getGrade()) : 
-                    "Not Graded";
-                System.out.printf("%s - %s (%d credits) - %s%n", 
-                    course.getCode(), course.getTitle(), course.getCredits(), status);
-            });
+        try {
+            int[] imported = {0};
+            fileService.importStudents(config.getDataDirectory().resolve(studentsFile), batch -> {
+                for (Student student : batch) {
+                    try {
+                        alumni.addStudent(student);
+                        imported[0]++;
+                    } catch (IllegalArgumentException e) {
+                        System.out.println("Skipped: " + e.getMessage());
+                    }
+                }
+            }, config.getImportBatchSize());
+            System.out.println("Successfully imported " + imported[0] + " alumni.");
             
-            double gpa = student.calculateGPA();
-            System.out.printf("%nOverall GPA: %.2f%n", gpa);
+            if (!enrollmentsFile.isEmpty()) {
+                BulkEnrollmentResult result = fileService.importEnrollments(
+                    config.getDataDirectory().resolve(enrollmentsFile), alumni, courseService, config.getImportBatchSize());
+                System.out.println("Successfully imported " + result.getAccepted() + " enrollments.");
+                if (result.getRejected() > 0) {
+                    System.out.println("Rejected " + result.getRejected() + " rows (" + result + ").");
+                }
+            }
+        } catch (DataAccessException e) {
+            System.out.println("Import failed: " + e.getMessage());
         }
     }
     
+    private void printAlumniStatistics(StudentService alumni) {
+        MappedStudentStore store = (MappedStudentStore) alumni.getStore();
+        System.out.println("\n--- Alumni Directory ---");
+        System.out.println("Location: " + store.getDirectory().toAbsolutePath());
+        System.out.printf("Alumni: %d, enrollments: %d, on disk: %.1f MB%n",
+            store.size(), store.getEnrollmentCount(), store.getMappedBytes() / (1024.0 * 1024.0));
+        System.out.printf("Cached: %d of %d, found in memory: %d, loaded from disk: %d%n",
+            store.getCachedCount(), config.getAlumniCacheSize(), store.getCacheHits(), store.getCacheMisses());
+    }
+    
     // Course Management Methods
     private void manageCourses() {
         int choice;
@@ -284,6 +426,7 @@ public class CLIMenu {
             System.out.println("5. Search Courses");
             System.out.println("6. Filter Courses by Department");
             System.out.println("7. Filter Courses by Instructor");
+            System.out.println("8. View Class List and Statistics");
             System.out.println("0. Back to Main Menu");
             
             choice = getIntInput("Enter your choice: ");
@@ -310,6 +453,9 @@ public class CLIMenu {
                 case 7:
                     filterCoursesByInstructor();
                     break;
+                case 8:
+                    viewClassList();
+                    break;
                 case 0:
                     return;
                 default:
@@ -331,6 +477,11 @@ public class CLIMenu {
             return;
         }
         
+        if (courseService.findByCode(code) != null) {
+            System.out.println("Course with code " + code + " already exists.");
+            return;
+        }
+        
         // Show semester options
         System.out.println("Available Semesters:");
         for (Semester semester : Semester.values()) {
@@ -390,14 +541,12 @@ public class CLIMenu {
         String department = getStringInput("New Department (press enter to keep current): ");
         String creditsStr = getStringInput("New Credits (press enter to keep current): ");
         
-        if (!title.isEmpty()) course.setTitle(title);
-        if (!instructor.isEmpty()) course.setInstructor(instructor);
-        if (!department.isEmpty()) course.setDepartment(department);
+        int credits = course.getCredits();
         if (!creditsStr.isEmpty()) {
             try {
-                int credits = Integer.parseInt(creditsStr);
-                if (ValidationUtil.isValidCredits(credits)) {
-                    course.setCredits(credits);
+                int newCredits = Integer.parseInt(creditsStr);
+                if (ValidationUtil.isValidCredits(newCredits)) {
+                    credits = newCredits;
                 } else {
                     System.out.println("Invalid credits. Not updated.");
                 }
@@ -406,6 +555,13 @@ public class CLIMenu {
             }
         }
         
+        // Route the update through the service so the catalog indexes stay current
+        courseService.updateCourse(code,
+            title.isEmpty() ? course.getTitle() : title,
+            credits,
+            instructor.isEmpty() ? course.getInstructor() : instructor,
+            department.isEmpty() ? course.getDepartment() : department);
+        
         System.out.println("Course updated successfully!");
     }
     
@@ -422,17 +578,14 @@ public class CLIMenu {
     
     private void searchCourses() {
         System.out.println("\n--- Search Courses ---");
-        String searchTerm = getStringInput("Enter course title or code to search: ").toLowerCase();
+        String searchTerm = getStringInput("Enter course title or code to search: ");
         
-        List<Course> results = courseService.search(course -> 
-            course.getTitle().toLowerCase().contains(searchTerm) ||
-            course.getCode().toLowerCase().contains(searchTerm)
-        );
+        List<Course> results = searchService.searchCourses(searchTerm, SEARCH_LIMIT);
         
         if (results.isEmpty()) {
             System.out.println("No courses found matching: " + searchTerm);
         } else {
-            System.out.println("Found " + results.size() + " course(s):");
+            System.out.println("Top " + results.size() + " course(s):");
             results.forEach(System.out::println);
         }
     }
@@ -469,6 +622,38 @@ public class CLIMenu {
         }
     }
     
+    private void viewClassList() {
+        System.out.println("\n--- Class List and Statistics ---");
+        String code = getStringInput("Enter Course Code: ");
+        
+        Course course = courseService.findByCode(code);
+        if (course == null) {
+            System.out.println("Course not found.");
+            return;
+        }
+        
+        List<Enrollment> roster = courseService.getRoster(code);
+        System.out.println("Class list for " + course.getCode() + " - " + course.getTitle() + ":");
+        roster.forEach(enrollment -> {
+            Student student = enrollment.getStudent();
+            System.out.printf("%-10s %-25s %s%n", student.getRegNo(), student.getFullName(),
+                enrollment.isGraded() ? String.format("%.2f (%s)", enrollment.getMarks(), enrollment.getGrade())
+                                      : "Not Graded");
+        });
+        
+        CourseService.CourseStatistics stats = courseService.getStatistics(code);
+        System.out.printf("%nHeadcount: %d, graded: %d%n", stats.getHeadcount(), stats.getGradedCount());
+        OptionalDouble average = stats.getAverageMarks();
+        if (average.isPresent()) {
+            System.out.printf("Average marks: %.2f%n", average.getAsDouble());
+            StringBuilder distribution = new StringBuilder("Grades:");
+            for (Grade grade : Grade.values()) {
+                distribution.append(' ').append(grade).append('=').append(stats.getGradeCount(grade));
+            }
+            System.out.println(distribution);
+        }
+    }
+    
     // Enrollment Management Methods
     private void manageEnrollments() {
         int choice;
@@ -604,13 +789,7 @@ public class CLIMenu {
             return;
         }
         
-        // Find the enrollment
-        Enrollment enrollment = student.getEnrollments().stream()
-            .filter(e -> e.getCourse().getCode().equals(courseCode))
-            .findFirst()
-            .orElse(null);
-            
-        if (enrollment == null) {
+        if (!student.isEnrolledIn(courseCode)) {
             System.out.println("Student is not enrolled in that course.");
             return;
         }
@@ -621,7 +800,7 @@ public class CLIMenu {
             return;
         }
         
-        enrollment.recordMarks(marks);
+        Enrollment enrollment = studentService.recordMarks(student, courseCode, marks);
         System.out.printf("Marks recorded successfully! Grade: %s%n", enrollment.getGrade());
     }
     
@@ -635,29 +814,7 @@ public class CLIMenu {
             return;
         }
         
-        List<Enrollment> enrollments = student.getEnrollments();
-        if (enrollments.isEmpty()) {
-            System.out.println("Student has no enrollments.");
-        } else {
-            System.out.println("Grades for " + student.getFullName() + ":");
-            System.out.println("Course Code | Course Title | Marks | Grade");
-            System.out.println("------------------------------------------");
-            
-            enrollments.forEach(enrollment -> {
-                Course course = enrollment.getCourse();
-                if (enrollment.isGraded()) {
-                    System.out.printf("%-11s | %-12s | %5.2f | %s%n",
-                        course.getCode(), course.getTitle(), 
-                        enrollment.getMarks(), enrollment.getGrade());
-                } else {
-                    System.out.printf("%-11s | %-12s | %5s | %s%n",
-                        course.getCode(), course.getTitle(), "N/A", "Not Graded");
-                }
-            });
-            
-            double gpa = student.calculateGPA();
-            System.out.printf("%nOverall GPA: %.2f%n", gpa);
-        }
+        System.out.print(transcriptCache.get(student).formatGradeSheet());
     }
     
     // Import/Export Methods
@@ -669,6 +826,13 @@ public class CLIMenu {
             System.out.println("2. Import Courses from CSV");
             System.out.println("3. Export Students to CSV");
             System.out.println("4. Export Courses to CSV");
+            System.out.println("5. Import Enrollments from CSV");
+            System.out.println("6. Export Enrollments to CSV");
+            System.out.println("7. Bulk Import (courses, students, enrollments)");
+            System.out.println("8. Save Binary Snapshot");
+            System.out.println("9. Load Binary Snapshot");
+            System.out.println("10. Compact Journal into Snapshot");
+            System.out.println("11. Export Transcripts (bulk)");
             System.out.println("0. Back to Main Menu");
             
             choice = getIntInput("Enter your choice: ");
@@ -686,6 +850,27 @@ public class CLIMenu {
                 case 4:
                     exportCoursesToCSV();
                     break;
+                case 5:
+                    importEnrollmentsFromCSV();
+                    break;
+                case 6:
+                    exportEnrollmentsToCSV();
+                    break;
+                case 7:
+                    bulkImport();
+                    break;
+                case 8:
+                    saveSnapshot();
+                    break;
+                case 9:
+                    loadSnapshot();
+                    break;
+                case 10:
+                    compactJournal();
+                    break;
+                case 11:
+                    exportTranscripts();
+                    break;
                 case 0:
                     return;
                 default:
@@ -700,9 +885,19 @@ public class CLIMenu {
         Path filePath = config.getDataDirectory().resolve(filename);
         
         try {
-            List<Student> students = fileService.importStudents(filePath);
-            students.forEach(studentService::addStudent);
-            System.out.println("Successfully imported " + students.size() + " students.");
+            int[] imported = {0};
+            // Rows are pushed into the service batch by batch as they are parsed
+            context.withDeferredSync(() -> fileService.importStudents(filePath, batch -> {
+                for (Student student : batch) {
+                    try {
+                        studentService.addStudent(student);
+                        imported[0]++;
+                    } catch (IllegalArgumentException e) {
+                        System.out.println("Skipped: " + e.getMessage());
+                    }
+                }
+            }, config.getImportBatchSize()));
+            System.out.println("Successfully imported " + imported[0] + " students.");
         } catch (DataAccessException e) {
             System.out.println("Import failed: " + e.getMessage());
         }
@@ -714,9 +909,18 @@ public class CLIMenu {
         Path filePath = config.getDataDirectory().resolve(filename);
         
         try {
-            List<Course> courses = fileService.importCourses(filePath);
-            courses.forEach(courseService::addCourse);
-            System.out.println("Successfully imported " + courses.size() + " courses.");
+            int[] imported = {0};
+            context.withDeferredSync(() -> fileService.importCourses(filePath, batch -> {
+                for (Course course : batch) {
+                    try {
+                        courseService.addCourse(course);
+                        imported[0]++;
+                    } catch (IllegalArgumentException e) {
+                        System.out.println("Skipped: " + e.getMessage());
+                    }
+                }
+            }, config.getImportBatchSize()));
+            System.out.println("Successfully imported " + imported[0] + " courses.");
         } catch (DataAccessException e) {
             System.out.println("Import failed: " + e.getMessage());
         }
@@ -748,10 +952,168 @@ public class CLIMenu {
         }
     }
     
+    private void importEnrollmentsFromCSV() {
+        System.out.println("\n--- Import Enrollments from CSV ---");
+        String filename = getStringInput("Enter CSV filename (in data folder): ");
+        Path filePath = config.getDataDirectory().resolve(filename);
+        
+        try {
+            BulkEnrollmentResult[] results = new BulkEnrollmentResult[1];
+            context.withDeferredSync(() -> results[0] = fileService.importEnrollments(
+                filePath, studentService, courseService, config.getImportBatchSize()));
+            BulkEnrollmentResult result = results[0];
+            System.out.println("Successfully imported " + result.getAccepted() + " enrollments.");
+            if (result.getRejected() > 0) {
+                System.out.println("Rejected " + result.getRejected() + " rows (" + result + "):");
+                result.getMessages().forEach(message -> System.out.println("  " + message));
+            }
+        } catch (DataAccessException e) {
+            System.out.println("Import failed: " + e.getMessage());
+        }
+    }
+    
+    private void exportEnrollmentsToCSV() {
+        System.out.println("\n--- Export Enrollments to CSV ---");
+        String filename = getStringInput("Enter CSV filename: ");
+        Path filePath = config.getDataDirectory().resolve(filename);
+        
+        try {
+            fileService.exportEnrollments(studentService.getAllStudents(), filePath);
+            System.out.println("Enrollments exported successfully to: " + filePath);
+        } catch (DataAccessException e) {
+            System.out.println("Export failed: " + e.getMessage());
+        }
+    }
+    
+    private void bulkImport() {
+        System.out.println("\n--- Bulk Import ---");
+        System.out.println("Files are read from the data folder; press enter to skip one.");
+        String coursesFile = getStringInput("Courses CSV: ");
+        String studentsFile = getStringInput("Students CSV: ");
+        String enrollmentsFile = getStringInput("Enrollments CSV: ");
+        
+        ImportPipeline pipeline = new ImportPipeline.Builder()
+            .chunkSize(config.getImportBatchSize())
+            .build();
+        try {
+            ImportPipeline.Result[] results = new ImportPipeline.Result[1];
+            context.withDeferredSync(() -> results[0] = pipeline.run(
+                coursesFile.isEmpty() ? null : config.getDataDirectory().resolve(coursesFile),
+                studentsFile.isEmpty() ? null : config.getDataDirectory().resolve(studentsFile),
+                enrollmentsFile.isEmpty() ? null : config.getDataDirectory().resolve(enrollmentsFile),
+                studentService, courseService));
+            ImportPipeline.Result result = results[0];
+            
+            for (ImportPipeline.Lane lane : ImportPipeline.Lane.values()) {
+                System.out.printf("%-12s read=%d committed=%d rejected=%d%n", lane,
+                    result.getRead(lane), result.getCommitted(lane), result.getRejected(lane));
+                for (ImportPipeline.Stage stage : ImportPipeline.Stage.values()) {
+                    System.out.printf("    %-9s queue depth max=%d avg=%.1f%n", stage,
+                        result.getMaxQueueDepth(lane, stage), result.getAverageQueueDepth(lane, stage));
+                }
+            }
+            System.out.printf("Imported %d rows in %.2fs (%.0f rows/s)%n",
+                result.getTotalRead(), result.getElapsedSeconds(), result.getRowsPerSecond());
+            result.getMessages().forEach(message -> System.out.println("  " + message));
+        } catch (DataAccessException e) {
+            System.out.println("Import failed: " + e.getMessage());
+        }
+    }
+    
+    private void saveSnapshot() {
+        System.out.println("\n--- Save Binary Snapshot ---");
+        try {
+            long start = System.nanoTime();
+            SnapshotService.SnapshotInfo info = snapshotService.save(
+                config.getSnapshotFile(), studentService, courseService);
+            System.out.printf("Saved %s to %s in %.2fs%n", info, config.getSnapshotFile(),
+                (System.nanoTime() - start) / 1e9);
+        } catch (DataAccessException e) {
+            System.out.println("Snapshot failed: " + e.getMessage());
+        }
+    }
+    
+    private void loadSnapshot() {
+        System.out.println("\n--- Load Binary Snapshot ---");
+        String filename = getStringInput("Snapshot filename (press enter for " + config.getSnapshotFile() + "): ");
+        Path file = filename.isEmpty() ? config.getSnapshotFile() : config.getDataDirectory().resolve(filename);
+        try {
+            long start = System.nanoTime();
+            SnapshotService.SnapshotInfo[] info = new SnapshotService.SnapshotInfo[1];
+            context.withDeferredSync(() -> info[0] = snapshotService.load(file, studentService, courseService));
+            System.out.printf("Loaded %s in %.2fs%n", info[0], (System.nanoTime() - start) / 1e9);
+        } catch (DataAccessException e) {
+            System.out.println("Snapshot load failed: " + e.getMessage());
+        }
+    }
+    
+    private void compactJournal() {
+        System.out.println("\n--- Compact Journal into Snapshot ---");
+        JournalService journal = context.getJournal();
+        if (journal == null) {
+            System.out.println("Journaling is not active.");
+            return;
+        }
+        long before = journal.getSize();
+        System.out.printf("Journal: %d bytes, %d changes written with %d fsyncs%n",
+            before, journal.getAppendedCount(), journal.getSyncCount());
+        try {
+            long start = System.nanoTime();
+            journal.saveToFile(config.getSnapshotFile().toString());
+            System.out.printf("Compacted into %s in %.2fs; journal is now %d bytes%n",
+                config.getSnapshotFile(), (System.nanoTime() - start) / 1e9, journal.getSize());
+        } catch (DataAccessException e) {
+            System.out.println("Compaction failed: " + e.getMessage());
+        }
+    }
+    
+    private void exportTranscripts() {
+        System.out.println("\n--- Export Transcripts ---");
+        System.out.println("Transcripts are written for active students; press enter to skip a filter.");
+        String courseCode = getStringInput("Only students enrolled in course: ");
+        String regNoPrefix = getStringInput("Only registration numbers starting with: ");
+        String minGpaText = getStringInput("Only students with GPA at least: ");
+        Double minGpa = null;
+        if (!minGpaText.isEmpty()) {
+            try {
+                minGpa = Double.parseDouble(minGpaText);
+            } catch (NumberFormatException e) {
+                System.out.println("Invalid GPA.");
+                return;
+            }
+        }
+        System.out.println("1. One file per student");
+        System.out.println("2. One combined file");
+        int layoutChoice = getIntInput("Choose layout: ");
+        if (layoutChoice != 1 && layoutChoice != 2) {
+            System.out.println("Invalid choice.");
+            return;
+        }
+        TranscriptExport.Layout layout = layoutChoice == 1
+            ? TranscriptExport.Layout.FILE_PER_STUDENT : TranscriptExport.Layout.SINGLE_FILE;
+        String name = getStringInput(layoutChoice == 1
+            ? "Folder name (in data folder): " : "File name (in data folder): ");
+        Path target = config.getDataDirectory().resolve(name);
+        
+        List<Student> cohort = studentService.search(TranscriptExport.cohort(
+            courseCode.isEmpty() ? null : courseCode,
+            regNoPrefix.isEmpty() ? null : regNoPrefix, minGpa));
+        System.out.println("Exporting " + cohort.size() + " transcripts...");
+        try {
+            TranscriptExport.Result result = new TranscriptExport.Builder().build()
+                .run(cohort, target, layout, progress -> System.out.println("  " + progress));
+            System.out.println("Exported " + result + " to: " + target);
+        } catch (DataAccessException e) {
+            System.out.println("Export failed: " + e.getMessage());
+        }
+    }
+    
     // Backup Operations
     private void backupOperations() {
         System.out.println("\n=== Backup Operations ===");
         
+        long start = backupMetrics.start();
+        boolean created = false;
         try {
             // Create timestamped backup folder
             String timestamp = LocalDateTime.now().format(DateTimeFormatter.ofPattern("yyyyMMdd_HHmmss"));
@@ -761,6 +1123,9 @@ public class CLIMenu {
             // Export data to backup folder
             fileService.exportStudents(studentService.getAllStudents(), backupPath.resolve("students.csv"));
             fileService.exportCourses(courseService.getAllCourses(), backupPath.resolve("courses.csv"));
+            fileService.exportEnrollments(studentService.getAllStudents(), backupPath.resolve("enrollments.csv"));
+            created = true;
+            backupMetrics.record(start);
             
             // Calculate backup size recursively
             long size = fileService.calculateDirectorySize(backupPath);
@@ -773,6 +1138,9 @@ public class CLIMenu {
             backupFiles.forEach(file -> System.out.println("  " + file));
             
         } catch (Exception e) {
+            if (!created) {
+                backupMetrics.record(start, false);
+            }
             System.err.println("Backup failed: " + e.getMessage());
         }
     }
@@ -785,6 +1153,12 @@ public class CLIMenu {
             System.out.println("1. GPA Distribution Report");
             System.out.println("2. Course Enrollment Report");
             System.out.println("3. Top Performing Students");
+            System.out.println("4. Top Students by Department/Semester");
+            System.out.println("5. Student Rank Lookup");
+            System.out.println("6. End-of-Term Summary");
+            System.out.println("7. Query Courses");
+            System.out.println("8. Query Students by GPA");
+            System.out.println("9. Memory Footprint");
             System.out.println("0. Back to Main Menu");
             
             choice = getIntInput("Enter your choice: ");
@@ -799,6 +1173,24 @@ public class CLIMenu {
                 case 3:
                     generateTopStudentsReport();
                     break;
+                case 4:
+                    generateFilteredTopStudentsReport();
+                    break;
+                case 5:
+                    lookupStudentRank();
+                    break;
+                case 6:
+                    generateTermSummary();
+                    break;
+                case 7:
+                    queryCourses();
+                    break;
+                case 8:
+                    queryStudentsByGpa();
+                    break;
+                case 9:
+                    printMemoryFootprint();
+                    break;
                 case 0:
                     return;
                 default:
@@ -807,46 +1199,41 @@ public class CLIMenu {
         } while (choice != 0);
     }
     
+    private void printMemoryFootprint() {
+        System.out.println("\n=== Memory Footprint ===");
+        MemoryFootprint.Report report = MemoryFootprint.measure(studentService.getAllStudents(),
+            courseService.getAllCourses(), context.getEnrollmentStore().getFootprintBytes());
+        System.out.print(report.format());
+    }
+    
     private void generateGPADistribution() {
         System.out.println("\n=== GPA Distribution Report ===");
         
-        // Using Streams API for data processing
-        var gpaDistribution = studentService.getAllStudents().stream()
-            .filter(Student::isActive)
-            .collect(Collectors.groupingBy(
-                student -> {
-                    double gpa = student.calculateGPA();
-                    if (gpa >= 9.0) return "A+ (9.0-10.0)";
-                    else if (gpa >= 8.0) return "A (8.0-8.9)";
-                    else if (gpa >= 7.0) return "B (7.0-7.9)";
-                    else if (gpa >= 6.0) return "C (6.0-6.9)";
-                    else if (gpa >= 5.0) return "D (5.0-5.9)";
-                    else return "F (Below 5.0)";
-                },
-                Collectors.counting()
-            ));
-        
-        if (gpaDistribution.isEmpty()) {
+        printGPADistribution(reportEngine.generate());
+    }
+        
+    private void printGPADistribution(ReportEngine.TermReport report) {
+        List<ReportEngine.GpaBand> bands = Arrays.stream(ReportEngine.GpaBand.values())
+            .filter(band -> report.getStudentsInBand(band) > 0)
+            .sorted((b1, b2) -> Long.compare(report.getStudentsInBand(b2), report.getStudentsInBand(b1)))
+            .collect(Collectors.toList());
+        
+        if (bands.isEmpty()) {
             System.out.println("No GPA data available.");
         } else {
-            gpaDistribution.entrySet().stream()
-                .sorted((e1, e2) -> e2.getValue().compareTo(e1.getValue()))
-                .forEach(entry -> 
-                    System.out.printf("%-15s: %d students%n", entry.getKey(), entry.getValue())
-                );
+            bands.forEach(band -> 
+                System.out.printf("%-15s: %d students%n", band.getLabel(), report.getStudentsInBand(band))
+            );
         }
     }
     
     private void generateCourseEnrollmentReport() {
         System.out.println("\n=== Course Enrollment Report ===");
+        printCourseEnrollments(reportEngine.generate());
+    }
         
-        // Using Streams to aggregate enrollment data
-        var enrollmentStats = studentService.getAllStudents().stream()
-            .flatMap(student -> student.getEnrollments().stream())
-            .collect(Collectors.groupingBy(
-                enrollment -> enrollment.getCourse().getCode(),
-                Collectors.counting()
-            ));
+    private void printCourseEnrollments(ReportEngine.TermReport report) {
+        var enrollmentStats = report.getEnrollmentCounts();
         
         if (enrollmentStats.isEmpty()) {
             System.out.println("No enrollment data available.");
@@ -859,26 +1246,157 @@ public class CLIMenu {
         }
     }
     
+    private void generateTermSummary() {
+        System.out.println("\n=== End-of-Term Summary ===");
+        
+        // One scan produces every aggregate below
+        ReportEngine.TermReport report = reportEngine.generate();
+        
+        System.out.println("\n--- GPA Distribution ---");
+        printGPADistribution(report);
+        
+        System.out.println("\n--- Course Enrollments ---");
+        printCourseEnrollments(report);
+        
+        System.out.println("\n--- Grade Distribution by Course ---");
+        report.getEnrollmentCounts().keySet().forEach(code -> {
+            StringBuilder line = new StringBuilder(String.format("%-10s", code));
+            for (Grade grade : Grade.values()) {
+                line.append(String.format(" %s:%-4d", grade.getSymbol(), report.getGradeCount(code, grade)));
+            }
+            System.out.println(line);
+        });
+        
+        System.out.println("\n--- Enrolled Credits by Department ---");
+        report.getCreditsByDepartment().forEach((department, credits) ->
+            System.out.printf("%-20s: %d credits%n", department, credits)
+        );
+    }
+    
     private void generateTopStudentsReport() {
         System.out.println("\n=== Top Performing Students ===");
         
-        var topStudents = studentService.getAllStudents().stream()
-            .filter(Student::isActive)
-            .filter(student -> !student.getEnrollments().isEmpty())
-            .sorted((s1, s2) -> Double.compare(s2.calculateGPA(), s1.calculateGPA()))
-            .limit(5)
-            .collect(Collectors.toList());
+        // Read straight off the maintained leaderboard instead of sorting everyone
+        var topStudents = rankingService.getLeaderboard(5);
         
         if (topStudents.isEmpty()) {
             System.out.println("No student data available.");
         } else {
             System.out.println("Top 5 Students by GPA:");
-            topStudents.forEach(student -> 
-                System.out.printf("%s - GPA: %.2f%n", student.getFullName(), student.calculateGPA())
+            topStudents.forEach(ranked -> 
+                System.out.printf("%s - GPA: %.2f%n", ranked.getStudent().getFullName(), ranked.getGpa())
             );
         }
     }
     
+    private void generateFilteredTopStudentsReport() {
+        System.out.println("\n=== Top Students by Department/Semester ===");
+        int k = getIntInput("How many students: ");
+        if (k <= 0) {
+            System.out.println("Count must be positive.");
+            return;
+        }
+        String department = getStringInput("Department (press enter for all): ");
+        
+        System.out.println("Semesters: 0. All");
+        for (Semester semester : Semester.values()) {
+            System.out.println(semester.ordinal() + 1 + ". " + semester.getDisplayName());
+        }
+        int semesterChoice = getIntInput("Select Semester: ");
+        if (semesterChoice < 0 || semesterChoice > Semester.values().length) {
+            System.out.println("Invalid semester choice.");
+            return;
+        }
+        Semester semester = semesterChoice == 0 ? null : Semester.values()[semesterChoice - 1];
+        
+        var topStudents = rankingService.topK(k, department.isEmpty() ? null : department, semester);
+        if (topStudents.isEmpty()) {
+            System.out.println("No matching students found.");
+        } else {
+            int rank = 1;
+            for (var ranked : topStudents) {
+                System.out.printf("%d. %s (%s) - GPA: %.2f%n", rank++,
+                    ranked.getStudent().getFullName(), ranked.getStudent().getRegNo(), ranked.getGpa());
+            }
+        }
+    }
+    
+    private void queryCourses() {
+        System.out.println("\n=== Query Courses ===");
+        Query.Builder<Course> query = new Query.Builder<Course>().where(CourseField.ACTIVE, true);
+        String department = getStringInput("Department (press enter for any): ");
+        if (!department.isEmpty()) {
+            query.where(CourseField.DEPARTMENT, department);
+        }
+        String instructor = getStringInput("Instructor (press enter for any): ");
+        if (!instructor.isEmpty()) {
+            query.where(CourseField.INSTRUCTOR, instructor);
+        }
+        int minCredits = getIntInput("Minimum credits (press enter for any): ");
+        if (minCredits > 0) {
+            query.atLeast(CourseField.CREDITS, minCredits);
+        }
+        int maxCredits = getIntInput("Maximum credits (press enter for any): ");
+        if (maxCredits > 0) {
+            query.atMost(CourseField.CREDITS, maxCredits);
+        }
+        query.orderBy(CourseField.CODE);
+        
+        Query<Course> built = query.build();
+        System.out.println("Plan: " + courseService.explain(built));
+        List<Course> courses = courseService.search(built);
+        if (courses.isEmpty()) {
+            System.out.println("No matching courses found.");
+        } else {
+            courses.forEach(course -> System.out.printf("%s - %s (%d credits, %s, %s)%n", course.getCode(),
+                course.getTitle(), course.getCredits(), course.getDepartment(), course.getInstructor()));
+        }
+    }
+    
+    private void queryStudentsByGpa() {
+        System.out.println("\n=== Query Students by GPA ===");
+        double minGpa = getDoubleInput("Minimum GPA: ");
+        double maxGpa = getDoubleInput("Maximum GPA: ");
+        if (minGpa < 0 || maxGpa < minGpa) {
+            System.out.println("Invalid GPA range.");
+            return;
+        }
+        int limit = getIntInput("Maximum results: ");
+        if (limit <= 0) {
+            System.out.println("Count must be positive.");
+            return;
+        }
+        
+        Query<Student> query = new Query.Builder<Student>()
+            .where(StudentField.ACTIVE, true)
+            .between(StudentField.GPA, minGpa, maxGpa)
+            .orderByDescending(StudentField.GPA)
+            .limit(limit)
+            .build();
+        System.out.println("Plan: " + studentService.explain(query));
+        List<Student> students = studentService.search(query);
+        if (students.isEmpty()) {
+            System.out.println("No matching students found.");
+        } else {
+            students.forEach(student -> System.out.printf("%s (%s) - GPA: %.2f%n",
+                student.getFullName(), student.getRegNo(), student.calculateGPA()));
+        }
+    }
+    
+    private void lookupStudentRank() {
+        System.out.println("\n=== Student Rank Lookup ===");
+        String regNo = getStringInput("Enter Student Registration Number: ");
+        
+        OptionalInt rank = rankingService.getRank(regNo);
+        OptionalDouble percentile = rankingService.getPercentile(regNo);
+        if (rank.isEmpty() || percentile.isEmpty()) {
+            System.out.println("Student is not ranked (unknown, inactive or not enrolled).");
+            return;
+        }
+        System.out.printf("Rank: %d of %d (percentile %.1f)%n",
+            rank.getAsInt(), rankingService.getRankedCount(), percentile.getAsDouble());
+    }
+    
     private void printJavaPlatformInfo() {
         System.out.println("\n=== Java Platform Information ===");
         System.out.println("Java Version: " + System.getProperty("java.version"));
@@ -890,83 +1408,54 @@ public class CLIMenu {
         System.out.println("\nThis application uses Java SE (Standard Edition)");
     }
     
-    // Utility methods
-    private void loadSampleData() {
-        // Sample students
-        Student student1 = new Student.Builder()
-            .id("S001")
-            .regNo("2023001")
-            .fullName("John Doe")
-            .email("john.doe@university.edu")
-            .build();
-            
-        Student student2 = new Student.Builder()
-            .id("S002")
-            .regNo("2023002")
-            .fullName("Jane Smith")
-            .email("jane.smith@university.edu")
-            .build();
-            
-        Student student3 = new Student.Builder()
-            .id("S003")
-            .regNo("2023003")
-            .fullName("Bob Johnson")
-            .email("bob.johnson@university.edu")
-            .build();
-            
-        studentService.addStudent(student1);
-        studentService.addStudent(student2);
-        studentService.addStudent(student3);
-        
-        // Sample courses
-        Course course1 = new Course.Builder()
-            .code("CS101")
-            .title("Introduction to Computer Science")
-            .credits(3)
-            .instructor("Dr. Smith")
-            .semester(Semester.FALL)
-            .department("Computer Science")
-            .build();
-            
-        Course course2 = new Course.Builder()
-            .code("MATH201")
-            .title("Calculus I")
-            .credits(4)
-            .instructor("Dr. Johnson")
-            .semester(Semester.FALL)
-            .department("Mathematics")
-            .build();
-            
-        Course course3 = new Course.Builder()
-            .code("PHY101")
-            .title("Physics Fundamentals")
-            .credits(3)
-            .instructor("Dr. Brown")
-            .semester(Semester.SPRING)
-            .department("Physics")
-            .build();
-            
-        courseService.addCourse(course1);
-        courseService.addCourse(course2);
-        courseService.addCourse(course3);
-        
-        // Sample enrollments and grades
-        try {
-            studentService.enrollInCourse(student1, course1);
-            studentService.enrollInCourse(student1, course2);
-            studentService.enrollInCourse(student2, course1);
-            studentService.enrollInCourse(student3, course3);
+    // Operation Metrics
+    private void metricsOperations() {
+        MetricsRegistry registry = MetricsRegistry.getInstance();
+        MetricsReporter reporter = context.getMetricsReporter();
+        int choice;
+        do {
+            System.out.println("\n=== Metrics ===");
+            System.out.println("1. Show Operation Latencies");
+            System.out.println("2. Write Metrics to " + reporter.getFile());
+            System.out.println("3. Reset Metrics");
+            System.out.println("4. " + (registry.isEnabled() ? "Disable" : "Enable") + " Metrics");
+            System.out.println("0. Back to Main Menu");
             
-            // Record some grades
-            student1.getEnrollments().get(0).recordMarks(85.5); // CS101
-            student1.getEnrollments().get(1).recordMarks(92.0); // MATH201
-            student2.getEnrollments().get(0).recordMarks(78.0); // CS101
+            choice = getIntInput("Enter your choice: ");
             
-        } catch (Exception e) {
-            System.out.println("Error setting up sample data: " + e.getMessage());
-        }
+            switch (choice) {
+                case 1:
+                    if (registry.getOperations().stream().allMatch(op -> op.snapshot().getCount() == 0)) {
+                        System.out.println("No operations recorded yet.");
+                    } else {
+                        System.out.print(MetricsReporter.formatTable(registry));
+                    }
+                    break;
+                case 2:
+                    try {
+                        int written = reporter.dump();
+                        System.out.println("Wrote " + written + " operations to " + reporter.getFile());
+                    } catch (IOException e) {
+                        System.out.println("Metrics dump failed: " + e.getMessage());
+                    }
+                    break;
+                case 3:
+                    reporter.reset();
+                    System.out.println("Metrics reset.");
+                    break;
+                case 4:
+                    registry.setEnabled(!registry.isEnabled());
+                    System.out.println("Metrics " + (registry.isEnabled() ? "enabled." : "disabled."));
+                    break;
+                case 0:
+                    return;
+                default:
+                    System.out.println("Invalid choice.");
+            }
+        } while (choice != 0);
     }
     
+    // Utility methods
     private int getIntInput(String prompt) {
         System.out.print(prompt);
         try {
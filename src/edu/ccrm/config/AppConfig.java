@@ -5,27 +5,53 @@ import java.nio.file.Paths;
 import java.time.format.DateTimeFormatter;
 
 public class AppConfig {
-    private static AppConfig instance;
     private Path dataDirectory;
     private Path backupDirectory;
+    private Path snapshotFile;
+    private Path journalFile;
+    private Path metricsFile;
+    private Path alumniDirectory;
     private DateTimeFormatter dateFormatter;
+    // Tunables may be changed while worker threads read them
+    private volatile int importBatchSize;
+    private volatile long journalSyncIntervalMillis;
+    private int serverPort;
+    private int serverMaxConcurrentRequests;
+    private long metricsDumpIntervalSeconds;
+    private int alumniCacheSize;
+    private int transcriptCacheSize;
     
     private AppConfig() {
         // Private constructor for singleton
         initializeDefaults();
     }
     
+    // Initialization-on-demand holder: created once, on first use, without locking
+    private static final class Holder {
+        private static final AppConfig INSTANCE = new AppConfig();
+    }
+    
     public static AppConfig getInstance() {
-        if (instance == null) {
-            instance = new AppConfig();
-        }
-        return instance;
+        return Holder.INSTANCE;
     }
     
     private void initializeDefaults() {
         this.dataDirectory = Paths.get("data");
         this.backupDirectory = Paths.get("backups");
+        this.snapshotFile = dataDirectory.resolve("ccrm.snapshot");
+        this.journalFile = dataDirectory.resolve("ccrm.journal");
+        this.metricsFile = dataDirectory.resolve("ccrm-metrics.csv");
+        this.alumniDirectory = dataDirectory.resolve("alumni");
         this.dateFormatter = DateTimeFormatter.ofPattern("yyyy-MM-dd HH:mm:ss");
+        this.importBatchSize = 1000;
+        // Writers arriving within this window share one fsync
+        this.journalSyncIntervalMillis = 5;
+        this.serverPort = 8080;
+        this.serverMaxConcurrentRequests = 256;
+        this.metricsDumpIntervalSeconds = 60;
+        // Alumni kept materialized on the heap, most recently used first
+        this.alumniCacheSize = 10_000;
+        this.transcriptCacheSize = 10_000;
     }
     
     public void loadConfiguration() {
@@ -42,5 +68,23 @@ public class AppConfig {
     // Getters
     public Path getDataDirectory() { return dataDirectory; }
     public Path getBackupDirectory() { return backupDirectory; }
+    public Path getSnapshotFile() { return snapshotFile; }
+    public Path getJournalFile() { return journalFile; }
+    public Path getMetricsFile() { return metricsFile; }
+    public Path getAlumniDirectory() { return alumniDirectory; }
+    public void setAlumniDirectory(Path alumniDirectory) { this.alumniDirectory = alumniDirectory; }
     public DateTimeFormatter getDateFormatter() { return dateFormatter; }
+    public int getImportBatchSize() { return importBatchSize; }
+    public void setImportBatchSize(int importBatchSize) { this.importBatchSize = importBatchSize; }
+    public long getJournalSyncIntervalMillis() { return journalSyncIntervalMillis; }
+    public void setJournalSyncIntervalMillis(long journalSyncIntervalMillis) { this.journalSyncIntervalMillis = journalSyncIntervalMillis; }
+    public int getServerPort() { return serverPort; }
+    public void setServerPort(int serverPort) { this.serverPort = serverPort; }
+    public int getServerMaxConcurrentRequests() { return serverMaxConcurrentRequests; }
+    public void setServerMaxConcurrentRequests(int serverMaxConcurrentRequests) { this.serverMaxConcurrentRequests = serverMaxConcurrentRequests; }
+    public long getMetricsDumpIntervalSeconds() { return metricsDumpIntervalSeconds; }
+    public void setMetricsDumpIntervalSeconds(long metricsDumpIntervalSeconds) { this.metricsDumpIntervalSeconds = metricsDumpIntervalSeconds; }
+    public int getAlumniCacheSize() { return alumniCacheSize; }
+    public void setAlumniCacheSize(int alumniCacheSize) { this.alumniCacheSize = alumniCacheSize; }
+    public int getTranscriptCacheSize() { return transcriptCacheSize; }
 }
\ No newline at end of file
@@ -0,0 +1,272 @@
+package edu.ccrm.config;
+
+import edu.ccrm.domain.Course;
+import edu.ccrm.domain.EnrollmentStore;
+import edu.ccrm.domain.Semester;
+import edu.ccrm.domain.Student;
+import edu.ccrm.io.FileService;
+import edu.ccrm.io.JournalService;
+import edu.ccrm.io.SnapshotService;
+import edu.ccrm.metrics.MetricsRegistry;
+import edu.ccrm.metrics.MetricsReporter;
+import edu.ccrm.service.CourseService;
+import edu.ccrm.service.DataAccessException;
+import edu.ccrm.service.HeapStudentStore;
+import edu.ccrm.service.MappedStudentStore;
+import edu.ccrm.service.RankingService;
+import edu.ccrm.service.ReportEngine;
+import edu.ccrm.service.SearchService;
+import edu.ccrm.service.StudentService;
+import edu.ccrm.service.TranscriptCache;
+
+import java.io.Closeable;
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+
+/**
+ * Builds the services and wires their listeners, then restores saved state.
+ * The interactive menu and batch mode share one context, so both see the same data
+ * and every change either of them makes is journaled the same way.
+ */
+public class ApplicationContext implements Closeable {
+    private final StudentService studentService;
+    private final CourseService courseService;
+    private final EnrollmentStore enrollmentStore;
+    private final RankingService rankingService;
+    private final SearchService searchService;
+    private final ReportEngine reportEngine;
+    private final TranscriptCache transcriptCache;
+    private final FileService fileService;
+    private final SnapshotService snapshotService;
+    private final AppConfig config;
+    private final MetricsReporter metricsReporter;
+    private volatile JournalService journal;
+    // Opened on first use; guarded by this
+    private StudentService alumniService;
+    
+    public ApplicationContext() {
+        HeapStudentStore students = new HeapStudentStore();
+        this.studentService = new StudentService(students, "student");
+        this.enrollmentStore = students.getEnrollmentStore(); // Enrollment columns, scanned by reports
+        this.courseService = new CourseService();
+        this.studentService.addListener(courseService); // Keeps course rosters current
+        this.rankingService = new RankingService(studentService, courseService, enrollmentStore);
+        this.studentService.addListener(rankingService);
+        this.searchService = new SearchService(studentService, courseService);
+        this.studentService.addListener(searchService);
+        this.courseService.addListener(searchService);
+        this.reportEngine = new ReportEngine(enrollmentStore, courseService);
+        this.config = AppConfig.getInstance();
+        this.transcriptCache = new TranscriptCache(config.getTranscriptCacheSize());
+        this.studentService.addListener(transcriptCache);
+        this.courseService.addListener(transcriptCache);
+        this.fileService = new FileService();
+        this.snapshotService = new SnapshotService();
+        this.metricsReporter = new MetricsReporter(MetricsRegistry.getInstance(), config.getMetricsFile());
+    }
+    
+    /**
+     * Restore the last snapshot and replay the journal on top of it; sample data is
+     * only loaded (and journaled) on a first run. Starts the periodic metrics dump.
+     */
+    public void start() {
+        boolean restored = restoreSnapshot();
+        int replayed = openJournal();
+        if (!restored && replayed <= 0) {
+            loadSampleData();
+        }
+        metricsReporter.start(config.getMetricsDumpIntervalSeconds());
+    }
+    
+    // Getters
+    public StudentService getStudentService() { return studentService; }
+    public CourseService getCourseService() { return courseService; }
+    public EnrollmentStore getEnrollmentStore() { return enrollmentStore; }
+    public RankingService getRankingService() { return rankingService; }
+    public SearchService getSearchService() { return searchService; }
+    public ReportEngine getReportEngine() { return reportEngine; }
+    public TranscriptCache getTranscriptCache() { return transcriptCache; }
+    public FileService getFileService() { return fileService; }
+    public SnapshotService getSnapshotService() { return snapshotService; }
+    public AppConfig getConfig() { return config; }
+    public MetricsReporter getMetricsReporter() { return metricsReporter; }
+    
+    /**
+     * The alumni directory: a StudentService over a MappedStudentStore, opened on first
+     * use. It has no listeners, so alumni stay out of rankings, reports and search, and
+     * its store saves changes itself rather than through the journal. Enrollments are
+     * resolved against the current course catalog.
+     */
+    public synchronized StudentService getAlumniService() throws IOException {
+        if (alumniService == null) {
+            MappedStudentStore store = new MappedStudentStore(config.getAlumniDirectory(),
+                courseService::findByCode, config.getAlumniCacheSize());
+            alumniService = new StudentService(store, "alumni");
+        }
+        return alumniService;
+    }
+    
+    /**
+     * @return the open journal, or null if journaling is not active
+     */
+    public JournalService getJournal() { return journal; }
+    
+    // Runs bulk changes so the journal syncs once at the end rather than per change
+    public <E extends Exception> void withDeferredSync(JournalService.Work<E> work) throws E {
+        JournalService current = journal;
+        if (current == null) {
+            work.run();
+        } else {
+            current.deferSync(work);
+        }
+    }
+    
+    private boolean restoreSnapshot() {
+        Path file = config.getSnapshotFile();
+        if (!Files.exists(file)) {
+            return false;
+        }
+        try {
+            SnapshotService.SnapshotInfo info = snapshotService.load(file, studentService, courseService);
+            System.out.println("Restored " + info + " from " + file);
+            return true;
+        } catch (DataAccessException e) {
+            System.out.println("Could not restore snapshot: " + e.getMessage());
+            return false;
+        }
+    }
+    
+    /**
+     * Replay the journal and start journaling changes.
+     * @return entries replayed, or -1 if the journal could not be opened
+     */
+    private int openJournal() {
+        JournalService opened = new JournalService(config.getJournalFile(), studentService, courseService,
+                                                   snapshotService, config.getJournalSyncIntervalMillis());
+        try {
+            int replayed = opened.open();
+            if (replayed > 0) {
+                System.out.println("Replayed " + replayed + " journaled changes from " + config.getJournalFile());
+            }
+            journal = opened;
+            return replayed;
+        } catch (DataAccessException e) {
+            System.out.println("Journaling disabled, changes will not be saved: " + e.getMessage());
+            return -1;
+        }
+    }
+    
+    /**
+     * Flush and close the journal and the alumni directory and write the final metrics
+     * dump; the services stay usable but changes are no longer saved
+     */
+    @Override
+    public void close() {
+        try {
+            metricsReporter.close();
+        } catch (IOException e) {
+            System.err.println("Error writing metrics: " + e.getMessage());
+        }
+        closeAlumniDirectory();
+        if (journal == null) {
+            return;
+        }
+        try {
+            journal.close();
+        } catch (IOException e) {
+            System.err.println("Error closing journal: " + e.getMessage());
+        } finally {
+            journal = null;
+        }
+    }
+    
+    private synchronized void closeAlumniDirectory() {
+        if (alumniService == null) {
+            return;
+        }
+        try {
+            alumniService.close();
+        } catch (IOException e) {
+            System.err.println("Error closing alumni directory: " + e.getMessage());
+        } finally {
+            alumniService = null;
+        }
+    }
+    
+    private void loadSampleData() {
+        // Sample students
+        Student student1 = new Student.Builder()
+            .id("S001")
+            .regNo("2023001")
+            .fullName("John Doe")
+            .email("john.doe@university.edu")
+            .build();
+        
+        Student student2 = new Student.Builder()
+            .id("S002")
+            .regNo("2023002")
+            .fullName("Jane Smith")
+            .email("jane.smith@university.edu")
+            .build();
+        
+        Student student3 = new Student.Builder()
+            .id("S003")
+            .regNo("2023003")
+            .fullName("Bob Johnson")
+            .email("bob.johnson@university.edu")
+            .build();
+        
+        studentService.addStudent(student1);
+        studentService.addStudent(student2);
+        studentService.addStudent(student3);
+        
+        // Sample courses
+        Course course1 = new Course.Builder()
+            .code("CS101")
+            .title("Introduction to Computer Science")
+            .credits(3)
+            .instructor("Dr. Smith")
+            .semester(Semester.FALL)
+            .department("Computer Science")
+            .build();
+        
+        Course course2 = new Course.Builder()
+            .code("MATH201")
+            .title("Calculus I")
+            .credits(4)
+            .instructor("Dr. Johnson")
+            .semester(Semester.FALL)
+            .department("Mathematics")
+            .build();
+        
+        Course course3 = new Course.Builder()
+            .code("PHY101")
+            .title("Physics Fundamentals")
+            .credits(3)
+            .instructor("Dr. Brown")
+            .semester(Semester.SPRING)
+            .department("Physics")
+            .build();
+        
+        courseService.addCourse(course1);
+        courseService.addCourse(course2);
+        courseService.addCourse(course3);
+        
+        // Sample enrollments and grades
+        try {
+            studentService.enrollInCourse(student1, course1);
+            studentService.enrollInCourse(student1, course2);
+            studentService.enrollInCourse(student2, course1);
+            studentService.enrollInCourse(student3, course3);
+            
+            // Record some grades
+            studentService.recordMarks(student1, "CS101", 85.5);
+            studentService.recordMarks(student1, "MATH201", 92.0);
+            studentService.recordMarks(student2, "CS101", 78.0);
+        
+        } catch (Exception e) {
+            System.out.println("Error setting up sample data: " + e.getMessage());
+        }
+    }
+}
\ No newline at end of file
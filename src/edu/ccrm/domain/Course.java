@@ -1,15 +1,21 @@
 package edu.ccrm.domain;
 
 import java.util.Objects;
+import java.util.concurrent.atomic.AtomicLong;
 
 public class Course {
+    // Bumped whenever any course's credits change so cached per-student aggregates can be rebuilt
+    private static final AtomicLong CREDITS_EPOCH = new AtomicLong();
+    
     private final String code; // Immutable
-    private String title;
-    private int credits;
-    private String instructor;
-    private Semester semester;
-    private String department;
-    private boolean active;
+    // Mutable fields are volatile so catalog updates are visible to concurrent readers;
+    // instructor and department hold shared SymbolTable instances
+    private volatile String title;
+    private volatile int credits;
+    private volatile String instructor;
+    private volatile Semester semester;
+    private volatile String department;
+    private volatile boolean active;
     
     // Builder pattern for Course
     public static class Builder {
@@ -59,9 +65,9 @@ public class Course {
         this.code = Objects.requireNonNull(builder.code, "Course code cannot be null");
         this.title = Objects.requireNonNull(builder.title, "Course title cannot be null");
         this.credits = builder.credits;
-        this.instructor = builder.instructor;
+        this.instructor = SymbolTable.INSTRUCTORS.intern(builder.instructor);
         this.semester = builder.semester;
-        this.department = builder.department;
+        this.department = SymbolTable.DEPARTMENTS.intern(builder.department);
         this.active = true;
         
         // Assertion for credit bounds
@@ -73,16 +79,26 @@ public class Course {
     public String getTitle() { return title; }
     public void setTitle(String title) { this.title = title; }
     public int getCredits() { return credits; }
-    public void setCredits(int credits) { this.credits = credits; }
+    public void setCredits(int credits) {
+        if (this.credits != credits) {
+            this.credits = credits;
+            CREDITS_EPOCH.incrementAndGet();
+        }
+    }
     public String getInstructor() { return instructor; }
-    public void setInstructor(String instructor) { this.instructor = instructor; }
+    public void setInstructor(String instructor) { this.instructor = SymbolTable.INSTRUCTORS.intern(instructor); }
     public Semester getSemester() { return semester; }
     public void setSemester(Semester semester) { this.semester = semester; }
     public String getDepartment() { return department; }
-    public void setDepartment(String department) { this.department = department; }
+    public void setDepartment(String department) { this.department = SymbolTable.DEPARTMENTS.intern(department); }
     public boolean isActive() { return active; }
     public void setActive(boolean active) { this.active = active; }
     
+    /**
+     * Monotonic counter of credit changes across all courses
+     */
+    public static long getCreditsEpoch() { return CREDITS_EPOCH.get(); }
+    
     @Override
     public boolean equals(Object o) {
         if (this == o) return true;
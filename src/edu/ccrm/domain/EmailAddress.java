@@ -0,0 +1,39 @@
+package edu.ccrm.domain;
+
+import java.util.Objects;
+
+/**
+ * An email address held as its local part and a domain shared through
+ * SymbolTable.EMAIL_DOMAINS, with the whole address kept alongside so reading it
+ * allocates nothing. Immutable: a Person replaces its address whole, so a reader never
+ * sees the local part of one address with the domain of another.
+ */
+public final class EmailAddress {
+    private final String localPart;
+    private final String domain; // Null when the address has no '@'
+    private final String address;
+    
+    private EmailAddress(String localPart, String domain, String address) {
+        this.localPart = localPart;
+        this.domain = domain;
+        this.address = address;
+    }
+    
+    public static EmailAddress of(String address) {
+        Objects.requireNonNull(address, "Email cannot be null");
+        int at = address.lastIndexOf('@');
+        if (at < 0) {
+            return new EmailAddress(address, null, address);
+        }
+        return new EmailAddress(address.substring(0, at),
+                                SymbolTable.EMAIL_DOMAINS.intern(address.substring(at + 1)), address);
+    }
+    
+    public String getLocalPart() { return localPart; }
+    public String getDomain() { return domain; }
+    
+    @Override
+    public String toString() {
+        return address;
+    }
+}
\ No newline at end of file
@@ -3,35 +3,109 @@ package edu.ccrm.domain;
 import java.time.LocalDate;
 import java.util.Objects;
 
+/**
+ * A student's registration in one course.
+ *
+ * Once added to its student, an enrollment is a view of the student's row in an
+ * EnrollmentStore: the date, marks and grade are read from the row, so marks recorded
+ * through any view are seen by all of them. Until then, and after the enrollment is
+ * dropped, it reads the date and marks it holds itself.
+ */
 public class Enrollment {
-    private Student student;
-    private Course course;
-    private LocalDate enrollmentDate;
-    private Double marks;
-    private Grade grade;
+    private final Student student;
+    private final Course course;
+    // Held values, read while the enrollment is not in its student's rows; written under
+    // the student's monitor, volatile for readers that do not take it
+    private final int enrollmentEpochDay;
+    private volatile double marks;
+    private volatile boolean attached;
     
     public Enrollment(Student student, Course course) {
+        this(student, course, LocalDate.now());
+    }
+    
+    // Used when restoring enrollments that were made on an earlier date
+    public Enrollment(Student student, Course course, LocalDate enrollmentDate) {
+        this(student, course, (int) Objects.requireNonNull(enrollmentDate, "Enrollment date cannot be null").toEpochDay());
+    }
+    
+    public Enrollment(Student student, Course course, int enrollmentEpochDay) {
+        this(student, course, enrollmentEpochDay, Double.NaN);
+    }
+    
+    private Enrollment(Student student, Course course, int enrollmentEpochDay, double marks) {
         this.student = Objects.requireNonNull(student, "Student cannot be null");
         this.course = Objects.requireNonNull(course, "Course cannot be null");
-        this.enrollmentDate = LocalDate.now();
+        this.enrollmentEpochDay = enrollmentEpochDay;
+        this.marks = marks;
+    }
+    
+    /**
+     * A view of one of the student's rows, holding the row's values as of now
+     */
+    static Enrollment view(Student student, Course course, int enrollmentEpochDay, double marks) {
+        Enrollment enrollment = new Enrollment(student, course, enrollmentEpochDay, marks);
+        enrollment.attached = true;
+        return enrollment;
     }
     
     public void recordMarks(double marks) {
-        this.marks = marks;
-        this.grade = Grade.fromMarks(marks);
+        if (Double.isNaN(marks)) {
+            throw new IllegalArgumentException("Marks must be a number");
+        }
+        synchronized (student) {
+            this.marks = marks;
+            if (attached) {
+                student.marksChanged(this);
+            }
+        }
+    }
+    
+    // Called by Student under its monitor once the held values are copied into a row
+    void attach() {
+        attached = true;
     }
     
+    int heldEpochDay() { return enrollmentEpochDay; }
+    double heldMarks() { return marks; }
+    
     // Getters
     public Student getStudent() { return student; }
     public Course getCourse() { return course; }
-    public LocalDate getEnrollmentDate() { return enrollmentDate; }
-    public Double getMarks() { return marks; }
-    public Grade getGrade() { return grade; }
-    public boolean isGraded() { return marks != null; }
+    public LocalDate getEnrollmentDate() { return LocalDate.ofEpochDay(getEnrollmentEpochDay()); }
+    
+    public int getEnrollmentEpochDay() {
+        return attached ? student.epochDayOf(this) : enrollmentEpochDay;
+    }
+    
+    /**
+     * @return the marks, or null if ungraded
+     */
+    public Double getMarks() {
+        double value = getMarksAsDouble();
+        return Double.isNaN(value) ? null : value;
+    }
+    
+    /**
+     * @return the marks, or NaN if ungraded; avoids boxing on hot paths
+     */
+    public double getMarksAsDouble() {
+        return attached ? student.marksOf(this) : marks;
+    }
+    
+    public Grade getGrade() {
+        if (attached) {
+            return student.gradeOf(this);
+        }
+        double value = marks;
+        return Double.isNaN(value) ? null : Grade.fromMarks(value);
+    }
+    
+    public boolean isGraded() { return !Double.isNaN(getMarksAsDouble()); }
     
     @Override
     public String toString() {
         return String.format("Enrollment{student=%s, course=%s, date=%s, marks=%s, grade=%s}",
-                           student.getRegNo(), course.getCode(), enrollmentDate, marks, grade);
+                           student.getRegNo(), course.getCode(), getEnrollmentDate(), getMarks(), getGrade());
     }
 }
\ No newline at end of file
@@ -0,0 +1,462 @@
+package edu.ccrm.domain;
+
+import java.util.Arrays;
+import java.util.HashMap;
+import java.util.Map;
+import java.util.concurrent.locks.ReentrantLock;
+
+/**
+ * Column-oriented storage for enrollments.
+ *
+ * Each enrollment is one row across parallel primitive arrays: student index, course
+ * index, marks as a float (NaN when ungraded), grade ordinal (-1 when ungraded),
+ * enrollment date as an epoch day, and the student's next row. Students and courses are
+ * numbered densely, each student's rows are chained in enrollment order, and every
+ * student carries running grade-point and graded-credit totals, so a report scans a few
+ * flat arrays instead of chasing Student, Enrollment, Course and boxed Double objects.
+ *
+ * The rows are the only copy of an enrollment. A Student holds no enrollment objects of
+ * its own, and the Enrollment objects it hands out read their row. A HeapStudentStore
+ * keeps one store for all of its students; any other student keeps a small store of its
+ * own, and its rows move when it is attached to a shared one.
+ *
+ * Rows change only through Student, which holds its monitor and then takes the store's
+ * lock for the length of the change, so a student's own reads are exact. Scans take no
+ * lock: a row changed while a scan runs may be read in either state.
+ */
+public final class EnrollmentStore {
+    private static final Grade[] GRADES = Grade.values();
+    private static final byte UNGRADED = -1;
+    // Student of a free row, and the end of a chain
+    private static final int NONE = -1;
+    
+    // Dictionary of courses by code; students keep their own index
+    private final Map<String, Integer> courseIndex = new HashMap<>();
+    private Student[] students;
+    private int[] firstRow;
+    private int[] lastRow;
+    private double[] gradePoints;
+    private int[] gradedCredits;
+    private int studentCount;
+    private Course[] courses;
+    private int[] courseCredits;
+    private int courseCount;
+    
+    // Row columns; freed rows are chained through rowNext and reused
+    private int[] rowStudent;
+    private int[] rowCourse;
+    private float[] rowMarks;
+    private byte[] rowGrade;
+    private int[] rowEpochDay;
+    private int[] rowNext;
+    private int rowCount;
+    private int freeRow = NONE;
+    private volatile int liveRows;
+    
+    // Credits epoch the course credits column and student totals were computed at
+    private volatile long creditsEpoch = Course.getCreditsEpoch();
+    // Writers hold the lock; readers go through the published columns
+    private final ReentrantLock lock = new ReentrantLock();
+    private volatile Columns columns;
+    
+    public EnrollmentStore() {
+        this(64, 64, 64);
+    }
+    
+    private EnrollmentStore(int rows, int students, int courses) {
+        this.students = new Student[students];
+        this.firstRow = new int[students];
+        this.lastRow = new int[students];
+        this.gradePoints = new double[students];
+        this.gradedCredits = new int[students];
+        this.courses = new Course[courses];
+        this.courseCredits = new int[courses];
+        this.rowStudent = new int[rows];
+        this.rowCourse = new int[rows];
+        this.rowMarks = new float[rows];
+        this.rowGrade = new byte[rows];
+        this.rowEpochDay = new int[rows];
+        this.rowNext = new int[rows];
+        this.columns = new Columns(this);
+    }
+    
+    /**
+     * A store sized for the enrollments of one student
+     */
+    static EnrollmentStore forOneStudent() {
+        return new EnrollmentStore(8, 1, 8);
+    }
+    
+    /**
+     * The columns as last published. Arrays may be longer than the counts; only the first
+     * rows, students and courses entries are in use. Free rows have student -1, and a
+     * student that moved to another store leaves a null in the student table.
+     */
+    public static final class Columns {
+        public final int rows;
+        public final int[] student;
+        public final int[] course;
+        public final float[] marks;
+        public final byte[] grade;
+        public final int[] epochDay;
+        final int[] next;
+        public final int students;
+        public final Student[] studentTable;
+        final int[] first;
+        public final double[] gradePoints;
+        public final int[] gradedCredits;
+        public final int courses;
+        public final Course[] courseTable;
+        public final int[] credits;
+        
+        private Columns(EnrollmentStore store) {
+            this.rows = store.rowCount;
+            this.student = store.rowStudent;
+            this.course = store.rowCourse;
+            this.marks = store.rowMarks;
+            this.grade = store.rowGrade;
+            this.epochDay = store.rowEpochDay;
+            this.next = store.rowNext;
+            this.students = store.studentCount;
+            this.studentTable = store.students;
+            this.first = store.firstRow;
+            this.gradePoints = store.gradePoints;
+            this.gradedCredits = store.gradedCredits;
+            this.courses = store.courseCount;
+            this.courseTable = store.courses;
+            this.credits = store.courseCredits;
+        }
+        
+        public double gpa(int student) {
+            return gradedCredits[student] == 0 ? 0.0 : gradePoints[student] / gradedCredits[student];
+        }
+        
+        /**
+         * @return the row's marks, or NaN if ungraded
+         */
+        public double marks(int row) {
+            return toMarks(marks[row]);
+        }
+    }
+    
+    /**
+     * The columns for a scan, with the credits column and student totals brought up to
+     * date with the catalog first
+     */
+    public Columns columns() {
+        if (creditsEpoch != Course.getCreditsEpoch()) {
+            lock.lock();
+            try {
+                refreshCredits();
+            } finally {
+                lock.unlock();
+            }
+        }
+        return columns;
+    }
+    
+    /**
+     * Number of enrollments held
+     */
+    public int size() {
+        return liveRows;
+    }
+    
+    /**
+     * Heap held by the columns, course dictionary excluded: allocated capacity, not just
+     * rows in use
+     */
+    public long getFootprintBytes() {
+        Columns c = columns;
+        long rows = (long) c.student.length * (Integer.BYTES * 4 + Float.BYTES + Byte.BYTES);
+        long perStudent = (long) c.studentTable.length * (Integer.BYTES * 4 + Double.BYTES);
+        long perCourse = (long) c.courseTable.length * Integer.BYTES * 2;
+        return rows + perStudent + perCourse;
+    }
+    
+    /**
+     * GPA over the student's graded courses, from the running column totals
+     */
+    public double calculateGPA(Student student) {
+        int s = student.indexIn(this);
+        return s < 0 ? 0.0 : columns().gpa(s);
+    }
+    
+    /**
+     * Marks are held as floats and read back to four decimal places, which recovers every
+     * value recorded with up to four decimals
+     */
+    static double toMarks(float stored) {
+        return Float.isNaN(stored) ? Double.NaN : Math.rint(stored * 10_000.0) / 10_000.0;
+    }
+    
+    // Reads below are made by the student holding its monitor
+    
+    int find(int s, String courseCode) {
+        Columns c = columns;
+        for (int row = c.first[s]; row != NONE; row = c.next[row]) {
+            if (c.courseTable[c.course[row]].getCode().equals(courseCode)) {
+                return row;
+            }
+        }
+        return NONE;
+    }
+    
+    int first(int s) {
+        return columns.first[s];
+    }
+    
+    int next(int row) {
+        return columns.next[row];
+    }
+    
+    Course course(int row) {
+        Columns c = columns;
+        return c.courseTable[c.course[row]];
+    }
+    
+    double marks(int row) {
+        return toMarks(columns.marks[row]);
+    }
+    
+    Grade grade(int row) {
+        byte grade = columns.grade[row];
+        return grade == UNGRADED ? null : GRADES[grade];
+    }
+    
+    int epochDay(int row) {
+        return columns.epochDay[row];
+    }
+    
+    /**
+     * Keep the student's enrollments in this store from now on, moving in any rows it
+     * holds elsewhere
+     */
+    public void attach(Student student) {
+        student.moveTo(this);
+    }
+    
+    // Writes below are made by the student holding its monitor; each takes the lock
+    
+    /**
+     * Give the student an empty chain of rows
+     * @return the student's index in this store
+     */
+    int register(Student student) {
+        lock.lock();
+        try {
+            int s = studentCount;
+            if (s == students.length) {
+                int capacity = s * 2;
+                students = Arrays.copyOf(students, capacity);
+                firstRow = Arrays.copyOf(firstRow, capacity);
+                lastRow = Arrays.copyOf(lastRow, capacity);
+                gradePoints = Arrays.copyOf(gradePoints, capacity);
+                gradedCredits = Arrays.copyOf(gradedCredits, capacity);
+            }
+            students[s] = student;
+            firstRow[s] = NONE;
+            lastRow[s] = NONE;
+            studentCount = s + 1;
+            columns = new Columns(this);
+            return s;
+        } finally {
+            lock.unlock();
+        }
+    }
+    
+    /**
+     * Free every row of a student that is moving to another store
+     */
+    void detach(int s) {
+        lock.lock();
+        try {
+            for (int row = firstRow[s]; row != NONE; ) {
+                int next = rowNext[row];
+                free(row);
+                row = next;
+            }
+            students[s] = null;
+            firstRow[s] = NONE;
+            lastRow[s] = NONE;
+            gradePoints[s] = 0.0;
+            gradedCredits[s] = 0;
+        } finally {
+            lock.unlock();
+        }
+    }
+    
+    /**
+     * Append a row to the end of the student's chain
+     */
+    int add(int s, Course course, int epochDay, double marks) {
+        lock.lock();
+        try {
+            refreshCredits();
+            int coursesBefore = courseCount;
+            int c = indexOf(course);
+            int row = freeRow;
+            boolean grown = row == NONE || courseCount != coursesBefore;
+            if (row == NONE) {
+                row = allocate();
+            } else {
+                freeRow = rowNext[row];
+            }
+            rowStudent[row] = s;
+            rowCourse[row] = c;
+            rowEpochDay[row] = epochDay;
+            rowNext[row] = NONE;
+            setMarks(row, marks);
+            if (lastRow[s] == NONE) {
+                firstRow[s] = row;
+            } else {
+                rowNext[lastRow[s]] = row;
+            }
+            lastRow[s] = row;
+            addTotals(row);
+            liveRows++;
+            if (grown) {
+                columns = new Columns(this); // Publish new rows and courses only once the row is filled in
+            }
+            return row;
+        } finally {
+            lock.unlock();
+        }
+    }
+    
+    /**
+     * Replace the date and marks of a row, as when an enrollment is made again
+     */
+    void update(int row, int epochDay, double marks) {
+        lock.lock();
+        try {
+            refreshCredits();
+            subtractTotals(row);
+            rowEpochDay[row] = epochDay;
+            setMarks(row, marks);
+            addTotals(row);
+        } finally {
+            lock.unlock();
+        }
+    }
+    
+    void recordMarks(int row, double marks) {
+        lock.lock();
+        try {
+            refreshCredits();
+            subtractTotals(row);
+            setMarks(row, marks);
+            addTotals(row);
+        } finally {
+            lock.unlock();
+        }
+    }
+    
+    /**
+     * Unlink a row from the student's chain and free it
+     */
+    void remove(int s, int row) {
+        lock.lock();
+        try {
+            refreshCredits();
+            subtractTotals(row);
+            int previous = NONE;
+            for (int r = firstRow[s]; r != row; r = rowNext[r]) {
+                previous = r;
+            }
+            if (previous == NONE) {
+                firstRow[s] = rowNext[row];
+            } else {
+                rowNext[previous] = rowNext[row];
+            }
+            if (lastRow[s] == row) {
+                lastRow[s] = previous;
+            }
+            free(row);
+            liveRows--;
+        } finally {
+            lock.unlock();
+        }
+    }
+    
+    // Helpers below run under the lock
+    
+    private int allocate() {
+        int row = rowCount;
+        if (row == rowStudent.length) {
+            int capacity = row * 2;
+            rowStudent = Arrays.copyOf(rowStudent, capacity);
+            rowCourse = Arrays.copyOf(rowCourse, capacity);
+            rowMarks = Arrays.copyOf(rowMarks, capacity);
+            rowGrade = Arrays.copyOf(rowGrade, capacity);
+            rowEpochDay = Arrays.copyOf(rowEpochDay, capacity);
+            rowNext = Arrays.copyOf(rowNext, capacity);
+        }
+        rowCount = row + 1;
+        return row;
+    }
+    
+    private void free(int row) {
+        rowStudent[row] = NONE;
+        rowNext[row] = freeRow;
+        freeRow = row;
+    }
+    
+    private void setMarks(int row, double marks) {
+        float stored = (float) marks;
+        rowMarks[row] = stored;
+        rowGrade[row] = Float.isNaN(stored) ? UNGRADED : (byte) Grade.fromMarks(toMarks(stored)).ordinal();
+    }
+    
+    private void addTotals(int row) {
+        if (rowGrade[row] != UNGRADED) {
+            int credits = courseCredits[rowCourse[row]];
+            gradePoints[rowStudent[row]] += GRADES[rowGrade[row]].getPoints() * credits;
+            gradedCredits[rowStudent[row]] += credits;
+        }
+    }
+    
+    private void subtractTotals(int row) {
+        if (rowGrade[row] != UNGRADED) {
+            int credits = courseCredits[rowCourse[row]];
+            gradePoints[rowStudent[row]] -= GRADES[rowGrade[row]].getPoints() * credits;
+            gradedCredits[rowStudent[row]] -= credits;
+        }
+    }
+    
+    // Re-read every course's credits and rebuild the student totals if any changed
+    private void refreshCredits() {
+        long epoch = Course.getCreditsEpoch();
+        if (creditsEpoch == epoch) {
+            return;
+        }
+        for (int c = 0; c < courseCount; c++) {
+            courseCredits[c] = courses[c].getCredits();
+        }
+        Arrays.fill(gradePoints, 0, studentCount, 0.0);
+        Arrays.fill(gradedCredits, 0, studentCount, 0);
+        for (int row = 0; row < rowCount; row++) {
+            if (rowStudent[row] != NONE) {
+                addTotals(row);
+            }
+        }
+        creditsEpoch = epoch;
+    }
+    
+    private int indexOf(Course course) {
+        Integer index = courseIndex.get(course.getCode());
+        if (index != null) {
+            return index;
+        }
+        int c = courseCount;
+        if (c == courses.length) {
+            courses = Arrays.copyOf(courses, c * 2);
+            courseCredits = Arrays.copyOf(courseCredits, c * 2);
+        }
+        courses[c] = course;
+        courseCredits[c] = course.getCredits();
+        courseCount = c + 1;
+        courseIndex.put(course.getCode(), c);
+        return c;
+    }
+}
\ No newline at end of file
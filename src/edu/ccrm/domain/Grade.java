@@ -9,6 +9,9 @@ public enum Grade {
     E("E", 5.0, 40, 49),
     F("F", 0.0, 0, 39);
     
+    // values() copies the array on every call
+    private static final Grade[] VALUES = values();
+    
     private final String symbol;
     private final double points;
     private final int minMarks;
@@ -22,7 +25,7 @@ public enum Grade {
     }
     
     public static Grade fromMarks(double marks) {
-        for (Grade grade : values()) {
+        for (Grade grade : VALUES) {
             if (marks >= grade.minMarks && marks <= grade.maxMarks) {
                 return grade;
             }
@@ -5,16 +5,18 @@ import java.util.Objects;
 
 public abstract class Person {
     protected final String id; // Immutable
-    protected String fullName;
-    protected String email;
-    protected LocalDate createdDate;
-    protected boolean active;
+    // Mutable profile fields are volatile so updates are visible to concurrent readers
+    protected volatile String fullName;
+    // Replaced whole on every change, so the local part and domain always belong together
+    private volatile EmailAddress email;
+    protected int createdEpochDay;
+    protected volatile boolean active;
     
     public Person(String id, String fullName, String email) {
         this.id = Objects.requireNonNull(id, "ID cannot be null");
         this.fullName = Objects.requireNonNull(fullName, "Full name cannot be null");
-        this.email = Objects.requireNonNull(email, "Email cannot be null");
-        this.createdDate = LocalDate.now();
+        this.email = EmailAddress.of(email);
+        this.createdEpochDay = (int) LocalDate.now().toEpochDay();
         this.active = true;
     }
     
@@ -25,9 +27,14 @@ public abstract class Person {
     public String getId() { return id; }
     public String getFullName() { return fullName; }
     public void setFullName(String fullName) { this.fullName = fullName; }
-    public String getEmail() { return email; }
-    public void setEmail(String email) { this.email = email; }
-    public LocalDate getCreatedDate() { return createdDate; }
+    
+    public String getEmail() { return email.toString(); }
+    public EmailAddress getEmailAddress() { return email; }
+    public void setEmail(String email) { this.email = EmailAddress.of(email); }
+    
+    public LocalDate getCreatedDate() { return LocalDate.ofEpochDay(createdEpochDay); }
+    public int getCreatedEpochDay() { return createdEpochDay; }
+    
     public boolean isActive() { return active; }
     public void setActive(boolean active) { this.active = active; }
     
@@ -47,6 +54,6 @@ public abstract class Person {
     @Override
     public String toString() {
         return String.format("Person{id='%s', name='%s', email='%s', active=%s}", 
-                           id, fullName, email, active);
+                           id, fullName, getEmail(), active);
     }
 }
\ No newline at end of file
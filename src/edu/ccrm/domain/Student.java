@@ -1,12 +1,33 @@
 package edu.ccrm.domain;
 
+import java.time.LocalDate;
 import java.util.ArrayList;
+import java.util.Collections;
 import java.util.List;
 import java.util.Objects;
+import java.util.stream.Stream;
 
+/**
+ * A student and their enrollments. The enrollments are rows in an EnrollmentStore, not
+ * objects of the student's own. Enrollment changes and the running aggregates are
+ * guarded by the student's monitor, so concurrent readers always see consistent totals.
+ */
 public class Student extends Person {
     private final String regNo; // Immutable
-    private List<Enrollment> enrollments;
+    // Store holding this student's rows: a shared one once attached, else one of its own
+    // created on the first enrollment
+    private EnrollmentStore enrollmentStore;
+    private int storeIndex;
+    private int enrollmentCount;
+    private static final double PASSING_GRADE_POINTS = 5.0;
+    
+    // Running aggregates maintained on enrollment and marks changes
+    private double gradePoints;
+    private int gradedCredits;
+    private int gradedCount;
+    private int attemptedCredits;
+    private int earnedCredits;
+    private long aggregateEpoch = -1;
     
     // Static nested class for Student Builder pattern
     public static class Builder {
@@ -14,6 +35,7 @@ public class Student extends Person {
         private String regNo;
         private String fullName;
         private String email;
+        private LocalDate createdDate;
         
         public Builder id(String id) {
             this.id = id;
@@ -35,6 +57,12 @@ public class Student extends Person {
             return this;
         }
         
+        // Only needed when restoring a student created on an earlier date
+        public Builder createdDate(LocalDate createdDate) {
+            this.createdDate = createdDate;
+            return this;
+        }
+        
         public Student build() {
             return new Student(this);
         }
@@ -43,21 +71,148 @@ public class Student extends Person {
     private Student(Builder builder) {
         super(builder.id, builder.fullName, builder.email);
         this.regNo = Objects.requireNonNull(builder.regNo, "Registration number cannot be null");
-        this.enrollments = new ArrayList<>();
+        if (builder.createdDate != null) {
+            this.createdEpochDay = (int) builder.createdDate.toEpochDay();
+        }
     }
     
     @Override
     public String getProfileInfo() {
         return String.format("Student ID: %s, Reg No: %s, Name: %s, Email: %s, Active: %s",
-                           id, regNo, fullName, email, active);
+                           id, regNo, fullName, getEmail(), active);
     }
     
-    public void addEnrollment(Enrollment enrollment) {
-        enrollments.add(enrollment);
+    /**
+     * Attach an enrollment; an existing enrollment in the same course is replaced. The
+     * enrollment's date and marks are copied into this student's rows, and from then on
+     * the enrollment reads them from there.
+     */
+    public synchronized void addEnrollment(Enrollment enrollment) {
+        ensureAggregates();
+        EnrollmentStore store = store();
+        int row = store.find(storeIndex, enrollment.getCourse().getCode());
+        if (row < 0) {
+            row = store.add(storeIndex, enrollment.getCourse(), enrollment.heldEpochDay(), enrollment.heldMarks());
+            enrollmentCount++;
+        } else {
+            accumulate(row, -1);
+            store.update(row, enrollment.heldEpochDay(), enrollment.heldMarks());
+        }
+        accumulate(row, 1);
+        enrollment.attach();
     }
     
-    public boolean removeEnrollment(String courseCode) {
-        return enrollments.removeIf(e -> e.getCourse().getCode().equals(courseCode));
+    public synchronized boolean removeEnrollment(String courseCode) {
+        int row = rowOf(courseCode);
+        if (row < 0) {
+            return false;
+        }
+        ensureAggregates();
+        accumulate(row, -1);
+        enrollmentStore.remove(storeIndex, row);
+        enrollmentCount--;
+        return true;
+    }
+    
+    /**
+     * Find this student's enrollment in a course, or null if not enrolled
+     */
+    public synchronized Enrollment getEnrollment(String courseCode) {
+        int row = rowOf(courseCode);
+        return row < 0 ? null : view(row);
+    }
+    
+    public synchronized boolean isEnrolledIn(String courseCode) {
+        return rowOf(courseCode) >= 0;
+    }
+    
+    public synchronized int getEnrollmentCount() {
+        return enrollmentCount;
+    }
+    
+    /**
+     * Called by Enrollment.recordMarks, holding this student's monitor, to write the
+     * enrollment's new marks to its row; the running sums track re-grades
+     */
+    void marksChanged(Enrollment enrollment) {
+        int row = rowOf(enrollment.getCourse().getCode());
+        if (row < 0) {
+            return; // Enrollment was already removed from this student
+        }
+        if (aggregateEpoch != Course.getCreditsEpoch()) {
+            enrollmentStore.recordMarks(row, enrollment.heldMarks());
+            ensureAggregates(); // The rebuild already counts the new grade
+            return;
+        }
+        accumulate(row, -1);
+        enrollmentStore.recordMarks(row, enrollment.heldMarks());
+        accumulate(row, 1);
+    }
+    
+    // Row reads for attached Enrollment views; an enrollment no longer in the rows reads
+    // the values it holds
+    
+    synchronized double marksOf(Enrollment enrollment) {
+        int row = rowOf(enrollment.getCourse().getCode());
+        return row < 0 ? enrollment.heldMarks() : enrollmentStore.marks(row);
+    }
+    
+    synchronized Grade gradeOf(Enrollment enrollment) {
+        int row = rowOf(enrollment.getCourse().getCode());
+        if (row < 0) {
+            double marks = enrollment.heldMarks();
+            return Double.isNaN(marks) ? null : Grade.fromMarks(marks);
+        }
+        return enrollmentStore.grade(row);
+    }
+    
+    synchronized int epochDayOf(Enrollment enrollment) {
+        int row = rowOf(enrollment.getCourse().getCode());
+        return row < 0 ? enrollment.heldEpochDay() : enrollmentStore.epochDay(row);
+    }
+    
+    /**
+     * Keep this student's rows in the given store from now on, moving any it holds in
+     * another store
+     */
+    synchronized void moveTo(EnrollmentStore store) {
+        if (enrollmentStore == store) {
+            return;
+        }
+        int index = store.register(this);
+        EnrollmentStore previous = enrollmentStore;
+        if (previous != null) {
+            for (int row = previous.first(storeIndex); row >= 0; row = previous.next(row)) {
+                store.add(index, previous.course(row), previous.epochDay(row), previous.marks(row));
+            }
+            previous.detach(storeIndex);
+        }
+        enrollmentStore = store;
+        storeIndex = index;
+    }
+    
+    /**
+     * @return this student's index in the store, or -1 if its rows are kept elsewhere
+     */
+    synchronized int indexIn(EnrollmentStore store) {
+        return enrollmentStore == store ? storeIndex : -1;
+    }
+    
+    private EnrollmentStore store() {
+        if (enrollmentStore == null) {
+            enrollmentStore = EnrollmentStore.forOneStudent();
+            storeIndex = enrollmentStore.register(this);
+        }
+        return enrollmentStore;
+    }
+    
+    private int rowOf(String courseCode) {
+        return enrollmentStore == null ? -1 : enrollmentStore.find(storeIndex, courseCode);
+    }
+    
+    private Enrollment view(int row) {
+        return Enrollment.view(this, enrollmentStore.course(row), enrollmentStore.epochDay(row),
+                               enrollmentStore.marks(row));
     }
     
     /**
@@ -65,98 +220,117 @@ public class Student extends Person {
      * GPA = Σ(grade points × credits) / Σ(credits)
      * Only includes courses that have been graded
      */
-    public double calculateGPA() {
-        if (enrollments.isEmpty()) {
-            return 0.0;
-        }
-        
-        // Using Streams API to calculate weighted average
-        double totalGradePoints = enrollments.stream()
-            .filter(Enrollment::isGraded)  // Only include graded courses
-            .mapToDouble(enrollment -> 
-                enrollment.getGrade().getPoints() * enrollment.getCourse().getCredits()
-            )
-            .sum();
-        
-        int totalCredits = enrollments.stream()
-            .filter(Enrollment::isGraded)  // Only include graded courses
-            .mapToInt(enrollment -> enrollment.getCourse().getCredits())
-            .sum();
-        
+    public synchronized double calculateGPA() {
+        ensureAggregates();
         // Avoid division by zero
-        if (totalCredits == 0) {
+        if (gradedCredits == 0) {
             return 0.0;
         }
-        
-        return totalGradePoints / totalCredits;
+        return gradePoints / gradedCredits;
     }
     
     /**
      * Alternative GPA calculation that includes all enrolled courses (ungraded count as 0)
      */
-    public double calculateOverallGPA() {
-        if (enrollments.isEmpty()) {
-            return 0.0;
-        }
-        
-        double totalGradePoints = enrollments.stream()
-            .mapToDouble(enrollment -> {
-                if (enrollment.isGraded()) {
-                    return enrollment.getGrade().getPoints() * enrollment.getCourse().getCredits();
-                } else {
-                    return 0.0; // Ungraded courses count as 0
-                }
-            })
-            .sum();
-        
-        int totalCredits = enrollments.stream()
-            .mapToInt(enrollment -> enrollment.getCourse().getCredits())
-            .sum();
-        
-        if (totalCredits == 0) {
+    public synchronized double calculateOverallGPA() {
+        ensureAggregates();
+        if (attemptedCredits == 0) {
             return 0.0;
         }
-        
-        return totalGradePoints / totalCredits;
+        return gradePoints / attemptedCredits;
     }
     
     /**
      * Get number of graded courses
      */
-    public long getGradedCoursesCount() {
-        return enrollments.stream()
-            .filter(Enrollment::isGraded)
-            .count();
+    public synchronized long getGradedCoursesCount() {
+        ensureAggregates();
+        return gradedCount;
     }
     
     /**
      * Get total credits attempted (all enrolled courses)
      */
-    public int getTotalCreditsAttempted() {
-        return enrollments.stream()
-            .mapToInt(enrollment -> enrollment.getCourse().getCredits())
-            .sum();
+    public synchronized int getTotalCreditsAttempted() {
+        ensureAggregates();
+        return attemptedCredits;
     }
     
     /**
      * Get total credits earned (only graded courses with passing grades)
      */
-    public int getTotalCreditsEarned() {
-        return enrollments.stream()
-            .filter(Enrollment::isGraded)
-            .filter(enrollment -> enrollment.getGrade().getPoints() >= 5.0) // Passing grade threshold
-            .mapToInt(enrollment -> enrollment.getCourse().getCredits())
-            .sum();
+    public synchronized int getTotalCreditsEarned() {
+        ensureAggregates();
+        return earnedCredits;
+    }
+    
+    /**
+     * Rebuild the running sums if a course's credits changed since they were last computed
+     */
+    private void ensureAggregates() {
+        long epoch = Course.getCreditsEpoch();
+        if (aggregateEpoch == epoch) {
+            return;
+        }
+        aggregateEpoch = epoch;
+        gradePoints = 0.0;
+        gradedCredits = 0;
+        gradedCount = 0;
+        attemptedCredits = 0;
+        earnedCredits = 0;
+        if (enrollmentStore == null) {
+            return;
+        }
+        for (int row = enrollmentStore.first(storeIndex); row >= 0; row = enrollmentStore.next(row)) {
+            accumulate(row, 1);
+        }
+    }
+    
+    private void accumulate(int row, int sign) {
+        int credits = enrollmentStore.course(row).getCredits();
+        attemptedCredits += sign * credits;
+        Grade grade = enrollmentStore.grade(row);
+        if (grade != null) {
+            accumulateGrade(grade, credits, sign);
+        }
+    }
+    
+    private void accumulateGrade(Grade grade, int credits, int sign) {
+        gradePoints += sign * grade.getPoints() * credits;
+        gradedCredits += sign * credits;
+        gradedCount += sign;
+        if (grade.getPoints() >= PASSING_GRADE_POINTS) {
+            earnedCredits += sign * credits;
+        }
     }
     
     // Getters
     public String getRegNo() { return regNo; }
-    public List<Enrollment> getEnrollments() { return new ArrayList<>(enrollments); } // Defensive copy
+    
+    /**
+     * Immutable list of the enrollments in enrollment order, built from the rows on each
+     * call. The Enrollment objects read their rows, so marks recorded afterwards are still
+     * visible through them.
+     */
+    public synchronized List<Enrollment> getEnrollments() {
+        if (enrollmentCount == 0) {
+            return List.of();
+        }
+        List<Enrollment> enrollments = new ArrayList<>(enrollmentCount);
+        for (int row = enrollmentStore.first(storeIndex); row >= 0; row = enrollmentStore.next(row)) {
+            enrollments.add(view(row));
+        }
+        return Collections.unmodifiableList(enrollments);
+    }
+    
+    public Stream<Enrollment> enrollmentStream() {
+        return getEnrollments().stream();
+    }
     
     @Override
-    public String toString() {
+    public synchronized String toString() {
         double gpa = calculateGPA();
         return String.format("Student{id='%s', regNo='%s', name='%s', enrollments=%d, GPA=%.2f}", 
-                           id, regNo, fullName, enrollments.size(), gpa);
+                           id, regNo, fullName, enrollmentCount, gpa);
     }
 }
\ No newline at end of file
@@ -0,0 +1,50 @@
+package edu.ccrm.domain;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+
+/**
+ * Shared canonical copies of field values that repeat across many records, such as
+ * department and instructor names and email domains. Records keep the canonical
+ * instance, so each distinct value is held in memory once however many records use it.
+ * Tables only grow; they are meant for small vocabularies, not for unique values.
+ */
+public final class SymbolTable {
+    public static final SymbolTable DEPARTMENTS = new SymbolTable("departments");
+    public static final SymbolTable INSTRUCTORS = new SymbolTable("instructors");
+    public static final SymbolTable EMAIL_DOMAINS = new SymbolTable("email domains");
+    
+    private final String name;
+    private final Map<String, String> symbols = new ConcurrentHashMap<>();
+    
+    private SymbolTable(String name) {
+        this.name = name;
+    }
+    
+    /**
+     * @return the canonical instance equal to value, or null for null
+     */
+    public String intern(String value) {
+        if (value == null) {
+            return null;
+        }
+        String existing = symbols.putIfAbsent(value, value);
+        return existing == null ? value : existing;
+    }
+    
+    public String getName() { return name; }
+    
+    public int size() {
+        return symbols.size();
+    }
+    
+    public List<String> getSymbols() {
+        return new ArrayList<>(symbols.keySet());
+    }
+    
+    public static List<SymbolTable> all() {
+        return List.of(DEPARTMENTS, INSTRUCTORS, EMAIL_DOMAINS);
+    }
+}
\ No newline at end of file
@@ -1,5 +1,164 @@
 package edu.ccrm.domain;
 
-public class Transcript {
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+
+/**
+ * A student's record as it stood when the transcript was made: profile, each enrollment
+ * with its course title, credits, marks and grade, and the GPA. Immutable; it does not
+ * follow later changes to the student or their courses, so whoever keeps one must drop
+ * it when those change. The printed forms are built on first use and then reused.
+ */
+public final class Transcript {
+    private final String studentId;
+    private final String regNo;
+    private final String fullName;
+    private final String email;
+    private final List<Line> lines;
+    private final double gpa;
+    private final int creditsAttempted;
+    private final int creditsEarned;
+    // Built on first use; a race only builds an equal string twice
+    private String text;
+    private String gradeSheet;
+    
+    /**
+     * One enrollment as it appears on the transcript
+     */
+    public static final class Line {
+        private final String courseCode;
+        private final String courseTitle;
+        private final int credits;
+        private final double marks; // NaN if not graded
+        private final Grade grade;  // Null if not graded
+        
+        private Line(Enrollment enrollment) {
+            Course course = enrollment.getCourse();
+            this.courseCode = course.getCode();
+            this.courseTitle = course.getTitle();
+            this.credits = course.getCredits();
+            this.marks = enrollment.getMarksAsDouble();
+            this.grade = enrollment.getGrade();
+        }
+        
+        public String getCourseCode() { return courseCode; }
+        public String getCourseTitle() { return courseTitle; }
+        public int getCredits() { return credits; }
+        public boolean isGraded() { return grade != null; }
+        public double getMarks() { return marks; }
+        public Grade getGrade() { return grade; }
+    }
+    
+    private Transcript(Student student) {
+        this.studentId = student.getId();
+        this.regNo = student.getRegNo();
+        this.fullName = student.getFullName();
+        this.email = student.getEmail();
+        List<Line> built = new ArrayList<>();
+        for (Enrollment enrollment : student.getEnrollments()) {
+            built.add(new Line(enrollment));
+        }
+        this.lines = Collections.unmodifiableList(built);
+        this.gpa = student.calculateGPA();
+        this.creditsAttempted = student.getTotalCreditsAttempted();
+        this.creditsEarned = student.getTotalCreditsEarned();
+    }
+    
+    /**
+     * Transcript of the student as it is now; taken under the student's monitor, so the
+     * enrollments and the GPA agree
+     */
+    public static Transcript of(Student student) {
+        synchronized (student) {
+            return new Transcript(student);
+        }
+    }
+    
+    public String getStudentId() { return studentId; }
+    public String getRegNo() { return regNo; }
+    public String getFullName() { return fullName; }
+    public String getEmail() { return email; }
+    public List<Line> getLines() { return lines; }
+    public double getGpa() { return gpa; }
+    public int getCreditsAttempted() { return creditsAttempted; }
+    public int getCreditsEarned() { return creditsEarned; }
+    
+    /**
+     * @return false if the transcript shows the course with a title or credits it no
+     *         longer has
+     */
+    public boolean isCurrentFor(Course course) {
+        for (Line line : lines) {
+            if (line.courseCode.equals(course.getCode())) {
+                return line.credits == course.getCredits() && line.courseTitle.equals(course.getTitle());
+            }
+        }
+        return true;
+    }
+    
+    /**
+     * The full transcript: profile, courses with marks and grades, and the GPA
+     */
+    public String format() {
+        String result = text;
+        if (result == null) {
+            StringBuilder out = new StringBuilder(256 + 64 * lines.size());
+            out.append(String.format("%n=== Transcript for %s ===%n", fullName));
+            out.append("Student ID: ").append(studentId).append(System.lineSeparator());
+            out.append("Registration No: ").append(regNo).append(System.lineSeparator());
+            out.append("Email: ").append(email).append(System.lineSeparator());
+            out.append(String.format("%nEnrolled Courses:%n-----------------%n"));
+            if (lines.isEmpty()) {
+                out.append("No courses enrolled.").append(System.lineSeparator());
+            } else {
+                for (Line line : lines) {
+                    String status = line.isGraded()
+                        ? String.format("Marks: %.2f, Grade: %s", line.marks, line.grade)
+                        : "Not Graded";
+                    out.append(String.format("%s - %s (%d credits) - %s%n",
+                        line.courseCode, line.courseTitle, line.credits, status));
+                }
+                out.append(String.format("%nOverall GPA: %.2f%n", gpa));
+            }
+            result = out.toString();
+            text = result;
+        }
+        return result;
+    }
+    
+    /**
+     * The grade sheet: one row per course with marks and grade, and the GPA
+     */
+    public String formatGradeSheet() {
+        String result = gradeSheet;
+        if (result == null) {
+            StringBuilder out = new StringBuilder(128 + 48 * lines.size());
+            if (lines.isEmpty()) {
+                out.append("Student has no enrollments.").append(System.lineSeparator());
+            } else {
+                out.append("Grades for ").append(fullName).append(':').append(System.lineSeparator());
+                out.append("Course Code | Course Title | Marks | Grade").append(System.lineSeparator());
+                out.append("------------------------------------------").append(System.lineSeparator());
+                for (Line line : lines) {
+                    if (line.isGraded()) {
+                        out.append(String.format("%-11s | %-12s | %5.2f | %s%n",
+                            line.courseCode, line.courseTitle, line.marks, line.grade));
+                    } else {
+                        out.append(String.format("%-11s | %-12s | %5s | %s%n",
+                            line.courseCode, line.courseTitle, "N/A", "Not Graded"));
+                    }
+                }
+                out.append(String.format("%nOverall GPA: %.2f%n", gpa));
+            }
+            result = out.toString();
+            gradeSheet = result;
+        }
+        return result;
+    }
     
-}
+    @Override
+    public String toString() {
+        return String.format("Transcript[%s, %d courses, GPA %.2f]", regNo, lines.size(), gpa);
+    }
+}
\ No newline at end of file
@@ -0,0 +1,278 @@
+package edu.ccrm.io;
+
+import java.io.Closeable;
+import java.io.IOException;
+import java.io.Reader;
+
+/**
+ * Streaming RFC 4180 CSV reader.
+ * Input is read through one reusable char buffer and each record's fields are
+ * unescaped into a second reusable buffer, so nothing is allocated per record until
+ * a caller asks for a field as a String. Quoted fields may contain commas, doubled
+ * quotes and line breaks. Records end at LF or CRLF; blank lines are skipped.
+ */
+public class CsvReader implements Closeable {
+    private static final int DEFAULT_BUFFER_SIZE = 64 * 1024;
+    private static final int MAX_INT_DIGITS = 10; // Digits of Integer.MAX_VALUE
+    
+    private final Reader in;
+    private final char[] buffer;
+    private int position;
+    private int limit;
+    
+    // Unescaped characters of the current record and the field boundaries within them
+    private char[] record = new char[256];
+    private int recordLength;
+    private int[] fieldEnds = new int[16];
+    private int fieldCount;
+    private long lineNumber;
+    private long recordLine;
+    
+    public CsvReader(Reader in) {
+        this(in, DEFAULT_BUFFER_SIZE);
+    }
+    
+    public CsvReader(Reader in, int bufferSize) {
+        this.in = in;
+        this.buffer = new char[bufferSize];
+    }
+    
+    /**
+     * Advance to the next record.
+     * @return false once the input is exhausted
+     */
+    public boolean next() throws IOException {
+        while (true) {
+            recordLength = 0;
+            fieldCount = 0;
+            recordLine = lineNumber + 1;
+            int c = read();
+            if (c == -1) {
+                return false;
+            }
+            if (c == '\n') {
+                lineNumber++;
+                continue; // Blank line
+            }
+            if (c == '\r' && peek() == '\n') {
+                read();
+                lineNumber++;
+                continue;
+            }
+            parseRecord(c);
+            lineNumber++;
+            return true;
+        }
+    }
+    
+    private void parseRecord(int c) throws IOException {
+        boolean quoted = false;
+        boolean atFieldStart = true;
+        while (true) {
+            if (quoted) {
+                if (c == -1) {
+                    throw new IOException("Unterminated quoted field starting on line " + recordLine);
+                }
+                if (c == '"') {
+                    if (peek() == '"') {
+                        read();
+                        append('"');
+                    } else {
+                        quoted = false;
+                    }
+                } else {
+                    if (c == '\n') {
+                        lineNumber++;
+                    }
+                    append((char) c);
+                }
+            } else if (c == ',') {
+                endField();
+                atFieldStart = true;
+                c = read();
+                continue;
+            } else if (c == '\n' || c == -1) {
+                break;
+            } else if (c == '\r' && (peek() == '\n' || peek() == -1)) {
+                read();
+                break;
+            } else if (c == '"' && atFieldStart) {
+                quoted = true;
+            } else {
+                append((char) c);
+            }
+            atFieldStart = false;
+            c = read();
+        }
+        endField();
+    }
+    
+    public int getFieldCount() {
+        return fieldCount;
+    }
+    
+    /**
+     * Line on which the current record starts, 1-based
+     */
+    public long getLineNumber() {
+        return recordLine;
+    }
+    
+    public String get(int index) {
+        int start = fieldStart(index);
+        return new String(record, start, fieldEnds[index] - start);
+    }
+    
+    /**
+     * Parse a field as an int without materializing it as a String
+     * @throws NumberFormatException if the field is not a number or does not fit in an int
+     */
+    public int getInt(int index) {
+        int start = fieldStart(index);
+        int end = fieldEnds[index];
+        while (start < end && record[start] == ' ') start++;
+        while (end > start && record[end - 1] == ' ') end--;
+        if (start == end) {
+            throw new NumberFormatException("Empty numeric field " + index + " on line " + recordLine);
+        }
+        boolean negative = record[start] == '-';
+        int i = negative || record[start] == '+' ? start + 1 : start;
+        if (i == end) {
+            throw new NumberFormatException("Invalid number in field " + index + " on line " + recordLine);
+        }
+        if (end - i > MAX_INT_DIGITS) {
+            throw new NumberFormatException("Too many digits in field " + index + " on line " + recordLine);
+        }
+        long value = 0; // Ten digits cannot overflow a long
+        for (; i < end; i++) {
+            int digit = record[i] - '0';
+            if (digit < 0 || digit > 9) {
+                throw new NumberFormatException("Invalid number in field " + index + " on line " + recordLine);
+            }
+            value = value * 10 + digit;
+        }
+        if (negative) {
+            value = -value;
+        }
+        if (value < Integer.MIN_VALUE || value > Integer.MAX_VALUE) {
+            throw new NumberFormatException("Number out of range in field " + index + " on line " + recordLine);
+        }
+        return (int) value;
+    }
+    
+    /**
+     * Materialize every field of the current record
+     */
+    public String[] toArray() {
+        String[] fields = new String[fieldCount];
+        for (int i = 0; i < fieldCount; i++) {
+            fields[i] = get(i);
+        }
+        return fields;
+    }
+    
+    public boolean isEmpty(int index) {
+        return fieldEnds[index] == fieldStart(index);
+    }
+    
+    /**
+     * Compare a field with a string without materializing the field
+     */
+    public boolean fieldEquals(int index, String value) {
+        int start = fieldStart(index);
+        int length = fieldEnds[index] - start;
+        if (length != value.length()) {
+            return false;
+        }
+        for (int i = 0; i < length; i++) {
+            if (record[start + i] != value.charAt(i)) {
+                return false;
+            }
+        }
+        return true;
+    }
+    
+    private int fieldStart(int index) {
+        if (index < 0 || index >= fieldCount) {
+            throw new IndexOutOfBoundsException("Field " + index + " of " + fieldCount + " on line " + recordLine);
+        }
+        return index == 0 ? 0 : fieldEnds[index - 1];
+    }
+    
+    private void append(char c) {
+        if (recordLength == record.length) {
+            char[] grown = new char[record.length * 2];
+            System.arraycopy(record, 0, grown, 0, recordLength);
+            record = grown;
+        }
+        record[recordLength++] = c;
+    }
+    
+    private void endField() {
+        if (fieldCount == fieldEnds.length) {
+            int[] grown = new int[fieldEnds.length * 2];
+            System.arraycopy(fieldEnds, 0, grown, 0, fieldCount);
+            fieldEnds = grown;
+        }
+        fieldEnds[fieldCount++] = recordLength;
+    }
+    
+    private int read() throws IOException {
+        if (position == limit && !fill()) {
+            return -1;
+        }
+        return buffer[position++];
+    }
+    
+    private int peek() throws IOException {
+        if (position == limit && !fill()) {
+            return -1;
+        }
+        return buffer[position];
+    }
+    
+    private boolean fill() throws IOException {
+        int n = in.read(buffer, 0, buffer.length);
+        if (n <= 0) {
+            return false;
+        }
+        position = 0;
+        limit = n;
+        return true;
+    }
+    
+    @Override
+    public void close() throws IOException {
+        in.close();
+    }
+    
+    /**
+     * Append a value to a CSV line, quoting it only when RFC 4180 requires it
+     */
+    public static void appendField(StringBuilder line, String value) {
+        if (value == null) {
+            return;
+        }
+        boolean needsQuotes = false;
+        for (int i = 0; i < value.length(); i++) {
+            char c = value.charAt(i);
+            if (c == ',' || c == '"' || c == '\n' || c == '\r') {
+                needsQuotes = true;
+                break;
+            }
+        }
+        if (!needsQuotes) {
+            line.append(value);
+            return;
+        }
+        line.append('"');
+        for (int i = 0; i < value.length(); i++) {
+            char c = value.charAt(i);
+            if (c == '"') {
+                line.append('"');
+            }
+            line.append(c);
+        }
+        line.append('"');
+    }
+}
\ No newline at end of file
@@ -0,0 +1,194 @@
+package edu.ccrm.io;
+
+import edu.ccrm.domain.Course;
+import edu.ccrm.domain.Enrollment;
+import edu.ccrm.domain.Student;
+import edu.ccrm.service.CourseService;
+import edu.ccrm.service.DataAccessException;
+import edu.ccrm.service.StudentService;
+
+import java.time.LocalDate;
+import java.util.Locale;
+
+/**
+ * Column positions of an enrollment CSV, located by header name so both the full
+ * export layout and the short studentId,courseCode,marks,grade layout can be read.
+ */
+final class EnrollmentCsvLayout {
+    private final int studentIdCol;
+    private final int regNoCol;
+    private final int courseCol;
+    private final int marksCol;
+    private final int dateCol;
+    
+    private EnrollmentCsvLayout(int studentIdCol, int regNoCol, int courseCol, int marksCol, int dateCol) {
+        this.studentIdCol = studentIdCol;
+        this.regNoCol = regNoCol;
+        this.courseCol = courseCol;
+        this.marksCol = marksCol;
+        this.dateCol = dateCol;
+    }
+    
+    static EnrollmentCsvLayout fromHeader(String[] header) throws DataAccessException {
+        int studentIdCol = -1, regNoCol = -1, courseCol = -1, marksCol = -1, dateCol = -1;
+        for (int i = 0; i < header.length; i++) {
+            switch (header[i].trim().toLowerCase(Locale.ROOT)) {
+                case "studentid": studentIdCol = i; break;
+                case "regno": regNoCol = i; break;
+                case "coursecode": courseCol = i; break;
+                case "marks": marksCol = i; break;
+                case "enrollmentdate": dateCol = i; break;
+                default: break;
+            }
+        }
+        if (courseCol < 0 || (studentIdCol < 0 && regNoCol < 0)) {
+            throw new DataAccessException("Enrollment CSV header must contain courseCode and regNo or studentId");
+        }
+        return new EnrollmentCsvLayout(studentIdCol, regNoCol, courseCol, marksCol, dateCol);
+    }
+    
+    /**
+     * Student key for error messages: the regNo when the layout has one, else the id
+     */
+    String studentKey(String[] row) {
+        return regNoCol >= 0 ? field(row, regNoCol) : field(row, studentIdCol);
+    }
+    
+    String courseCode(String[] row) {
+        return field(row, courseCol);
+    }
+    
+    Student resolveStudent(String[] row, StudentService studentService) {
+        String key = studentKey(row);
+        if (key == null) {
+            return null;
+        }
+        return regNoCol >= 0 ? studentService.findByRegNo(key) : studentService.findById(key);
+    }
+    
+    Course resolveCourse(String[] row, CourseService courseService) {
+        String code = courseCode(row);
+        return code == null ? null : courseService.findByCode(code);
+    }
+    
+    /**
+     * @param line line of the record in the file, for the error message
+     * @return marks, or null when the row is ungraded
+     * @throws NumberFormatException if the marks column is not a number
+     * @throws IllegalArgumentException if the marks are outside 0-100
+     */
+    Double marks(String[] row, long line) {
+        String marks = field(row, marksCol);
+        return marks == null || marks.isEmpty() ? null : checkMarks(Double.parseDouble(marks), line);
+    }
+    
+    /**
+     * @throws java.time.format.DateTimeParseException if the date column is malformed
+     */
+    LocalDate enrollmentDate(String[] row) {
+        String date = field(row, dateCol);
+        return date == null || date.isEmpty() ? LocalDate.now() : LocalDate.parse(date);
+    }
+    
+    Enrollment toEnrollment(Student student, Course course, String[] row, long line) {
+        Enrollment enrollment = new Enrollment(student, course, enrollmentDate(row));
+        Double marks = marks(row, line);
+        if (marks != null) {
+            enrollment.recordMarks(marks);
+        }
+        return enrollment;
+    }
+    
+    // NaN fails both comparisons, so it is rejected along with the infinities
+    private static double checkMarks(double marks, long line) {
+        if (!(marks >= 0 && marks <= 100)) {
+            throw new IllegalArgumentException("Marks must be between 0 and 100 on line " + line + ": " + marks);
+        }
+        return marks;
+    }
+    
+    private static String field(String[] row, int col) {
+        return col >= 0 && col < row.length ? row[col] : null;
+    }
+    
+    /**
+     * Resolver for the records of one reader, read in place
+     */
+    StreamResolver resolver(CsvReader csv, StudentService studentService, CourseService courseService) {
+        return new StreamResolver(csv, studentService, courseService);
+    }
+    
+    /**
+     * Resolves the current record of a CsvReader without materializing the whole row.
+     * Key fields are compared in the reader's buffer with the previous record's, so a run
+     * of rows for the same student or course (exports are grouped by student) looks it
+     * up once; of an accepted row only the marks and date become Strings.
+     */
+    final class StreamResolver {
+        private final CsvReader csv;
+        private final StudentService studentService;
+        private final CourseService courseService;
+        private String studentKey;
+        private Student student;
+        private String courseCode;
+        private Course course;
+        
+        private StreamResolver(CsvReader csv, StudentService studentService, CourseService courseService) {
+            this.csv = csv;
+            this.studentService = studentService;
+            this.courseService = courseService;
+        }
+        
+        Student resolveStudent() {
+            int col = regNoCol >= 0 ? regNoCol : studentIdCol;
+            if (col >= csv.getFieldCount()) {
+                studentKey = null;
+                student = null;
+            } else if (studentKey == null || !csv.fieldEquals(col, studentKey)) {
+                studentKey = csv.get(col);
+                student = regNoCol >= 0 ? studentService.findByRegNo(studentKey) : studentService.findById(studentKey);
+            }
+            return student;
+        }
+        
+        Course resolveCourse() {
+            if (courseCol >= csv.getFieldCount()) {
+                courseCode = null;
+                course = null;
+            } else if (courseCode == null || !csv.fieldEquals(courseCol, courseCode)) {
+                courseCode = csv.get(courseCol);
+                course = courseService.findByCode(courseCode);
+            }
+            return course;
+        }
+        
+        /**
+         * Key of the student last resolved, for error messages
+         */
+        String studentKey() {
+            return studentKey;
+        }
+        
+        String courseCode() {
+            return courseCode;
+        }
+        
+        /**
+         * @throws NumberFormatException if the marks column is not a number
+         * @throws java.time.format.DateTimeParseException if the date column is malformed
+         * @throws IllegalArgumentException if the marks are outside 0-100
+         */
+        Enrollment toEnrollment(Student student, Course course) {
+            LocalDate date = present(dateCol) ? LocalDate.parse(csv.get(dateCol)) : LocalDate.now();
+            Enrollment enrollment = new Enrollment(student, course, date);
+            if (present(marksCol)) {
+                enrollment.recordMarks(checkMarks(Double.parseDouble(csv.get(marksCol)), csv.getLineNumber()));
+            }
+            return enrollment;
+        }
+        
+        private boolean present(int col) {
+            return col >= 0 && col < csv.getFieldCount() && !csv.isEmpty(col);
+        }
+    }
+}
\ No newline at end of file
@@ -5,103 +5,299 @@ import edu.ccrm.domain.Course;
 import edu.ccrm.domain.Enrollment;
 import edu.ccrm.domain.Grade;
 import edu.ccrm.domain.Semester;
+import edu.ccrm.metrics.MetricsRegistry;
+import edu.ccrm.metrics.OperationMetrics;
+import edu.ccrm.service.BulkEnrollmentResult;
+import edu.ccrm.service.CourseService;
 import edu.ccrm.service.DataAccessException;
+import edu.ccrm.service.StudentService;
 
+import java.io.BufferedWriter;
 import java.io.IOException;
+import java.nio.charset.StandardCharsets;
 import java.nio.file.Files;
 import java.nio.file.Path;
 import java.nio.file.StandardOpenOption;
-import java.time.LocalDate;
+import java.time.format.DateTimeParseException;
 import java.util.ArrayList;
 import java.util.List;
-import java.util.stream.Collectors;
+import java.util.function.Consumer;
 import java.util.stream.Stream;
 
 public class FileService {
+    public static final int DEFAULT_BATCH_SIZE = 1000;
+    
+    // Per-operation call counts and latencies; a DataAccessException counts as a failure
+    private final OperationMetrics exportStudentsMetrics = MetricsRegistry.getInstance().operation("file.exportStudents");
+    private final OperationMetrics importStudentsMetrics = MetricsRegistry.getInstance().operation("file.importStudents");
+    private final OperationMetrics exportCoursesMetrics = MetricsRegistry.getInstance().operation("file.exportCourses");
+    private final OperationMetrics importCoursesMetrics = MetricsRegistry.getInstance().operation("file.importCourses");
+    private final OperationMetrics exportEnrollmentsMetrics = MetricsRegistry.getInstance().operation("file.exportEnrollments");
+    private final OperationMetrics importEnrollmentsMetrics = MetricsRegistry.getInstance().operation("file.importEnrollments");
     
     public void exportStudents(List<Student> students, Path filePath) throws DataAccessException {
-        try {
-            List<String> lines = new ArrayList<>();
-            lines.add("id,regNo,fullName,email,active,createdDate");
-            
-            students.forEach(student -> {
-                String line = String.format("%s,%s,%s,%s,%s,%s",
-                    student.getId(), student.getRegNo(), student.getFullName(),
-                    student.getEmail(), student.isActive(), student.getCreatedDate());
-                lines.add(line);
-            });
+        long start = exportStudentsMetrics.start();
+        boolean exported = false;
+        try (BufferedWriter writer = Files.newBufferedWriter(filePath, StandardCharsets.UTF_8,
+                StandardOpenOption.CREATE, StandardOpenOption.TRUNCATE_EXISTING)) {
+            writer.write("id,regNo,fullName,email,active,createdDate");
+            writer.newLine();
             
-            Files.write(filePath, lines, StandardOpenOption.CREATE, StandardOpenOption.TRUNCATE_EXISTING);
+            StringBuilder line = new StringBuilder(128);
+            for (Student student : students) {
+                line.setLength(0);
+                CsvReader.appendField(line, student.getId());
+                line.append(',');
+                CsvReader.appendField(line, student.getRegNo());
+                line.append(',');
+                CsvReader.appendField(line, student.getFullName());
+                line.append(',');
+                CsvReader.appendField(line, student.getEmail());
+                line.append(',').append(student.isActive());
+                line.append(',').append(student.getCreatedDate());
+                writer.append(line);
+                writer.newLine();
+            }
+            exported = true;
         } catch (IOException e) {
             throw new DataAccessException("Failed to export students: " + e.getMessage(), e);
+        } finally {
+            exportStudentsMetrics.record(start, exported);
         }
     }
     
     public List<Student> importStudents(Path filePath) throws DataAccessException {
-        try (Stream<String> lines = Files.lines(filePath)) {
-            return lines.skip(1) // Skip header
-                .map(this::parseStudentFromCSV)
-                .collect(Collectors.toList());
+        List<Student> students = new ArrayList<>();
+        importStudents(filePath, students::addAll, DEFAULT_BATCH_SIZE);
+        return students;
+    }
+    
+    /**
+     * Stream students from a CSV file into the sink in batches of at most batchSize.
+     * @return the number of students parsed
+     */
+    public int importStudents(Path filePath, Consumer<List<Student>> sink, int batchSize)
+            throws DataAccessException {
+        long start = importStudentsMetrics.start();
+        boolean imported = false;
+        try (CsvReader csv = new CsvReader(Files.newBufferedReader(filePath, StandardCharsets.UTF_8))) {
+            Student.Builder builder = new Student.Builder();
+            int count = readBatches(csv, sink, batchSize, "student", 6, () -> builder
+                .id(csv.get(0))
+                .regNo(csv.get(1))
+                .fullName(csv.get(2))
+                .email(csv.get(3))
+                .build());
+            imported = true;
+            return count;
         } catch (IOException e) {
             throw new DataAccessException("Failed to import students: " + e.getMessage(), e);
+        } finally {
+            importStudentsMetrics.record(start, imported);
         }
     }
     
     public void exportCourses(List<Course> courses, Path filePath) throws DataAccessException {
-        try {
-            List<String> lines = new ArrayList<>();
-            lines.add("code,title,credits,instructor,semester,department,active");
+        long start = exportCoursesMetrics.start();
+        boolean exported = false;
+        try (BufferedWriter writer = Files.newBufferedWriter(filePath, StandardCharsets.UTF_8,
+                StandardOpenOption.CREATE, StandardOpenOption.TRUNCATE_EXISTING)) {
+            writer.write("code,title,credits,instructor,semester,department,active");
+            writer.newLine();
             
-            courses.forEach(course -> {
-                String line = String.format("%s,%s,%d,%s,%s,%s,%s",
-                    course.getCode(), course.getTitle(), course.getCredits(),
-                    course.getInstructor(), course.getSemester().name(),
-                    course.getDepartment(), course.isActive());
-                lines.add(line);
-            });
-            
-            Files.write(filePath, lines, StandardOpenOption.CREATE, StandardOpenOption.TRUNCATE_EXISTING);
+            StringBuilder line = new StringBuilder(128);
+            for (Course course : courses) {
+                line.setLength(0);
+                CsvReader.appendField(line, course.getCode());
+                line.append(',');
+                CsvReader.appendField(line, course.getTitle());
+                line.append(',').append(course.getCredits()).append(',');
+                CsvReader.appendField(line, course.getInstructor());
+                line.append(',').append(course.getSemester().name()).append(',');
+                CsvReader.appendField(line, course.getDepartment());
+                line.append(',').append(course.isActive());
+                writer.append(line);
+                writer.newLine();
+            }
+            exported = true;
         } catch (IOException e) {
             throw new DataAccessException("Failed to export courses: " + e.getMessage(), e);
+        } finally {
+            exportCoursesMetrics.record(start, exported);
         }
     }
     
     public List<Course> importCourses(Path filePath) throws DataAccessException {
-        try (Stream<String> lines = Files.lines(filePath)) {
-            return lines.skip(1) // Skip header
-                .map(this::parseCourseFromCSV)
-                .collect(Collectors.toList());
+        List<Course> courses = new ArrayList<>();
+        importCourses(filePath, courses::addAll, DEFAULT_BATCH_SIZE);
+        return courses;
+    }
+    
+    /**
+     * Stream courses from a CSV file into the sink in batches of at most batchSize.
+     * @return the number of courses parsed
+     */
+    public int importCourses(Path filePath, Consumer<List<Course>> sink, int batchSize)
+            throws DataAccessException {
+        long start = importCoursesMetrics.start();
+        boolean imported = false;
+        try (CsvReader csv = new CsvReader(Files.newBufferedReader(filePath, StandardCharsets.UTF_8))) {
+            Course.Builder builder = new Course.Builder();
+            int count = readBatches(csv, sink, batchSize, "course", 7, () -> builder
+                .code(csv.get(0))
+                .title(csv.get(1))
+                .credits(csv.getInt(2))
+                .instructor(csv.get(3))
+                .semester(Semester.valueOf(csv.get(4)))
+                .department(csv.get(5))
+                .build());
+            imported = true;
+            return count;
         } catch (IOException e) {
             throw new DataAccessException("Failed to import courses: " + e.getMessage(), e);
+        } finally {
+            importCoursesMetrics.record(start, imported);
+        }
+    }
+    
+    public void exportEnrollments(List<Student> students, Path filePath) throws DataAccessException {
+        long start = exportEnrollmentsMetrics.start();
+        boolean exported = false;
+        try (BufferedWriter writer = Files.newBufferedWriter(filePath, StandardCharsets.UTF_8,
+                StandardOpenOption.CREATE, StandardOpenOption.TRUNCATE_EXISTING)) {
+            writer.write("studentId,regNo,studentName,courseCode,courseTitle,marks,grade,credits,enrollmentDate");
+            writer.newLine();
+            
+            StringBuilder line = new StringBuilder(160);
+            for (Student student : students) {
+                for (Enrollment enrollment : student.getEnrollments()) {
+                    Course course = enrollment.getCourse();
+                    line.setLength(0);
+                    CsvReader.appendField(line, student.getId());
+                    line.append(',');
+                    CsvReader.appendField(line, student.getRegNo());
+                    line.append(',');
+                    CsvReader.appendField(line, student.getFullName());
+                    line.append(',');
+                    CsvReader.appendField(line, course.getCode());
+                    line.append(',');
+                    CsvReader.appendField(line, course.getTitle());
+                    line.append(',');
+                    if (enrollment.isGraded()) {
+                        line.append(enrollment.getMarksAsDouble()).append(',').append(enrollment.getGrade().getSymbol());
+                    } else {
+                        line.append(',');
+                    }
+                    line.append(',').append(course.getCredits());
+                    line.append(',').append(enrollment.getEnrollmentDate());
+                    writer.append(line);
+                    writer.newLine();
+                }
+            }
+            exported = true;
+        } catch (IOException e) {
+            throw new DataAccessException("Failed to export enrollments: " + e.getMessage(), e);
+        } finally {
+            exportEnrollmentsMetrics.record(start, exported);
         }
     }
     
-    private Student parseStudentFromCSV(String line) {
-        String[] parts = line.split(",");
-        if (parts.length >= 6) {
-            return new Student.Builder()
-                .id(parts[0])
-                .regNo(parts[1])
-                .fullName(parts[2])
-                .email(parts[3])
-                .build();
+    /**
+     * Restore enrollments from a CSV file in one streaming pass.
+     * Columns are located by header name: courseCode and one of regNo or studentId are
+     * required; marks and enrollmentDate are optional. Student and course references are
+     * resolved through the service indexes, and each batch is validated against the
+     * duplicate and credit-limit rules by StudentService.enrollAll. Rows with marks
+     * outside 0-100 are counted as invalid and skipped.
+     */
+    public BulkEnrollmentResult importEnrollments(Path filePath, StudentService studentService,
+                                                  CourseService courseService, int batchSize)
+            throws DataAccessException {
+        long start = importEnrollmentsMetrics.start();
+        boolean imported = false;
+        BulkEnrollmentResult result = new BulkEnrollmentResult();
+        try (CsvReader csv = new CsvReader(Files.newBufferedReader(filePath, StandardCharsets.UTF_8))) {
+            if (!csv.next()) {
+                imported = true;
+                return result;
+            }
+            EnrollmentCsvLayout layout = EnrollmentCsvLayout.fromHeader(csv.toArray());
+            
+            EnrollmentCsvLayout.StreamResolver rows = layout.resolver(csv, studentService, courseService);
+            
+            int size = Math.max(1, batchSize);
+            List<Enrollment> batch = new ArrayList<>(size);
+            while (csv.next()) {
+                Student student = rows.resolveStudent();
+                Course course = rows.resolveCourse();
+                if (student == null || course == null) {
+                    result.recordUnresolved("Line " + csv.getLineNumber() + ": unknown "
+                        + (student == null ? "student " + rows.studentKey() : "course " + rows.courseCode()));
+                    continue;
+                }
+                
+                try {
+                    batch.add(rows.toEnrollment(student, course));
+                } catch (NumberFormatException | DateTimeParseException e) {
+                    throw new DataAccessException("Invalid enrollment CSV record on line "
+                        + csv.getLineNumber() + ": " + e.getMessage(), e);
+                } catch (IllegalArgumentException e) {
+                    result.recordInvalid(e.getMessage());
+                    continue;
+                }
+                
+                if (batch.size() == size) {
+                    result.merge(studentService.enrollAll(batch));
+                    batch.clear();
+                }
+            }
+            if (!batch.isEmpty()) {
+                result.merge(studentService.enrollAll(batch));
+            }
+            imported = true;
+            return result;
+        } catch (IOException e) {
+            throw new DataAccessException("Failed to import enrollments: " + e.getMessage(), e);
+        } finally {
+            importEnrollmentsMetrics.record(start, imported);
         }
-        throw new IllegalArgumentException("Invalid student CSV line: " + line);
     }
     
-    private Course parseCourseFromCSV(String line) {
-        String[] parts = line.split(",");
-        if (parts.length >= 7) {
-            return new Course.Builder()
-                .code(parts[0])
-                .title(parts[1])
-                .credits(Integer.parseInt(parts[2]))
-                .instructor(parts[3])
-                .semester(Semester.valueOf(parts[4]))
-                .department(parts[5])
-                .build();
+    @FunctionalInterface
+    private interface RecordParser<T> {
+        T parse();
+    }
+    
+    // Skips the header, then hands parsed records to the sink one batch at a time
+    private <T> int readBatches(CsvReader csv, Consumer<List<T>> sink, int batchSize, String kind,
+                                int minFields, RecordParser<T> parser) throws IOException, DataAccessException {
+        if (!csv.next()) {
+            return 0;
+        }
+        int size = Math.max(1, batchSize);
+        List<T> batch = new ArrayList<>(size);
+        int count = 0;
+        while (csv.next()) {
+            if (csv.getFieldCount() < minFields) {
+                throw new DataAccessException("Invalid " + kind + " CSV record on line " + csv.getLineNumber()
+                    + ": expected " + minFields + " fields but found " + csv.getFieldCount());
+            }
+            try {
+                batch.add(parser.parse());
+            } catch (IllegalArgumentException | NullPointerException e) {
+                throw new DataAccessException("Invalid " + kind + " CSV record on line " + csv.getLineNumber()
+                    + ": " + e.getMessage(), e);
+            }
+            count++;
+            if (batch.size() == size) {
+                sink.accept(batch);
+                batch = new ArrayList<>(size);
+            }
+        }
+        if (!batch.isEmpty()) {
+            sink.accept(batch);
         }
-        throw new IllegalArgumentException("Invalid course CSV line: " + line);
+        return count;
     }
     
     // Recursive directory size calculation
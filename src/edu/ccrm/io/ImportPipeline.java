@@ -0,0 +1,486 @@
+package edu.ccrm.io;
+
+import edu.ccrm.domain.Course;
+import edu.ccrm.domain.Enrollment;
+import edu.ccrm.domain.Semester;
+import edu.ccrm.domain.Student;
+import edu.ccrm.service.BulkEnrollmentResult;
+import edu.ccrm.service.CourseService;
+import edu.ccrm.service.DataAccessException;
+import edu.ccrm.service.StudentService;
+import edu.ccrm.util.ValidationUtil;
+
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.time.format.DateTimeParseException;
+import java.util.ArrayList;
+import java.util.EnumMap;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.BlockingQueue;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * Multi-stage import of course, student and enrollment CSV files.
+ *
+ * Each file runs through its own lane: a reader thread cuts records into chunks,
+ * a pool of parser threads turns chunks into domain rows, and a validator thread
+ * checks them. Stages are connected by bounded queues, so a slow stage throttles the
+ * ones upstream of it. The calling thread is the commit stage: it drains courses,
+ * then students, then enrollments (so references resolve), restoring each lane's
+ * original chunk order before handing rows to the services.
+ */
+public class ImportPipeline {
+    
+    public enum Lane { COURSES, STUDENTS, ENROLLMENTS }
+    
+    public enum Stage { READ, PARSE, VALIDATE }
+    
+    private final int parserThreads;
+    private final int queueCapacity;
+    private final int chunkSize;
+    
+    public static class Builder {
+        private int parserThreads = Math.max(1, Runtime.getRuntime().availableProcessors() / 2);
+        private int queueCapacity = 16;
+        private int chunkSize = 1000;
+        
+        public Builder parserThreads(int parserThreads) {
+            this.parserThreads = parserThreads;
+            return this;
+        }
+        
+        /**
+         * Maximum number of chunks waiting between two stages
+         */
+        public Builder queueCapacity(int queueCapacity) {
+            this.queueCapacity = queueCapacity;
+            return this;
+        }
+        
+        public Builder chunkSize(int chunkSize) {
+            this.chunkSize = chunkSize;
+            return this;
+        }
+        
+        public ImportPipeline build() {
+            return new ImportPipeline(this);
+        }
+    }
+    
+    private ImportPipeline(Builder builder) {
+        this.parserThreads = Math.max(1, builder.parserThreads);
+        this.queueCapacity = Math.max(1, builder.queueCapacity);
+        this.chunkSize = Math.max(1, builder.chunkSize);
+    }
+    
+    /**
+     * A slice of consecutive records travelling through one lane
+     */
+    private static final class Chunk {
+        static final Chunk END = new Chunk(-1, 0);
+        
+        final long sequence;
+        final List<String[]> rows = new ArrayList<>();
+        // File line of each row, for error messages
+        final long[] lines;
+        final List<Object> items = new ArrayList<>();
+        final List<String> errors = new ArrayList<>();
+        
+        Chunk(long sequence, int capacity) {
+            this.sequence = sequence;
+            this.lines = new long[capacity];
+        }
+    }
+    
+    /**
+     * Row of an enrollment file after parsing; references are resolved at commit time
+     */
+    private static final class EnrollmentRow {
+        final String[] fields;
+        final long line;
+        
+        EnrollmentRow(String[] fields, long line) {
+            this.fields = fields;
+            this.line = line;
+        }
+    }
+    
+    /**
+     * Throughput and backpressure figures from one pipeline run
+     */
+    public static final class Result {
+        private final Map<Lane, long[]> counts = new EnumMap<>(Lane.class); // read, committed, rejected
+        private final Map<Lane, int[]> maxDepth = new EnumMap<>(Lane.class);
+        private final Map<Lane, double[]> avgDepth = new EnumMap<>(Lane.class);
+        private final List<String> messages = new ArrayList<>();
+        private BulkEnrollmentResult enrollmentResult = new BulkEnrollmentResult();
+        private long elapsedNanos;
+        
+        public long getRead(Lane lane) { return counts.get(lane)[0]; }
+        public long getCommitted(Lane lane) { return counts.get(lane)[1]; }
+        public long getRejected(Lane lane) { return counts.get(lane)[2]; }
+        
+        /**
+         * Deepest that the given stage's output queue got during the run
+         */
+        public int getMaxQueueDepth(Lane lane, Stage stage) { return maxDepth.get(lane)[stage.ordinal()]; }
+        public double getAverageQueueDepth(Lane lane, Stage stage) { return avgDepth.get(lane)[stage.ordinal()]; }
+        
+        public BulkEnrollmentResult getEnrollmentResult() { return enrollmentResult; }
+        public List<String> getMessages() { return messages; }
+        public double getElapsedSeconds() { return elapsedNanos / 1_000_000_000.0; }
+        
+        public long getTotalRead() {
+            return counts.values().stream().mapToLong(c -> c[0]).sum();
+        }
+        
+        public double getRowsPerSecond() {
+            return elapsedNanos == 0 ? 0.0 : getTotalRead() / getElapsedSeconds();
+        }
+    }
+    
+    private final class LaneRun {
+        final Lane lane;
+        final Path path;
+        final BlockingQueue<Chunk> rawQueue = new ArrayBlockingQueue<>(queueCapacity);
+        final BlockingQueue<Chunk> parsedQueue = new ArrayBlockingQueue<>(queueCapacity);
+        final BlockingQueue<Chunk> validQueue = new ArrayBlockingQueue<>(queueCapacity);
+        final AtomicInteger liveParsers = new AtomicInteger(parserThreads);
+        final AtomicLong read = new AtomicLong();
+        final int[] maxDepth = new int[Stage.values().length];
+        final long[] depthSum = new long[Stage.values().length];
+        // Column layout of the enrollments file, null for other lanes or an empty file
+        final EnrollmentCsvLayout layout;
+        volatile String failure;
+        long samples;
+        
+        LaneRun(Lane lane, Path path, EnrollmentCsvLayout layout) {
+            this.lane = lane;
+            this.path = path;
+            this.layout = layout;
+        }
+        
+        List<Thread> start() {
+            List<Thread> threads = new ArrayList<>();
+            threads.add(new Thread(this::readLoop, "import-" + lane + "-reader"));
+            for (int i = 0; i < parserThreads; i++) {
+                threads.add(new Thread(this::parseLoop, "import-" + lane + "-parser-" + i));
+            }
+            threads.add(new Thread(this::validateLoop, "import-" + lane + "-validator"));
+            threads.forEach(t -> {
+                t.setDaemon(true);
+                t.start();
+            });
+            return threads;
+        }
+        
+        synchronized void sample() {
+            BlockingQueue<?>[] queues = {rawQueue, parsedQueue, validQueue};
+            for (int i = 0; i < queues.length; i++) {
+                int depth = queues[i].size();
+                maxDepth[i] = Math.max(maxDepth[i], depth);
+                depthSum[i] += depth;
+            }
+            samples++;
+        }
+        
+        private void readLoop() {
+            long sequence = 0;
+            try (CsvReader csv = new CsvReader(Files.newBufferedReader(path, StandardCharsets.UTF_8))) {
+                if (csv.next()) { // Header; the enrollments layout was read from it before starting
+                    Chunk chunk = new Chunk(sequence++, chunkSize);
+                    while (csv.next()) {
+                        chunk.lines[chunk.rows.size()] = csv.getLineNumber();
+                        chunk.rows.add(csv.toArray());
+                        read.incrementAndGet();
+                        if (chunk.rows.size() == chunkSize) {
+                            rawQueue.put(chunk);
+                            chunk = new Chunk(sequence++, chunkSize);
+                        }
+                    }
+                    if (!chunk.rows.isEmpty()) {
+                        rawQueue.put(chunk);
+                    }
+                }
+            } catch (IOException e) {
+                failure = "Failed to read " + path + ": " + e.getMessage();
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+            } finally {
+                // One end marker per parser so every parser thread exits
+                for (int i = 0; i < parserThreads; i++) {
+                    putQuietly(rawQueue, Chunk.END);
+                }
+            }
+        }
+        
+        private void parseLoop() {
+            try {
+                while (true) {
+                    Chunk chunk = rawQueue.take();
+                    if (chunk == Chunk.END) {
+                        break;
+                    }
+                    for (int i = 0; i < chunk.rows.size(); i++) {
+                        String[] row = chunk.rows.get(i);
+                        try {
+                            chunk.items.add(parse(row, chunk.lines[i]));
+                        } catch (RuntimeException e) {
+                            chunk.errors.add(lane + ": cannot parse " + String.join(",", row) + " (" + e.getMessage() + ")");
+                        }
+                    }
+                    chunk.rows.clear();
+                    parsedQueue.put(chunk);
+                }
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+            } finally {
+                if (liveParsers.decrementAndGet() == 0) {
+                    putQuietly(parsedQueue, Chunk.END);
+                }
+            }
+        }
+        
+        private void validateLoop() {
+            try {
+                while (true) {
+                    Chunk chunk = parsedQueue.take();
+                    if (chunk == Chunk.END) {
+                        break;
+                    }
+                    List<Object> valid = new ArrayList<>(chunk.items.size());
+                    for (Object item : chunk.items) {
+                        String problem = validate(item);
+                        if (problem == null) {
+                            valid.add(item);
+                        } else {
+                            chunk.errors.add(lane + ": " + problem);
+                        }
+                    }
+                    chunk.items.clear();
+                    chunk.items.addAll(valid);
+                    validQueue.put(chunk);
+                }
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+            } finally {
+                putQuietly(validQueue, Chunk.END);
+            }
+        }
+        
+        private Object parse(String[] row, long line) {
+            switch (lane) {
+                case COURSES:
+                    if (row.length < 7) {
+                        throw new IllegalArgumentException("expected 7 fields");
+                    }
+                    return new Course.Builder()
+                        .code(row[0])
+                        .title(row[1])
+                        .credits(Integer.parseInt(row[2].trim()))
+                        .instructor(row[3])
+                        .semester(Semester.valueOf(row[4]))
+                        .department(row[5])
+                        .build();
+                case STUDENTS:
+                    if (row.length < 6) {
+                        throw new IllegalArgumentException("expected 6 fields");
+                    }
+                    return new Student.Builder()
+                        .id(row[0])
+                        .regNo(row[1])
+                        .fullName(row[2])
+                        .email(row[3])
+                        .build();
+                default:
+                    layout.enrollmentDate(row); // Fail early on a malformed date
+                    layout.marks(row, line); // and on marks that are malformed or outside 0-100
+                    return new EnrollmentRow(row, line);
+            }
+        }
+        
+        private String validate(Object item) {
+            if (item instanceof Course) {
+                Course course = (Course) item;
+                return ValidationUtil.isValidCredits(course.getCredits()) ? null
+                    : "invalid credits " + course.getCredits() + " for " + course.getCode();
+            }
+            if (item instanceof Student) {
+                Student student = (Student) item;
+                if (!ValidationUtil.isValidRegNo(student.getRegNo())) {
+                    return "invalid registration number " + student.getRegNo();
+                }
+                return ValidationUtil.isValidEmail(student.getEmail()) ? null
+                    : "invalid email " + student.getEmail() + " for " + student.getRegNo();
+            }
+            return null; // Enrollment marks are range-checked as they are parsed
+        }
+    }
+    
+    /**
+     * Run the pipeline over whichever files are given (null paths are skipped) and
+     * commit the results into the services.
+     * @throws DataAccessException if the enrollments header is unusable, in which case
+     *         nothing is imported, or if committing fails part way
+     */
+    public Result run(Path coursesFile, Path studentsFile, Path enrollmentsFile,
+                      StudentService studentService, CourseService courseService) throws DataAccessException {
+        Map<Lane, Path> inputs = new EnumMap<>(Lane.class);
+        inputs.put(Lane.COURSES, coursesFile);
+        inputs.put(Lane.STUDENTS, studentsFile);
+        inputs.put(Lane.ENROLLMENTS, enrollmentsFile);
+        
+        long start = System.nanoTime();
+        List<LaneRun> runs = new ArrayList<>();
+        for (Map.Entry<Lane, Path> input : inputs.entrySet()) {
+            Path path = input.getValue();
+            if (path != null) {
+                EnrollmentCsvLayout layout = input.getKey() == Lane.ENROLLMENTS ? readLayout(path) : null;
+                runs.add(new LaneRun(input.getKey(), path, layout));
+            }
+        }
+        List<Thread> threads = new ArrayList<>();
+        runs.forEach(run -> threads.addAll(run.start()));
+        
+        ScheduledExecutorService monitor = Executors.newSingleThreadScheduledExecutor(r -> {
+            Thread t = new Thread(r, "import-monitor");
+            t.setDaemon(true);
+            return t;
+        });
+        monitor.scheduleAtFixedRate(() -> runs.forEach(LaneRun::sample), 0, 20, TimeUnit.MILLISECONDS);
+        
+        Result result = new Result();
+        boolean committed = false;
+        try {
+            // Commit stage: lanes in dependency order, chunks in file order
+            for (LaneRun run : runs) {
+                long[] counts = new long[3];
+                Map<Long, Chunk> pending = new HashMap<>();
+                long next = 0;
+                while (true) {
+                    Chunk chunk = run.validQueue.take();
+                    if (chunk == Chunk.END) {
+                        break;
+                    }
+                    pending.put(chunk.sequence, chunk);
+                    while (pending.containsKey(next)) {
+                        commit(run, pending.remove(next++), studentService, courseService, counts, result);
+                    }
+                }
+                counts[0] = run.read.get();
+                result.counts.put(run.lane, counts);
+                if (run.failure != null) {
+                    result.messages.add(run.failure);
+                }
+            }
+            committed = true;
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            throw new DataAccessException("Import interrupted");
+        } catch (RuntimeException e) {
+            throw new DataAccessException("Import failed: " + e.getMessage(), e);
+        } finally {
+            if (!committed) {
+                threads.forEach(Thread::interrupt); // Stages blocked on a full queue would wait forever
+            }
+            monitor.shutdownNow();
+        }
+        
+        result.elapsedNanos = System.nanoTime() - start;
+        for (Lane lane : Lane.values()) {
+            result.counts.putIfAbsent(lane, new long[3]);
+            result.maxDepth.put(lane, new int[Stage.values().length]);
+            result.avgDepth.put(lane, new double[Stage.values().length]);
+        }
+        for (LaneRun run : runs) {
+            run.sample();
+            result.maxDepth.put(run.lane, run.maxDepth.clone());
+            double[] averages = new double[Stage.values().length];
+            for (int i = 0; i < averages.length; i++) {
+                averages[i] = (double) run.depthSum[i] / run.samples;
+            }
+            result.avgDepth.put(run.lane, averages);
+        }
+        return result;
+    }
+    
+    // Column layout from the enrollments file's header, or null if the file is empty
+    private static EnrollmentCsvLayout readLayout(Path path) throws DataAccessException {
+        try (CsvReader csv = new CsvReader(Files.newBufferedReader(path, StandardCharsets.UTF_8))) {
+            return csv.next() ? EnrollmentCsvLayout.fromHeader(csv.toArray()) : null;
+        } catch (IOException e) {
+            throw new DataAccessException("Failed to read " + path + ": " + e.getMessage(), e);
+        }
+    }
+    
+    private void commit(LaneRun run, Chunk chunk, StudentService studentService, CourseService courseService,
+                        long[] counts, Result result) {
+        counts[2] += chunk.errors.size();
+        chunk.errors.forEach(error -> addMessage(result, error));
+        
+        if (run.lane == Lane.ENROLLMENTS) {
+            EnrollmentCsvLayout layout = run.layout;
+            BulkEnrollmentResult batchResult = new BulkEnrollmentResult();
+            List<Enrollment> batch = new ArrayList<>(chunk.items.size());
+            for (Object item : chunk.items) {
+                EnrollmentRow enrollmentRow = (EnrollmentRow) item;
+                String[] row = enrollmentRow.fields;
+                Student student = layout.resolveStudent(row, studentService);
+                Course course = layout.resolveCourse(row, courseService);
+                if (student == null || course == null) {
+                    batchResult.recordUnresolved("Line " + enrollmentRow.line + ": unknown "
+                        + (student == null ? "student " + layout.studentKey(row) : "course " + layout.courseCode(row)));
+                    continue;
+                }
+                try {
+                    batch.add(layout.toEnrollment(student, course, row, enrollmentRow.line));
+                } catch (DateTimeParseException | IllegalArgumentException e) {
+                    batchResult.recordInvalid("Line " + enrollmentRow.line + ": invalid row for "
+                        + layout.studentKey(row) + " (" + e.getMessage() + ")");
+                }
+            }
+            batchResult.merge(studentService.enrollAll(batch));
+            counts[1] += batchResult.getAccepted();
+            counts[2] += batchResult.getRejected();
+            result.enrollmentResult.merge(batchResult);
+            return;
+        }
+        
+        for (Object item : chunk.items) {
+            try {
+                if (item instanceof Course) {
+                    courseService.addCourse((Course) item);
+                } else {
+                    studentService.addStudent((Student) item);
+                }
+                counts[1]++;
+            } catch (IllegalArgumentException e) {
+                counts[2]++;
+                addMessage(result, run.lane + ": " + e.getMessage());
+            }
+        }
+    }
+    
+    private static void addMessage(Result result, String message) {
+        if (result.messages.size() < 20) {
+            result.messages.add(message);
+        }
+    }
+    
+    private static void putQuietly(BlockingQueue<Chunk> queue, Chunk chunk) {
+        try {
+            queue.put(chunk);
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        }
+    }
+}
\ No newline at end of file
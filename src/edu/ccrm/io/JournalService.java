@@ -0,0 +1,758 @@
+package edu.ccrm.io;
+
+import edu.ccrm.domain.Course;
+import edu.ccrm.domain.Enrollment;
+import edu.ccrm.domain.Semester;
+import edu.ccrm.domain.Student;
+import edu.ccrm.service.ChangeLog;
+import edu.ccrm.service.CourseService;
+import edu.ccrm.service.DataAccessException;
+import edu.ccrm.service.Persistable;
+import edu.ccrm.service.StudentService;
+
+import java.io.BufferedInputStream;
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.Closeable;
+import java.io.DataInputStream;
+import java.io.DataOutputStream;
+import java.io.EOFException;
+import java.io.IOException;
+import java.io.InputStream;
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.nio.file.StandardCopyOption;
+import java.nio.file.StandardOpenOption;
+import java.time.LocalDate;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.List;
+import java.util.zip.CRC32;
+
+/**
+ * Append-only write-ahead journal of every change made through StudentService and
+ * CourseService.
+ *
+ * File layout: an 8-byte header (magic "CCRJ", version, reserved) followed by records of
+ * payload length (int), CRC32 of the payload (int) and the payload: an op code, a field
+ * count and each field as a presence byte plus modified UTF-8.
+ *
+ * The services append each change to an in-memory buffer before applying it, under the
+ * lock that orders the change, and wait after releasing that lock until a background
+ * flusher has written and fsynced it. The flusher waits one sync interval after the
+ * first pending record so that concurrent writers share a single fsync (group commit).
+ * Bulk loads can run inside {@link #deferSync} to wait once at the end instead of once
+ * per record.
+ *
+ * If a write or fsync fails, the journal fails closed: new changes are rejected before
+ * they are applied, and the flusher keeps the failed records, reopens the file and
+ * retries them after the last durable record until it succeeds. Writers whose changes
+ * are in the failed batch wait for the retry.
+ *
+ * On {@link #open} the journal is replayed into the services; a torn or corrupt tail left
+ * by a crash is truncated. {@link #saveToFile} compacts the journal into a snapshot: it
+ * marks a cut point while no change is half applied, writes the snapshot while changes
+ * carry on, then drops the records before the cut. The snapshot may also reflect some
+ * changes after the cut; replay skips changes the services already reflect and the last
+ * change to each field wins, so replaying the kept records, or the whole journal after a
+ * crash between the two steps, gives the same state.
+ */
+public class JournalService implements Persistable<JournalService.Entry>, ChangeLog, Closeable {
+    private static final int MAGIC = 0x4343524A; // "CCRJ"
+    private static final short VERSION = 1;
+    private static final int HEADER_SIZE = 8;
+    private static final int MAX_RECORD_SIZE = 1 << 20;
+    private static final long RETRY_INTERVAL_MILLIS = 1000;
+    
+    public enum Op {
+        ADD_STUDENT(1),
+        UPDATE_STUDENT(2),
+        DEACTIVATE_STUDENT(3),
+        ENROLL(4),
+        UNENROLL(5),
+        RECORD_MARKS(6),
+        ADD_COURSE(7),
+        UPDATE_COURSE(8),
+        DEACTIVATE_COURSE(9);
+        
+        private final byte code;
+        
+        Op(int code) {
+            this.code = (byte) code;
+        }
+        
+        static Op of(byte code) {
+            for (Op op : values()) {
+                if (op.code == code) {
+                    return op;
+                }
+            }
+            return null;
+        }
+    }
+    
+    /**
+     * One journaled change: an operation and its arguments as strings (null allowed)
+     */
+    public static final class Entry {
+        private final Op op;
+        private final String[] fields;
+        
+        private Entry(Op op, String... fields) {
+            this.op = op;
+            this.fields = fields;
+        }
+        
+        public Op getOp() { return op; }
+        public List<String> getFields() { return Collections.unmodifiableList(Arrays.asList(fields)); }
+        
+        @Override
+        public String toString() {
+            return op + Arrays.toString(fields);
+        }
+    }
+    
+    // Append buffer with direct access to its backing array, so flushing does not copy it
+    private static final class RecordBuffer extends ByteArrayOutputStream {
+        RecordBuffer() {
+            super(64 * 1024);
+        }
+        
+        ByteBuffer view() {
+            return ByteBuffer.wrap(buf, 0, count);
+        }
+    }
+    
+    private final Path journalFile;
+    private final StudentService studentService;
+    private final CourseService courseService;
+    private final SnapshotService snapshotService;
+    private final long syncIntervalMillis;
+    
+    // Guards the pending buffer, sequence numbers, appendedOffset and state flags
+    private final Object appendLock = new Object();
+    // Guards the file channel, the flushing buffer and durableLength; always taken
+    // before appendLock
+    private final Object ioLock = new Object();
+    // Held for a whole compaction, so that two do not overlap
+    private final Object compactLock = new Object();
+    private final ThreadLocal<int[]> deferDepth = ThreadLocal.withInitial(() -> new int[1]);
+    
+    private FileChannel channel;
+    private Thread flusher;
+    private RecordBuffer pending = new RecordBuffer();
+    // Records being written; kept after a failed write until a retry succeeds
+    private RecordBuffer flushing = new RecordBuffer();
+    private long flushingSeq;
+    // File length up to the end of the last durable record
+    private long durableLength;
+    // File length once every appended record is written
+    private long appendedOffset;
+    private long appendedSeq;
+    private long durableSeq;
+    private long syncCount;
+    private boolean closed;
+    // Set once close() has made its last flush attempt
+    private boolean finished;
+    // The last write failure, cleared when a retry succeeds
+    private IOException failure;
+    
+    public JournalService(Path journalFile, StudentService studentService, CourseService courseService,
+                          SnapshotService snapshotService, long syncIntervalMillis) {
+        this.journalFile = journalFile;
+        this.studentService = studentService;
+        this.courseService = courseService;
+        this.snapshotService = snapshotService;
+        this.syncIntervalMillis = syncIntervalMillis;
+    }
+    
+    /**
+     * Replay the journal into the services, then start journaling their changes.
+     * @return the number of journal entries replayed
+     */
+    public int open() throws DataAccessException {
+        List<Entry> entries = new ArrayList<>();
+        long validLength = Files.exists(journalFile) ? readEntries(journalFile, entries) : 0;
+        for (Entry entry : entries) {
+            apply(entry);
+        }
+        
+        try {
+            channel = FileChannel.open(journalFile, StandardOpenOption.CREATE,
+                                       StandardOpenOption.READ, StandardOpenOption.WRITE);
+            if (validLength < HEADER_SIZE) {
+                resetFile();
+            } else if (channel.size() > validLength) {
+                channel.truncate(validLength); // Drop a torn tail
+                channel.force(true);
+            }
+            durableLength = channel.size();
+            appendedOffset = durableLength;
+        } catch (IOException e) {
+            throw new DataAccessException("Failed to open journal: " + e.getMessage(), e);
+        }
+        
+        studentService.setChangeLog(this);
+        courseService.setChangeLog(this);
+        flusher = new Thread(this::runFlusher, "ccrm-journal-flusher");
+        flusher.setDaemon(true);
+        flusher.start();
+        return entries.size();
+    }
+    
+    /**
+     * Compact the journal: write a snapshot of the current state to the given file and
+     * drop the journal records it covers. Changes are held up only while the cut point is
+     * taken and while the records after it are copied to the new journal file.
+     */
+    @Override
+    public void saveToFile(String filename) throws DataAccessException {
+        synchronized (compactLock) {
+            synchronized (appendLock) {
+                if (failure != null) {
+                    throw new DataAccessException("Journal is unavailable: " + failure.getMessage(), failure);
+                }
+            }
+            // With every student stripe and the catalog held, each logged change has been
+            // applied, so the snapshot will reflect everything before the cut
+            long[] cut = new long[1];
+            studentService.runExclusive(() -> courseService.runExclusive(() -> {
+                synchronized (appendLock) {
+                    cut[0] = appendedOffset;
+                }
+            }));
+            snapshotService.save(Paths.get(filename), studentService, courseService);
+            synchronized (ioLock) {
+                flush();
+                synchronized (appendLock) {
+                    if (failure != null) {
+                        throw new DataAccessException("Journal is unavailable: " + failure.getMessage(), failure);
+                    }
+                }
+                dropRecordsBefore(cut[0]);
+            }
+        }
+    }
+    
+    /**
+     * Read the valid entries of a journal file without applying them
+     */
+    @Override
+    public List<Entry> loadFromFile(String filename) throws DataAccessException {
+        List<Entry> entries = new ArrayList<>();
+        readEntries(Paths.get(filename), entries);
+        return entries;
+    }
+    
+    /**
+     * Functional interface for work run with deferred syncing
+     */
+    @FunctionalInterface
+    public interface Work<E extends Exception> {
+        void run() throws E;
+    }
+    
+    /**
+     * Run bulk work whose changes are not waited on one by one; the calling thread waits
+     * once, when the outermost deferred block ends, until all of them are durable.
+     */
+    public <E extends Exception> void deferSync(Work<E> work) throws E {
+        int[] depth = deferDepth.get();
+        depth[0]++;
+        try {
+            work.run();
+        } finally {
+            depth[0]--;
+        }
+        if (depth[0] == 0) {
+            long seq;
+            synchronized (appendLock) {
+                seq = appendedSeq;
+            }
+            waitFor(seq);
+        }
+    }
+    
+    public long getAppendedCount() {
+        synchronized (appendLock) {
+            return appendedSeq;
+        }
+    }
+    
+    public long getSyncCount() {
+        synchronized (appendLock) {
+            return syncCount;
+        }
+    }
+    
+    public long getSize() {
+        synchronized (ioLock) {
+            try {
+                return channel == null ? 0 : channel.size();
+            } catch (IOException e) {
+                return 0;
+            }
+        }
+    }
+    
+    /**
+     * Flush outstanding records, stop the flusher and close the file. Changes made
+     * through the services afterwards are no longer journaled.
+     * @throws IOException if records could not be written; their writers are told so
+     */
+    @Override
+    public void close() throws IOException {
+        studentService.setChangeLog(null);
+        courseService.setChangeLog(null);
+        synchronized (appendLock) {
+            if (closed) {
+                return;
+            }
+            closed = true;
+            appendLock.notifyAll();
+        }
+        if (flusher != null) {
+            try {
+                flusher.join();
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+            }
+        }
+        IOException error;
+        synchronized (ioLock) {
+            flush();
+            if (channel != null) {
+                channel.close();
+            }
+            synchronized (appendLock) {
+                finished = true;
+                error = failure;
+                appendLock.notifyAll();
+            }
+        }
+        if (error != null) {
+            throw error;
+        }
+    }
+    
+    // ChangeLog: one journal entry per change, appended before the services apply it
+    @Override
+    public long addStudent(Student student) {
+        return log(new Entry(Op.ADD_STUDENT, student.getId(), student.getRegNo(), student.getFullName(),
+                             student.getEmail(), student.getCreatedDate().toString(),
+                             String.valueOf(student.isActive())));
+    }
+    
+    @Override
+    public long updateStudent(Student student, String fullName, String email) {
+        return log(new Entry(Op.UPDATE_STUDENT, student.getId(), fullName, email));
+    }
+    
+    @Override
+    public long deactivateStudent(Student student) {
+        return log(new Entry(Op.DEACTIVATE_STUDENT, student.getId()));
+    }
+    
+    @Override
+    public long enroll(Enrollment enrollment) {
+        Double marks = enrollment.getMarks();
+        return log(new Entry(Op.ENROLL, enrollment.getStudent().getId(), enrollment.getCourse().getCode(),
+                             enrollment.getEnrollmentDate().toString(), marks == null ? null : marks.toString()));
+    }
+    
+    @Override
+    public long unenroll(Enrollment enrollment) {
+        return log(new Entry(Op.UNENROLL, enrollment.getStudent().getId(), enrollment.getCourse().getCode()));
+    }
+    
+    @Override
+    public long recordMarks(Enrollment enrollment, double marks) {
+        return log(new Entry(Op.RECORD_MARKS, enrollment.getStudent().getId(), enrollment.getCourse().getCode(),
+                             Double.toString(marks)));
+    }
+    
+    @Override
+    public long addCourse(Course course) {
+        return log(new Entry(Op.ADD_COURSE, course.getCode(), course.getTitle(), String.valueOf(course.getCredits()),
+                             course.getInstructor(), course.getSemester().name(), course.getDepartment(),
+                             String.valueOf(course.isActive())));
+    }
+    
+    @Override
+    public long updateCourse(Course course, String title, int credits, String instructor, String department) {
+        return log(new Entry(Op.UPDATE_COURSE, course.getCode(), title, String.valueOf(credits),
+                             instructor, department));
+    }
+    
+    @Override
+    public long deactivateCourse(Course course) {
+        return log(new Entry(Op.DEACTIVATE_COURSE, course.getCode()));
+    }
+    
+    /**
+     * Returns at once inside a deferred block; the block waits when it ends
+     */
+    @Override
+    public void awaitDurable(long ticket) {
+        if (deferDepth.get()[0] == 0) {
+            waitFor(ticket);
+        }
+    }
+    
+    // Called by the services before applying the change; throwing leaves it unapplied
+    private long log(Entry entry) {
+        byte[] record = encode(entry);
+        synchronized (appendLock) {
+            if (closed) {
+                throw new IllegalStateException("Journal is closed; change rejected");
+            }
+            if (failure != null) {
+                throw new IllegalStateException("Journal is unavailable, change rejected: " + failure.getMessage(),
+                                                failure);
+            }
+            pending.write(record, 0, record.length);
+            appendedOffset += record.length;
+            appendLock.notifyAll(); // Wake the flusher
+            return ++appendedSeq;
+        }
+    }
+    
+    private void waitFor(long seq) {
+        synchronized (appendLock) {
+            while (durableSeq < seq && !finished) {
+                try {
+                    appendLock.wait();
+                } catch (InterruptedException e) {
+                    Thread.currentThread().interrupt();
+                    throw new IllegalStateException("Interrupted waiting for journal sync", e);
+                }
+            }
+            if (durableSeq < seq) {
+                throw new IllegalStateException("Journal closed before the change was written"
+                    + (failure == null ? "" : ": " + failure.getMessage()), failure);
+            }
+        }
+    }
+    
+    private void runFlusher() {
+        while (true) {
+            boolean retrying;
+            synchronized (appendLock) {
+                while (pending.size() == 0 && failure == null && !closed) {
+                    try {
+                        appendLock.wait();
+                    } catch (InterruptedException e) {
+                        return;
+                    }
+                }
+                if (closed) {
+                    return; // close() flushes whatever is left
+                }
+                retrying = failure != null;
+            }
+            // Let concurrent writers join this group, or give a failing disk time to recover
+            long delay = retrying ? RETRY_INTERVAL_MILLIS : syncIntervalMillis;
+            if (delay > 0) {
+                try {
+                    Thread.sleep(delay);
+                } catch (InterruptedException e) {
+                    return;
+                }
+            }
+            synchronized (ioLock) {
+                flush();
+            }
+        }
+    }
+    
+    // Write and fsync everything appended so far; caller holds ioLock
+    private void flush() {
+        boolean retry;
+        synchronized (appendLock) {
+            retry = failure != null;
+        }
+        if (retry && !writeFlushing(true)) {
+            return; // Records from a failed attempt go first, and could not be written yet
+        }
+        synchronized (appendLock) {
+            RecordBuffer batch = pending;
+            pending = flushing;
+            flushing = batch;
+            flushingSeq = appendedSeq;
+        }
+        writeFlushing(false);
+    }
+    
+    /**
+     * Write the flushing buffer after the last durable record, on a reopened channel if
+     * the previous attempt failed. The buffer is kept if the write fails.
+     * @return false if it failed
+     */
+    private boolean writeFlushing(boolean retry) {
+        IOException error = null;
+        boolean written = false;
+        try {
+            if (retry) {
+                reopenChannel();
+            }
+            if (flushing.size() > 0) {
+                ByteBuffer bytes = flushing.view();
+                long position = durableLength;
+                while (bytes.hasRemaining()) {
+                    position += channel.write(bytes, position);
+                }
+                channel.force(false);
+                durableLength = position;
+                flushing.reset();
+                written = true;
+            }
+        } catch (IOException e) {
+            error = e;
+        }
+        synchronized (appendLock) {
+            failure = error;
+            if (error == null) {
+                durableSeq = Math.max(durableSeq, flushingSeq);
+                if (written) {
+                    syncCount++;
+                }
+            }
+            appendLock.notifyAll();
+        }
+        return error == null;
+    }
+    
+    // Replace a channel that failed a write with a fresh one, dropping anything written
+    // after the last durable record; caller holds ioLock
+    private void reopenChannel() throws IOException {
+        try {
+            channel.close();
+        } catch (IOException e) {
+            // Already broken; the new channel replaces it either way
+        }
+        channel = FileChannel.open(journalFile, StandardOpenOption.READ, StandardOpenOption.WRITE);
+        channel.truncate(durableLength);
+    }
+    
+    /**
+     * Replace the journal with one holding only the durable records from the given offset
+     * on, written beside it and moved into place. Caller holds ioLock and has flushed.
+     */
+    private void dropRecordsBefore(long cut) throws DataAccessException {
+        Path temp = journalFile.resolveSibling(journalFile.getFileName() + ".tmp");
+        try (FileChannel out = FileChannel.open(temp, StandardOpenOption.CREATE,
+                StandardOpenOption.WRITE, StandardOpenOption.TRUNCATE_EXISTING)) {
+            out.write(header());
+            long position = cut;
+            while (position < durableLength) {
+                position += channel.transferTo(position, durableLength - position, out);
+            }
+            out.force(true);
+        } catch (IOException e) {
+            throw new DataAccessException("Failed to compact journal: " + e.getMessage(), e);
+        }
+        try {
+            Files.move(temp, journalFile, StandardCopyOption.REPLACE_EXISTING, StandardCopyOption.ATOMIC_MOVE);
+        } catch (IOException e) {
+            throw new DataAccessException("Failed to replace journal: " + e.getMessage(), e);
+        }
+        
+        long dropped = cut - HEADER_SIZE;
+        durableLength -= dropped;
+        synchronized (appendLock) {
+            appendedOffset -= dropped;
+        }
+        try {
+            channel.close();
+            channel = FileChannel.open(journalFile, StandardOpenOption.READ, StandardOpenOption.WRITE);
+        } catch (IOException e) {
+            // The compacted file is in place; fail closed until the flusher reopens it
+            synchronized (appendLock) {
+                failure = e;
+                appendLock.notifyAll();
+            }
+            throw new DataAccessException("Failed to reopen compacted journal: " + e.getMessage(), e);
+        }
+    }
+    
+    // Truncate to an empty journal holding only the header; caller holds ioLock
+    private void resetFile() throws IOException {
+        channel.truncate(0);
+        channel.write(header(), 0);
+        channel.force(true);
+        durableLength = HEADER_SIZE;
+    }
+    
+    private static ByteBuffer header() {
+        ByteBuffer header = ByteBuffer.allocate(HEADER_SIZE);
+        header.putInt(MAGIC).putShort(VERSION).putShort((short) 0).flip();
+        return header;
+    }
+    
+    private static byte[] encode(Entry entry) {
+        ByteArrayOutputStream bytes = new ByteArrayOutputStream(128);
+        try (DataOutputStream out = new DataOutputStream(bytes)) {
+            out.writeInt(0); // Length and checksum, filled in below
+            out.writeInt(0);
+            out.writeByte(entry.op.code);
+            out.writeByte(entry.fields.length);
+            for (String field : entry.fields) {
+                out.writeBoolean(field != null);
+                if (field != null) {
+                    out.writeUTF(field);
+                }
+            }
+        } catch (IOException e) {
+            throw new IllegalStateException(e); // Not thrown by in-memory streams
+        }
+        ByteBuffer record = ByteBuffer.wrap(bytes.toByteArray());
+        CRC32 crc = new CRC32();
+        crc.update(record.array(), 8, record.capacity() - 8);
+        record.putInt(0, record.capacity() - 8);
+        record.putInt(4, (int) crc.getValue());
+        return record.array();
+    }
+    
+    /**
+     * Read records until the end of the file or the first torn or corrupt one.
+     * @return the length of the valid prefix of the file
+     */
+    private static long readEntries(Path file, List<Entry> entries) throws DataAccessException {
+        try (InputStream stream = Files.newInputStream(file);
+             DataInputStream in = new DataInputStream(new BufferedInputStream(stream, 64 * 1024))) {
+            long offset;
+            try {
+                if (in.readInt() != MAGIC) {
+                    throw new DataAccessException("Not a CCRM journal: " + file);
+                }
+                short version = in.readShort();
+                if (version != VERSION) {
+                    throw new DataAccessException("Unsupported journal version " + version);
+                }
+                in.readShort();
+                offset = HEADER_SIZE;
+            } catch (EOFException e) {
+                return 0; // Crashed while writing the header
+            }
+            
+            CRC32 crc = new CRC32();
+            byte[] payload = new byte[256];
+            while (true) {
+                int length;
+                int checksum;
+                try {
+                    length = in.readInt();
+                    checksum = in.readInt();
+                    if (length <= 0 || length > MAX_RECORD_SIZE) {
+                        return offset;
+                    }
+                    if (length > payload.length) {
+                        payload = new byte[Math.max(length, payload.length * 2)];
+                    }
+                    in.readFully(payload, 0, length);
+                } catch (EOFException e) {
+                    return offset;
+                }
+                crc.reset();
+                crc.update(payload, 0, length);
+                Entry entry = (int) crc.getValue() == checksum ? decode(payload, length) : null;
+                if (entry == null) {
+                    return offset;
+                }
+                entries.add(entry);
+                offset += 8 + length;
+            }
+        } catch (IOException e) {
+            throw new DataAccessException("Failed to read journal: " + e.getMessage(), e);
+        }
+    }
+    
+    private static Entry decode(byte[] payload, int length) throws IOException {
+        DataInputStream in = new DataInputStream(new ByteArrayInputStream(payload, 0, length));
+        Op op = Op.of(in.readByte());
+        if (op == null) {
+            return null;
+        }
+        String[] fields = new String[in.readUnsignedByte()];
+        for (int i = 0; i < fields.length; i++) {
+            fields[i] = in.readBoolean() ? in.readUTF() : null;
+        }
+        return new Entry(op, fields);
+    }
+    
+    // Re-apply one entry; changes the services already reflect are skipped
+    private void apply(Entry entry) {
+        String[] f = entry.fields;
+        switch (entry.op) {
+            case ADD_STUDENT:
+                if (studentService.findById(f[0]) == null && studentService.findByRegNo(f[1]) == null) {
+                    Student student = new Student.Builder()
+                        .id(f[0])
+                        .regNo(f[1])
+                        .fullName(f[2])
+                        .email(f[3])
+                        .createdDate(LocalDate.parse(f[4]))
+                        .build();
+                    student.setActive(Boolean.parseBoolean(f[5]));
+                    studentService.addStudent(student);
+                }
+                break;
+            case UPDATE_STUDENT:
+                studentService.updateStudent(f[0], f[1], f[2]);
+                break;
+            case DEACTIVATE_STUDENT:
+                studentService.deactivateStudent(f[0]);
+                break;
+            case ENROLL: {
+                Student student = studentService.findById(f[0]);
+                Course course = courseService.findByCode(f[1]);
+                if (student != null && course != null && !student.isEnrolledIn(f[1])) {
+                    Enrollment enrollment = new Enrollment(student, course, LocalDate.parse(f[2]));
+                    if (f[3] != null) {
+                        enrollment.recordMarks(Double.parseDouble(f[3]));
+                    }
+                    studentService.restoreEnrollments(Collections.singletonList(enrollment));
+                }
+                break;
+            }
+            case UNENROLL: {
+                Student student = studentService.findById(f[0]);
+                if (student != null) {
+                    studentService.unenrollFromCourse(student, f[1]);
+                }
+                break;
+            }
+            case RECORD_MARKS: {
+                Student student = studentService.findById(f[0]);
+                if (student != null) {
+                    studentService.recordMarks(student, f[1], Double.parseDouble(f[2]));
+                }
+                break;
+            }
+            case ADD_COURSE:
+                if (courseService.findByCode(f[0]) == null) {
+                    Course course = new Course.Builder()
+                        .code(f[0])
+                        .title(f[1])
+                        .credits(Integer.parseInt(f[2]))
+                        .instructor(f[3])
+                        .semester(Semester.valueOf(f[4]))
+                        .department(f[5])
+                        .build();
+                    course.setActive(Boolean.parseBoolean(f[6]));
+                    courseService.addCourse(course);
+                }
+                break;
+            case UPDATE_COURSE:
+                courseService.updateCourse(f[0], f[1], Integer.parseInt(f[2]), f[3], f[4]);
+                break;
+            case DEACTIVATE_COURSE:
+                courseService.deactivateCourse(f[0]);
+                break;
+        }
+    }
+}
\ No newline at end of file
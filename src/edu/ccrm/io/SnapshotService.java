@@ -0,0 +1,402 @@
+package edu.ccrm.io;
+
+import edu.ccrm.domain.Course;
+import edu.ccrm.domain.Enrollment;
+import edu.ccrm.domain.Semester;
+import edu.ccrm.domain.Student;
+import edu.ccrm.service.BulkEnrollmentResult;
+import edu.ccrm.service.CourseService;
+import edu.ccrm.service.DataAccessException;
+import edu.ccrm.service.StudentService;
+
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.MappedByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardCopyOption;
+import java.nio.file.StandardOpenOption;
+import java.time.LocalDate;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.zip.CRC32;
+
+/**
+ * Versioned binary snapshot of courses, students and enrollments.
+ *
+ * Layout (big-endian):
+ * <pre>
+ *   header      magic "CCRS", version u16, reserved u16,
+ *               string count, course count, student count, enrollment count (i32 each)
+ *   strings     length-prefixed UTF-8; every repeated value (department, instructor...) once
+ *   courses     20 bytes: code, title, instructor, department (string ids), credits, semester,
+ *               active, padding
+ *   students    24 bytes: id, regNo, name, email (string ids), created epoch-day, active, padding
+ *   enrollments 20 bytes: student ordinal, course ordinal, enrolled epoch-day, marks f64 (NaN = ungraded)
+ *   trailer     CRC32 of everything before it
+ * </pre>
+ * Snapshots are written to a temporary file and moved into place, and are read back
+ * through a read-only memory mapping. Saving does not stop changes: each student and
+ * course is read once, so every record is consistent in itself, though records may be
+ * from slightly different moments.
+ */
+public class SnapshotService {
+    private static final int MAGIC = 0x43435253; // "CCRS"
+    private static final short VERSION = 1;
+    private static final int HEADER_SIZE = 24;
+    private static final int COURSE_RECORD_SIZE = 20;
+    private static final int STUDENT_RECORD_SIZE = 24;
+    private static final int ENROLLMENT_RECORD_SIZE = 20;
+    private static final int WRITE_BUFFER_SIZE = 1 << 20;
+    private static final Semester[] SEMESTERS = Semester.values();
+    
+    /**
+     * Record counts of a saved or loaded snapshot
+     */
+    public static final class SnapshotInfo {
+        private final int courses;
+        private final int students;
+        private final int enrollments;
+        private final long bytes;
+        
+        SnapshotInfo(int courses, int students, int enrollments, long bytes) {
+            this.courses = courses;
+            this.students = students;
+            this.enrollments = enrollments;
+            this.bytes = bytes;
+        }
+        
+        public int getCourses() { return courses; }
+        public int getStudents() { return students; }
+        public int getEnrollments() { return enrollments; }
+        public long getBytes() { return bytes; }
+        
+        @Override
+        public String toString() {
+            return String.format("%d courses, %d students, %d enrollments (%d bytes)",
+                               courses, students, enrollments, bytes);
+        }
+    }
+    
+    // A student as read once for the snapshot, enrollments included
+    private static final class StudentRow {
+        final String id;
+        final String regNo;
+        final String fullName;
+        final String email;
+        final int createdEpochDay;
+        final boolean active;
+        final List<Enrollment> enrollments;
+        
+        StudentRow(Student student) {
+            this.id = student.getId();
+            this.regNo = student.getRegNo();
+            this.fullName = student.getFullName();
+            this.email = student.getEmail();
+            this.createdEpochDay = student.getCreatedEpochDay();
+            this.active = student.isActive();
+            this.enrollments = student.getEnrollments();
+        }
+    }
+    
+    // A course as read once for the snapshot
+    private static final class CourseRow {
+        final String code;
+        final String title;
+        final String instructor;
+        final String department;
+        final int credits;
+        final Semester semester;
+        final boolean active;
+        
+        CourseRow(Course course) {
+            this.code = course.getCode();
+            this.title = course.getTitle();
+            this.instructor = course.getInstructor();
+            this.department = course.getDepartment();
+            this.credits = course.getCredits();
+            this.semester = course.getSemester();
+            this.active = course.isActive();
+        }
+    }
+    
+    public SnapshotInfo save(Path file, StudentService studentService, CourseService courseService)
+            throws DataAccessException {
+        // Students first: courses are never removed, so every course their enrollments
+        // refer to is still in the catalog when it is read
+        List<StudentRow> students = new ArrayList<>();
+        for (Student student : studentService.getAllStudents()) {
+            students.add(new StudentRow(student));
+        }
+        List<CourseRow> courses = new ArrayList<>();
+        for (Course course : courseService.getAllCourses()) {
+            courses.add(new CourseRow(course));
+        }
+        
+        // Intern every string once and number the records so enrollments can refer to them
+        Map<String, Integer> stringIds = new HashMap<>();
+        List<String> strings = new ArrayList<>();
+        Map<String, Integer> courseOrdinals = new HashMap<>();
+        for (CourseRow course : courses) {
+            courseOrdinals.put(course.code, courseOrdinals.size());
+            intern(course.code, stringIds, strings);
+            intern(course.title, stringIds, strings);
+            intern(course.instructor, stringIds, strings);
+            intern(course.department, stringIds, strings);
+        }
+        int enrollmentCount = 0;
+        for (StudentRow student : students) {
+            intern(student.id, stringIds, strings);
+            intern(student.regNo, stringIds, strings);
+            intern(student.fullName, stringIds, strings);
+            intern(student.email, stringIds, strings);
+            enrollmentCount += student.enrollments.size();
+        }
+        
+        Path temp = file.resolveSibling(file.getFileName() + ".tmp");
+        long fileSize;
+        try (FileChannel channel = FileChannel.open(temp, StandardOpenOption.CREATE,
+                StandardOpenOption.WRITE, StandardOpenOption.TRUNCATE_EXISTING)) {
+            RecordWriter out = new RecordWriter(channel);
+            
+            out.ensure(HEADER_SIZE);
+            out.buffer.putInt(MAGIC).putShort(VERSION).putShort((short) 0)
+                .putInt(strings.size()).putInt(courses.size()).putInt(students.size()).putInt(enrollmentCount);
+            
+            for (String value : strings) {
+                byte[] bytes = value.getBytes(StandardCharsets.UTF_8);
+                out.ensure(4);
+                out.buffer.putInt(bytes.length);
+                out.putBytes(bytes);
+            }
+            
+            for (CourseRow course : courses) {
+                out.ensure(COURSE_RECORD_SIZE);
+                out.buffer.putInt(stringIds.get(course.code))
+                    .putInt(stringIds.get(course.title))
+                    .putInt(idOf(course.instructor, stringIds))
+                    .putInt(idOf(course.department, stringIds))
+                    .put((byte) course.credits)
+                    .put((byte) course.semester.ordinal())
+                    .put((byte) (course.active ? 1 : 0))
+                    .put((byte) 0);
+            }
+            
+            for (StudentRow student : students) {
+                out.ensure(STUDENT_RECORD_SIZE);
+                out.buffer.putInt(stringIds.get(student.id))
+                    .putInt(stringIds.get(student.regNo))
+                    .putInt(stringIds.get(student.fullName))
+                    .putInt(stringIds.get(student.email))
+                    .putInt(student.createdEpochDay)
+                    .put((byte) (student.active ? 1 : 0))
+                    .put((byte) 0).put((byte) 0).put((byte) 0);
+            }
+            
+            for (int s = 0; s < students.size(); s++) {
+                for (Enrollment enrollment : students.get(s).enrollments) {
+                    Integer course = courseOrdinals.get(enrollment.getCourse().getCode());
+                    if (course == null) {
+                        throw new DataAccessException("Enrollment refers to course "
+                            + enrollment.getCourse().getCode() + " which is not in the catalog");
+                    }
+                    out.ensure(ENROLLMENT_RECORD_SIZE);
+                    out.buffer.putInt(s)
+                        .putInt(course)
+                        .putInt(enrollment.getEnrollmentEpochDay())
+                        .putDouble(enrollment.getMarksAsDouble());
+                }
+            }
+            
+            out.flush();
+            ByteBuffer trailer = ByteBuffer.allocate(4).putInt((int) out.crc.getValue());
+            trailer.flip();
+            while (trailer.hasRemaining()) {
+                channel.write(trailer);
+            }
+            channel.force(true);
+            fileSize = channel.size();
+        } catch (IOException e) {
+            throw new DataAccessException("Failed to write snapshot: " + e.getMessage(), e);
+        }
+        
+        try {
+            Files.move(temp, file, StandardCopyOption.REPLACE_EXISTING, StandardCopyOption.ATOMIC_MOVE);
+        } catch (IOException e) {
+            throw new DataAccessException("Failed to replace snapshot: " + e.getMessage(), e);
+        }
+        return new SnapshotInfo(courses.size(), students.size(), enrollmentCount, fileSize);
+    }
+    
+    /**
+     * Verify and load a snapshot into the (normally empty) services.
+     * Courses and students that already exist are skipped, as are their enrollments.
+     */
+    public SnapshotInfo load(Path file, StudentService studentService, CourseService courseService)
+            throws DataAccessException {
+        try (FileChannel channel = FileChannel.open(file, StandardOpenOption.READ)) {
+            long size = channel.size();
+            if (size < HEADER_SIZE + 4) {
+                throw new DataAccessException("Snapshot is truncated: " + file);
+            }
+            if (size > Integer.MAX_VALUE) {
+                throw new DataAccessException("Snapshot is larger than 2 GB: " + file);
+            }
+            MappedByteBuffer map = channel.map(FileChannel.MapMode.READ_ONLY, 0, size);
+            
+            CRC32 crc = new CRC32();
+            ByteBuffer body = map.duplicate();
+            body.limit((int) size - 4);
+            crc.update(body);
+            if ((int) crc.getValue() != map.getInt((int) size - 4)) {
+                throw new DataAccessException("Snapshot checksum mismatch: " + file);
+            }
+            
+            if (map.getInt() != MAGIC) {
+                throw new DataAccessException("Not a CCRM snapshot: " + file);
+            }
+            short version = map.getShort();
+            if (version != VERSION) {
+                throw new DataAccessException("Unsupported snapshot version " + version);
+            }
+            map.getShort();
+            int stringCount = map.getInt();
+            int courseCount = map.getInt();
+            int studentCount = map.getInt();
+            int enrollmentCount = map.getInt();
+            
+            String[] strings = new String[stringCount];
+            byte[] scratch = new byte[256];
+            for (int i = 0; i < stringCount; i++) {
+                int length = map.getInt();
+                if (length > scratch.length) {
+                    scratch = new byte[Math.max(length, scratch.length * 2)];
+                }
+                map.get(scratch, 0, length);
+                strings[i] = new String(scratch, 0, length, StandardCharsets.UTF_8);
+            }
+            
+            Course[] courses = new Course[courseCount];
+            Course.Builder courseBuilder = new Course.Builder();
+            for (int i = 0; i < courseCount; i++) {
+                Course course = courseBuilder
+                    .code(strings[map.getInt()])
+                    .title(strings[map.getInt()])
+                    .instructor(stringOrNull(strings, map.getInt()))
+                    .department(stringOrNull(strings, map.getInt()))
+                    .credits(map.get())
+                    .semester(SEMESTERS[map.get()])
+                    .build();
+                boolean active = map.get() != 0;
+                map.get();
+                course.setActive(active);
+                Course existing = courseService.findByCode(course.getCode());
+                if (existing == null) {
+                    courseService.addCourse(course);
+                    existing = course;
+                }
+                courses[i] = existing;
+            }
+            
+            Student[] students = new Student[studentCount];
+            Student.Builder studentBuilder = new Student.Builder();
+            for (int i = 0; i < studentCount; i++) {
+                Student student = studentBuilder
+                    .id(strings[map.getInt()])
+                    .regNo(strings[map.getInt()])
+                    .fullName(strings[map.getInt()])
+                    .email(strings[map.getInt()])
+                    .createdDate(LocalDate.ofEpochDay(map.getInt()))
+                    .build();
+                student.setActive(map.get() != 0);
+                map.position(map.position() + 3);
+                if (studentService.findById(student.getId()) == null
+                        && studentService.findByRegNo(student.getRegNo()) == null) {
+                    studentService.addStudent(student);
+                    students[i] = student;
+                }
+            }
+            
+            List<Enrollment> batch = new ArrayList<>(FileService.DEFAULT_BATCH_SIZE);
+            BulkEnrollmentResult result = new BulkEnrollmentResult();
+            for (int i = 0; i < enrollmentCount; i++) {
+                Student student = students[map.getInt()];
+                Course course = courses[map.getInt()];
+                int enrolled = map.getInt();
+                double marks = map.getDouble();
+                if (student == null || course == null) {
+                    continue; // Student already existed, so its enrollments are kept as they are
+                }
+                Enrollment enrollment = new Enrollment(student, course, enrolled);
+                if (!Double.isNaN(marks)) {
+                    enrollment.recordMarks(marks);
+                }
+                batch.add(enrollment);
+                if (batch.size() == FileService.DEFAULT_BATCH_SIZE) {
+                    result.merge(studentService.restoreEnrollments(batch));
+                    batch.clear();
+                }
+            }
+            result.merge(studentService.restoreEnrollments(batch));
+            
+            return new SnapshotInfo(courseCount, studentCount, result.getAccepted(), size);
+        } catch (IOException | RuntimeException e) {
+            throw new DataAccessException("Failed to load snapshot: " + e.getMessage(), e);
+        }
+    }
+    
+    private static void intern(String value, Map<String, Integer> ids, List<String> strings) {
+        if (value != null && !ids.containsKey(value)) {
+            ids.put(value, strings.size());
+            strings.add(value);
+        }
+    }
+    
+    private static int idOf(String value, Map<String, Integer> ids) {
+        return value == null ? -1 : ids.get(value);
+    }
+    
+    private static String stringOrNull(String[] strings, int id) {
+        return id < 0 ? null : strings[id];
+    }
+    
+    // Buffered channel writer that checksums everything it writes
+    private static final class RecordWriter {
+        final FileChannel channel;
+        final ByteBuffer buffer = ByteBuffer.allocateDirect(WRITE_BUFFER_SIZE);
+        final CRC32 crc = new CRC32();
+        
+        RecordWriter(FileChannel channel) {
+            this.channel = channel;
+        }
+        
+        void ensure(int bytes) throws IOException {
+            if (buffer.remaining() < bytes) {
+                flush();
+            }
+        }
+        
+        void putBytes(byte[] bytes) throws IOException {
+            int offset = 0;
+            while (offset < bytes.length) {
+                ensure(1);
+                int n = Math.min(buffer.remaining(), bytes.length - offset);
+                buffer.put(bytes, offset, n);
+                offset += n;
+            }
+        }
+        
+        void flush() throws IOException {
+            buffer.flip();
+            crc.update(buffer.duplicate());
+            while (buffer.hasRemaining()) {
+                channel.write(buffer);
+            }
+            buffer.clear();
+        }
+    }
+}
\ No newline at end of file
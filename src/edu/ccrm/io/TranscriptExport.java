@@ -0,0 +1,278 @@
+package edu.ccrm.io;
+
+import edu.ccrm.domain.Student;
+import edu.ccrm.domain.Transcript;
+import edu.ccrm.metrics.MetricsRegistry;
+import edu.ccrm.metrics.OperationMetrics;
+import edu.ccrm.service.DataAccessException;
+import edu.ccrm.service.Query;
+import edu.ccrm.service.StudentField;
+
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.util.ArrayDeque;
+import java.util.Deque;
+import java.util.List;
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.ForkJoinTask;
+import java.util.function.Consumer;
+
+/**
+ * Writes the transcripts of many students in one run, either one file per student or
+ * all of them concatenated into one file in list order.
+ *
+ * Students are cut into chunks that are built and encoded on a work-stealing pool. The
+ * calling thread collects finished chunks in order, so only a bounded window of chunks
+ * is in flight, and reports progress as it goes. Per-student files are written by the
+ * workers, one write per file. For the single file, the calling thread appends each
+ * chunk to a FileChannel in one write. Transcripts are built fresh rather than taken
+ * from the transcript cache, so a run over every student does not evict the ones in use.
+ */
+public class TranscriptExport {
+    
+    public enum Layout { FILE_PER_STUDENT, SINGLE_FILE }
+    
+    private final ForkJoinPool pool;
+    private final int chunkSize;
+    private final long progressIntervalNanos;
+    private final OperationMetrics exportMetrics = MetricsRegistry.getInstance().operation("file.exportTranscripts");
+    
+    public static class Builder {
+        private ForkJoinPool pool = ForkJoinPool.commonPool();
+        private int chunkSize = 256;
+        private long progressIntervalMillis = 1000;
+        
+        public Builder pool(ForkJoinPool pool) {
+            this.pool = pool;
+            return this;
+        }
+        
+        /**
+         * Students per task
+         */
+        public Builder chunkSize(int chunkSize) {
+            this.chunkSize = chunkSize;
+            return this;
+        }
+        
+        /**
+         * Least time between two progress reports
+         */
+        public Builder progressIntervalMillis(long progressIntervalMillis) {
+            this.progressIntervalMillis = progressIntervalMillis;
+            return this;
+        }
+        
+        public TranscriptExport build() {
+            return new TranscriptExport(this);
+        }
+    }
+    
+    private TranscriptExport(Builder builder) {
+        this.pool = builder.pool;
+        this.chunkSize = Math.max(1, builder.chunkSize);
+        this.progressIntervalNanos = Math.max(0, builder.progressIntervalMillis) * 1_000_000L;
+    }
+    
+    /**
+     * How far a run has got
+     */
+    public static final class Progress {
+        private final int done;
+        private final int total;
+        private final long elapsedNanos;
+        
+        private Progress(int done, int total, long elapsedNanos) {
+            this.done = done;
+            this.total = total;
+            this.elapsedNanos = elapsedNanos;
+        }
+        
+        public int getDone() { return done; }
+        public int getTotal() { return total; }
+        public double getElapsedSeconds() { return elapsedNanos / 1_000_000_000.0; }
+        
+        public double getStudentsPerSecond() {
+            return elapsedNanos == 0 ? 0.0 : done / getElapsedSeconds();
+        }
+        
+        @Override
+        public String toString() {
+            return String.format("%d/%d transcripts (%.0f%%), %.0f/s", done, total,
+                total == 0 ? 100.0 : 100.0 * done / total, getStudentsPerSecond());
+        }
+    }
+    
+    /**
+     * Size and throughput of one run
+     */
+    public static final class Result {
+        private final int students;
+        private final int files;
+        private final long bytes;
+        private final long elapsedNanos;
+        private final int parallelism;
+        
+        private Result(int students, int files, long bytes, long elapsedNanos, int parallelism) {
+            this.students = students;
+            this.files = files;
+            this.bytes = bytes;
+            this.elapsedNanos = elapsedNanos;
+            this.parallelism = parallelism;
+        }
+        
+        public int getStudents() { return students; }
+        public int getFiles() { return files; }
+        public long getBytes() { return bytes; }
+        public int getParallelism() { return parallelism; }
+        public double getElapsedSeconds() { return elapsedNanos / 1_000_000_000.0; }
+        
+        public double getStudentsPerSecond() {
+            return elapsedNanos == 0 ? 0.0 : students / getElapsedSeconds();
+        }
+        
+        public double getMegabytesPerSecond() {
+            return elapsedNanos == 0 ? 0.0 : bytes / (1024.0 * 1024.0) / getElapsedSeconds();
+        }
+        
+        @Override
+        public String toString() {
+            return String.format("%d transcripts in %d files, %.1f MB in %.2fs (%.0f transcripts/s, %.1f MB/s, %d workers)",
+                students, files, bytes / (1024.0 * 1024.0), getElapsedSeconds(), getStudentsPerSecond(),
+                getMegabytesPerSecond(), parallelism);
+        }
+    }
+    
+    // One finished chunk; text is null when the workers wrote the files themselves
+    private static final class Chunk {
+        final int students;
+        final byte[] text;
+        final long bytes;
+        
+        Chunk(int students, byte[] text, long bytes) {
+            this.students = students;
+            this.text = text;
+            this.bytes = bytes;
+        }
+    }
+    
+    /**
+     * Active students, narrowed by whichever criteria are given; null leaves one out
+     * @param courseCode  only students enrolled in this course
+     * @param regNoPrefix only registration numbers starting with this, such as an intake year
+     * @param minGpa      only students with at least this GPA
+     */
+    public static Query<Student> cohort(String courseCode, String regNoPrefix, Double minGpa) {
+        Query.Builder<Student> query = new Query.Builder<Student>().where(StudentField.ACTIVE, true);
+        if (courseCode != null) {
+            query.filter(student -> student.isEnrolledIn(courseCode));
+        }
+        if (regNoPrefix != null) {
+            query.filter(student -> student.getRegNo().startsWith(regNoPrefix));
+        }
+        if (minGpa != null) {
+            query.atLeast(StudentField.GPA, minGpa);
+        }
+        return query.build();
+    }
+    
+    /**
+     * Write the students' transcripts.
+     * @param target   the directory for FILE_PER_STUDENT, created if needed, with files
+     *                 named after registration numbers; the file for SINGLE_FILE, replaced
+     * @param progress called on this thread as chunks complete, or null
+     */
+    public Result run(List<Student> students, Path target, Layout layout, Consumer<Progress> progress)
+            throws DataAccessException {
+        long start = exportMetrics.start();
+        boolean ok = false;
+        int total = students.size();
+        int window = 2 * pool.getParallelism() + 2;
+        Deque<ForkJoinTask<Chunk>> inFlight = new ArrayDeque<>();
+        try (FileChannel channel = openTarget(target, layout)) {
+            int next = 0;
+            int done = 0;
+            long bytes = 0;
+            long lastReport = start;
+            while (next < total || !inFlight.isEmpty()) {
+                while (next < total && inFlight.size() < window) {
+                    List<Student> slice = students.subList(next, Math.min(total, next + chunkSize));
+                    inFlight.add(pool.submit(() -> build(slice, layout, target)));
+                    next += slice.size();
+                }
+                Chunk chunk = inFlight.poll().join();
+                if (channel != null) {
+                    ByteBuffer buffer = ByteBuffer.wrap(chunk.text);
+                    while (buffer.hasRemaining()) {
+                        channel.write(buffer);
+                    }
+                }
+                done += chunk.students;
+                bytes += chunk.bytes;
+                long now = System.nanoTime();
+                if (progress != null && (now - lastReport >= progressIntervalNanos || done == total)) {
+                    progress.accept(new Progress(done, total, now - start));
+                    lastReport = now;
+                }
+            }
+            ok = true;
+            return new Result(total, layout == Layout.SINGLE_FILE ? 1 : total, bytes,
+                              System.nanoTime() - start, pool.getParallelism());
+        } catch (IOException e) {
+            throw new DataAccessException("Could not write transcripts to " + target, e);
+        } catch (UncheckedIOException e) {
+            throw new DataAccessException("Could not write transcripts to " + target, e.getCause());
+        } finally {
+            inFlight.forEach(task -> task.cancel(false));
+            exportMetrics.record(start, ok);
+        }
+    }
+    
+    // The channel for the single file, or null after making the per-student directory
+    private static FileChannel openTarget(Path target, Layout layout) throws IOException {
+        if (layout == Layout.FILE_PER_STUDENT) {
+            Files.createDirectories(target);
+            return null;
+        }
+        Path parent = target.toAbsolutePath().getParent();
+        if (parent != null) {
+            Files.createDirectories(parent);
+        }
+        return FileChannel.open(target, StandardOpenOption.CREATE, StandardOpenOption.WRITE,
+                                StandardOpenOption.TRUNCATE_EXISTING);
+    }
+    
+    // Runs on a pool worker
+    private static Chunk build(List<Student> slice, Layout layout, Path target) {
+        if (layout == Layout.SINGLE_FILE) {
+            StringBuilder text = new StringBuilder(slice.size() * 512);
+            for (Student student : slice) {
+                text.append(Transcript.of(student).format());
+            }
+            byte[] encoded = text.toString().getBytes(StandardCharsets.UTF_8);
+            return new Chunk(slice.size(), encoded, encoded.length);
+        }
+        long bytes = 0;
+        for (Student student : slice) {
+            byte[] encoded = Transcript.of(student).format().getBytes(StandardCharsets.UTF_8);
+            try {
+                Files.write(target.resolve(fileName(student)), encoded);
+            } catch (IOException e) {
+                throw new UncheckedIOException(e);
+            }
+            bytes += encoded.length;
+        }
+        return new Chunk(slice.size(), null, bytes);
+    }
+    
+    // Registration number with anything unsafe in a file name replaced
+    static String fileName(Student student) {
+        return student.getRegNo().replaceAll("[^A-Za-z0-9._-]", "_") + ".txt";
+    }
+}
\ No newline at end of file
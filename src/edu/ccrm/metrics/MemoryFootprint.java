@@ -0,0 +1,192 @@
+package edu.ccrm.metrics;
+
+import edu.ccrm.domain.Course;
+import edu.ccrm.domain.EmailAddress;
+import edu.ccrm.domain.Student;
+import edu.ccrm.domain.SymbolTable;
+
+import java.lang.reflect.Field;
+import java.lang.reflect.Modifier;
+import java.util.Collection;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+
+/**
+ * Estimates the heap held by the domain model, per student, course and enrollment.
+ *
+ * Sizes follow the 64-bit HotSpot layout with compressed references: 12-byte object
+ * headers, 16-byte array headers, 4-byte references and 8-byte alignment. Field sizes
+ * are read from the classes by reflection, so the estimate follows the model as it
+ * changes. A student counts itself and its own strings; an enrollment counts its entry in
+ * the course roster, its row being counted with the enrollment columns. Strings held in
+ * a SymbolTable are counted once, as shared symbols, rather than per record. Cached list
+ * views and the service lookup indexes are not counted.
+ */
+public final class MemoryFootprint {
+    private static final int OBJECT_HEADER = 12;
+    private static final int ARRAY_HEADER = 16;
+    private static final int REFERENCE = 4;
+    private static final int ALIGNMENT = 8;
+    // A java.util.LinkedHashMap entry, with the default load factor
+    private static final long LINKED_HASH_MAP_ENTRY = 40;
+    private static final double LOAD_FACTOR = 0.75;
+    
+    private static final Map<Class<?>, Long> SHALLOW_SIZES = new ConcurrentHashMap<>();
+    
+    private MemoryFootprint() {
+    }
+    
+    /**
+     * Estimated bytes for each part of the model
+     */
+    public static final class Report {
+        private final int students;
+        private final long studentBytes;
+        private final int courses;
+        private final long courseBytes;
+        private final long enrollments;
+        private final long enrollmentBytes;
+        private final int symbols;
+        private final long symbolBytes;
+        private final long columnBytes;
+        private final long heapUsed;
+        
+        private Report(int students, long studentBytes, int courses, long courseBytes, long enrollments,
+                       long enrollmentBytes, int symbols, long symbolBytes, long columnBytes, long heapUsed) {
+            this.students = students;
+            this.studentBytes = studentBytes;
+            this.courses = courses;
+            this.courseBytes = courseBytes;
+            this.enrollments = enrollments;
+            this.enrollmentBytes = enrollmentBytes;
+            this.symbols = symbols;
+            this.symbolBytes = symbolBytes;
+            this.columnBytes = columnBytes;
+            this.heapUsed = heapUsed;
+        }
+        
+        public double getBytesPerStudent() { return perRecord(studentBytes, students); }
+        public double getBytesPerCourse() { return perRecord(courseBytes, courses); }
+        public double getBytesPerEnrollment() { return perRecord(enrollmentBytes, enrollments); }
+        
+        public long getTotalBytes() {
+            return studentBytes + courseBytes + enrollmentBytes + symbolBytes + columnBytes;
+        }
+        
+        public String format() {
+            StringBuilder out = new StringBuilder();
+            out.append(String.format("%-22s %12s %14s %12s%n", "Part", "Count", "Bytes", "Bytes each"));
+            out.append(row("Students", students, studentBytes));
+            out.append(row("Courses", courses, courseBytes));
+            out.append(row("Enrollments", enrollments, enrollmentBytes));
+            out.append(row("Shared symbols", symbols, symbolBytes));
+            out.append(row("Enrollment columns", enrollments, columnBytes));
+            out.append(String.format("%-22s %12s %14d%n", "Total (estimated)", "", getTotalBytes()));
+            out.append(String.format("%-22s %12s %14d%n", "Heap in use after GC", "", heapUsed));
+            return out.toString();
+        }
+        
+        private static String row(String label, long count, long bytes) {
+            return String.format("%-22s %12d %14d %12.1f%n", label, count, bytes, perRecord(bytes, count));
+        }
+        
+        private static double perRecord(long bytes, long count) {
+            return count == 0 ? 0.0 : (double) bytes / count;
+        }
+    }
+    
+    /**
+     * Walk the model and estimate its size; runs a garbage collection to also report the
+     * measured heap in use
+     * @param columnBytes bytes held by the enrollment columns
+     */
+    public static Report measure(Collection<Student> students, Collection<Course> courses, long columnBytes) {
+        long studentBytes = 0;
+        long enrollmentCount = 0;
+        for (Student student : students) {
+            studentBytes += shallowSize(Student.class)
+                + stringSize(student.getId())
+                + stringSize(student.getRegNo())
+                + stringSize(student.getFullName())
+                + emailSize(student.getEmailAddress());
+            enrollmentCount += student.getEnrollmentCount();
+        }
+        // The roster entry with its share of the roster's table
+        long perEnrollment = LINKED_HASH_MAP_ENTRY + (long) Math.ceil(REFERENCE / LOAD_FACTOR);
+        long enrollmentBytes = enrollmentCount * perEnrollment;
+        
+        long courseBytes = 0;
+        for (Course course : courses) {
+            courseBytes += shallowSize(Course.class) + stringSize(course.getCode()) + stringSize(course.getTitle());
+        }
+        
+        int symbolCount = 0;
+        long symbolBytes = 0;
+        for (SymbolTable table : SymbolTable.all()) {
+            for (String symbol : table.getSymbols()) {
+                symbolCount++;
+                symbolBytes += stringSize(symbol);
+            }
+        }
+        
+        return new Report(students.size(), studentBytes, courses.size(), courseBytes, enrollmentCount,
+                          enrollmentBytes, symbolCount, symbolBytes, columnBytes, heapUsedAfterGc());
+    }
+    
+    /**
+     * Header plus instance fields of the class and its superclasses, aligned
+     */
+    static long shallowSize(Class<?> type) {
+        return SHALLOW_SIZES.computeIfAbsent(type, t -> {
+            long size = OBJECT_HEADER;
+            for (Class<?> c = t; c != null && c != Object.class; c = c.getSuperclass()) {
+                for (Field field : c.getDeclaredFields()) {
+                    if (!Modifier.isStatic(field.getModifiers())) {
+                        size += fieldSize(field.getType());
+                    }
+                }
+            }
+            return align(size);
+        });
+    }
+    
+    private static int fieldSize(Class<?> type) {
+        if (type == long.class || type == double.class) {
+            return 8;
+        } else if (type == int.class || type == float.class) {
+            return 4;
+        } else if (type == short.class || type == char.class) {
+            return 2;
+        } else if (type == byte.class || type == boolean.class) {
+            return 1;
+        }
+        return REFERENCE;
+    }
+    
+    // String object plus its byte array; compact strings store Latin-1 text one byte per char
+    static long stringSize(String value) {
+        if (value == null) {
+            return 0;
+        }
+        boolean latin1 = true;
+        for (int i = 0; i < value.length() && latin1; i++) {
+            latin1 = value.charAt(i) <= 0xFF;
+        }
+        return shallowSize(String.class) + align(ARRAY_HEADER + (long) value.length() * (latin1 ? 1 : 2));
+    }
+    
+    // The address object, its local part and the whole address; the domain is a shared symbol
+    private static long emailSize(EmailAddress email) {
+        return shallowSize(EmailAddress.class) + stringSize(email.getLocalPart()) + stringSize(email.toString());
+    }
+    
+    private static long align(long size) {
+        return (size + ALIGNMENT - 1) / ALIGNMENT * ALIGNMENT;
+    }
+    
+    private static long heapUsedAfterGc() {
+        Runtime runtime = Runtime.getRuntime();
+        System.gc();
+        return runtime.totalMemory() - runtime.freeMemory();
+    }
+}
\ No newline at end of file
@@ -0,0 +1,52 @@
+package edu.ccrm.metrics;
+
+import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+
+/**
+ * Process-wide set of operation metrics, named "area.operation" (for example
+ * "student.findByRegNo"). Services look their operations up once and keep the reference,
+ * so recording never touches the registry map.
+ */
+public class MetricsRegistry {
+    private final Map<String, OperationMetrics> operations = new ConcurrentHashMap<>();
+    private volatile boolean enabled = true;
+    
+    private MetricsRegistry() {
+    }
+    
+    // Initialization-on-demand holder, as for AppConfig
+    private static final class Holder {
+        private static final MetricsRegistry INSTANCE = new MetricsRegistry();
+    }
+    
+    public static MetricsRegistry getInstance() {
+        return Holder.INSTANCE;
+    }
+    
+    /**
+     * The metrics for an operation, created on first use
+     */
+    public OperationMetrics operation(String name) {
+        return operations.computeIfAbsent(name, n -> new OperationMetrics(n, this));
+    }
+    
+    /**
+     * Every operation that has been registered, sorted by name
+     */
+    public List<OperationMetrics> getOperations() {
+        List<OperationMetrics> sorted = new ArrayList<>(operations.values());
+        sorted.sort(Comparator.comparing(OperationMetrics::getName));
+        return sorted;
+    }
+    
+    public void reset() {
+        operations.values().forEach(OperationMetrics::reset);
+    }
+    
+    public boolean isEnabled() { return enabled; }
+    public void setEnabled(boolean enabled) { this.enabled = enabled; }
+}
\ No newline at end of file
@@ -0,0 +1,159 @@
+package edu.ccrm.metrics;
+
+import java.io.BufferedWriter;
+import java.io.Closeable;
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.time.LocalDateTime;
+import java.time.format.DateTimeFormatter;
+import java.util.HashMap;
+import java.util.Locale;
+import java.util.Map;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Formats metrics for people and appends them to a CSV file on a schedule.
+ * Each dump writes one row per operation that ran since the previous dump, with the
+ * latencies of that interval only, so a slow period stands out instead of being averaged
+ * into the whole run.
+ */
+public class MetricsReporter implements Closeable {
+    private static final String CSV_HEADER =
+        "timestamp,operation,calls,failures,mean_us,p50_us,p90_us,p99_us,max_us";
+    
+    private final MetricsRegistry registry;
+    private final Path file;
+    private final Map<String, LatencyHistogram.Snapshot> previous = new HashMap<>();
+    private final Map<String, Long> previousFailures = new HashMap<>();
+    private ScheduledExecutorService scheduler;
+    
+    public MetricsReporter(MetricsRegistry registry, Path file) {
+        this.registry = registry;
+        this.file = file;
+    }
+    
+    /**
+     * Dump every intervalSeconds on a background thread until closed
+     */
+    public synchronized void start(long intervalSeconds) {
+        if (scheduler != null || intervalSeconds <= 0) {
+            return;
+        }
+        scheduler = Executors.newSingleThreadScheduledExecutor(runnable -> {
+            Thread thread = new Thread(runnable, "ccrm-metrics");
+            thread.setDaemon(true);
+            return thread;
+        });
+        scheduler.scheduleAtFixedRate(() -> {
+            try {
+                dump();
+            } catch (IOException e) {
+                System.err.println("Metrics dump failed: " + e.getMessage());
+            }
+        }, intervalSeconds, intervalSeconds, TimeUnit.SECONDS);
+    }
+    
+    /**
+     * Append the activity since the last dump to the metrics file
+     * @return the number of operations written
+     */
+    public synchronized int dump() throws IOException {
+        String timestamp = LocalDateTime.now().withNano(0).format(DateTimeFormatter.ISO_LOCAL_DATE_TIME);
+        StringBuilder rows = new StringBuilder();
+        int written = 0;
+        for (OperationMetrics operation : registry.getOperations()) {
+            LatencyHistogram.Snapshot now = operation.snapshot();
+            LatencyHistogram.Snapshot before = previous.put(operation.getName(), now);
+            LatencyHistogram.Snapshot interval = before == null ? now : now.minus(before);
+            long failures = operation.getFailures();
+            Long failuresBefore = previousFailures.put(operation.getName(), failures);
+            if (interval.getCount() == 0) {
+                continue;
+            }
+            rows.append(timestamp).append(',').append(operation.getName())
+                .append(',').append(interval.getCount())
+                .append(',').append(Math.max(0, failures - (failuresBefore == null ? 0 : failuresBefore)))
+                .append(',').append(String.format(Locale.ROOT, "%.1f", interval.getMean() / 1e3))
+                .append(',').append(String.format(Locale.ROOT, "%.1f", interval.getValueAtPercentile(50) / 1e3))
+                .append(',').append(String.format(Locale.ROOT, "%.1f", interval.getValueAtPercentile(90) / 1e3))
+                .append(',').append(String.format(Locale.ROOT, "%.1f", interval.getValueAtPercentile(99) / 1e3))
+                .append(',').append(String.format(Locale.ROOT, "%.1f", interval.getMax() / 1e3))
+                .append(System.lineSeparator());
+            written++;
+        }
+        if (written > 0) {
+            boolean fresh = !Files.exists(file) || Files.size(file) == 0;
+            if (file.getParent() != null) {
+                Files.createDirectories(file.getParent());
+            }
+            try (BufferedWriter writer = Files.newBufferedWriter(file, StandardCharsets.UTF_8,
+                    StandardOpenOption.CREATE, StandardOpenOption.APPEND)) {
+                if (fresh) {
+                    writer.write(CSV_HEADER);
+                    writer.newLine();
+                }
+                writer.append(rows);
+            }
+        }
+        return written;
+    }
+    
+    /**
+     * Stop the schedule and write a final dump
+     */
+    @Override
+    public synchronized void close() throws IOException {
+        if (scheduler == null) {
+            return;
+        }
+        scheduler.shutdownNow();
+        scheduler = null;
+        dump();
+    }
+    
+    /**
+     * Zero every operation; the next dump starts a fresh interval
+     */
+    public synchronized void reset() {
+        registry.reset();
+        previous.clear();
+        previousFailures.clear();
+    }
+    
+    public Path getFile() { return file; }
+    
+    /**
+     * Totals since startup (or the last reset) as a table
+     */
+    public static String formatTable(MetricsRegistry registry) {
+        StringBuilder table = new StringBuilder(String.format("%-34s %9s %7s %9s %9s %9s %9s %9s%n",
+            "Operation", "Calls", "Failed", "Mean", "p50", "p90", "p99", "Max"));
+        for (OperationMetrics operation : registry.getOperations()) {
+            LatencyHistogram.Snapshot snapshot = operation.snapshot();
+            if (snapshot.getCount() == 0) {
+                continue;
+            }
+            table.append(String.format("%-34s %9d %7d %9s %9s %9s %9s %9s%n", operation.getName(),
+                snapshot.getCount(), operation.getFailures(), formatNanos(snapshot.getMean()),
+                formatNanos(snapshot.getValueAtPercentile(50)), formatNanos(snapshot.getValueAtPercentile(90)),
+                formatNanos(snapshot.getValueAtPercentile(99)), formatNanos(snapshot.getMax())));
+        }
+        return table.toString();
+    }
+    
+    static String formatNanos(double nanos) {
+        if (nanos < 1e3) {
+            return String.format("%.0fns", nanos);
+        } else if (nanos < 1e6) {
+            return String.format("%.1fus", nanos / 1e3);
+        } else if (nanos < 1e9) {
+            return String.format("%.1fms", nanos / 1e6);
+        }
+        return String.format("%.2fs", nanos / 1e9);
+    }
+}
\ No newline at end of file
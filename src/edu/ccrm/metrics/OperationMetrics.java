@@ -0,0 +1,63 @@
+package edu.ccrm.metrics;
+
+import java.util.concurrent.atomic.LongAdder;
+
+/**
+ * Call count, failure count and latency histogram for one named operation.
+ * Callers keep a reference and time each call:
+ * <pre>
+ * long start = metrics.start();
+ * ... work ...
+ * metrics.record(start);
+ * </pre>
+ * When metrics are disabled, start() skips the clock read and record() does nothing.
+ */
+public class OperationMetrics {
+    private final String name;
+    private final MetricsRegistry registry;
+    private final LatencyHistogram latency = new LatencyHistogram();
+    private final LongAdder failures = new LongAdder();
+    
+    OperationMetrics(String name, MetricsRegistry registry) {
+        this.name = name;
+        this.registry = registry;
+    }
+    
+    public String getName() { return name; }
+    
+    /**
+     * @return a start timestamp to pass to record, or 0 if metrics are disabled
+     */
+    public long start() {
+        return registry.isEnabled() ? System.nanoTime() : 0;
+    }
+    
+    public void record(long start) {
+        if (start != 0) {
+            latency.record(System.nanoTime() - start);
+        }
+    }
+    
+    /**
+     * Record a call that completed, counting it as a failure unless it succeeded
+     */
+    public void record(long start, boolean succeeded) {
+        if (start != 0) {
+            latency.record(System.nanoTime() - start);
+            if (!succeeded) {
+                failures.increment();
+            }
+        }
+    }
+    
+    public long getFailures() { return failures.sum(); }
+    
+    public LatencyHistogram.Snapshot snapshot() {
+        return latency.snapshot();
+    }
+    
+    void reset() {
+        latency.reset();
+        failures.reset();
+    }
+}
\ No newline at end of file
@@ -0,0 +1,649 @@
+package edu.ccrm.server;
+
+import com.sun.net.httpserver.HttpExchange;
+import com.sun.net.httpserver.HttpServer;
+import edu.ccrm.config.ApplicationContext;
+import edu.ccrm.domain.Course;
+import edu.ccrm.domain.Enrollment;
+import edu.ccrm.domain.Grade;
+import edu.ccrm.domain.Semester;
+import edu.ccrm.domain.Student;
+import edu.ccrm.exception.DuplicateEnrollmentException;
+import edu.ccrm.exception.MaxCreditLimitExceededException;
+import edu.ccrm.service.CourseService;
+import edu.ccrm.service.DataAccessException;
+import edu.ccrm.service.RankingService;
+import edu.ccrm.service.ReportEngine;
+import edu.ccrm.service.SearchService;
+import edu.ccrm.service.StudentService;
+import edu.ccrm.util.ValidationUtil;
+
+import java.io.Closeable;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.OutputStream;
+import java.lang.reflect.Method;
+import java.net.InetAddress;
+import java.net.InetSocketAddress;
+import java.net.URLDecoder;
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Locale;
+import java.util.Map;
+import java.util.OptionalDouble;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Semaphore;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.LongAdder;
+
+/**
+ * Local HTTP/JSON API over the student, course and report services.
+ *
+ * Requests run on virtual threads when the JVM has them (Java 21+) and otherwise on a
+ * fixed pool of platform threads, twice the concurrency limit so that waiting requests
+ * reach admission. Either way a semaphore caps the requests being served at once; a
+ * request that cannot get a permit within {@link #ADMISSION_WAIT_MILLIS} is answered 503
+ * instead of waiting indefinitely.
+ * Connections are HTTP/1.1 keep-alive, so a client reuses its socket across requests.
+ * The server binds to the loopback interface only.
+ *
+ * Routes (bodies are JSON objects):
+ * <pre>
+ * GET    /api/health
+ * GET    /api/students?q=&amp;limit=&amp;offset=     POST /api/students {id, regNo, fullName, email}
+ * GET    /api/students/{regNo}                PUT  /api/students/{regNo} {fullName, email}
+ * DELETE /api/students/{regNo}
+ * GET    /api/courses?q=&amp;department=&amp;limit=   POST /api/courses {code, title, credits, instructor, department, semester}
+ * GET    /api/courses/{code}                  PUT  /api/courses/{code} {title, credits, instructor, department}
+ * DELETE /api/courses/{code}                  GET  /api/courses/{code}/roster
+ * POST   /api/enrollments {regNo, courseCode} DELETE /api/enrollments?regNo=&amp;courseCode=
+ * POST   /api/marks {regNo, courseCode, marks}
+ * GET    /api/reports/term                    GET  /api/reports/top?k=&amp;department=&amp;semester=
+ * </pre>
+ */
+public class ApiServer implements Closeable {
+    static final long ADMISSION_WAIT_MILLIS = 100;
+    private static final int DEFAULT_LIMIT = 50;
+    private static final int MAX_BODY_BYTES = 1 << 20;
+    private static final int BACKLOG = 1024;
+    
+    /**
+     * Failure with the HTTP status it should be reported as
+     */
+    static final class ApiException extends RuntimeException {
+        private static final long serialVersionUID = 1L;
+        
+        final int status;
+        
+        ApiException(int status, String message) {
+            super(message);
+            this.status = status;
+        }
+    }
+    
+    private interface Route {
+        Response handle(HttpExchange exchange, String[] path, Map<String, String> params) throws Exception;
+    }
+    
+    private static final class Response {
+        final int status;
+        final Object body;
+        
+        Response(int status, Object body) {
+            this.status = status;
+            this.body = body;
+        }
+    }
+    
+    private final StudentService studentService;
+    private final CourseService courseService;
+    private final RankingService rankingService;
+    private final ReportEngine reportEngine;
+    private final SearchService searchService;
+    private final int port;
+    private final int maxConcurrentRequests;
+    private final Semaphore permits;
+    private final LongAdder served = new LongAdder();
+    private final LongAdder rejected = new LongAdder();
+    private HttpServer server;
+    private ExecutorService executor;
+    private volatile boolean virtualThreads;
+    
+    /**
+     * @param port                  local port, or 0 to pick a free one
+     * @param maxConcurrentRequests requests served at once; the rest wait briefly, then get 503
+     */
+    public ApiServer(ApplicationContext context, int port, int maxConcurrentRequests) {
+        if (maxConcurrentRequests < 1) {
+            throw new IllegalArgumentException("Concurrency limit must be at least 1");
+        }
+        this.studentService = context.getStudentService();
+        this.courseService = context.getCourseService();
+        this.rankingService = context.getRankingService();
+        this.reportEngine = context.getReportEngine();
+        this.searchService = context.getSearchService();
+        this.port = port;
+        this.maxConcurrentRequests = maxConcurrentRequests;
+        this.permits = new Semaphore(maxConcurrentRequests);
+    }
+    
+    public synchronized void start() throws IOException {
+        if (server != null) {
+            throw new IllegalStateException("Server already started");
+        }
+        // Without TCP_NODELAY, small keep-alive responses can stall on delayed ACKs
+        if (System.getProperty("sun.net.httpserver.nodelay") == null) {
+            System.setProperty("sun.net.httpserver.nodelay", "true");
+        }
+        HttpServer created = HttpServer.create(
+            new InetSocketAddress(InetAddress.getLoopbackAddress(), port), BACKLOG);
+        route(created, "/api/health", this::health);
+        route(created, "/api/students", this::students);
+        route(created, "/api/courses", this::courses);
+        route(created, "/api/enrollments", this::enrollments);
+        route(created, "/api/marks", this::marks);
+        route(created, "/api/reports", this::reports);
+        executor = newRequestExecutor();
+        created.setExecutor(executor);
+        created.start();
+        server = created;
+    }
+    
+    @Override
+    public synchronized void close() {
+        if (server == null) {
+            return;
+        }
+        server.stop(1);
+        executor.shutdown();
+        server = null;
+    }
+    
+    public synchronized InetSocketAddress getAddress() {
+        return server == null ? null : server.getAddress();
+    }
+    
+    public boolean isUsingVirtualThreads() { return virtualThreads; }
+    public int getMaxConcurrentRequests() { return maxConcurrentRequests; }
+    public long getServedCount() { return served.sum(); }
+    public long getRejectedCount() { return rejected.sum(); }
+    
+    // Virtual threads when the JVM provides them, looked up reflectively so the code still runs on 17
+    private ExecutorService newRequestExecutor() {
+        try {
+            Method factory = Executors.class.getMethod("newVirtualThreadPerTaskExecutor");
+            ExecutorService virtual = (ExecutorService) factory.invoke(null);
+            virtualThreads = true;
+            return virtual;
+        } catch (ReflectiveOperationException e) {
+            AtomicInteger count = new AtomicInteger();
+            return Executors.newFixedThreadPool(2 * maxConcurrentRequests, runnable -> {
+                Thread thread = new Thread(runnable, "ccrm-http-" + count.incrementAndGet());
+                thread.setDaemon(true);
+                return thread;
+            });
+        }
+    }
+    
+    private void route(HttpServer target, String prefix, Route route) {
+        target.createContext(prefix, exchange -> serve(exchange, prefix, route));
+    }
+    
+    private void serve(HttpExchange exchange, String prefix, Route route) throws IOException {
+        boolean admitted = false;
+        try {
+            admitted = permits.tryAcquire(ADMISSION_WAIT_MILLIS, TimeUnit.MILLISECONDS);
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        }
+        if (!admitted) {
+            rejected.increment();
+            exchange.getResponseHeaders().set("Retry-After", "1");
+            send(exchange, new Response(503, error("Server busy, try again")));
+            return;
+        }
+        try {
+            String rest = exchange.getRequestURI().getPath().substring(prefix.length());
+            String[] path = rest.isEmpty() || rest.equals("/") ? new String[0] : rest.substring(1).split("/");
+            Response response;
+            try {
+                if (!rest.isEmpty() && rest.charAt(0) != '/') {
+                    // The context matched only part of the first segment, as in /api/studentsX
+                    throw new ApiException(404, "No such resource");
+                }
+                response = route.handle(exchange, path, parseQuery(exchange.getRequestURI().getRawQuery()));
+            } catch (ApiException e) {
+                response = new Response(e.status, error(e.getMessage()));
+            } catch (IllegalArgumentException e) {
+                response = new Response(400, error(e.getMessage()));
+            } catch (DuplicateEnrollmentException | MaxCreditLimitExceededException e) {
+                response = new Response(409, error(e.getMessage()));
+            } catch (DataAccessException e) {
+                response = new Response(500, error(e.getMessage()));
+            } catch (Exception e) {
+                response = new Response(500, error("Internal error: " + e));
+            }
+            send(exchange, response);
+            served.increment();
+        } finally {
+            permits.release();
+        }
+    }
+    
+    private static void send(HttpExchange exchange, Response response) throws IOException {
+        // Drain the request so the connection can be reused for the next one
+        try (InputStream in = exchange.getRequestBody()) {
+            in.transferTo(OutputStream.nullOutputStream());
+        }
+        byte[] body = Json.write(response.body).getBytes(StandardCharsets.UTF_8);
+        exchange.getResponseHeaders().set("Content-Type", "application/json; charset=utf-8");
+        exchange.sendResponseHeaders(response.status, body.length);
+        try (OutputStream out = exchange.getResponseBody()) {
+            out.write(body);
+        }
+    }
+    
+    // Routes
+    
+    private Response health(HttpExchange exchange, String[] path, Map<String, String> params) {
+        requireMethod(exchange, "GET");
+        Map<String, Object> body = new LinkedHashMap<>();
+        body.put("status", "ok");
+        body.put("students", studentService.getStudentCount());
+        body.put("courses", courseService.getCourseCount());
+        body.put("virtualThreads", virtualThreads);
+        body.put("maxConcurrentRequests", maxConcurrentRequests);
+        body.put("served", getServedCount());
+        body.put("rejected", getRejectedCount());
+        return ok(body);
+    }
+    
+    private Response students(HttpExchange exchange, String[] path, Map<String, String> params) {
+        String method = exchange.getRequestMethod();
+        if (path.length == 0) {
+            if (method.equals("GET")) {
+                int limit = intParam(params, "limit", DEFAULT_LIMIT);
+                String q = params.get("q");
+                List<Student> found;
+                if (q != null && !q.isEmpty()) {
+                    found = searchService.searchStudents(q, limit);
+                } else {
+                    found = studentService.getStudents(intParam(params, "offset", 0), limit);
+                }
+                List<Object> items = new ArrayList<>(found.size());
+                found.forEach(student -> items.add(studentSummary(student)));
+                return ok(items);
+            }
+            requireMethod(exchange, "POST");
+            Map<String, Object> body = readBody(exchange);
+            String regNo = requireString(body, "regNo");
+            String email = requireString(body, "email");
+            if (!ValidationUtil.isValidRegNo(regNo)) {
+                throw new IllegalArgumentException("Invalid registration number format");
+            }
+            if (!ValidationUtil.isValidEmail(email)) {
+                throw new IllegalArgumentException("Invalid email format");
+            }
+            Student student = new Student.Builder()
+                .id(requireString(body, "id"))
+                .regNo(regNo)
+                .fullName(requireString(body, "fullName"))
+                .email(email)
+                .build();
+            try {
+                studentService.addStudent(student);
+            } catch (IllegalArgumentException e) {
+                throw new ApiException(409, e.getMessage());
+            }
+            return new Response(201, studentDetail(student));
+        }
+        if (path.length != 1) {
+            throw new ApiException(404, "No such resource");
+        }
+        Student student = requireStudent(path[0]);
+        switch (method) {
+            case "GET":
+                return ok(studentDetail(student));
+            case "PUT": {
+                Map<String, Object> body = readBody(exchange);
+                String fullName = optionalString(body, "fullName", student.getFullName());
+                String email = optionalString(body, "email", student.getEmail());
+                if (!ValidationUtil.isValidEmail(email)) {
+                    throw new IllegalArgumentException("Invalid email format");
+                }
+                studentService.updateStudent(student.getId(), fullName, email);
+                return ok(studentDetail(student));
+            }
+            case "DELETE":
+                studentService.deactivateStudent(student.getId());
+                return ok(studentSummary(student));
+            default:
+                throw new ApiException(405, "Method not allowed");
+        }
+    }
+    
+    private Response courses(HttpExchange exchange, String[] path, Map<String, String> params) {
+        String method = exchange.getRequestMethod();
+        if (path.length == 0) {
+            if (method.equals("GET")) {
+                int limit = intParam(params, "limit", DEFAULT_LIMIT);
+                String q = params.get("q");
+                String department = params.get("department");
+                List<Course> found;
+                if (q != null && !q.isEmpty()) {
+                    found = searchService.searchCourses(q, limit);
+                } else if (department != null) {
+                    found = page(courseService.getCoursesByDepartment(department), 0, limit);
+                } else {
+                    found = page(courseService.getAllCourses(), intParam(params, "offset", 0), limit);
+                }
+                List<Object> items = new ArrayList<>(found.size());
+                found.forEach(course -> items.add(courseJson(course)));
+                return ok(items);
+            }
+            requireMethod(exchange, "POST");
+            Map<String, Object> body = readBody(exchange);
+            Course course = new Course.Builder()
+                .code(requireString(body, "code"))
+                .title(requireString(body, "title"))
+                .credits(requireCredits(body))
+                .instructor(requireString(body, "instructor"))
+                .department(requireString(body, "department"))
+                .semester(parseSemester(requireString(body, "semester")))
+                .build();
+            try {
+                courseService.addCourse(course);
+            } catch (IllegalArgumentException e) {
+                throw new ApiException(409, e.getMessage());
+            }
+            return new Response(201, courseJson(course));
+        }
+        Course course = requireCourse(path[0]);
+        if (path.length == 2 && path[1].equals("roster")) {
+            requireMethod(exchange, "GET");
+            List<Object> roster = new ArrayList<>();
+            for (Enrollment enrollment : courseService.getRoster(course.getCode())) {
+                Map<String, Object> row = new LinkedHashMap<>();
+                row.put("regNo", enrollment.getStudent().getRegNo());
+                row.put("fullName", enrollment.getStudent().getFullName());
+                row.put("marks", enrollment.getMarks());
+                row.put("grade", enrollment.getGrade() == null ? null : enrollment.getGrade().name());
+                roster.add(row);
+            }
+            return ok(roster);
+        }
+        if (path.length != 1) {
+            throw new ApiException(404, "No such resource");
+        }
+        switch (method) {
+            case "GET": {
+                Map<String, Object> json = courseJson(course);
+                CourseService.CourseStatistics stats = courseService.getStatistics(course.getCode());
+                json.put("headcount", stats.getHeadcount());
+                json.put("graded", stats.getGradedCount());
+                OptionalDouble average = stats.getAverageMarks();
+                json.put("averageMarks", average.isPresent() ? average.getAsDouble() : null);
+                Map<String, Object> grades = new LinkedHashMap<>();
+                for (Grade grade : Grade.values()) {
+                    grades.put(grade.name(), stats.getGradeCount(grade));
+                }
+                json.put("grades", grades);
+                return ok(json);
+            }
+            case "PUT": {
+                Map<String, Object> body = readBody(exchange);
+                int credits = body.containsKey("credits") ? requireCredits(body) : course.getCredits();
+                courseService.updateCourse(course.getCode(),
+                    optionalString(body, "title", course.getTitle()), credits,
+                    optionalString(body, "instructor", course.getInstructor()),
+                    optionalString(body, "department", course.getDepartment()));
+                return ok(courseJson(course));
+            }
+            case "DELETE":
+                courseService.deactivateCourse(course.getCode());
+                return ok(courseJson(course));
+            default:
+                throw new ApiException(405, "Method not allowed");
+        }
+    }
+    
+    private Response enrollments(HttpExchange exchange, String[] path, Map<String, String> params)
+            throws DuplicateEnrollmentException, MaxCreditLimitExceededException {
+        if (path.length != 0) {
+            throw new ApiException(404, "No such resource");
+        }
+        if (exchange.getRequestMethod().equals("DELETE")) {
+            Student student = requireStudent(requireParam(params, "regNo"));
+            String courseCode = requireParam(params, "courseCode");
+            if (!studentService.unenrollFromCourse(student, courseCode)) {
+                throw new ApiException(404, "Student is not enrolled in " + courseCode);
+            }
+            return ok(studentSummary(student));
+        }
+        requireMethod(exchange, "POST");
+        Map<String, Object> body = readBody(exchange);
+        Student student = requireStudent(requireString(body, "regNo"));
+        Course course = requireCourse(requireString(body, "courseCode"));
+        studentService.enrollInCourse(student, course);
+        return new Response(201, enrollmentJson(student.getEnrollment(course.getCode())));
+    }
+    
+    private Response marks(HttpExchange exchange, String[] path, Map<String, String> params) {
+        requireMethod(exchange, "POST");
+        Map<String, Object> body = readBody(exchange);
+        Student student = requireStudent(requireString(body, "regNo"));
+        String courseCode = requireString(body, "courseCode");
+        Object marks = body.get("marks");
+        if (!(marks instanceof Number)) {
+            throw new IllegalArgumentException("marks must be a number");
+        }
+        double value = ((Number) marks).doubleValue();
+        if (value < 0 || value > 100) {
+            throw new IllegalArgumentException("Marks must be between 0 and 100");
+        }
+        if (!student.isEnrolledIn(courseCode)) {
+            throw new ApiException(404, "Student is not enrolled in " + courseCode);
+        }
+        return ok(enrollmentJson(studentService.recordMarks(student, courseCode, value)));
+    }
+    
+    private Response reports(HttpExchange exchange, String[] path, Map<String, String> params) {
+        requireMethod(exchange, "GET");
+        if (path.length == 1 && path[0].equals("term")) {
+            ReportEngine.TermReport report = reportEngine.generate();
+            Map<String, Object> bands = new LinkedHashMap<>();
+            for (ReportEngine.GpaBand band : ReportEngine.GpaBand.values()) {
+                bands.put(band.getLabel(), report.getStudentsInBand(band));
+            }
+            Map<String, Object> body = new LinkedHashMap<>();
+            body.put("gpaDistribution", bands);
+            body.put("enrollments", report.getEnrollmentCounts());
+            body.put("creditsByDepartment", report.getCreditsByDepartment());
+            return ok(body);
+        }
+        if (path.length == 1 && path[0].equals("top")) {
+            int k = intParam(params, "k", 5);
+            String semester = params.get("semester");
+            List<RankingService.RankedStudent> top = rankingService.topK(k, params.get("department"),
+                semester == null ? null : parseSemester(semester));
+            List<Object> items = new ArrayList<>(top.size());
+            for (RankingService.RankedStudent ranked : top) {
+                Map<String, Object> row = studentSummary(ranked.getStudent());
+                row.put("gpa", ranked.getGpa());
+                items.add(row);
+            }
+            return ok(items);
+        }
+        throw new ApiException(404, "No such report");
+    }
+    
+    // JSON shapes
+    
+    private static Map<String, Object> studentSummary(Student student) {
+        Map<String, Object> json = new LinkedHashMap<>();
+        json.put("id", student.getId());
+        json.put("regNo", student.getRegNo());
+        json.put("fullName", student.getFullName());
+        json.put("email", student.getEmail());
+        json.put("active", student.isActive());
+        return json;
+    }
+    
+    private static Map<String, Object> studentDetail(Student student) {
+        Map<String, Object> json = studentSummary(student);
+        json.put("gpa", student.calculateGPA());
+        json.put("creditsAttempted", student.getTotalCreditsAttempted());
+        json.put("creditsEarned", student.getTotalCreditsEarned());
+        List<Object> enrollments = new ArrayList<>();
+        student.getEnrollments().forEach(enrollment -> enrollments.add(enrollmentJson(enrollment)));
+        json.put("enrollments", enrollments);
+        return json;
+    }
+    
+    private static Map<String, Object> enrollmentJson(Enrollment enrollment) {
+        Map<String, Object> json = new LinkedHashMap<>();
+        json.put("regNo", enrollment.getStudent().getRegNo());
+        json.put("courseCode", enrollment.getCourse().getCode());
+        json.put("title", enrollment.getCourse().getTitle());
+        json.put("credits", enrollment.getCourse().getCredits());
+        json.put("enrollmentDate", String.valueOf(enrollment.getEnrollmentDate()));
+        json.put("marks", enrollment.getMarks());
+        json.put("grade", enrollment.getGrade() == null ? null : enrollment.getGrade().name());
+        return json;
+    }
+    
+    private static Map<String, Object> courseJson(Course course) {
+        Map<String, Object> json = new LinkedHashMap<>();
+        json.put("code", course.getCode());
+        json.put("title", course.getTitle());
+        json.put("credits", course.getCredits());
+        json.put("instructor", course.getInstructor());
+        json.put("department", course.getDepartment());
+        json.put("semester", course.getSemester() == null ? null : course.getSemester().name());
+        json.put("active", course.isActive());
+        return json;
+    }
+    
+    private static Map<String, Object> error(String message) {
+        Map<String, Object> json = new LinkedHashMap<>();
+        json.put("error", message);
+        return json;
+    }
+    
+    // Request helpers
+    
+    private static Response ok(Object body) {
+        return new Response(200, body);
+    }
+    
+    private Student requireStudent(String regNo) {
+        Student student = studentService.findByRegNo(regNo);
+        if (student == null) {
+            throw new ApiException(404, "Student not found: " + regNo);
+        }
+        return student;
+    }
+    
+    private Course requireCourse(String code) {
+        Course course = courseService.findByCode(code);
+        if (course == null) {
+            throw new ApiException(404, "Course not found: " + code);
+        }
+        return course;
+    }
+    
+    private static void requireMethod(HttpExchange exchange, String method) {
+        if (!exchange.getRequestMethod().equals(method)) {
+            throw new ApiException(405, "Method not allowed");
+        }
+    }
+    
+    // The stream is left open; send() drains and closes it
+    private static Map<String, Object> readBody(HttpExchange exchange) {
+        try {
+            byte[] bytes = exchange.getRequestBody().readNBytes(MAX_BODY_BYTES + 1);
+            if (bytes.length > MAX_BODY_BYTES) {
+                throw new ApiException(413, "Request body too large");
+            }
+            return Json.parseObject(new String(bytes, StandardCharsets.UTF_8));
+        } catch (IOException e) {
+            throw new ApiException(400, "Could not read request body: " + e.getMessage());
+        }
+    }
+    
+    private static String requireString(Map<String, Object> body, String field) {
+        Object value = body.get(field);
+        if (!(value instanceof String) || ((String) value).isBlank()) {
+            throw new IllegalArgumentException(field + " is required");
+        }
+        return (String) value;
+    }
+    
+    private static String optionalString(Map<String, Object> body, String field, String fallback) {
+        return body.containsKey(field) ? requireString(body, field) : fallback;
+    }
+    
+    private static int requireCredits(Map<String, Object> body) {
+        Object value = body.get("credits");
+        if (!(value instanceof Number) || !ValidationUtil.isValidCredits(((Number) value).intValue())) {
+            throw new IllegalArgumentException("credits must be a number between 1 and 6");
+        }
+        return ((Number) value).intValue();
+    }
+    
+    private static String requireParam(Map<String, String> params, String name) {
+        String value = params.get(name);
+        if (value == null || value.isEmpty()) {
+            throw new IllegalArgumentException(name + " is required");
+        }
+        return value;
+    }
+    
+    private static int intParam(Map<String, String> params, String name, int fallback) {
+        String value = params.get(name);
+        if (value == null) {
+            return fallback;
+        }
+        try {
+            int parsed = Integer.parseInt(value);
+            if (parsed < 0) {
+                throw new IllegalArgumentException(name + " cannot be negative");
+            }
+            return parsed;
+        } catch (NumberFormatException e) {
+            throw new IllegalArgumentException(name + " must be an integer");
+        }
+    }
+    
+    private static Semester parseSemester(String text) {
+        try {
+            return Semester.valueOf(text.toUpperCase(Locale.ROOT));
+        } catch (IllegalArgumentException e) {
+            throw new IllegalArgumentException("Unknown semester " + text);
+        }
+    }
+    
+    private static <T> List<T> page(List<T> all, int offset, int limit) {
+        int from = Math.min(offset, all.size());
+        return all.subList(from, Math.min(all.size(), from + Math.min(limit, all.size())));
+    }
+    
+    private static Map<String, String> parseQuery(String rawQuery) {
+        Map<String, String> params = new HashMap<>();
+        if (rawQuery == null || rawQuery.isEmpty()) {
+            return params;
+        }
+        for (String pair : rawQuery.split("&")) {
+            int eq = pair.indexOf('=');
+            String name = eq < 0 ? pair : pair.substring(0, eq);
+            String value = eq < 0 ? "" : pair.substring(eq + 1);
+            params.put(URLDecoder.decode(name, StandardCharsets.UTF_8), URLDecoder.decode(value, StandardCharsets.UTF_8));
+        }
+        return params;
+    }
+}
\ No newline at end of file
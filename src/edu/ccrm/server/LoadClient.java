@@ -0,0 +1,200 @@
+package edu.ccrm.server;
+
+import java.io.IOException;
+import java.net.URI;
+import java.net.http.HttpClient;
+import java.net.http.HttpRequest;
+import java.net.http.HttpResponse;
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ThreadLocalRandom;
+import java.util.concurrent.atomic.LongAdder;
+
+/**
+ * Load generator for a running ApiServer.
+ * Each worker thread issues requests back to back over keep-alive connections: mostly
+ * student and course lookups and searches, plus a share of registration writes (enroll,
+ * then unenroll). Prints throughput, latency percentiles and status counts.
+ *
+ * Usage: java edu.ccrm.server.LoadClient [baseUrl] [--threads N] [--seconds S] [--writes PERCENT]
+ */
+public class LoadClient {
+    private final HttpClient client;
+    private final String baseUrl;
+    private final List<String> regNos = new ArrayList<>();
+    private final List<String> courseCodes = new ArrayList<>();
+    private final List<String> names = new ArrayList<>();
+    private final LongAdder ok = new LongAdder();
+    private final LongAdder conflicts = new LongAdder();
+    private final LongAdder clientErrors = new LongAdder();
+    private final LongAdder busy = new LongAdder();
+    private final LongAdder serverErrors = new LongAdder();
+    private final LongAdder ioErrors = new LongAdder();
+    
+    // Per-thread request latencies, merged when the run ends
+    private static final class Latencies {
+        long[] nanos = new long[1 << 14];
+        int size;
+        
+        void add(long value) {
+            if (size == nanos.length) {
+                nanos = Arrays.copyOf(nanos, size * 2);
+            }
+            nanos[size++] = value;
+        }
+    }
+    
+    public LoadClient(String baseUrl) {
+        this.baseUrl = baseUrl.endsWith("/") ? baseUrl.substring(0, baseUrl.length() - 1) : baseUrl;
+        this.client = HttpClient.newBuilder()
+            .version(HttpClient.Version.HTTP_1_1)
+            .connectTimeout(Duration.ofSeconds(5))
+            .build();
+    }
+    
+    public static void main(String[] args) throws Exception {
+        String baseUrl = "http://127.0.0.1:8080";
+        int threads = 16;
+        int seconds = 10;
+        int writePercent = 10;
+        for (int i = 0; i < args.length; i++) {
+            switch (args[i]) {
+                case "--threads": threads = Integer.parseInt(args[++i]); break;
+                case "--seconds": seconds = Integer.parseInt(args[++i]); break;
+                case "--writes": writePercent = Integer.parseInt(args[++i]); break;
+                default: baseUrl = args[i];
+            }
+        }
+        LoadClient load = new LoadClient(baseUrl);
+        load.discover();
+        load.run(threads, seconds, writePercent);
+    }
+    
+    /**
+     * Fetch the students and courses to aim requests at
+     */
+    @SuppressWarnings("unchecked")
+    public void discover() throws IOException, InterruptedException {
+        for (Object item : (List<Object>) Json.parse(get("/api/students?limit=10000").body())) {
+            Map<String, Object> student = (Map<String, Object>) item;
+            regNos.add((String) student.get("regNo"));
+            names.add((String) student.get("fullName"));
+        }
+        for (Object item : (List<Object>) Json.parse(get("/api/courses?limit=10000").body())) {
+            courseCodes.add((String) ((Map<String, Object>) item).get("code"));
+        }
+        if (regNos.isEmpty() || courseCodes.isEmpty()) {
+            throw new IllegalStateException("Server has no students or courses to query");
+        }
+        System.out.printf("Target %s: %d students, %d courses%n", baseUrl, regNos.size(), courseCodes.size());
+    }
+    
+    public void run(int threads, int seconds, int writePercent) throws InterruptedException {
+        long deadline = System.nanoTime() + seconds * 1_000_000_000L;
+        Latencies[] perThread = new Latencies[threads];
+        Thread[] workers = new Thread[threads];
+        for (int t = 0; t < threads; t++) {
+            Latencies latencies = new Latencies();
+            perThread[t] = latencies;
+            workers[t] = new Thread(() -> {
+                while (System.nanoTime() < deadline) {
+                    issue(latencies, writePercent);
+                }
+            }, "load-" + t);
+            workers[t].start();
+        }
+        long start = System.nanoTime();
+        for (Thread worker : workers) {
+            worker.join();
+        }
+        double elapsed = (System.nanoTime() - start) / 1e9;
+        
+        int total = 0;
+        for (Latencies latencies : perThread) {
+            total += latencies.size;
+        }
+        long[] all = new long[total];
+        int n = 0;
+        for (Latencies latencies : perThread) {
+            System.arraycopy(latencies.nanos, 0, all, n, latencies.size);
+            n += latencies.size;
+        }
+        Arrays.sort(all);
+        System.out.printf("%d requests in %.1fs with %d threads: %.0f requests/s%n", total, elapsed, threads, total / elapsed);
+        System.out.printf("latency ms: p50 %.2f  p90 %.2f  p99 %.2f  p99.9 %.2f  max %.2f%n",
+            percentile(all, 0.50), percentile(all, 0.90), percentile(all, 0.99), percentile(all, 0.999),
+            all.length == 0 ? 0 : all[all.length - 1] / 1e6);
+        System.out.printf("2xx %d, 409 %d, other 4xx %d, 503 %d, 5xx %d, I/O errors %d%n",
+            ok.sum(), conflicts.sum(), clientErrors.sum(), busy.sum(), serverErrors.sum(), ioErrors.sum());
+    }
+    
+    private void issue(Latencies latencies, int writePercent) {
+        ThreadLocalRandom random = ThreadLocalRandom.current();
+        String regNo = regNos.get(random.nextInt(regNos.size()));
+        String course = courseCodes.get(random.nextInt(courseCodes.size()));
+        int roll = random.nextInt(100);
+        if (roll < writePercent) {
+            String body = "{\"regNo\":\"" + regNo + "\",\"courseCode\":\"" + course + "\"}";
+            int status = timed(latencies, HttpRequest.newBuilder(uri("/api/enrollments"))
+                .header("Content-Type", "application/json")
+                .POST(HttpRequest.BodyPublishers.ofString(body)));
+            if (status == 201) {
+                timed(latencies, HttpRequest.newBuilder(
+                    uri("/api/enrollments?regNo=" + regNo + "&courseCode=" + course)).DELETE());
+            }
+        } else if (roll < writePercent + (100 - writePercent) / 2) {
+            timed(latencies, HttpRequest.newBuilder(uri("/api/students/" + regNo)).GET());
+        } else if (roll % 2 == 0) {
+            timed(latencies, HttpRequest.newBuilder(uri("/api/courses/" + course)).GET());
+        } else {
+            String name = names.get(random.nextInt(names.size()));
+            String q = name.substring(0, Math.min(3, name.length())).replace(' ', '+');
+            timed(latencies, HttpRequest.newBuilder(uri("/api/students?limit=10&q=" + q)).GET());
+        }
+    }
+    
+    private int timed(Latencies latencies, HttpRequest.Builder request) {
+        long start = System.nanoTime();
+        try {
+            int status = client.send(request.build(), HttpResponse.BodyHandlers.discarding()).statusCode();
+            latencies.add(System.nanoTime() - start);
+            if (status < 300) {
+                ok.increment();
+            } else if (status == 409) {
+                conflicts.increment();
+            } else if (status == 503) {
+                busy.increment();
+            } else if (status < 500) {
+                clientErrors.increment();
+            } else {
+                serverErrors.increment();
+            }
+            return status;
+        } catch (IOException e) {
+            ioErrors.increment();
+            return -1;
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            return -1;
+        }
+    }
+    
+    private HttpResponse<String> get(String path) throws IOException, InterruptedException {
+        return client.send(HttpRequest.newBuilder(uri(path)).GET().build(), HttpResponse.BodyHandlers.ofString());
+    }
+    
+    private URI uri(String path) {
+        return URI.create(baseUrl + path);
+    }
+    
+    private static double percentile(long[] sorted, double p) {
+        if (sorted.length == 0) {
+            return 0;
+        }
+        int index = (int) Math.min(sorted.length - 1, Math.ceil(p * sorted.length) - 1);
+        return sorted[Math.max(0, index)] / 1e6;
+    }
+}
\ No newline at end of file
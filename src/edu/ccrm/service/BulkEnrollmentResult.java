@@ -0,0 +1,90 @@
+package edu.ccrm.service;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+
+/**
+ * Outcome counts for a bulk enrollment restore. Only the first few rejection
+ * messages are kept so a bad file cannot flood memory.
+ */
+public class BulkEnrollmentResult {
+    private static final int MAX_MESSAGES = 20;
+    
+    private int accepted;
+    private int duplicates;
+    private int overCreditLimit;
+    private int unresolved;
+    private int invalid;
+    private int failed;
+    private final List<String> messages = new ArrayList<>();
+    
+    void recordAccepted() {
+        accepted++;
+    }
+    
+    void recordDuplicate(String message) {
+        duplicates++;
+        addMessage(message);
+    }
+    
+    void recordOverCreditLimit(String message) {
+        overCreditLimit++;
+        addMessage(message);
+    }
+    
+    /**
+     * A row whose student or course could not be found
+     */
+    public void recordUnresolved(String message) {
+        unresolved++;
+        addMessage(message);
+    }
+    
+    /**
+     * A row with a value that cannot be accepted, such as one the student store cannot hold
+     */
+    public void recordInvalid(String message) {
+        invalid++;
+        addMessage(message);
+    }
+    
+    /**
+     * Rows not applied because the change log failed
+     */
+    void recordFailed(int rows, String message) {
+        failed += rows;
+        addMessage(message);
+    }
+    
+    public void merge(BulkEnrollmentResult other) {
+        accepted += other.accepted;
+        duplicates += other.duplicates;
+        overCreditLimit += other.overCreditLimit;
+        unresolved += other.unresolved;
+        invalid += other.invalid;
+        failed += other.failed;
+        other.messages.forEach(this::addMessage);
+    }
+    
+    private void addMessage(String message) {
+        if (messages.size() < MAX_MESSAGES) {
+            messages.add(message);
+        }
+    }
+    
+    public int getAccepted() { return accepted; }
+    public int getDuplicates() { return duplicates; }
+    public int getOverCreditLimit() { return overCreditLimit; }
+    public int getUnresolved() { return unresolved; }
+    public int getInvalid() { return invalid; }
+    public int getFailed() { return failed; }
+    public int getRejected() { return duplicates + overCreditLimit + unresolved + invalid + failed; }
+    public List<String> getMessages() { return Collections.unmodifiableList(messages); }
+    
+    @Override
+    public String toString() {
+        return String.format("accepted=%d, duplicates=%d, overCreditLimit=%d, unresolved=%d, invalid=%d, failed=%d",
+                           accepted, duplicates, overCreditLimit, unresolved, invalid, failed);
+    }
+}
\ No newline at end of file
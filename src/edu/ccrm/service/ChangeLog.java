@@ -0,0 +1,56 @@
+package edu.ccrm.service;
+
+import edu.ccrm.domain.Course;
+import edu.ccrm.domain.Enrollment;
+import edu.ccrm.domain.Student;
+
+/**
+ * Write-ahead log of the changes made through StudentService and CourseService.
+ *
+ * The services append each change while holding the lock that orders it (the student's
+ * lock stripe, or the catalog write lock), after every check has passed and before
+ * anything is modified. The log therefore holds changes in the order they are applied,
+ * and an append that throws leaves the change unapplied. Each append returns a ticket;
+ * the service releases its lock and then waits on the ticket, so no lock is held while
+ * the log syncs.
+ */
+public interface ChangeLog {
+    /**
+     * Ticket that has nothing to wait for
+     */
+    long NO_TICKET = 0;
+    
+    /**
+     * Log that keeps nothing; the services use it until a real one is attached
+     */
+    ChangeLog NONE = new ChangeLog() {};
+    
+    default long addStudent(Student student) { return NO_TICKET; }
+    
+    default long updateStudent(Student student, String fullName, String email) { return NO_TICKET; }
+    
+    default long deactivateStudent(Student student) { return NO_TICKET; }
+    
+    /**
+     * The enrollment may already carry marks
+     */
+    default long enroll(Enrollment enrollment) { return NO_TICKET; }
+    
+    default long unenroll(Enrollment enrollment) { return NO_TICKET; }
+    
+    default long recordMarks(Enrollment enrollment, double marks) { return NO_TICKET; }
+    
+    default long addCourse(Course course) { return NO_TICKET; }
+    
+    default long updateCourse(Course course, String title, int credits, String instructor, String department) {
+        return NO_TICKET;
+    }
+    
+    default long deactivateCourse(Course course) { return NO_TICKET; }
+    
+    /**
+     * Block until the change with this ticket, and every change before it, is durable.
+     * @throws IllegalStateException if the log is closed before that happens
+     */
+    default void awaitDurable(long ticket) {}
+}
\ No newline at end of file
@@ -0,0 +1,33 @@
+package edu.ccrm.service;
+
+import edu.ccrm.domain.Course;
+
+import java.util.function.Function;
+
+public enum CourseField implements QueryField<Course> {
+    CODE(Course::getCode, false),
+    TITLE(Course::getTitle, false),
+    DEPARTMENT(Course::getDepartment, true),
+    INSTRUCTOR(Course::getInstructor, true),
+    SEMESTER(Course::getSemester, false),
+    CREDITS(Course::getCredits, false),
+    ACTIVE(Course::isActive, false);
+    
+    private final Function<Course, Object> extractor;
+    private final boolean caseInsensitive;
+    
+    CourseField(Function<Course, Object> extractor, boolean caseInsensitive) {
+        this.extractor = extractor;
+        this.caseInsensitive = caseInsensitive;
+    }
+    
+    @Override
+    public Object valueOf(Course course) {
+        return extractor.apply(course);
+    }
+    
+    @Override
+    public boolean isCaseInsensitive() {
+        return caseInsensitive;
+    }
+}
\ No newline at end of file
@@ -0,0 +1,15 @@
+package edu.ccrm.service;
+
+import edu.ccrm.domain.Course;
+
+/**
+ * Callback for components that follow catalog changes made through CourseService.
+ * All methods default to no-ops.
+ */
+public interface CourseListener {
+    default void courseAdded(Course course) {}
+    
+    default void courseUpdated(Course course) {}
+    
+    default void courseDeactivated(Course course) {}
+}
\ No newline at end of file
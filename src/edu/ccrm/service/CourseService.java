@@ -1,57 +1,490 @@
 package edu.ccrm.service;
 
 import edu.ccrm.domain.Course;
+import edu.ccrm.domain.Enrollment;
+import edu.ccrm.domain.Grade;
 import edu.ccrm.domain.Semester;
+import edu.ccrm.domain.Student;
+import edu.ccrm.metrics.MetricsRegistry;
+import edu.ccrm.metrics.OperationMetrics;
 
 import java.util.ArrayList;
+import java.util.Collections;
+import java.util.EnumMap;
+import java.util.HashMap;
+import java.util.LinkedHashMap;
+import java.util.LinkedHashSet;
 import java.util.List;
-import java.util.Optional;
+import java.util.Locale;
+import java.util.Map;
+import java.util.OptionalDouble;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.CopyOnWriteArrayList;
+import java.util.concurrent.locks.ReadWriteLock;
+import java.util.concurrent.locks.ReentrantLock;
+import java.util.concurrent.locks.ReentrantReadWriteLock;
 import java.util.function.Predicate;
 import java.util.stream.Collectors;
+import java.util.stream.Stream;
 
-public class CourseService implements Searchable<Course> {
-    private List<Course> courses;
+/**
+ * Course catalog, safe for concurrent readers and writers.
+ * Lookups by code are lock-free; the ordered catalog and the bucket indexes sit behind a
+ * read/write lock so the read-heavy filters run in parallel. Catalog writes are rare and
+ * are serialized, listener callbacks included, so listeners see them in order. With a
+ * ChangeLog attached, each write is appended to it before it is applied, and the caller
+ * waits for it to be durable after the write lock is released.
+ *
+ * Registered as a StudentListener, it also keeps a reverse index from course code to
+ * the course's enrollments with running grade statistics, so class lists and per-course
+ * figures never scan the student population.
+ */
+public class CourseService implements Searchable<Course>, StudentListener {
+    private static final Grade[] GRADES = Grade.values();
+    
+    // Primary index keyed on code, plus the catalog in insertion order
+    private final Map<String, Course> coursesByCode;
+    private final Map<String, Course> catalog;
+    // Secondary bucket indexes; department and instructor keys are case-folded
+    private final Map<String, Set<Course>> coursesByDepartment;
+    private final Map<String, Set<Course>> coursesByInstructor;
+    private final Map<Semester, Set<Course>> coursesBySemester;
+    private final Set<Course> activeCourses;
+    private final List<CourseListener> listeners;
+    private volatile ChangeLog changeLog = ChangeLog.NONE;
+    // Course code to roster; each roster guards itself
+    private final Map<String, Roster> rosters;
+    // Immutable snapshots for readers; set under the read lock, dropped under the write lock
+    private volatile List<Course> allCoursesView;
+    private volatile List<Course> activeCoursesView;
+    // Guards catalog and the secondary indexes
+    private final ReadWriteLock indexLock = new ReentrantReadWriteLock();
+    // Serializes writers from the check through the listener callbacks
+    private final ReentrantLock writeLock = new ReentrantLock();
+    
+    // Per-operation call counts and latencies
+    private final OperationMetrics addMetrics;
+    private final OperationMetrics updateMetrics;
+    private final OperationMetrics findMetrics;
+    private final OperationMetrics searchMetrics;
+    private final OperationMetrics rosterMetrics;
     
     public CourseService() {
-        this.courses = new ArrayList<>();
+        this.coursesByCode = new ConcurrentHashMap<>();
+        this.catalog = new LinkedHashMap<>();
+        this.coursesByDepartment = new HashMap<>();
+        this.coursesByInstructor = new HashMap<>();
+        this.coursesBySemester = new EnumMap<>(Semester.class);
+        this.activeCourses = new LinkedHashSet<>();
+        this.listeners = new CopyOnWriteArrayList<>();
+        this.rosters = new ConcurrentHashMap<>();
+        MetricsRegistry metrics = MetricsRegistry.getInstance();
+        this.addMetrics = metrics.operation("course.add");
+        this.updateMetrics = metrics.operation("course.update");
+        this.findMetrics = metrics.operation("course.lookup");
+        this.searchMetrics = metrics.operation("course.search");
+        this.rosterMetrics = metrics.operation("course.roster");
+    }
+    
+    public void addListener(CourseListener listener) {
+        listeners.add(listener);
+    }
+    
+    public void removeListener(CourseListener listener) {
+        listeners.remove(listener);
     }
     
+    /**
+     * @param changeLog log to append every catalog change to before it is applied, or
+     *        null for none
+     */
+    public void setChangeLog(ChangeLog changeLog) {
+        this.changeLog = changeLog == null ? ChangeLog.NONE : changeLog;
+    }
+    
+    /**
+     * Run the action while no catalog change is in progress; new changes wait until it
+     * returns, so keep it brief
+     */
+    public void runExclusive(Runnable action) {
+        writeLock.lock();
+        try {
+            action.run();
+        } finally {
+            writeLock.unlock();
+        }
+    }
+    
+    /**
+     * Adds a course to the catalog and all of its indexes.
+     * @throws IllegalArgumentException if the course code is already taken
+     */
     public void addCourse(Course course) {
-        courses.add(course);
+        long start = addMetrics.start();
+        boolean added = false;
+        try {
+            ChangeLog log = changeLog;
+            long ticket;
+            writeLock.lock();
+            try {
+                if (coursesByCode.containsKey(course.getCode())) {
+                    throw new IllegalArgumentException("Course with code " + course.getCode() + " already exists");
+                }
+                ticket = log.addCourse(course);
+                indexLock.writeLock().lock();
+                try {
+                    catalog.put(course.getCode(), course);
+                    addToBucket(coursesByDepartment, fold(course.getDepartment()), course);
+                    addToBucket(coursesByInstructor, fold(course.getInstructor()), course);
+                    coursesBySemester.computeIfAbsent(course.getSemester(), s -> new LinkedHashSet<>()).add(course);
+                    if (course.isActive()) {
+                        activeCourses.add(course);
+                    }
+                    invalidateViews();
+                } finally {
+                    indexLock.writeLock().unlock();
+                }
+                coursesByCode.put(course.getCode(), course);
+                listeners.forEach(l -> l.courseAdded(course));
+            } finally {
+                writeLock.unlock();
+            }
+            log.awaitDurable(ticket);
+            added = true;
+        } finally {
+            addMetrics.record(start, added);
+        }
     }
     
     public boolean updateCourse(String code, String title, int credits, String instructor) {
-        Optional<Course> courseOpt = courses.stream()
-            .filter(c -> c.getCode().equals(code))
-            .findFirst();
+        Course course = coursesByCode.get(code);
+        if (course == null) {
+            return false;
+        }
+        return updateCourse(code, title, credits, instructor, course.getDepartment());
+    }
             
-        if (courseOpt.isPresent()) {
-            Course course = courseOpt.get();
-            course.setTitle(title);
-            course.setCredits(credits);
-            course.setInstructor(instructor);
+    public boolean updateCourse(String code, String title, int credits, String instructor, String department) {
+        long start = updateMetrics.start();
+        try {
+            ChangeLog log = changeLog;
+            long ticket;
+            writeLock.lock();
+            try {
+                Course course = coursesByCode.get(code);
+                if (course == null) {
+                    return false;
+                }
+                ticket = log.updateCourse(course, title, credits, instructor, department);
+                
+                indexLock.writeLock().lock();
+                try {
+                    // Re-bucket before mutating so the old keys can still be located
+                    if (!fold(course.getInstructor()).equals(fold(instructor))) {
+                        removeFromBucket(coursesByInstructor, fold(course.getInstructor()), course);
+                        addToBucket(coursesByInstructor, fold(instructor), course);
+                    }
+                    if (!fold(course.getDepartment()).equals(fold(department))) {
+                        removeFromBucket(coursesByDepartment, fold(course.getDepartment()), course);
+                        addToBucket(coursesByDepartment, fold(department), course);
+                    }
+                    
+                    course.setTitle(title);
+                    course.setCredits(credits);
+                    course.setInstructor(instructor);
+                    course.setDepartment(department);
+                } finally {
+                    indexLock.writeLock().unlock();
+                }
+                listeners.forEach(l -> l.courseUpdated(course));
+            } finally {
+                writeLock.unlock();
+            }
+            log.awaitDurable(ticket);
             return true;
+        } finally {
+            updateMetrics.record(start);
         }
-        return false;
     }
     
     public boolean deactivateCourse(String code) {
-        return courses.stream()
-            .filter(c -> c.getCode().equals(code))
-            .findFirst()
-            .map(c -> {
-                c.setActive(false);
-                return true;
-            })
-            .orElse(false);
+        long start = updateMetrics.start();
+        try {
+            ChangeLog log = changeLog;
+            long ticket;
+            writeLock.lock();
+            try {
+                Course course = coursesByCode.get(code);
+                if (course == null) {
+                    return false;
+                }
+                ticket = log.deactivateCourse(course);
+                indexLock.writeLock().lock();
+                try {
+                    course.setActive(false);
+                    activeCourses.remove(course);
+                    invalidateViews();
+                } finally {
+                    indexLock.writeLock().unlock();
+                }
+                listeners.forEach(l -> l.courseDeactivated(course));
+            } finally {
+                writeLock.unlock();
+            }
+            log.awaitDurable(ticket);
+            return true;
+        } finally {
+            updateMetrics.record(start);
+        }
+    }
+    
+    /**
+     * A course's enrolled students keyed by id, in enrollment order, with running totals
+     * over the graded enrollments. The enrollments themselves are the students' rows.
+     */
+    private static final class Roster {
+        private final String courseCode;
+        private final Map<String, Student> students = new LinkedHashMap<>();
+        private final long[] gradeCounts = new long[GRADES.length];
+        private int gradedCount;
+        private double marksTotal;
+        
+        Roster(String courseCode) {
+            this.courseCode = courseCode;
+        }
+        
+        synchronized void add(Enrollment enrollment) {
+            if (students.putIfAbsent(enrollment.getStudent().getId(), enrollment.getStudent()) == null) {
+                addMarks(enrollment.getMarksAsDouble());
+            }
+        }
+        
+        synchronized void remove(Enrollment enrollment) {
+            if (students.remove(enrollment.getStudent().getId()) != null) {
+                removeMarks(enrollment.getMarksAsDouble());
+            }
+        }
+        
+        synchronized void marksChanged(Enrollment enrollment, Double previousMarks) {
+            if (students.containsKey(enrollment.getStudent().getId())) {
+                removeMarks(previousMarks == null ? Double.NaN : previousMarks);
+                addMarks(enrollment.getMarksAsDouble());
+            }
+        }
+        
+        // NaN marks an ungraded enrollment
+        private void addMarks(double marks) {
+            if (!Double.isNaN(marks)) {
+                gradeCounts[Grade.fromMarks(marks).ordinal()]++;
+                gradedCount++;
+                marksTotal += marks;
+            }
+        }
+        
+        private void removeMarks(double marks) {
+            if (!Double.isNaN(marks)) {
+                gradeCounts[Grade.fromMarks(marks).ordinal()]--;
+                gradedCount--;
+                marksTotal -= marks;
+            }
+        }
+        
+        synchronized List<Enrollment> snapshot() {
+            List<Enrollment> enrollments = new ArrayList<>(students.size());
+            for (Student student : students.values()) {
+                Enrollment enrollment = student.getEnrollment(courseCode);
+                if (enrollment != null) { // Null only while the student's unenrollment is under way
+                    enrollments.add(enrollment);
+                }
+            }
+            return Collections.unmodifiableList(enrollments);
+        }
+        
+        synchronized List<Student> students() {
+            return List.copyOf(students.values());
+        }
+        
+        synchronized int size() {
+            return students.size();
+        }
+        
+        synchronized CourseStatistics statistics() {
+            return new CourseStatistics(courseCode, students.size(), gradedCount, marksTotal, gradeCounts.clone());
+        }
+    }
+    
+    /**
+     * Point-in-time figures for one course
+     */
+    public static final class CourseStatistics {
+        private final String courseCode;
+        private final int headcount;
+        private final int gradedCount;
+        private final double marksTotal;
+        private final long[] gradeCounts;
+        
+        private CourseStatistics(String courseCode, int headcount, int gradedCount, double marksTotal,
+                                 long[] gradeCounts) {
+            this.courseCode = courseCode;
+            this.headcount = headcount;
+            this.gradedCount = gradedCount;
+            this.marksTotal = marksTotal;
+            this.gradeCounts = gradeCounts;
+        }
+        
+        public String getCourseCode() { return courseCode; }
+        public int getHeadcount() { return headcount; }
+        public int getGradedCount() { return gradedCount; }
+        public long getGradeCount(Grade grade) { return gradeCounts[grade.ordinal()]; }
+        
+        /**
+         * Mean marks over graded enrollments, empty if none are graded
+         */
+        public OptionalDouble getAverageMarks() {
+            return gradedCount == 0 ? OptionalDouble.empty() : OptionalDouble.of(marksTotal / gradedCount);
+        }
+    }
+    
+    /**
+     * Class list: the course's enrollments in enrollment order, as an immutable snapshot
+     */
+    public List<Enrollment> getRoster(String courseCode) {
+        long start = rosterMetrics.start();
+        Roster roster = rosters.get(courseCode);
+        List<Enrollment> enrollments = roster == null ? Collections.emptyList() : roster.snapshot();
+        rosterMetrics.record(start);
+        return enrollments;
+    }
+    
+    /**
+     * Students enrolled in the course, as an immutable snapshot
+     */
+    public List<Student> getEnrolledStudents(String courseCode) {
+        Roster roster = rosters.get(courseCode);
+        return roster == null ? Collections.emptyList() : roster.students();
+    }
+    
+    public int getHeadcount(String courseCode) {
+        Roster roster = rosters.get(courseCode);
+        return roster == null ? 0 : roster.size();
+    }
+    
+    public CourseStatistics getStatistics(String courseCode) {
+        long start = rosterMetrics.start();
+        Roster roster = rosters.get(courseCode);
+        CourseStatistics statistics = roster == null
+            ? new CourseStatistics(courseCode, 0, 0, 0.0, new long[GRADES.length])
+            : roster.statistics();
+        rosterMetrics.record(start);
+        return statistics;
+    }
+    
+    // StudentListener callbacks keep the rosters current
+    @Override
+    public void enrolled(Enrollment enrollment) {
+        rosters.computeIfAbsent(enrollment.getCourse().getCode(), Roster::new).add(enrollment);
+    }
+    
+    @Override
+    public void unenrolled(Enrollment enrollment) {
+        Roster roster = rosters.get(enrollment.getCourse().getCode());
+        if (roster != null) {
+            roster.remove(enrollment);
+        }
+    }
+    
+    @Override
+    public void marksRecorded(Enrollment enrollment, Double previousMarks) {
+        Roster roster = rosters.get(enrollment.getCourse().getCode());
+        if (roster != null) {
+            roster.marksChanged(enrollment, previousMarks);
+        }
     }
     
     // Implementation of Searchable interface
     @Override
     public List<Course> search(Predicate<Course> predicate) {
-        return courses.stream()
+        long start = searchMetrics.start();
+        List<Course> found = stream()
             .filter(predicate)
             .collect(Collectors.toList());
+        searchMetrics.record(start);
+        return found;
+    }
+    
+    /**
+     * Plans the query against the catalog indexes: an equality on code is a single
+     * lookup; equalities on department, instructor, semester or active=true read the
+     * smallest matching bucket; anything else scans the catalog.
+     */
+    @Override
+    public List<Course> search(Query<Course> query) {
+        long start = searchMetrics.start();
+        List<Course> found = QueryExecutor.execute(query, plan(query).candidates);
+        searchMetrics.record(start);
+        return found;
+    }
+    
+    @Override
+    public String explain(Query<Course> query) {
+        return QueryExecutor.explain(query, plan(query));
+    }
+    
+    private QueryExecutor.Plan<Course> plan(Query<Course> query) {
+        Object code = query.getEqualityValue(CourseField.CODE);
+        if (code != null) {
+            Course course = coursesByCode.get(code.toString());
+            return new QueryExecutor.Plan<>(course == null ? List.of() : List.of(course), "code index");
+        }
+        Object department = query.getEqualityValue(CourseField.DEPARTMENT);
+        Object instructor = query.getEqualityValue(CourseField.INSTRUCTOR);
+        Object semester = query.getEqualityValue(CourseField.SEMESTER);
+        
+        // Compare bucket sizes under the read lock and copy only the smallest bucket
+        indexLock.readLock().lock();
+        try {
+            BucketChoice choice = new BucketChoice(catalog.size());
+            if (department instanceof String) {
+                choice.consider(coursesByDepartment.get(fold((String) department)), "department index");
+            }
+            if (instructor instanceof String) {
+                choice.consider(coursesByInstructor.get(fold((String) instructor)), "instructor index");
+            }
+            if (semester instanceof Semester) {
+                choice.consider(coursesBySemester.get(semester), "semester index");
+            }
+            if (Boolean.TRUE.equals(query.getEqualityValue(CourseField.ACTIVE))) {
+                choice.consider(activeCourses, "active index");
+            }
+            if (choice.accessPath != null) {
+                return new QueryExecutor.Plan<>(bucketToList(choice.bucket), choice.accessPath);
+            }
+        } finally {
+            indexLock.readLock().unlock();
+        }
+        return new QueryExecutor.Plan<>(getAllCourses(), "catalog scan");
+    }
+    
+    // Smallest index bucket seen so far while planning; a null path means none beat the catalog
+    private static final class BucketChoice {
+        Set<Course> bucket;
+        String accessPath;
+        int size;
+        
+        BucketChoice(int catalogSize) {
+            this.size = catalogSize;
+        }
+        
+        // A null bucket holds no courses
+        void consider(Set<Course> candidate, String candidatePath) {
+            int candidateSize = candidate == null ? 0 : candidate.size();
+            if (candidateSize < size) {
+                bucket = candidate;
+                accessPath = candidatePath;
+                size = candidateSize;
+            }
+        }
     }
     
     @Override
@@ -60,37 +493,106 @@ public class CourseService implements Searchable<Course> {
     }
     
     public Course findByCode(String code) {
-        return courses.stream()
-            .filter(c -> c.getCode().equals(code))
-            .findFirst()
-            .orElse(null);
+        long start = findMetrics.start();
+        Course course = coursesByCode.get(code);
+        findMetrics.record(start);
+        return course;
     }
     
     public List<Course> getCoursesByInstructor(String instructor) {
-        return courses.stream()
-            .filter(c -> c.getInstructor().equalsIgnoreCase(instructor))
-            .collect(Collectors.toList());
+        return readBucket(coursesByInstructor, fold(instructor));
     }
     
     public List<Course> getCoursesByDepartment(String department) {
-        return courses.stream()
-            .filter(c -> c.getDepartment().equalsIgnoreCase(department))
-            .collect(Collectors.toList());
+        return readBucket(coursesByDepartment, fold(department));
     }
     
     public List<Course> getCoursesBySemester(Semester semester) {
-        return courses.stream()
-            .filter(c -> c.getSemester() == semester)
-            .collect(Collectors.toList());
+        return readBucket(coursesBySemester, semester);
     }
     
+    public int getCourseCount() {
+        return coursesByCode.size();
+    }
+    
+    /**
+     * Immutable snapshot of the catalog in insertion order, shared between calls until
+     * the next catalog change
+     */
     public List<Course> getAllCourses() {
-        return new ArrayList<>(courses);
+        List<Course> view = allCoursesView;
+        if (view != null) {
+            return view;
+        }
+        indexLock.readLock().lock();
+        try {
+            view = List.copyOf(catalog.values());
+            allCoursesView = view;
+            return view;
+        } finally {
+            indexLock.readLock().unlock();
+        }
     }
     
+    /**
+     * Immutable snapshot of the active courses, shared like getAllCourses()
+     */
     public List<Course> getActiveCourses() {
-        return courses.stream()
-            .filter(Course::isActive)
-            .collect(Collectors.toList());
+        List<Course> view = activeCoursesView;
+        if (view != null) {
+            return view;
+        }
+        indexLock.readLock().lock();
+        try {
+            view = List.copyOf(activeCourses);
+            activeCoursesView = view;
+            return view;
+        } finally {
+            indexLock.readLock().unlock();
+        }
+    }
+    
+    /**
+     * Stream over the same snapshot as getAllCourses()
+     */
+    public Stream<Course> stream() {
+        return getAllCourses().stream();
+    }
+    
+    // Caller holds the write lock
+    private void invalidateViews() {
+        allCoursesView = null;
+        activeCoursesView = null;
+    }
+    
+    private <K> List<Course> readBucket(Map<K, Set<Course>> index, K key) {
+        indexLock.readLock().lock();
+        try {
+            return bucketToList(index.get(key));
+        } finally {
+            indexLock.readLock().unlock();
+        }
+    }
+    
+    private static String fold(String key) {
+        return key == null ? "" : key.toLowerCase(Locale.ROOT);
+    }
+    
+    private static void addToBucket(Map<String, Set<Course>> index, String key, Course course) {
+        index.computeIfAbsent(key, k -> new LinkedHashSet<>()).add(course);
+    }
+    
+    private static void removeFromBucket(Map<String, Set<Course>> index, String key, Course course) {
+        Set<Course> bucket = index.get(key);
+        if (bucket != null) {
+            bucket.remove(course);
+            if (bucket.isEmpty()) {
+                index.remove(key);
+            }
+        }
+    }
+    
+    private static List<Course> bucketToList(Set<Course> bucket) {
+        return bucket == null ? Collections.emptyList() : new ArrayList<>(bucket);
     }
 }
\ No newline at end of file
@@ -0,0 +1,100 @@
+package edu.ccrm.service;
+
+import edu.ccrm.domain.EnrollmentStore;
+import edu.ccrm.domain.Student;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+
+/**
+ * The default student store: every student on the heap, found through concurrent maps.
+ * Lookups are lock-free; registration is serialized only long enough to claim the id
+ * and regNo and record the insertion order. The students' enrollments are kept in one
+ * EnrollmentStore, which the reports scan.
+ */
+public class HeapStudentStore implements StudentStore {
+    // Primary index keyed on id and unique secondary index keyed on regNo
+    private final Map<String, Student> studentsById = new ConcurrentHashMap<>();
+    private final Map<String, Student> studentsByRegNo = new ConcurrentHashMap<>();
+    // Registration order for listings; guarded by its own monitor
+    private final List<Student> registrationOrder = new ArrayList<>();
+    // Immutable snapshot of registrationOrder; rebuilt on the first read after a registration
+    private volatile List<Student> allStudentsView;
+    private final EnrollmentStore enrollments = new EnrollmentStore();
+    
+    @Override
+    public Student findById(String id) {
+        return studentsById.get(id);
+    }
+    
+    @Override
+    public Student findByRegNo(String regNo) {
+        return studentsByRegNo.get(regNo);
+    }
+    
+    @Override
+    public void add(Student student) {
+        synchronized (registrationOrder) {
+            if (studentsById.containsKey(student.getId())) {
+                throw new IllegalArgumentException("Student with ID " + student.getId() + " already exists");
+            }
+            if (studentsByRegNo.containsKey(student.getRegNo())) {
+                throw new IllegalArgumentException(
+                    "Student with registration number " + student.getRegNo() + " already exists");
+            }
+            studentsById.put(student.getId(), student);
+            studentsByRegNo.put(student.getRegNo(), student);
+            registrationOrder.add(student);
+            allStudentsView = null;
+        }
+        enrollments.attach(student);
+    }
+    
+    /**
+     * Repeated calls share one list until the next student is registered, so reads do
+     * not copy the store
+     */
+    @Override
+    public List<Student> getAll() {
+        List<Student> view = allStudentsView;
+        if (view != null) {
+            return view;
+        }
+        synchronized (registrationOrder) {
+            if (allStudentsView == null) {
+                allStudentsView = List.copyOf(registrationOrder);
+            }
+            return allStudentsView;
+        }
+    }
+    
+    @Override
+    public List<Student> getRange(int offset, int limit) {
+        List<Student> view = allStudentsView;
+        if (view == null) {
+            synchronized (registrationOrder) {
+                return List.copyOf(range(registrationOrder, offset, limit));
+            }
+        }
+        return range(view, offset, limit);
+    }
+    
+    private static List<Student> range(List<Student> students, int offset, int limit) {
+        int from = Math.min(Math.max(0, offset), students.size());
+        return students.subList(from, from + Math.min(Math.max(0, limit), students.size() - from));
+    }
+    
+    @Override
+    public int size() {
+        return studentsById.size();
+    }
+    
+    /**
+     * The columns holding every enrollment of the students in this store
+     */
+    public EnrollmentStore getEnrollmentStore() {
+        return enrollments;
+    }
+}
\ No newline at end of file
@@ -0,0 +1,722 @@
+package edu.ccrm.service;
+
+import edu.ccrm.domain.Course;
+import edu.ccrm.domain.Enrollment;
+import edu.ccrm.domain.Student;
+
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.lang.ref.ReferenceQueue;
+import java.lang.ref.WeakReference;
+import java.nio.MappedByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.time.LocalDate;
+import java.util.AbstractList;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Objects;
+import java.util.RandomAccess;
+import java.util.function.Function;
+
+/**
+ * Student store that keeps its records off the heap, in memory-mapped files, for large
+ * directories such as alumni that are mostly looked up one student at a time.
+ *
+ * The store is a directory of three files:
+ * students.dat holds a header and then one fixed-size record per student, in
+ * registration order; enrollments.dat holds fixed-size enrollment records, chained per
+ * student, with removed records kept on a free list for reuse; index.dat holds two
+ * open-addressing hash tables mapping id and regNo to a student's record number. The
+ * index is rebuilt from the student records if it is missing.
+ *
+ * Opening reads only the headers. A Student is built from its records the first time it
+ * is looked up, and the most recently used are kept in a bounded LRU cache. A student
+ * evicted from the cache stays canonical for as long as anything else still holds it, so
+ * a student is never two objects at once. Changes are written to the mapped pages as they
+ * are made; the operating system writes them back to disk, and flush() or close() forces
+ * them out.
+ *
+ * Courses are resolved by code through the given resolver. Enrollments in courses it no
+ * longer knows are given a placeholder course carrying the stored code and credits.
+ * Text fields have fixed maximum encoded lengths and longer values are rejected, and each
+ * file is limited to 2 GB, about eight million students. All operations are serialized
+ * on the store's monitor.
+ */
+public class MappedStudentStore implements StudentStore {
+    private static final int MAGIC = 0x43435244; // "CCRD"
+    private static final int VERSION = 1;
+    private static final int HEADER_BYTES = 64;
+    private static final int NONE = -1;
+    private static final int INITIAL_STUDENTS = 1024; // Power of two
+    private static final int INITIAL_ENROLLMENTS = 4096;
+    
+    // Header fields common to the three files
+    private static final int H_MAGIC = 0;
+    private static final int H_VERSION = 4;
+    // students.dat: records in use and records mapped
+    private static final int H_STUDENT_COUNT = 8;
+    private static final int H_STUDENT_CAPACITY = 12;
+    // enrollments.dat: high-water mark, records mapped, free list head and live records
+    private static final int H_ENROLLMENT_USED = 8;
+    private static final int H_ENROLLMENT_CAPACITY = 12;
+    private static final int H_FREE_HEAD = 16;
+    private static final int H_ENROLLMENT_COUNT = 20;
+    // index.dat: slots in each of the two tables
+    private static final int H_TABLE_CAPACITY = 8;
+    
+    // Student record; text is a length byte followed by that many UTF-8 bytes
+    public static final int MAX_ID_BYTES = 31;
+    public static final int MAX_REG_NO_BYTES = 23;
+    public static final int MAX_NAME_BYTES = 95;
+    public static final int MAX_EMAIL_BYTES = 87;
+    private static final int S_ID = 0;
+    private static final int S_REG_NO = S_ID + 1 + MAX_ID_BYTES;
+    private static final int S_NAME = S_REG_NO + 1 + MAX_REG_NO_BYTES;
+    private static final int S_EMAIL = S_NAME + 1 + MAX_NAME_BYTES;
+    private static final int S_CREATED = S_EMAIL + 1 + MAX_EMAIL_BYTES;
+    private static final int S_FIRST_ENROLLMENT = S_CREATED + 4;
+    private static final int S_LAST_ENROLLMENT = S_FIRST_ENROLLMENT + 4;
+    private static final int S_ACTIVE = S_LAST_ENROLLMENT + 4;
+    private static final int STUDENT_BYTES = 256;
+    
+    // Enrollment record
+    public static final int MAX_COURSE_CODE_BYTES = 15;
+    private static final int E_STUDENT = 0;
+    private static final int E_NEXT = 4;
+    private static final int E_COURSE = 8;
+    private static final int E_EPOCH_DAY = E_COURSE + 1 + MAX_COURSE_CODE_BYTES;
+    private static final int E_CREDITS = E_EPOCH_DAY + 4;
+    private static final int E_MARKS = E_CREDITS + 4; // NaN until graded
+    private static final int ENROLLMENT_BYTES = E_MARKS + 8;
+    
+    private final Path directory;
+    private final FileChannel studentFile;
+    private final FileChannel enrollmentFile;
+    private final FileChannel indexFile;
+    private MappedByteBuffer students;
+    private MappedByteBuffer enrollments;
+    private MappedByteBuffer index;
+    private int studentCount;
+    private int studentCapacity;
+    private int enrollmentUsed;
+    private int enrollmentCapacity;
+    private int tableCapacity;
+    private boolean closed;
+    
+    private final Function<String, Course> courseResolver;
+    private final Map<String, Course> placeholderCourses = new HashMap<>();
+    
+    // Most recently used students, strongly held, keyed on record number
+    private final Map<Integer, Student> recentlyUsed;
+    // Every materialized student still reachable from anywhere, keyed on record number
+    private final Map<Integer, StudentReference> materialized = new HashMap<>();
+    private final ReferenceQueue<Student> collected = new ReferenceQueue<>();
+    private long cacheHits;
+    private long cacheMisses;
+    
+    private static final class StudentReference extends WeakReference<Student> {
+        private final int record;
+        
+        StudentReference(Student student, int record, ReferenceQueue<Student> queue) {
+            super(student, queue);
+            this.record = record;
+        }
+    }
+    
+    /**
+     * Open the store in the directory, creating it if it does not exist
+     * @param courseResolver finds a catalog course by code, or returns null
+     * @param cacheCapacity students kept materialized regardless of use elsewhere
+     */
+    public MappedStudentStore(Path directory, Function<String, Course> courseResolver, int cacheCapacity)
+            throws IOException {
+        if (cacheCapacity < 1) {
+            throw new IllegalArgumentException("Cache capacity must be positive: " + cacheCapacity);
+        }
+        this.directory = directory;
+        this.courseResolver = Objects.requireNonNull(courseResolver, "Course resolver cannot be null");
+        this.recentlyUsed = new LinkedHashMap<>(16, 0.75f, true) {
+            @Override
+            protected boolean removeEldestEntry(Map.Entry<Integer, Student> eldest) {
+                return size() > cacheCapacity;
+            }
+        };
+        Files.createDirectories(directory);
+        this.studentFile = open(directory.resolve("students.dat"));
+        this.enrollmentFile = open(directory.resolve("enrollments.dat"));
+        this.indexFile = open(directory.resolve("index.dat"));
+        
+        if (studentFile.size() == 0) {
+            students = map(studentFile, studentFileBytes(INITIAL_STUDENTS));
+            writeHeader(students);
+            students.putInt(H_STUDENT_CAPACITY, INITIAL_STUDENTS);
+        } else {
+            students = map(studentFile, studentFile.size());
+            checkHeader(students, "students.dat");
+        }
+        studentCount = students.getInt(H_STUDENT_COUNT);
+        studentCapacity = students.getInt(H_STUDENT_CAPACITY);
+        
+        if (enrollmentFile.size() == 0) {
+            enrollments = map(enrollmentFile, enrollmentFileBytes(INITIAL_ENROLLMENTS));
+            writeHeader(enrollments);
+            enrollments.putInt(H_ENROLLMENT_CAPACITY, INITIAL_ENROLLMENTS);
+            enrollments.putInt(H_FREE_HEAD, NONE);
+        } else {
+            enrollments = map(enrollmentFile, enrollmentFile.size());
+            checkHeader(enrollments, "enrollments.dat");
+        }
+        enrollmentUsed = enrollments.getInt(H_ENROLLMENT_USED);
+        enrollmentCapacity = enrollments.getInt(H_ENROLLMENT_CAPACITY);
+        
+        if (indexFile.size() == 0) {
+            rebuildIndex(2 * studentCapacity);
+        } else {
+            index = map(indexFile, indexFile.size());
+            checkHeader(index, "index.dat");
+            tableCapacity = index.getInt(H_TABLE_CAPACITY);
+        }
+    }
+    
+    private static FileChannel open(Path file) throws IOException {
+        return FileChannel.open(file, StandardOpenOption.CREATE, StandardOpenOption.READ, StandardOpenOption.WRITE);
+    }
+    
+    private static MappedByteBuffer map(FileChannel file, long bytes) throws IOException {
+        if (bytes > Integer.MAX_VALUE) {
+            throw new IOException("Student directory file would exceed 2 GB");
+        }
+        return file.map(FileChannel.MapMode.READ_WRITE, 0, bytes);
+    }
+    
+    private static void writeHeader(MappedByteBuffer buffer) {
+        buffer.putInt(H_MAGIC, MAGIC);
+        buffer.putInt(H_VERSION, VERSION);
+    }
+    
+    private void checkHeader(MappedByteBuffer buffer, String file) throws IOException {
+        if (buffer.capacity() < HEADER_BYTES || buffer.getInt(H_MAGIC) != MAGIC) {
+            throw new IOException(directory.resolve(file) + " is not a student directory file");
+        }
+        if (buffer.getInt(H_VERSION) != VERSION) {
+            throw new IOException("Unsupported student directory version " + buffer.getInt(H_VERSION)
+                + " in " + directory.resolve(file));
+        }
+    }
+    
+    private static long studentFileBytes(int records) {
+        return HEADER_BYTES + (long) records * STUDENT_BYTES;
+    }
+    
+    private static long enrollmentFileBytes(int records) {
+        return HEADER_BYTES + (long) records * ENROLLMENT_BYTES;
+    }
+    
+    // Lookups
+    
+    @Override
+    public synchronized Student findById(String id) {
+        ensureOpen();
+        int record = find(idTable(), S_ID, encode(id));
+        return record == NONE ? null : studentAt(record);
+    }
+    
+    @Override
+    public synchronized Student findByRegNo(String regNo) {
+        ensureOpen();
+        int record = find(regNoTable(), S_REG_NO, encode(regNo));
+        return record == NONE ? null : studentAt(record);
+    }
+    
+    /**
+     * A list over the students registered so far that materializes each one as it is
+     * read, so walking it holds no more than the cache and what the caller keeps
+     */
+    @Override
+    public synchronized List<Student> getAll() {
+        ensureOpen();
+        return new RecordList(studentCount);
+    }
+    
+    private final class RecordList extends AbstractList<Student> implements RandomAccess {
+        private final int size;
+        
+        RecordList(int size) {
+            this.size = size;
+        }
+        
+        @Override
+        public Student get(int index) {
+            Objects.checkIndex(index, size);
+            synchronized (MappedStudentStore.this) {
+                ensureOpen();
+                return studentAt(index);
+            }
+        }
+        
+        @Override
+        public int size() {
+            return size;
+        }
+    }
+    
+    @Override
+    public synchronized List<Student> getRange(int offset, int limit) {
+        ensureOpen();
+        int from = Math.min(Math.max(0, offset), studentCount);
+        int to = from + Math.min(Math.max(0, limit), studentCount - from);
+        List<Student> range = new ArrayList<>(to - from);
+        for (int record = from; record < to; record++) {
+            range.add(studentAt(record));
+        }
+        return range;
+    }
+    
+    @Override
+    public synchronized int size() {
+        return studentCount;
+    }
+    
+    // Caller holds the monitor
+    private Student studentAt(int record) {
+        Student student = recentlyUsed.get(record);
+        if (student != null) {
+            cacheHits++;
+            return student;
+        }
+        expungeCollected();
+        StudentReference reference = materialized.get(record);
+        student = reference == null ? null : reference.get();
+        if (student != null) {
+            cacheHits++;
+        } else {
+            cacheMisses++;
+            student = materialize(record);
+            materialized.put(record, new StudentReference(student, record, collected));
+        }
+        recentlyUsed.put(record, student);
+        return student;
+    }
+    
+    private void expungeCollected() {
+        for (Object cleared; (cleared = collected.poll()) != null; ) {
+            StudentReference reference = (StudentReference) cleared;
+            materialized.remove(reference.record, reference);
+        }
+    }
+    
+    private Student materialize(int record) {
+        int base = studentOffset(record);
+        Student student = new Student.Builder()
+            .id(readText(students, base + S_ID))
+            .regNo(readText(students, base + S_REG_NO))
+            .fullName(readText(students, base + S_NAME))
+            .email(readText(students, base + S_EMAIL))
+            .createdDate(LocalDate.ofEpochDay(students.getInt(base + S_CREATED)))
+            .build();
+        student.setActive(students.get(base + S_ACTIVE) != 0);
+        for (int e = students.getInt(base + S_FIRST_ENROLLMENT); e != NONE; e = enrollments.getInt(enrollmentOffset(e) + E_NEXT)) {
+            int offset = enrollmentOffset(e);
+            Course course = resolveCourse(readText(enrollments, offset + E_COURSE), enrollments.getInt(offset + E_CREDITS));
+            Enrollment enrollment = new Enrollment(student, course, enrollments.getInt(offset + E_EPOCH_DAY));
+            double marks = enrollments.getDouble(offset + E_MARKS);
+            if (!Double.isNaN(marks)) {
+                enrollment.recordMarks(marks);
+            }
+            student.addEnrollment(enrollment);
+        }
+        return student;
+    }
+    
+    private Course resolveCourse(String code, int credits) {
+        Course course = courseResolver.apply(code);
+        if (course != null) {
+            return course;
+        }
+        return placeholderCourses.computeIfAbsent(code, c -> new Course.Builder()
+            .code(c)
+            .title(c + " (no longer offered)")
+            .credits(credits)
+            .build());
+    }
+    
+    // Checks: the fixed-size text fields bound what a record can hold
+    
+    @Override
+    public void checkStudent(Student student) {
+        encode(student.getId(), MAX_ID_BYTES, "Student ID");
+        encode(student.getRegNo(), MAX_REG_NO_BYTES, "Registration number");
+        checkProfile(student.getFullName(), student.getEmail());
+        for (Enrollment enrollment : student.getEnrollments()) {
+            checkEnrollment(enrollment.getCourse());
+        }
+    }
+    
+    @Override
+    public void checkProfile(String fullName, String email) {
+        encode(fullName, MAX_NAME_BYTES, "Full name");
+        encode(email, MAX_EMAIL_BYTES, "Email");
+    }
+    
+    @Override
+    public void checkEnrollment(Course course) {
+        encode(course.getCode(), MAX_COURSE_CODE_BYTES, "Course code");
+    }
+    
+    // Changes; the encode limits are checked again in case a caller skipped the checks
+    
+    @Override
+    public synchronized void add(Student student) {
+        ensureOpen();
+        byte[] id = encode(student.getId(), MAX_ID_BYTES, "Student ID");
+        byte[] regNo = encode(student.getRegNo(), MAX_REG_NO_BYTES, "Registration number");
+        byte[] name = encode(student.getFullName(), MAX_NAME_BYTES, "Full name");
+        byte[] email = encode(student.getEmail(), MAX_EMAIL_BYTES, "Email");
+        List<Enrollment> existing = student.getEnrollments();
+        for (Enrollment enrollment : existing) {
+            encode(enrollment.getCourse().getCode(), MAX_COURSE_CODE_BYTES, "Course code");
+        }
+        if (find(idTable(), S_ID, id) != NONE) {
+            throw new IllegalArgumentException("Student with ID " + student.getId() + " already exists");
+        }
+        if (find(regNoTable(), S_REG_NO, regNo) != NONE) {
+            throw new IllegalArgumentException(
+                "Student with registration number " + student.getRegNo() + " already exists");
+        }
+        
+        try {
+            if (studentCount == studentCapacity) {
+                growStudents();
+            }
+            int record = studentCount;
+            int base = studentOffset(record);
+            writeText(students, base + S_ID, id);
+            writeText(students, base + S_REG_NO, regNo);
+            writeText(students, base + S_NAME, name);
+            writeText(students, base + S_EMAIL, email);
+            students.putInt(base + S_CREATED, student.getCreatedEpochDay());
+            students.putInt(base + S_FIRST_ENROLLMENT, NONE);
+            students.putInt(base + S_LAST_ENROLLMENT, NONE);
+            students.put(base + S_ACTIVE, (byte) (student.isActive() ? 1 : 0));
+            for (Enrollment enrollment : existing) {
+                appendEnrollment(record, enrollment);
+            }
+            insert(idTable(), hash(id), record);
+            insert(regNoTable(), hash(regNo), record);
+            // The count goes last: a record is not part of the store until it is complete
+            studentCount++;
+            students.putInt(H_STUDENT_COUNT, studentCount);
+            expungeCollected();
+            materialized.put(record, new StudentReference(student, record, collected));
+            recentlyUsed.put(record, student);
+        } catch (IOException e) {
+            throw new UncheckedIOException("Could not grow the student directory", e);
+        }
+    }
+    
+    @Override
+    public synchronized void studentUpdated(Student student) {
+        int base = studentOffset(recordOf(student));
+        byte[] name = encode(student.getFullName(), MAX_NAME_BYTES, "Full name");
+        byte[] email = encode(student.getEmail(), MAX_EMAIL_BYTES, "Email");
+        writeText(students, base + S_NAME, name);
+        writeText(students, base + S_EMAIL, email);
+    }
+    
+    @Override
+    public synchronized void studentDeactivated(Student student) {
+        students.put(studentOffset(recordOf(student)) + S_ACTIVE, (byte) 0);
+    }
+    
+    @Override
+    public synchronized void enrolled(Enrollment enrollment) {
+        int record = recordOf(enrollment.getStudent());
+        encode(enrollment.getCourse().getCode(), MAX_COURSE_CODE_BYTES, "Course code");
+        try {
+            appendEnrollment(record, enrollment);
+        } catch (IOException e) {
+            throw new UncheckedIOException("Could not grow the student directory", e);
+        }
+    }
+    
+    @Override
+    public synchronized void unenrolled(Enrollment enrollment) {
+        int base = studentOffset(recordOf(enrollment.getStudent()));
+        byte[] code = encode(enrollment.getCourse().getCode());
+        int previous = NONE;
+        for (int e = students.getInt(base + S_FIRST_ENROLLMENT); e != NONE; previous = e, e = nextEnrollment(e)) {
+            if (!textEquals(enrollments, enrollmentOffset(e) + E_COURSE, code)) {
+                continue;
+            }
+            int next = nextEnrollment(e);
+            if (previous == NONE) {
+                students.putInt(base + S_FIRST_ENROLLMENT, next);
+            } else {
+                enrollments.putInt(enrollmentOffset(previous) + E_NEXT, next);
+            }
+            if (next == NONE) {
+                students.putInt(base + S_LAST_ENROLLMENT, previous);
+            }
+            enrollments.putInt(enrollmentOffset(e) + E_NEXT, enrollments.getInt(H_FREE_HEAD));
+            enrollments.putInt(H_FREE_HEAD, e);
+            enrollments.putInt(H_ENROLLMENT_COUNT, enrollments.getInt(H_ENROLLMENT_COUNT) - 1);
+            return;
+        }
+    }
+    
+    @Override
+    public synchronized void marksRecorded(Enrollment enrollment, Double previousMarks) {
+        int e = findEnrollment(recordOf(enrollment.getStudent()), encode(enrollment.getCourse().getCode()));
+        if (e != NONE) {
+            enrollments.putDouble(enrollmentOffset(e) + E_MARKS, enrollment.getMarksAsDouble());
+        }
+    }
+    
+    // Caller holds the monitor and has checked the course code's length
+    private void appendEnrollment(int record, Enrollment enrollment) throws IOException {
+        int e = enrollments.getInt(H_FREE_HEAD);
+        if (e != NONE) {
+            enrollments.putInt(H_FREE_HEAD, nextEnrollment(e));
+        } else {
+            if (enrollmentUsed == enrollmentCapacity) {
+                growEnrollments();
+            }
+            e = enrollmentUsed++;
+            enrollments.putInt(H_ENROLLMENT_USED, enrollmentUsed);
+        }
+        int offset = enrollmentOffset(e);
+        enrollments.putInt(offset + E_STUDENT, record);
+        enrollments.putInt(offset + E_NEXT, NONE);
+        writeText(enrollments, offset + E_COURSE, encode(enrollment.getCourse().getCode()));
+        enrollments.putInt(offset + E_EPOCH_DAY, enrollment.getEnrollmentEpochDay());
+        enrollments.putInt(offset + E_CREDITS, enrollment.getCourse().getCredits());
+        enrollments.putDouble(offset + E_MARKS, enrollment.getMarksAsDouble());
+        
+        int base = studentOffset(record);
+        int last = students.getInt(base + S_LAST_ENROLLMENT);
+        if (last == NONE) {
+            students.putInt(base + S_FIRST_ENROLLMENT, e);
+        } else {
+            enrollments.putInt(enrollmentOffset(last) + E_NEXT, e);
+        }
+        students.putInt(base + S_LAST_ENROLLMENT, e);
+        enrollments.putInt(H_ENROLLMENT_COUNT, enrollments.getInt(H_ENROLLMENT_COUNT) + 1);
+    }
+    
+    private int findEnrollment(int record, byte[] code) {
+        for (int e = students.getInt(studentOffset(record) + S_FIRST_ENROLLMENT); e != NONE; e = nextEnrollment(e)) {
+            if (textEquals(enrollments, enrollmentOffset(e) + E_COURSE, code)) {
+                return e;
+            }
+        }
+        return NONE;
+    }
+    
+    private int nextEnrollment(int e) {
+        return enrollments.getInt(enrollmentOffset(e) + E_NEXT);
+    }
+    
+    private int recordOf(Student student) {
+        ensureOpen();
+        int record = find(idTable(), S_ID, encode(student.getId()));
+        if (record == NONE) {
+            throw new IllegalArgumentException("Student " + student.getId() + " is not in " + directory);
+        }
+        return record;
+    }
+    
+    // Growth
+    
+    private void growStudents() throws IOException {
+        int capacity = (int) Math.min(2L * studentCapacity, (Integer.MAX_VALUE - HEADER_BYTES) / STUDENT_BYTES);
+        if (capacity == studentCapacity) {
+            throw new IOException("Student directory is full at " + studentCapacity + " students");
+        }
+        students = map(studentFile, studentFileBytes(capacity));
+        students.putInt(H_STUDENT_CAPACITY, capacity);
+        studentCapacity = capacity;
+        rebuildIndex(2 * capacity);
+    }
+    
+    private void growEnrollments() throws IOException {
+        int capacity = (int) Math.min(2L * enrollmentCapacity, (Integer.MAX_VALUE - HEADER_BYTES) / ENROLLMENT_BYTES);
+        if (capacity == enrollmentCapacity) {
+            throw new IOException("Student directory is full at " + enrollmentCapacity + " enrollments");
+        }
+        enrollments = map(enrollmentFile, enrollmentFileBytes(capacity));
+        enrollments.putInt(H_ENROLLMENT_CAPACITY, capacity);
+        enrollmentCapacity = capacity;
+    }
+    
+    // Index: two tables of record number + 1, zero for an empty slot, probed linearly
+    
+    private int idTable() {
+        return HEADER_BYTES;
+    }
+    
+    private int regNoTable() {
+        return HEADER_BYTES + tableCapacity * 4;
+    }
+    
+    private int find(int table, int field, byte[] key) {
+        int mask = tableCapacity - 1;
+        for (int slot = hash(key) & mask; ; slot = (slot + 1) & mask) {
+            int entry = index.getInt(table + slot * 4);
+            if (entry == 0) {
+                return NONE;
+            }
+            int record = entry - 1;
+            if (record < studentCount && textEquals(students, studentOffset(record) + field, key)) {
+                return record;
+            }
+        }
+    }
+    
+    private void insert(int table, int hash, int record) {
+        int mask = tableCapacity - 1;
+        int slot = hash & mask;
+        while (index.getInt(table + slot * 4) != 0) {
+            slot = (slot + 1) & mask;
+        }
+        index.putInt(table + slot * 4, record + 1);
+    }
+    
+    private void rebuildIndex(int capacity) throws IOException {
+        index = map(indexFile, HEADER_BYTES + 8L * capacity);
+        writeHeader(index);
+        for (int i = HEADER_BYTES; i < index.capacity(); i += 8) {
+            index.putLong(i, 0L);
+        }
+        index.putInt(H_TABLE_CAPACITY, capacity);
+        tableCapacity = capacity;
+        for (int record = 0; record < studentCount; record++) {
+            int base = studentOffset(record);
+            insert(idTable(), hashText(students, base + S_ID), record);
+            insert(regNoTable(), hashText(students, base + S_REG_NO), record);
+        }
+    }
+    
+    private static int hash(byte[] key) {
+        int h = 1;
+        for (byte b : key) {
+            h = 31 * h + b;
+        }
+        return h ^ (h >>> 16);
+    }
+    
+    // Same hash as hash(byte[]) over the bytes of a stored text field
+    private static int hashText(MappedByteBuffer buffer, int offset) {
+        int length = buffer.get(offset) & 0xFF;
+        int h = 1;
+        for (int i = 0; i < length; i++) {
+            h = 31 * h + buffer.get(offset + 1 + i);
+        }
+        return h ^ (h >>> 16);
+    }
+    
+    // Records
+    
+    private static int studentOffset(int record) {
+        return HEADER_BYTES + record * STUDENT_BYTES;
+    }
+    
+    private static int enrollmentOffset(int record) {
+        return HEADER_BYTES + record * ENROLLMENT_BYTES;
+    }
+    
+    private static byte[] encode(String value) {
+        return value.getBytes(StandardCharsets.UTF_8);
+    }
+    
+    private static byte[] encode(String value, int maxBytes, String field) {
+        byte[] bytes = encode(value);
+        if (bytes.length > maxBytes) {
+            throw new IllegalArgumentException(field + " is longer than the student directory allows ("
+                + maxBytes + " bytes): " + value);
+        }
+        return bytes;
+    }
+    
+    private static void writeText(MappedByteBuffer buffer, int offset, byte[] bytes) {
+        buffer.put(offset, (byte) bytes.length);
+        buffer.put(offset + 1, bytes);
+    }
+    
+    private static String readText(MappedByteBuffer buffer, int offset) {
+        byte[] bytes = new byte[buffer.get(offset) & 0xFF];
+        buffer.get(offset + 1, bytes);
+        return new String(bytes, StandardCharsets.UTF_8);
+    }
+    
+    private static boolean textEquals(MappedByteBuffer buffer, int offset, byte[] key) {
+        if ((buffer.get(offset) & 0xFF) != key.length) {
+            return false;
+        }
+        for (int i = 0; i < key.length; i++) {
+            if (buffer.get(offset + 1 + i) != key[i]) {
+                return false;
+            }
+        }
+        return true;
+    }
+    
+    private void ensureOpen() {
+        if (closed) {
+            throw new IllegalStateException("Student directory " + directory + " is closed");
+        }
+    }
+    
+    // Housekeeping
+    
+    public Path getDirectory() { return directory; }
+    
+    public synchronized int getEnrollmentCount() {
+        return enrollments.getInt(H_ENROLLMENT_COUNT);
+    }
+    
+    public synchronized int getCachedCount() {
+        return recentlyUsed.size();
+    }
+    
+    public synchronized long getCacheHits() { return cacheHits; }
+    public synchronized long getCacheMisses() { return cacheMisses; }
+    
+    /**
+     * Bytes mapped across the three files, which is their size on disk
+     */
+    public synchronized long getMappedBytes() {
+        return (long) students.capacity() + enrollments.capacity() + index.capacity();
+    }
+    
+    /**
+     * Force changes made so far out to disk
+     */
+    public synchronized void flush() {
+        ensureOpen();
+        students.force();
+        enrollments.force();
+        index.force();
+    }
+    
+    @Override
+    public synchronized void close() throws IOException {
+        if (closed) {
+            return;
+        }
+        flush();
+        closed = true;
+        recentlyUsed.clear();
+        materialized.clear();
+        // The mappings themselves are released when the buffers are collected
+        studentFile.close();
+        enrollmentFile.close();
+        indexFile.close();
+    }
+}
\ No newline at end of file
@@ -0,0 +1,50 @@
+package edu.ccrm.service;
+
+import java.util.concurrent.ConcurrentLinkedQueue;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.function.Consumer;
+
+/**
+ * Lock-free hand-off of listener updates to a structure that applies them under its own
+ * lock. Writers only enqueue, so they wait neither for each other nor for readers; the
+ * owner applies the backlog before each read. Once the backlog reaches its limit, each
+ * writer is asked to apply it if the owner's lock is free, so it stays bounded without
+ * readers and a writer never waits for one.
+ *
+ * Updates are applied in the order they were added. Updates to one student are added
+ * under that student's lock stripe, so they keep their order.
+ */
+final class PendingUpdates<T> {
+    private final ConcurrentLinkedQueue<T> queue = new ConcurrentLinkedQueue<>();
+    private final AtomicInteger size = new AtomicInteger();
+    private final int limit;
+    
+    PendingUpdates(int limit) {
+        this.limit = limit;
+    }
+    
+    /**
+     * @return true once the backlog is at or past its limit; the caller should then try
+     *         the owner's lock and drain if it gets it
+     */
+    boolean add(T update) {
+        queue.add(update);
+        return size.incrementAndGet() >= limit;
+    }
+    
+    boolean isEmpty() {
+        return size.get() == 0;
+    }
+    
+    /**
+     * Apply every queued update, including those added meanwhile; caller holds the
+     * owner's lock
+     */
+    void drain(Consumer<T> apply) {
+        T update;
+        while ((update = queue.poll()) != null) {
+            size.decrementAndGet();
+            apply.accept(update);
+        }
+    }
+}
\ No newline at end of file
@@ -0,0 +1,218 @@
+package edu.ccrm.service;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.Comparator;
+import java.util.List;
+import java.util.function.Predicate;
+
+/**
+ * Structured search: a conjunction of field conditions, an optional residual predicate,
+ * an optional ordering and a limit. Unlike an opaque Predicate, the conditions can be
+ * inspected, so a service can answer equality conditions from its indexes and stop
+ * early once the limit is reached.
+ */
+public final class Query<T> {
+    private final List<Condition<T>> conditions;
+    private final Predicate<T> filter;
+    private final QueryField<T> orderBy;
+    private final boolean descending;
+    private final int limit;
+    
+    /**
+     * Equality (value set) or inclusive range (min and/or max set) on one field
+     */
+    public static final class Condition<T> {
+        private final QueryField<T> field;
+        private final Object value;
+        private final Object min;
+        private final Object max;
+        
+        private Condition(QueryField<T> field, Object value, Object min, Object max) {
+            this.field = field;
+            this.value = value;
+            this.min = min;
+            this.max = max;
+        }
+        
+        public QueryField<T> getField() { return field; }
+        public boolean isEquality() { return value != null; }
+        public Object getValue() { return value; }
+        
+        boolean matches(T item) {
+            Object actual = field.valueOf(item);
+            if (actual == null) {
+                return false;
+            }
+            if (value != null) {
+                return compare(field, actual, value) == 0;
+            }
+            return (min == null || compare(field, actual, min) >= 0)
+                && (max == null || compare(field, actual, max) <= 0);
+        }
+        
+        @Override
+        public String toString() {
+            if (value != null) {
+                return field.name() + " = " + value;
+            }
+            if (max == null) {
+                return field.name() + " >= " + min;
+            }
+            if (min == null) {
+                return field.name() + " <= " + max;
+            }
+            return field.name() + " in [" + min + ", " + max + "]";
+        }
+    }
+    
+    public static class Builder<T> {
+        private final List<Condition<T>> conditions = new ArrayList<>();
+        private Predicate<T> filter;
+        private QueryField<T> orderBy;
+        private boolean descending;
+        private int limit = Integer.MAX_VALUE;
+        
+        public Builder<T> where(QueryField<T> field, Object value) {
+            conditions.add(new Condition<>(field, requireValue(value), null, null));
+            return this;
+        }
+        
+        public Builder<T> between(QueryField<T> field, Object min, Object max) {
+            conditions.add(new Condition<>(field, null, requireValue(min), requireValue(max)));
+            return this;
+        }
+        
+        public Builder<T> atLeast(QueryField<T> field, Object min) {
+            conditions.add(new Condition<>(field, null, requireValue(min), null));
+            return this;
+        }
+        
+        public Builder<T> atMost(QueryField<T> field, Object max) {
+            conditions.add(new Condition<>(field, null, null, requireValue(max)));
+            return this;
+        }
+        
+        // Residual condition that no index can answer; ANDed with the rest
+        public Builder<T> filter(Predicate<T> filter) {
+            this.filter = this.filter == null ? filter : this.filter.and(filter);
+            return this;
+        }
+        
+        public Builder<T> orderBy(QueryField<T> field) {
+            this.orderBy = field;
+            this.descending = false;
+            return this;
+        }
+        
+        public Builder<T> orderByDescending(QueryField<T> field) {
+            this.orderBy = field;
+            this.descending = true;
+            return this;
+        }
+        
+        public Builder<T> limit(int limit) {
+            if (limit < 0) {
+                throw new IllegalArgumentException("Limit cannot be negative");
+            }
+            this.limit = limit;
+            return this;
+        }
+        
+        public Query<T> build() {
+            return new Query<>(this);
+        }
+        
+        private static Object requireValue(Object value) {
+            if (value == null) {
+                throw new IllegalArgumentException("Query values cannot be null");
+            }
+            return value;
+        }
+    }
+    
+    private Query(Builder<T> builder) {
+        this.conditions = Collections.unmodifiableList(new ArrayList<>(builder.conditions));
+        this.filter = builder.filter;
+        this.orderBy = builder.orderBy;
+        this.descending = builder.descending;
+        this.limit = builder.limit;
+    }
+    
+    public List<Condition<T>> getConditions() { return conditions; }
+    public int getLimit() { return limit; }
+    public boolean isOrdered() { return orderBy != null; }
+    
+    /**
+     * Value of the first equality condition on the field, or null if there is none
+     */
+    public Object getEqualityValue(QueryField<T> field) {
+        for (Condition<T> condition : conditions) {
+            if (condition.field == field && condition.isEquality()) {
+                return condition.value;
+            }
+        }
+        return null;
+    }
+    
+    public boolean matches(T item) {
+        for (Condition<T> condition : conditions) {
+            if (!condition.matches(item)) {
+                return false;
+            }
+        }
+        return filter == null || filter.test(item);
+    }
+    
+    /**
+     * Result ordering, or null if the query is unordered; items with no value sort last
+     */
+    public Comparator<T> getComparator() {
+        if (orderBy == null) {
+            return null;
+        }
+        Comparator<T> ascending = (a, b) -> {
+            Object x = orderBy.valueOf(a);
+            Object y = orderBy.valueOf(b);
+            if (x == null || y == null) {
+                return x == y ? 0 : (x == null ? 1 : -1);
+            }
+            return compare(orderBy, x, y);
+        };
+        return descending ? ascending.reversed() : ascending;
+    }
+    
+    // Numbers compare by value whatever their boxed type; case-insensitive fields ignore case
+    @SuppressWarnings({"unchecked", "rawtypes"})
+    static int compare(QueryField<?> field, Object a, Object b) {
+        if (a instanceof Number && b instanceof Number) {
+            return Double.compare(((Number) a).doubleValue(), ((Number) b).doubleValue());
+        }
+        if (a instanceof String && b instanceof String && field.isCaseInsensitive()) {
+            return ((String) a).compareToIgnoreCase((String) b);
+        }
+        if (a instanceof Comparable && a.getClass() == b.getClass()) {
+            return ((Comparable) a).compareTo(b);
+        }
+        return a.equals(b) ? 0 : String.valueOf(a).compareTo(String.valueOf(b));
+    }
+    
+    @Override
+    public String toString() {
+        StringBuilder text = new StringBuilder();
+        for (Condition<T> condition : conditions) {
+            text.append(text.length() == 0 ? "WHERE " : " AND ").append(condition);
+        }
+        if (filter != null) {
+            text.append(text.length() == 0 ? "WHERE " : " AND ").append("<predicate>");
+        }
+        if (orderBy != null) {
+            text.append(text.length() == 0 ? "" : " ").append("ORDER BY ").append(orderBy.name())
+                .append(descending ? " DESC" : "");
+        }
+        if (limit != Integer.MAX_VALUE) {
+            text.append(text.length() == 0 ? "" : " ").append("LIMIT ").append(limit);
+        }
+        return text.toString();
+    }
+}
\ No newline at end of file
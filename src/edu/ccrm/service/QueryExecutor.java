@@ -0,0 +1,92 @@
+package edu.ccrm.service;
+
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.Comparator;
+import java.util.List;
+import java.util.PriorityQueue;
+
+/**
+ * Runs a Query over the candidate rows chosen by a service's planner.
+ * Every condition is re-checked on each candidate, so a plan only has to return a
+ * superset of the answer. Limits are pushed into the scan: an unordered query stops at
+ * the limit, and an ordered one keeps a bounded heap instead of sorting every match.
+ */
+final class QueryExecutor {
+    /**
+     * Candidate rows for a query and a description of how they were found
+     */
+    static final class Plan<T> {
+        final Collection<T> candidates;
+        final String accessPath;
+        
+        Plan(Collection<T> candidates, String accessPath) {
+            this.candidates = candidates;
+            this.accessPath = accessPath;
+        }
+    }
+    
+    private QueryExecutor() {
+    }
+    
+    static <T> List<T> execute(Query<T> query, Collection<T> candidates) {
+        int limit = query.getLimit();
+        List<T> result = new ArrayList<>();
+        if (limit == 0) {
+            return result;
+        }
+        Comparator<T> order = query.getComparator();
+        if (order == null) {
+            for (T item : candidates) {
+                if (query.matches(item)) {
+                    result.add(item);
+                    if (result.size() == limit) {
+                        break;
+                    }
+                }
+            }
+            return result;
+        }
+        if (limit == Integer.MAX_VALUE) {
+            for (T item : candidates) {
+                if (query.matches(item)) {
+                    result.add(item);
+                }
+            }
+            result.sort(order);
+            return result;
+        }
+        
+        // Min-heap on the requested order: the weakest of the current top rows is at the head
+        PriorityQueue<T> heap = new PriorityQueue<>(limit + 1, order.reversed());
+        for (T item : candidates) {
+            if (!query.matches(item)) {
+                continue;
+            }
+            if (heap.size() < limit) {
+                heap.add(item);
+            } else if (order.compare(item, heap.peek()) < 0) {
+                heap.poll();
+                heap.add(item);
+            }
+        }
+        result.addAll(heap);
+        result.sort(order);
+        return result;
+    }
+    
+    static <T> String explain(Query<T> query, Plan<T> plan) {
+        StringBuilder text = new StringBuilder(plan.accessPath)
+            .append(" (").append(plan.candidates.size()).append(" rows)");
+        if (!query.getConditions().isEmpty()) {
+            text.append(" -> filter ").append(query.getConditions().size()).append(" condition(s)");
+        }
+        if (query.isOrdered()) {
+            text.append(query.getLimit() == Integer.MAX_VALUE ? " -> sort"
+                                                              : " -> top-" + query.getLimit() + " heap");
+        } else if (query.getLimit() != Integer.MAX_VALUE) {
+            text.append(" -> stop after ").append(query.getLimit());
+        }
+        return text.toString();
+    }
+}
\ No newline at end of file
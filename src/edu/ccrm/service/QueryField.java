@@ -0,0 +1,20 @@
+package edu.ccrm.service;
+
+/**
+ * A queryable attribute of T, implemented by the per-entity field enums
+ */
+public interface QueryField<T> {
+    String name();
+    
+    /**
+     * The attribute's value for an item; numbers, strings, booleans and enums are supported
+     */
+    Object valueOf(T item);
+    
+    /**
+     * Whether string equality on this field ignores case, matching its index
+     */
+    default boolean isCaseInsensitive() {
+        return false;
+    }
+}
\ No newline at end of file
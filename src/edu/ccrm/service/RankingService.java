@@ -0,0 +1,344 @@
+package edu.ccrm.service;
+
+import edu.ccrm.domain.Course;
+import edu.ccrm.domain.Enrollment;
+import edu.ccrm.domain.EnrollmentStore;
+import edu.ccrm.domain.Grade;
+import edu.ccrm.domain.Semester;
+import edu.ccrm.domain.Student;
+import edu.ccrm.metrics.MetricsRegistry;
+import edu.ccrm.metrics.OperationMetrics;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Comparator;
+import java.util.HashMap;
+import java.util.Iterator;
+import java.util.List;
+import java.util.Map;
+import java.util.OptionalDouble;
+import java.util.OptionalInt;
+import java.util.PriorityQueue;
+import java.util.TreeSet;
+import java.util.concurrent.locks.ReentrantLock;
+
+/**
+ * GPA rankings over active students with at least one enrollment.
+ * Keeps an ordered leaderboard in step with StudentService changes, answers rank and
+ * percentile queries through a Fenwick tree of GPA buckets, and serves filtered top-K
+ * queries from one scan of the enrollment columns into a bounded heap. When a course's
+ * credits change, only the students on its roster are re-scored.
+ *
+ * Listener callbacks only queue the student whose entry needs refreshing, so writers in
+ * different lock stripes do not serialize on this service; the queue is applied under
+ * the service's lock before each query. A writer that finds the queue at its limit
+ * applies it only if the lock is free, so it never waits behind a query while holding
+ * its stripe.
+ */
+public class RankingService implements StudentListener {
+    // Buckets are 0.01 GPA wide; ties within one are resolved against the leaderboard
+    private static final int GPA_SCALE = 100;
+    private static final int BUCKETS = 10 * GPA_SCALE + 1;
+    private static final int PENDING_LIMIT = 1024;
+    private static final Grade[] GRADES = Grade.values();
+    
+    private static final Comparator<RankedStudent> BY_GPA_DESC =
+        Comparator.comparingDouble(RankedStudent::getGpa).reversed()
+            .thenComparing(r -> r.getStudent().getRegNo());
+    
+    private final StudentService studentService;
+    private final CourseService courseService;
+    private final EnrollmentStore enrollmentStore;
+    private final TreeSet<RankedStudent> leaderboard;
+    private final Map<String, RankedStudent> entriesByRegNo;
+    private final long[] bucketTree; // Fenwick tree, 1-based
+    private final PendingUpdates<Student> pending = new PendingUpdates<>(PENDING_LIMIT);
+    // Guards the leaderboard, the index and the bucket tree
+    private final ReentrantLock lock = new ReentrantLock();
+    private long creditsEpoch;
+    // Credits of each course when the entries were last scored
+    private final Map<String, Integer> scoredCredits = new HashMap<>();
+    private final OperationMetrics leaderboardMetrics = MetricsRegistry.getInstance().operation("report.leaderboard");
+    private final OperationMetrics topKMetrics = MetricsRegistry.getInstance().operation("report.topK");
+    
+    /**
+     * A student's GPA captured when the leaderboard entry was last refreshed
+     */
+    public static final class RankedStudent {
+        private final Student student;
+        private final double gpa;
+        private final int bucket;
+        
+        private RankedStudent(Student student, double gpa) {
+            this.student = student;
+            this.gpa = gpa;
+            this.bucket = bucketOf(gpa);
+        }
+        
+        public Student getStudent() { return student; }
+        public double getGpa() { return gpa; }
+    }
+    
+    public RankingService(StudentService studentService, CourseService courseService,
+                          EnrollmentStore enrollmentStore) {
+        this.studentService = studentService;
+        this.courseService = courseService;
+        this.enrollmentStore = enrollmentStore;
+        this.leaderboard = new TreeSet<>(BY_GPA_DESC);
+        this.entriesByRegNo = new HashMap<>();
+        this.bucketTree = new long[BUCKETS + 1];
+        rebuild();
+    }
+    
+    /**
+     * Top students by cumulative GPA, straight off the leaderboard
+     */
+    public List<RankedStudent> getLeaderboard(int limit) {
+        long start = leaderboardMetrics.start();
+        List<RankedStudent> result;
+        lock.lock();
+        try {
+            ensureCurrent();
+            result = new ArrayList<>(Math.min(limit, leaderboard.size()));
+            Iterator<RankedStudent> it = leaderboard.iterator();
+            while (it.hasNext() && result.size() < limit) {
+                result.add(it.next());
+            }
+        } finally {
+            lock.unlock();
+        }
+        leaderboardMetrics.record(start);
+        return result;
+    }
+    
+    /**
+     * Top-K students by GPA over the courses matching the filters.
+     * With no filters this is a leaderboard read; otherwise one pass over the enrollment
+     * columns totals each student's matching grade points, and a K-sized min-heap keeps
+     * the best.
+     * @param department case-insensitive department filter, or null for all
+     * @param semester semester filter, or null for all
+     */
+    public List<RankedStudent> topK(int k, String department, Semester semester) {
+        if (k <= 0) {
+            return new ArrayList<>();
+        }
+        if (department == null && semester == null) {
+            return getLeaderboard(k);
+        }
+        
+        long start = topKMetrics.start();
+        EnrollmentStore.Columns columns = enrollmentStore.columns();
+        boolean[] courseMatches = new boolean[columns.courses];
+        for (int c = 0; c < columns.courses; c++) {
+            Course course = columns.courseTable[c];
+            courseMatches[c] = (department == null || course.getDepartment().equalsIgnoreCase(department))
+                && (semester == null || course.getSemester() == semester);
+        }
+        
+        boolean[] matched = new boolean[columns.students];
+        double[] points = new double[columns.students];
+        int[] credits = new int[columns.students];
+        for (int row = 0; row < columns.rows; row++) {
+            int c = columns.course[row];
+            int s = columns.student[row];
+            if (s < 0 || s >= matched.length || c >= courseMatches.length || !courseMatches[c]) {
+                continue; // Free row, filled in after the scan began, or not matching
+            }
+            matched[s] = true;
+            int grade = columns.grade[row];
+            if (grade >= 0) {
+                points[s] += GRADES[grade].getPoints() * columns.credits[c];
+                credits[s] += columns.credits[c];
+            }
+        }
+            
+        // Min-heap: the weakest of the current top K sits at the head
+        PriorityQueue<RankedStudent> heap = new PriorityQueue<>(k + 1, BY_GPA_DESC.reversed());
+        for (int s = 0; s < columns.students; s++) {
+            Student student = columns.studentTable[s];
+            if (!matched[s] || student == null || !student.isActive()) {
+                continue;
+            }
+            RankedStudent candidate = new RankedStudent(student, credits[s] == 0 ? 0.0 : points[s] / credits[s]);
+            if (heap.size() < k) {
+                heap.add(candidate);
+            } else if (BY_GPA_DESC.compare(candidate, heap.peek()) < 0) {
+                heap.poll();
+                heap.add(candidate);
+            }
+        }
+        List<RankedStudent> result = new ArrayList<>(heap);
+        result.sort(BY_GPA_DESC);
+        topKMetrics.record(start);
+        return result;
+    }
+    
+    /**
+     * 1-based rank of the student, in leaderboard order; students with the same GPA
+     * share a rank
+     */
+    public OptionalInt getRank(String regNo) {
+        lock.lock();
+        try {
+            ensureCurrent();
+            RankedStudent entry = entriesByRegNo.get(regNo);
+            if (entry == null) {
+                return OptionalInt.empty();
+            }
+            long higher = leaderboard.size() - prefixCount(entry.bucket) + higherInBucket(entry);
+            return OptionalInt.of((int) higher + 1);
+        } finally {
+            lock.unlock();
+        }
+    }
+    
+    /**
+     * Percentage of ranked students whose GPA is at or below this student's
+     */
+    public OptionalDouble getPercentile(String regNo) {
+        lock.lock();
+        try {
+            ensureCurrent();
+            RankedStudent entry = entriesByRegNo.get(regNo);
+            if (entry == null) {
+                return OptionalDouble.empty();
+            }
+            long atOrBelow = prefixCount(entry.bucket) - higherInBucket(entry);
+            return OptionalDouble.of(100.0 * atOrBelow / leaderboard.size());
+        } finally {
+            lock.unlock();
+        }
+    }
+    
+    public int getRankedCount() {
+        lock.lock();
+        try {
+            ensureCurrent();
+            return leaderboard.size();
+        } finally {
+            lock.unlock();
+        }
+    }
+    
+    // StudentListener callbacks queue the student for the next query to refresh
+    @Override
+    public void studentAdded(Student student) {
+        submit(student);
+    }
+    
+    @Override
+    public void studentDeactivated(Student student) {
+        submit(student);
+    }
+    
+    @Override
+    public void enrolled(Enrollment enrollment) {
+        submit(enrollment.getStudent());
+    }
+    
+    @Override
+    public void unenrolled(Enrollment enrollment) {
+        submit(enrollment.getStudent());
+    }
+    
+    @Override
+    public void marksRecorded(Enrollment enrollment, Double previousMarks) {
+        submit(enrollment.getStudent());
+    }
+    
+    /**
+     * Re-score every student
+     */
+    public void rebuild() {
+        lock.lock();
+        try {
+            creditsEpoch = Course.getCreditsEpoch();
+            scoredCredits.clear();
+            courseService.getAllCourses().forEach(c -> scoredCredits.put(c.getCode(), c.getCredits()));
+            leaderboard.clear();
+            entriesByRegNo.clear();
+            Arrays.fill(bucketTree, 0L);
+            studentService.getAllStudents().forEach(this::refresh);
+        } finally {
+            lock.unlock();
+        }
+    }
+    
+    private void submit(Student student) {
+        // A busy lock means a query is running; it or the next one applies the queue
+        if (pending.add(student) && lock.tryLock()) {
+            try {
+                pending.drain(this::refresh);
+            } finally {
+                lock.unlock();
+            }
+        }
+    }
+    
+    // Caller holds the lock
+    private void ensureCurrent() {
+        long epoch = Course.getCreditsEpoch();
+        if (creditsEpoch != epoch) {
+            // Read before the catalog, so a change made during the pass is seen next time
+            creditsEpoch = epoch;
+            for (Course course : courseService.getAllCourses()) {
+                Integer scored = scoredCredits.put(course.getCode(), course.getCredits());
+                if (scored == null || scored != course.getCredits()) {
+                    courseService.getEnrolledStudents(course.getCode()).forEach(this::refresh);
+                }
+            }
+        }
+        pending.drain(this::refresh);
+    }
+    
+    // Re-reads the student, so refreshing twice or out of order gives the same entry
+    private void refresh(Student student) {
+        RankedStudent previous = entriesByRegNo.remove(student.getRegNo());
+        if (previous != null) {
+            leaderboard.remove(previous);
+            updateBucket(previous.bucket, -1);
+        }
+        if (student.isActive() && student.getTotalCreditsAttempted() > 0) {
+            RankedStudent entry = new RankedStudent(student, student.calculateGPA());
+            entriesByRegNo.put(student.getRegNo(), entry);
+            leaderboard.add(entry);
+            updateBucket(entry.bucket, 1);
+        }
+    }
+    
+    // Entries sharing the student's bucket with a strictly higher GPA; they sit just before
+    // it on the leaderboard, and a bucket holds few students
+    private long higherInBucket(RankedStudent entry) {
+        long higher = 0;
+        for (RankedStudent other : leaderboard.headSet(entry, false).descendingSet()) {
+            if (other.bucket != entry.bucket) {
+                break;
+            }
+            if (other.gpa > entry.gpa) {
+                higher++;
+            }
+        }
+        return higher;
+    }
+    
+    private static int bucketOf(double gpa) {
+        int bucket = (int) Math.round(gpa * GPA_SCALE);
+        return Math.max(0, Math.min(BUCKETS - 1, bucket));
+    }
+    
+    private void updateBucket(int bucket, long delta) {
+        for (int i = bucket + 1; i <= BUCKETS; i += i & -i) {
+            bucketTree[i] += delta;
+        }
+    }
+    
+    // Number of ranked students in buckets 0..bucket inclusive
+    private long prefixCount(int bucket) {
+        long count = 0;
+        for (int i = bucket + 1; i > 0; i -= i & -i) {
+            count += bucketTree[i];
+        }
+        return count;
+    }
+}
\ No newline at end of file
@@ -0,0 +1,257 @@
+package edu.ccrm.service;
+
+import edu.ccrm.domain.Course;
+import edu.ccrm.domain.EnrollmentStore;
+import edu.ccrm.domain.Grade;
+import edu.ccrm.domain.Student;
+import edu.ccrm.metrics.MetricsRegistry;
+import edu.ccrm.metrics.OperationMetrics;
+
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.RecursiveTask;
+
+/**
+ * Computes the end-of-term aggregates (GPA histogram, per-course enrollment counts,
+ * per-course grade distribution and enrolled credits per department) in a single
+ * fork/join pass over the enrollment columns, accumulating into primitive arrays.
+ * The scan takes no lock, so changes made while it runs may or may not be counted.
+ */
+public class ReportEngine {
+    // Rows (and students) per leaf task; below this splitting costs more than it saves
+    private static final int LEAF_SIZE = 8192;
+    private static final Grade[] GRADES = Grade.values();
+    
+    public enum GpaBand {
+        A_PLUS("A+ (9.0-10.0)", 9.0),
+        A("A (8.0-8.9)", 8.0),
+        B("B (7.0-7.9)", 7.0),
+        C("C (6.0-6.9)", 6.0),
+        D("D (5.0-5.9)", 5.0),
+        F("F (Below 5.0)", Double.NEGATIVE_INFINITY);
+        
+        private final String label;
+        private final double minGpa;
+        
+        GpaBand(String label, double minGpa) {
+            this.label = label;
+            this.minGpa = minGpa;
+        }
+        
+        public String getLabel() { return label; }
+        
+        public static GpaBand of(double gpa) {
+            for (GpaBand band : values()) {
+                if (gpa >= band.minGpa) {
+                    return band;
+                }
+            }
+            return F;
+        }
+    }
+    
+    private final EnrollmentStore enrollmentStore;
+    private final CourseService courseService;
+    private final ForkJoinPool pool;
+    private final OperationMetrics generateMetrics;
+    
+    public ReportEngine(EnrollmentStore enrollmentStore, CourseService courseService) {
+        this(enrollmentStore, courseService, ForkJoinPool.commonPool());
+    }
+    
+    public ReportEngine(EnrollmentStore enrollmentStore, CourseService courseService, ForkJoinPool pool) {
+        this.enrollmentStore = enrollmentStore;
+        this.courseService = courseService;
+        this.pool = pool;
+        this.generateMetrics = MetricsRegistry.getInstance().operation("report.term");
+    }
+    
+    /**
+     * Run one parallel scan over the enrollment columns and return every aggregate.
+     * The GPA histogram covers active students only; enrollment, grade and credit
+     * figures cover all students.
+     */
+    public TermReport generate() {
+        long start = generateMetrics.start();
+        List<Course> courses = courseService.getAllCourses();
+        Map<String, Integer> courseIndex = new HashMap<>();
+        Map<String, Integer> departmentIndex = new LinkedHashMap<>();
+        int[] departmentOfCourse = new int[courses.size()];
+        for (int i = 0; i < courses.size(); i++) {
+            Course course = courses.get(i);
+            courseIndex.put(course.getCode(), i);
+            departmentOfCourse[i] = departmentIndex.computeIfAbsent(
+                course.getDepartment(), d -> departmentIndex.size());
+        }
+        
+        EnrollmentStore.Columns columns = enrollmentStore.columns();
+        // Store course number to catalog position; -1 for courses not in the catalog
+        int[] catalogCourse = new int[columns.courses];
+        for (int c = 0; c < columns.courses; c++) {
+            catalogCourse[c] = courseIndex.getOrDefault(columns.courseTable[c].getCode(), -1);
+        }
+        Accumulator totals = pool.invoke(new ScanTask(columns, 0, columns.rows, 0, columns.students, catalogCourse,
+                                                      departmentOfCourse, courses.size(), departmentIndex.size()));
+        TermReport report = new TermReport(courses, courseIndex, new ArrayList<>(departmentIndex.keySet()), totals);
+        generateMetrics.record(start);
+        return report;
+    }
+    
+    private static final class Accumulator {
+        final long[] gpaBands = new long[GpaBand.values().length];
+        final long[] enrollments;
+        final long[][] grades;
+        final long[] departmentCredits;
+        
+        Accumulator(int courseCount, int departmentCount) {
+            this.enrollments = new long[courseCount];
+            this.grades = new long[courseCount][GRADES.length];
+            this.departmentCredits = new long[departmentCount];
+        }
+        
+        void merge(Accumulator other) {
+            for (int i = 0; i < gpaBands.length; i++) {
+                gpaBands[i] += other.gpaBands[i];
+            }
+            for (int c = 0; c < enrollments.length; c++) {
+                enrollments[c] += other.enrollments[c];
+                for (int g = 0; g < GRADES.length; g++) {
+                    grades[c][g] += other.grades[c][g];
+                }
+            }
+            for (int d = 0; d < departmentCredits.length; d++) {
+                departmentCredits[d] += other.departmentCredits[d];
+            }
+        }
+    }
+    
+    /**
+     * Scans a range of enrollment rows for the course figures and a range of students
+     * for the GPA histogram; both ranges are halved together when splitting
+     */
+    private static final class ScanTask extends RecursiveTask<Accumulator> {
+        private static final long serialVersionUID = 1L;
+        
+        private final EnrollmentStore.Columns columns;
+        private final int rowFrom;
+        private final int rowTo;
+        private final int studentFrom;
+        private final int studentTo;
+        private final int[] catalogCourse;
+        private final int[] departmentOfCourse;
+        private final int courseCount;
+        private final int departmentCount;
+        
+        ScanTask(EnrollmentStore.Columns columns, int rowFrom, int rowTo, int studentFrom, int studentTo,
+                 int[] catalogCourse, int[] departmentOfCourse, int courseCount, int departmentCount) {
+            this.columns = columns;
+            this.rowFrom = rowFrom;
+            this.rowTo = rowTo;
+            this.studentFrom = studentFrom;
+            this.studentTo = studentTo;
+            this.catalogCourse = catalogCourse;
+            this.departmentOfCourse = departmentOfCourse;
+            this.courseCount = courseCount;
+            this.departmentCount = departmentCount;
+        }
+        
+        @Override
+        protected Accumulator compute() {
+            if (rowTo - rowFrom <= LEAF_SIZE && studentTo - studentFrom <= LEAF_SIZE) {
+                return scan();
+            }
+            int rowMid = (rowFrom + rowTo) >>> 1;
+            int studentMid = (studentFrom + studentTo) >>> 1;
+            ScanTask left = new ScanTask(columns, rowFrom, rowMid, studentFrom, studentMid,
+                                         catalogCourse, departmentOfCourse, courseCount, departmentCount);
+            ScanTask right = new ScanTask(columns, rowMid, rowTo, studentMid, studentTo,
+                                          catalogCourse, departmentOfCourse, courseCount, departmentCount);
+            left.fork();
+            Accumulator result = right.compute();
+            result.merge(left.join());
+            return result;
+        }
+        
+        private Accumulator scan() {
+            Accumulator acc = new Accumulator(courseCount, departmentCount);
+            int[] rowStudent = columns.student;
+            int[] rowCourse = columns.course;
+            byte[] rowGrade = columns.grade;
+            int[] credits = columns.credits;
+            for (int row = rowFrom; row < rowTo; row++) {
+                int course = rowCourse[row];
+                if (rowStudent[row] < 0 || course >= catalogCourse.length) {
+                    continue; // Free row, or filled in after the scan began
+                }
+                int c = catalogCourse[course];
+                if (c < 0) {
+                    continue; // Course is not in the catalog
+                }
+                acc.enrollments[c]++;
+                acc.departmentCredits[departmentOfCourse[c]] += credits[course];
+                if (rowGrade[row] >= 0) {
+                    acc.grades[c][rowGrade[row]]++;
+                }
+            }
+            for (int s = studentFrom; s < studentTo; s++) {
+                Student student = columns.studentTable[s];
+                if (student != null && student.isActive()) {
+                    acc.gpaBands[GpaBand.of(columns.gpa(s)).ordinal()]++;
+                }
+            }
+            return acc;
+        }
+    }
+    
+    /**
+     * Immutable result of one report scan
+     */
+    public static final class TermReport {
+        private final List<Course> courses;
+        private final Map<String, Integer> courseIndex;
+        private final List<String> departments;
+        private final Accumulator totals;
+        
+        private TermReport(List<Course> courses, Map<String, Integer> courseIndex,
+                           List<String> departments, Accumulator totals) {
+            this.courses = courses;
+            this.courseIndex = courseIndex;
+            this.departments = departments;
+            this.totals = totals;
+        }
+        
+        public long getStudentsInBand(GpaBand band) {
+            return totals.gpaBands[band.ordinal()];
+        }
+        
+        /**
+         * Course code to enrollment count, for courses with at least one enrollment
+         */
+        public Map<String, Long> getEnrollmentCounts() {
+            Map<String, Long> counts = new LinkedHashMap<>();
+            for (int c = 0; c < courses.size(); c++) {
+                if (totals.enrollments[c] > 0) {
+                    counts.put(courses.get(c).getCode(), totals.enrollments[c]);
+                }
+            }
+            return counts;
+        }
+        
+        public long getGradeCount(String courseCode, Grade grade) {
+            Integer c = courseIndex.get(courseCode);
+            return c == null ? 0 : totals.grades[c][grade.ordinal()];
+        }
+        
+        public Map<String, Long> getCreditsByDepartment() {
+            Map<String, Long> credits = new LinkedHashMap<>();
+            for (int d = 0; d < departments.size(); d++) {
+                credits.put(departments.get(d), totals.departmentCredits[d]);
+            }
+            return credits;
+        }
+    }
+}
\ No newline at end of file
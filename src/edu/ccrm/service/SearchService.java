@@ -0,0 +1,58 @@
+package edu.ccrm.service;
+
+import edu.ccrm.domain.Course;
+import edu.ccrm.domain.Student;
+
+import java.util.List;
+
+/**
+ * Ranked substring search over student names and emails and course titles and codes.
+ * Registered as a listener on both services, it re-indexes a record whenever it is
+ * added or updated.
+ */
+public class SearchService implements StudentListener, CourseListener {
+    private final TextIndex<Student> studentIndex;
+    private final TextIndex<Course> courseIndex;
+    
+    public SearchService(StudentService studentService, CourseService courseService) {
+        this.studentIndex = new TextIndex<>(s -> new String[] {s.getFullName(), s.getEmail()});
+        this.courseIndex = new TextIndex<>(c -> new String[] {c.getTitle(), c.getCode()});
+        studentService.getAllStudents().forEach(studentIndex::put);
+        courseService.getAllCourses().forEach(courseIndex::put);
+    }
+    
+    /**
+     * Students whose name or email contains the query, case-insensitively, best match first
+     */
+    public List<Student> searchStudents(String query, int limit) {
+        return studentIndex.search(query, limit);
+    }
+    
+    /**
+     * Courses whose title or code contains the query, case-insensitively, best match first
+     */
+    public List<Course> searchCourses(String query, int limit) {
+        return courseIndex.search(query, limit);
+    }
+    
+    // Listener callbacks keep both indexes current
+    @Override
+    public void studentAdded(Student student) {
+        studentIndex.put(student);
+    }
+    
+    @Override
+    public void studentUpdated(Student student) {
+        studentIndex.put(student);
+    }
+    
+    @Override
+    public void courseAdded(Course course) {
+        courseIndex.put(course);
+    }
+    
+    @Override
+    public void courseUpdated(Course course) {
+        courseIndex.put(course);
+    }
+}
\ No newline at end of file
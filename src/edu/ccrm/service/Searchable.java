@@ -6,4 +6,19 @@ import java.util.function.Predicate;
 public interface Searchable<T> {
     List<T> search(Predicate<T> predicate);
     T findById(String id);
+    
+    /**
+     * Structured search. The default runs the query over a Predicate scan; services
+     * override it to answer equality conditions from their indexes.
+     */
+    default List<T> search(Query<T> query) {
+        return QueryExecutor.execute(query, search(query::matches));
+    }
+    
+    /**
+     * One-line description of how search(Query) would evaluate the query
+     */
+    default String explain(Query<T> query) {
+        return "predicate scan -> " + query;
+    }
 }
\ No newline at end of file
@@ -0,0 +1,28 @@
+package edu.ccrm.service;
+
+import edu.ccrm.domain.Student;
+
+import java.util.function.Function;
+
+public enum StudentField implements QueryField<Student> {
+    ID(Student::getId),
+    REG_NO(Student::getRegNo),
+    NAME(Student::getFullName),
+    EMAIL(Student::getEmail),
+    ACTIVE(Student::isActive),
+    GPA(Student::calculateGPA),
+    CREDITS_ATTEMPTED(Student::getTotalCreditsAttempted),
+    CREDITS_EARNED(Student::getTotalCreditsEarned),
+    ENROLLMENTS(Student::getEnrollmentCount);
+    
+    private final Function<Student, Object> extractor;
+    
+    StudentField(Function<Student, Object> extractor) {
+        this.extractor = extractor;
+    }
+    
+    @Override
+    public Object valueOf(Student student) {
+        return extractor.apply(student);
+    }
+}
\ No newline at end of file
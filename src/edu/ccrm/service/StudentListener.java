@@ -0,0 +1,25 @@
+package edu.ccrm.service;
+
+import edu.ccrm.domain.Enrollment;
+import edu.ccrm.domain.Student;
+
+/**
+ * Callback for components that keep derived state (rankings, indexes, caches) in step
+ * with changes made through StudentService. All methods default to no-ops.
+ */
+public interface StudentListener {
+    default void studentAdded(Student student) {}
+    
+    default void studentUpdated(Student student) {}
+    
+    default void studentDeactivated(Student student) {}
+    
+    default void enrolled(Enrollment enrollment) {}
+    
+    default void unenrolled(Enrollment enrollment) {}
+    
+    /**
+     * @param previousMarks marks before this change, or null if the enrollment was ungraded
+     */
+    default void marksRecorded(Enrollment enrollment, Double previousMarks) {}
+}
\ No newline at end of file
@@ -5,111 +5,532 @@ import edu.ccrm.domain.Course;
 import edu.ccrm.domain.Enrollment;
 import edu.ccrm.exception.DuplicateEnrollmentException;
 import edu.ccrm.exception.MaxCreditLimitExceededException;
+import edu.ccrm.metrics.MetricsRegistry;
+import edu.ccrm.metrics.OperationMetrics;
 
+import java.io.Closeable;
+import java.io.IOException;
 import java.util.ArrayList;
 import java.util.List;
-import java.util.Optional;
+import java.util.Objects;
+import java.util.concurrent.CopyOnWriteArrayList;
+import java.util.concurrent.locks.ReentrantLock;
 import java.util.function.Predicate;
 import java.util.stream.Collectors;
+import java.util.stream.Stream;
 
-public class StudentService implements Searchable<Student> {
-    private List<Student> students;
+/**
+ * Student operations, safe for concurrent readers and writers.
+ * Students are kept in a StudentStore: by default a HeapStudentStore, whose lookups are
+ * lock-free reads of concurrent maps. Changes to one student (enrollments, marks,
+ * profile) hold that student's lock stripe, so the checks and the change are atomic and
+ * the store and listeners see each student's changes in order, while changes to students
+ * on other stripes proceed in parallel.
+ *
+ * With a ChangeLog attached, each change is appended to it under the stripe before it
+ * is applied, and the caller waits for the change to be durable after the stripe is
+ * released.
+ */
+public class StudentService implements Searchable<Student>, Closeable {
     private static final int MAX_CREDITS_PER_SEMESTER = 18;
+    private static final int LOCK_STRIPES = 64; // Power of two
+    
+    private final StudentStore store;
+    private final ReentrantLock[] studentLocks;
+    private final List<StudentListener> listeners;
+    private volatile ChangeLog changeLog = ChangeLog.NONE;
+    
+    // Per-operation call counts and latencies
+    private final OperationMetrics addMetrics;
+    private final OperationMetrics updateMetrics;
+    private final OperationMetrics enrollMetrics;
+    private final OperationMetrics enrollAllMetrics;
+    private final OperationMetrics unenrollMetrics;
+    private final OperationMetrics marksMetrics;
+    private final OperationMetrics findMetrics;
+    private final OperationMetrics searchMetrics;
     
     public StudentService() {
-        this.students = new ArrayList<>();
+        this(new HeapStudentStore(), "student");
+    }
+    
+    /**
+     * @param metricsArea prefix for this service's operation metrics, so services over
+     *        different stores are reported apart
+     */
+    public StudentService(StudentStore store, String metricsArea) {
+        this.store = store;
+        this.studentLocks = new ReentrantLock[LOCK_STRIPES];
+        for (int i = 0; i < LOCK_STRIPES; i++) {
+            studentLocks[i] = new ReentrantLock();
+        }
+        this.listeners = new CopyOnWriteArrayList<>();
+        MetricsRegistry metrics = MetricsRegistry.getInstance();
+        this.addMetrics = metrics.operation(metricsArea + ".add");
+        this.updateMetrics = metrics.operation(metricsArea + ".update");
+        this.enrollMetrics = metrics.operation(metricsArea + ".enroll");
+        this.enrollAllMetrics = metrics.operation(metricsArea + ".enrollBatch");
+        this.unenrollMetrics = metrics.operation(metricsArea + ".unenroll");
+        this.marksMetrics = metrics.operation(metricsArea + ".recordMarks");
+        this.findMetrics = metrics.operation(metricsArea + ".lookup");
+        this.searchMetrics = metrics.operation(metricsArea + ".search");
+    }
+    
+    public void addListener(StudentListener listener) {
+        listeners.add(listener);
+    }
+    
+    public void removeListener(StudentListener listener) {
+        listeners.remove(listener);
     }
     
+    /**
+     * @param changeLog log to append every change to before it is applied, or null for none
+     */
+    public void setChangeLog(ChangeLog changeLog) {
+        this.changeLog = changeLog == null ? ChangeLog.NONE : changeLog;
+    }
+    
+    /**
+     * Run the action while no student is being changed. Every lock stripe is held, so a
+     * change that has been logged has also been applied, and new changes wait until the
+     * action returns; keep it brief.
+     */
+    public void runExclusive(Runnable action) {
+        for (ReentrantLock lock : studentLocks) {
+            lock.lock();
+        }
+        try {
+            action.run();
+        } finally {
+            for (int i = LOCK_STRIPES - 1; i >= 0; i--) {
+                studentLocks[i].unlock();
+            }
+        }
+    }
+    
+    /**
+     * Adds a student to both indexes.
+     * @throws IllegalArgumentException if the id or regNo is already taken
+     */
     public void addStudent(Student student) {
-        students.add(student);
+        // Holding the stripe until listeners are done keeps a concurrent enrollment's
+        // event from overtaking this one. The regNo's stripe is held too, so two
+        // registrations of one regNo are serialized and the check below stays true
+        // until the student is stored.
+        long start = addMetrics.start();
+        boolean added = false;
+        try {
+            ChangeLog log = changeLog;
+            int idStripe = stripeOf(student.getId());
+            int regNoStripe = stripeOf(student.getRegNo());
+            ReentrantLock first = studentLocks[Math.min(idStripe, regNoStripe)];
+            ReentrantLock second = studentLocks[Math.max(idStripe, regNoStripe)];
+            long ticket;
+            first.lock();
+            second.lock();
+            try {
+                if (store.findById(student.getId()) != null) {
+                    throw new IllegalArgumentException("Student with ID " + student.getId() + " already exists");
+                }
+                if (store.findByRegNo(student.getRegNo()) != null) {
+                    throw new IllegalArgumentException(
+                        "Student with registration number " + student.getRegNo() + " already exists");
+                }
+                store.checkStudent(student);
+                ticket = log.addStudent(student);
+                store.add(student);
+                listeners.forEach(l -> l.studentAdded(student));
+            } finally {
+                second.unlock();
+                first.unlock();
+            }
+            log.awaitDurable(ticket);
+            added = true;
+        } finally {
+            addMetrics.record(start, added);
+        }
     }
     
+    /**
+     * Add a copy of a student held by another service, such as a graduate moving to the
+     * alumni directory: same profile, status and enrollments, marks included. The
+     * enrollments are restored as they stand, without the credit limit: they were
+     * accepted when made, and the limit applies per semester, not to a whole record.
+     * @throws IllegalArgumentException if the id or regNo is already taken
+     */
+    public BulkEnrollmentResult addCopy(Student original) {
+        Student copy = new Student.Builder()
+            .id(original.getId())
+            .regNo(original.getRegNo())
+            .fullName(original.getFullName())
+            .email(original.getEmail())
+            .createdDate(original.getCreatedDate())
+            .build();
+        copy.setActive(original.isActive());
+        addStudent(copy);
+        List<Enrollment> enrollments = new ArrayList<>();
+        for (Enrollment enrollment : original.getEnrollments()) {
+            Enrollment copied = new Enrollment(copy, enrollment.getCourse(), enrollment.getEnrollmentEpochDay());
+            if (enrollment.isGraded()) {
+                copied.recordMarks(enrollment.getMarksAsDouble());
+            }
+            enrollments.add(copied);
+        }
+        return restoreEnrollments(enrollments);
+    }
+    
+    /**
+     * @throws IllegalArgumentException if the store cannot hold the new name or email
+     */
     public boolean updateStudent(String id, String fullName, String email) {
-        Optional<Student> studentOpt = students.stream()
-            .filter(s -> s.getId().equals(id))
-            .findFirst();
-            
-        if (studentOpt.isPresent()) {
-            Student student = studentOpt.get();
-            student.setFullName(fullName);
-            student.setEmail(email);
-            return true;
+        Objects.requireNonNull(fullName, "Full name cannot be null");
+        Objects.requireNonNull(email, "Email cannot be null");
+        Student student = store.findById(id);
+        if (student == null) {
+            return false;
+        }
+        store.checkProfile(fullName, email);
+        long start = updateMetrics.start();
+        try {
+            ChangeLog log = changeLog;
+            long ticket;
+            ReentrantLock lock = lockFor(student);
+            lock.lock();
+            try {
+                ticket = log.updateStudent(student, fullName, email);
+                student.setFullName(fullName);
+                student.setEmail(email);
+                store.studentUpdated(student);
+                listeners.forEach(l -> l.studentUpdated(student));
+            } finally {
+                lock.unlock();
+            }
+            log.awaitDurable(ticket);
+        } finally {
+            updateMetrics.record(start);
         }
-        return false;
+        return true;
     }
     
     public boolean deactivateStudent(String id) {
-        return students.stream()
-            .filter(s -> s.getId().equals(id))
-            .findFirst()
-            .map(s -> {
-                s.setActive(false);
-                return true;
-            })
-            .orElse(false);
+        Student student = store.findById(id);
+        if (student == null) {
+            return false;
+        }
+        long start = updateMetrics.start();
+        try {
+            ChangeLog log = changeLog;
+            long ticket;
+            ReentrantLock lock = lockFor(student);
+            lock.lock();
+            try {
+                ticket = log.deactivateStudent(student);
+                student.setActive(false);
+                store.studentDeactivated(student);
+                listeners.forEach(l -> l.studentDeactivated(student));
+            } finally {
+                lock.unlock();
+            }
+            log.awaitDurable(ticket);
+        } finally {
+            updateMetrics.record(start);
+        }
+        return true;
     }
     
+    /**
+     * Enrolls the student; the duplicate and credit-limit checks and the add are atomic
+     * with respect to other changes to the same student.
+     * @throws IllegalArgumentException if the store cannot hold an enrollment in the course
+     */
     public void enrollInCourse(Student student, Course course) 
             throws DuplicateEnrollmentException, MaxCreditLimitExceededException {
+        long start = enrollMetrics.start();
+        boolean enrolled = false;
+        try {
+            ChangeLog log = changeLog;
+            long ticket;
+            ReentrantLock lock = lockFor(student);
+            lock.lock();
+            try {
+                checkEnrollment(student, course, true);
+        
+                Enrollment enrollment = new Enrollment(student, course);
+                ticket = log.enroll(enrollment);
+                student.addEnrollment(enrollment);
+                store.enrolled(enrollment);
+                listeners.forEach(l -> l.enrolled(enrollment));
+            } finally {
+                lock.unlock();
+            }
+            log.awaitDurable(ticket);
+            enrolled = true;
+        } finally {
+            enrollMetrics.record(start, enrolled);
+        }
+    }
+    
+    /**
+     * Attach a batch of already-built enrollments (for example imported from a file),
+     * applying the same duplicate and credit-limit rules as enrollInCourse.
+     * Enrollments may already carry marks. Rejected rows, including any the store cannot
+     * hold, are counted, not thrown. If the change log fails, the batch stops there and
+     * counts that row and the rest as failed.
+     * The batch waits once, at the end, for all of its applied changes to be durable.
+     */
+    public BulkEnrollmentResult enrollAll(List<Enrollment> enrollments) {
+        return enrollAll(enrollments, true);
+    }
+    
+    /**
+     * Attach enrollments exactly as they were saved, from a snapshot or the journal.
+     * Duplicates are rejected as in enrollAll, but the credit limit is not applied: the
+     * enrollments were accepted when they were made, and a course's credits may have
+     * been raised since.
+     */
+    public BulkEnrollmentResult restoreEnrollments(List<Enrollment> enrollments) {
+        return enrollAll(enrollments, false);
+    }
+    
+    private BulkEnrollmentResult enrollAll(List<Enrollment> enrollments, boolean creditLimit) {
+        long start = enrollAllMetrics.start();
+        BulkEnrollmentResult result = new BulkEnrollmentResult();
+        ChangeLog log = changeLog;
+        long ticket = ChangeLog.NO_TICKET;
+        for (int i = 0; i < enrollments.size(); i++) {
+            Enrollment enrollment = enrollments.get(i);
+            Student student = enrollment.getStudent();
+            ReentrantLock lock = lockFor(student);
+            lock.lock();
+            try {
+                checkEnrollment(student, enrollment.getCourse(), creditLimit);
+                try {
+                    ticket = log.enroll(enrollment);
+                } catch (RuntimeException e) {
+                    // The log cannot take more changes; this row and the rest are not applied
+                    result.recordFailed(enrollments.size() - i, "Change log append failed: " + e.getMessage());
+                    break;
+                }
+                student.addEnrollment(enrollment);
+                store.enrolled(enrollment);
+                listeners.forEach(l -> l.enrolled(enrollment));
+                result.recordAccepted();
+            } catch (DuplicateEnrollmentException e) {
+                result.recordDuplicate(e.getMessage());
+            } catch (MaxCreditLimitExceededException e) {
+                result.recordOverCreditLimit(e.getMessage());
+            } catch (IllegalArgumentException e) {
+                result.recordInvalid(e.getMessage());
+            } finally {
+                lock.unlock();
+            }
+        }
+        try {
+            log.awaitDurable(ticket);
+        } finally {
+            enrollAllMetrics.record(start, result.getRejected() == 0);
+        }
+        return result;
+    }
+    
+    // Caller holds the student's lock stripe
+    private void checkEnrollment(Student student, Course course, boolean creditLimit) 
+            throws DuplicateEnrollmentException, MaxCreditLimitExceededException {
+        store.checkEnrollment(course);
         
         // Check for duplicate enrollment
-        boolean alreadyEnrolled = student.getEnrollments().stream()
-            .anyMatch(e -> e.getCourse().getCode().equals(course.getCode()));
-            
-        if (alreadyEnrolled) {
+        if (student.isEnrolledIn(course.getCode())) {
             throw new DuplicateEnrollmentException(
                 "Student " + student.getRegNo() + " is already enrolled in course " + course.getCode());
         }
         
+        if (!creditLimit) {
+            return;
+        }
+        
         // Check credit limit
-        int currentCredits = student.getEnrollments().stream()
-            .mapToInt(e -> e.getCourse().getCredits())
-            .sum();
-            
+        int currentCredits = student.getTotalCreditsAttempted();
         if (currentCredits + course.getCredits() > MAX_CREDITS_PER_SEMESTER) {
             throw new MaxCreditLimitExceededException(
                 "Credit limit exceeded. Current: " + currentCredits + ", Attempting: " + 
                 course.getCredits() + ", Max: " + MAX_CREDITS_PER_SEMESTER);
         }
-        
-        Enrollment enrollment = new Enrollment(student, course);
-        student.addEnrollment(enrollment);
     }
     
     public boolean unenrollFromCourse(Student student, String courseCode) {
-        return student.removeEnrollment(courseCode);
+        long start = unenrollMetrics.start();
+        boolean removed = false;
+        try {
+            ChangeLog log = changeLog;
+            long ticket;
+            ReentrantLock lock = lockFor(student);
+            lock.lock();
+            try {
+                Enrollment enrollment = student.getEnrollment(courseCode);
+                if (enrollment == null) {
+                    return false;
+                }
+                ticket = log.unenroll(enrollment);
+                student.removeEnrollment(courseCode);
+                store.unenrolled(enrollment);
+                listeners.forEach(l -> l.unenrolled(enrollment));
+            } finally {
+                lock.unlock();
+            }
+            log.awaitDurable(ticket);
+            removed = true;
+            return true;
+        } finally {
+            unenrollMetrics.record(start, removed);
+        }
+    }
+    
+    /**
+     * Records marks for one of the student's enrollments and notifies listeners.
+     * @return the graded enrollment, or null if the student is not enrolled in the course
+     */
+    public Enrollment recordMarks(Student student, String courseCode, double marks) {
+        if (Double.isNaN(marks)) {
+            throw new IllegalArgumentException("Marks must be a number");
+        }
+        long start = marksMetrics.start();
+        boolean recorded = false;
+        try {
+            ChangeLog log = changeLog;
+            long ticket;
+            Enrollment enrollment;
+            ReentrantLock lock = lockFor(student);
+            lock.lock();
+            try {
+                enrollment = student.getEnrollment(courseCode);
+                if (enrollment == null) {
+                    return null;
+                }
+                Double previousMarks = enrollment.getMarks();
+                ticket = log.recordMarks(enrollment, marks);
+                enrollment.recordMarks(marks);
+                store.marksRecorded(enrollment, previousMarks);
+                listeners.forEach(l -> l.marksRecorded(enrollment, previousMarks));
+            } finally {
+                lock.unlock();
+            }
+            log.awaitDurable(ticket);
+            recorded = true;
+            return enrollment;
+        } finally {
+            marksMetrics.record(start, recorded);
+        }
+    }
+    
+    private ReentrantLock lockFor(Student student) {
+        return studentLocks[stripeOf(student.getId())];
+    }
+    
+    private static int stripeOf(String key) {
+        int h = key.hashCode();
+        return (h ^ (h >>> 16)) & (LOCK_STRIPES - 1);
     }
     
     // Implementation of Searchable interface
     @Override
     public List<Student> search(Predicate<Student> predicate) {
-        return students.stream()
+        long start = searchMetrics.start();
+        List<Student> found = stream()
             .filter(predicate)
             .collect(Collectors.toList());
+        searchMetrics.record(start);
+        return found;
+    }
+    
+    /**
+     * Plans the query against the id and regNo indexes; other queries scan the
+     * registration-order snapshot with the limit pushed into the scan
+     */
+    @Override
+    public List<Student> search(Query<Student> query) {
+        long start = searchMetrics.start();
+        List<Student> found = QueryExecutor.execute(query, plan(query).candidates);
+        searchMetrics.record(start);
+        return found;
+    }
+    
+    @Override
+    public String explain(Query<Student> query) {
+        return QueryExecutor.explain(query, plan(query));
+    }
+    
+    private QueryExecutor.Plan<Student> plan(Query<Student> query) {
+        Object id = query.getEqualityValue(StudentField.ID);
+        if (id != null) {
+            Student student = store.findById(id.toString());
+            return new QueryExecutor.Plan<>(student == null ? List.of() : List.of(student), "id index");
+        }
+        Object regNo = query.getEqualityValue(StudentField.REG_NO);
+        if (regNo != null) {
+            Student student = store.findByRegNo(regNo.toString());
+            return new QueryExecutor.Plan<>(student == null ? List.of() : List.of(student), "regNo index");
+        }
+        return new QueryExecutor.Plan<>(getAllStudents(), "student scan");
     }
     
     @Override
     public Student findById(String id) {
-        return students.stream()
-            .filter(s -> s.getId().equals(id))
-            .findFirst()
-            .orElse(null);
+        long start = findMetrics.start();
+        Student student = store.findById(id);
+        findMetrics.record(start);
+        return student;
     }
     
     public Student findByRegNo(String regNo) {
-        return students.stream()
-            .filter(s -> s.getRegNo().equals(regNo))
-            .findFirst()
-            .orElse(null);
+        long start = findMetrics.start();
+        Student student = store.findByRegNo(regNo);
+        findMetrics.record(start);
+        return student;
     }
     
+    /**
+     * Immutable snapshot of every student in registration order. With the heap store,
+     * repeated calls share one list until the next student is registered, so reads do
+     * not copy the store.
+     */
     public List<Student> getAllStudents() {
-        return new ArrayList<>(students);
+        return store.getAll();
+    }
+    
+    /**
+     * A page of students in registration order, without snapshotting the rest
+     */
+    public List<Student> getStudents(int offset, int limit) {
+        return store.getRange(offset, limit);
+    }
+    
+    public int getStudentCount() {
+        return store.size();
+    }
+    
+    public StudentStore getStore() {
+        return store;
+    }
+    
+    /**
+     * Stream over the same snapshot as getAllStudents()
+     */
+    public Stream<Student> stream() {
+        return getAllStudents().stream();
     }
     
     public List<Student> getActiveStudents() {
-        return students.stream()
+        return stream()
             .filter(Student::isActive)
             .collect(Collectors.toList());
     }
+    
+    /**
+     * Close the store, writing out anything it has not yet persisted
+     */
+    @Override
+    public void close() throws IOException {
+        store.close();
+    }
 }
\ No newline at end of file
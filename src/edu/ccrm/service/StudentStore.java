@@ -0,0 +1,59 @@
+package edu.ccrm.service;
+
+import edu.ccrm.domain.Course;
+import edu.ccrm.domain.Student;
+
+import java.io.Closeable;
+import java.io.IOException;
+import java.util.List;
+
+/**
+ * Where a StudentService keeps its students: the id and regNo indexes and the
+ * registration order. StudentService serializes changes to a student on that student's
+ * lock stripe and passes them on through the listener callbacks, after the Student
+ * object has changed and before other listeners hear of it, so a store that keeps its
+ * records outside the heap can write each change through. A store that cannot hold some
+ * values rejects them in the check methods, which StudentService calls before a change
+ * is logged or made.
+ */
+public interface StudentStore extends StudentListener, Closeable {
+    Student findById(String id);
+    
+    Student findByRegNo(String regNo);
+    
+    /**
+     * Claim the student's id and regNo and append it to the registration order
+     * @throws IllegalArgumentException if the id or regNo is already taken
+     */
+    void add(Student student);
+    
+    /**
+     * Immutable list of every student in registration order
+     */
+    List<Student> getAll();
+    
+    /**
+     * Up to limit students from offset on in registration order, copying only those
+     */
+    List<Student> getRange(int offset, int limit);
+    
+    int size();
+    
+    /**
+     * @throws IllegalArgumentException if the store cannot hold the student as it stands
+     */
+    default void checkStudent(Student student) {}
+    
+    /**
+     * @throws IllegalArgumentException if the store cannot hold this name and email
+     */
+    default void checkProfile(String fullName, String email) {}
+    
+    /**
+     * @throws IllegalArgumentException if the store cannot hold an enrollment in the course
+     */
+    default void checkEnrollment(Course course) {}
+    
+    @Override
+    default void close() throws IOException {}
+}
\ No newline at end of file
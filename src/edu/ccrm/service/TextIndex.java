@@ -0,0 +1,281 @@
+package edu.ccrm.service;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Comparator;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Locale;
+import java.util.Map;
+import java.util.PriorityQueue;
+import java.util.concurrent.locks.ReadWriteLock;
+import java.util.concurrent.locks.ReentrantReadWriteLock;
+import java.util.function.Function;
+
+/**
+ * Case-insensitive substring index over one or more text fields of each item.
+ * Every lower-cased field is broken into character trigrams and each trigram maps to a
+ * sorted posting list of item ids. A query of three or more characters intersects the
+ * posting lists of its trigrams, then confirms each candidate against the stored text,
+ * so only items sharing every trigram of the query are examined. Shorter queries scan the
+ * stored lower-cased text instead, which still avoids per-query case conversion.
+ *
+ * Results are ranked: an exact field match beats a match at the start of a field, which
+ * beats one at the start of a word, which beats any other substring; matches in the
+ * first field count double. Ties go to the shorter field, then to the earlier item.
+ */
+public class TextIndex<T> {
+    // One item's lower-cased fields and its position in insertion order
+    private static final class Document<T> {
+        final int id;
+        final T item;
+        String[] fields;
+        
+        Document(int id, T item, String[] fields) {
+            this.id = id;
+            this.item = item;
+            this.fields = fields;
+        }
+    }
+    
+    // Sorted, duplicate-free list of document ids
+    private static final class Postings {
+        int[] ids = new int[4];
+        int size;
+        
+        void add(int id) {
+            if (size > 0 && ids[size - 1] < id) {
+                append(id); // Common case: new documents have the highest id
+                return;
+            }
+            int at = Arrays.binarySearch(ids, 0, size, id);
+            if (at >= 0) {
+                return;
+            }
+            at = -at - 1;
+            append(0);
+            System.arraycopy(ids, at, ids, at + 1, size - at - 1);
+            ids[at] = id;
+        }
+        
+        void remove(int id) {
+            int at = Arrays.binarySearch(ids, 0, size, id);
+            if (at >= 0) {
+                System.arraycopy(ids, at + 1, ids, at, size - at - 1);
+                size--;
+            }
+        }
+        
+        boolean contains(int id) {
+            return Arrays.binarySearch(ids, 0, size, id) >= 0;
+        }
+        
+        private void append(int id) {
+            if (size == ids.length) {
+                ids = Arrays.copyOf(ids, size * 2);
+            }
+            ids[size++] = id;
+        }
+    }
+    
+    private static final class Hit<T> {
+        final Document<T> document;
+        final int score;
+        final int length;
+        
+        Hit(Document<T> document, int score, int length) {
+            this.document = document;
+            this.score = score;
+            this.length = length;
+        }
+    }
+    
+    // Best hit first
+    private final Comparator<Hit<T>> byRank = Comparator.<Hit<T>>comparingInt(h -> -h.score)
+        .thenComparingInt(h -> h.length)
+        .thenComparingInt(h -> h.document.id);
+    
+    private final Function<? super T, String[]> fieldExtractor;
+    private final Map<T, Document<T>> documents = new HashMap<>();
+    private final List<Document<T>> documentsById = new ArrayList<>();
+    private final Map<Long, Postings> postings = new HashMap<>();
+    private final ReadWriteLock lock = new ReentrantReadWriteLock();
+    
+    /**
+     * @param fieldExtractor the searchable fields of an item, most important first;
+     *                       null fields are skipped
+     */
+    public TextIndex(Function<? super T, String[]> fieldExtractor) {
+        this.fieldExtractor = fieldExtractor;
+    }
+    
+    /**
+     * Index an item, or re-index it if its fields changed
+     */
+    public void put(T item) {
+        String[] fields = normalize(fieldExtractor.apply(item));
+        lock.writeLock().lock();
+        try {
+            Document<T> document = documents.get(item);
+            if (document == null) {
+                document = new Document<>(documentsById.size(), item, fields);
+                documents.put(item, document);
+                documentsById.add(document);
+            } else if (Arrays.equals(document.fields, fields)) {
+                return;
+            } else {
+                for (long gram : trigrams(document.fields)) {
+                    Postings list = postings.get(gram);
+                    list.remove(document.id);
+                    if (list.size == 0) {
+                        postings.remove(gram);
+                    }
+                }
+                document.fields = fields;
+            }
+            for (long gram : trigrams(fields)) {
+                postings.computeIfAbsent(gram, g -> new Postings()).add(document.id);
+            }
+        } finally {
+            lock.writeLock().unlock();
+        }
+    }
+    
+    public int size() {
+        lock.readLock().lock();
+        try {
+            return documentsById.size();
+        } finally {
+            lock.readLock().unlock();
+        }
+    }
+    
+    /**
+     * Items containing the query in any field, best match first
+     */
+    public List<T> search(String query, int limit) {
+        String q = query == null ? "" : query.toLowerCase(Locale.ROOT);
+        if (q.isEmpty() || limit <= 0) {
+            return new ArrayList<>();
+        }
+        
+        // Bounded min-heap: the weakest of the current best hits sits at the head
+        PriorityQueue<Hit<T>> best = new PriorityQueue<>(limit + 1, byRank.reversed());
+        lock.readLock().lock();
+        try {
+            if (q.length() < 3) {
+                for (Document<T> document : documentsById) {
+                    offer(best, document, q, limit);
+                }
+            } else {
+                long[] grams = trigrams(new String[] {q});
+                Postings[] lists = new Postings[grams.length];
+                for (int i = 0; i < grams.length; i++) {
+                    lists[i] = postings.get(grams[i]);
+                    if (lists[i] == null) {
+                        return new ArrayList<>(); // Some trigram occurs nowhere
+                    }
+                }
+                Arrays.sort(lists, Comparator.comparingInt(p -> p.size));
+                Postings smallest = lists[0];
+                candidates:
+                for (int c = 0; c < smallest.size; c++) {
+                    int id = smallest.ids[c];
+                    for (int i = 1; i < lists.length; i++) {
+                        if (!lists[i].contains(id)) {
+                            continue candidates;
+                        }
+                    }
+                    offer(best, documentsById.get(id), q, limit);
+                }
+            }
+        } finally {
+            lock.readLock().unlock();
+        }
+        
+        List<Hit<T>> hits = new ArrayList<>(best);
+        hits.sort(byRank);
+        List<T> result = new ArrayList<>(hits.size());
+        for (Hit<T> hit : hits) {
+            result.add(hit.document.item);
+        }
+        return result;
+    }
+    
+    // Score a candidate against the query and keep it if it ranks in the top `limit`
+    private void offer(PriorityQueue<Hit<T>> best, Document<T> document, String q, int limit) {
+        int score = 0;
+        int length = Integer.MAX_VALUE;
+        String[] fields = document.fields;
+        for (int f = 0; f < fields.length; f++) {
+            String field = fields[f];
+            int at = field == null ? -1 : field.indexOf(q);
+            if (at < 0) {
+                continue;
+            }
+            int fieldScore;
+            if (at == 0 && field.length() == q.length()) {
+                fieldScore = 4;
+            } else if (at == 0) {
+                fieldScore = 3;
+            } else if (!Character.isLetterOrDigit(field.charAt(at - 1))) {
+                fieldScore = 2;
+            } else {
+                fieldScore = 1;
+            }
+            if (f == 0) {
+                fieldScore *= 2;
+            }
+            if (fieldScore > score || (fieldScore == score && field.length() < length)) {
+                score = fieldScore;
+                length = field.length();
+            }
+        }
+        if (score == 0) {
+            return; // Trigrams matched but the query is not a substring
+        }
+        Hit<T> hit = new Hit<>(document, score, length);
+        if (best.size() < limit) {
+            best.add(hit);
+        } else if (byRank.compare(hit, best.peek()) < 0) {
+            best.poll();
+            best.add(hit);
+        }
+    }
+    
+    private static String[] normalize(String[] fields) {
+        String[] normalized = new String[fields.length];
+        for (int i = 0; i < fields.length; i++) {
+            normalized[i] = fields[i] == null ? null : fields[i].toLowerCase(Locale.ROOT);
+        }
+        return normalized;
+    }
+    
+    // Distinct trigrams of the fields, each packed into a long; fields are kept apart
+    private static long[] trigrams(String[] fields) {
+        int total = 0;
+        for (String field : fields) {
+            if (field != null) {
+                total += Math.max(0, field.length() - 2);
+            }
+        }
+        long[] grams = new long[total];
+        int n = 0;
+        for (String field : fields) {
+            if (field == null) {
+                continue;
+            }
+            for (int i = 0; i + 2 < field.length(); i++) {
+                grams[n++] = ((long) field.charAt(i) << 32) | ((long) field.charAt(i + 1) << 16) | field.charAt(i + 2);
+            }
+        }
+        Arrays.sort(grams);
+        int distinct = 0;
+        for (int i = 0; i < n; i++) {
+            if (distinct == 0 || grams[distinct - 1] != grams[i]) {
+                grams[distinct++] = grams[i];
+            }
+        }
+        return Arrays.copyOf(grams, distinct);
+    }
+}
\ No newline at end of file
@@ -0,0 +1,123 @@
+package edu.ccrm.service;
+
+import edu.ccrm.domain.Course;
+import edu.ccrm.domain.Enrollment;
+import edu.ccrm.domain.Student;
+import edu.ccrm.domain.Transcript;
+import edu.ccrm.metrics.MetricsRegistry;
+import edu.ccrm.metrics.OperationMetrics;
+
+import java.util.LinkedHashMap;
+import java.util.Map;
+
+/**
+ * The most recently requested transcripts, keyed by student id, bounded in size.
+ * Registered as a listener on both services, it drops a student's transcript when their
+ * name, email, enrollments or marks change, and, when a course's title or credits change,
+ * exactly the transcripts that show the old values. Other catalog changes leave it
+ * untouched.
+ *
+ * Transcripts are built outside the cache's lock. A transcript whose build overlapped
+ * an invalidation is returned to its caller but not kept, since it may predate the
+ * change.
+ */
+public class TranscriptCache implements StudentListener, CourseListener {
+    private final int capacity;
+    // Access-ordered, so the eldest entry is the least recently used; guarded by this
+    private final Map<String, Transcript> transcripts;
+    // Bumped on every invalidation; guarded by this
+    private long invalidations;
+    private long hits;
+    private long misses;
+    private final OperationMetrics buildMetrics = MetricsRegistry.getInstance().operation("transcript.build");
+    
+    public TranscriptCache(int capacity) {
+        if (capacity < 1) {
+            throw new IllegalArgumentException("Capacity must be positive: " + capacity);
+        }
+        this.capacity = capacity;
+        this.transcripts = new LinkedHashMap<>(16, 0.75f, true) {
+            @Override
+            protected boolean removeEldestEntry(Map.Entry<String, Transcript> eldest) {
+                return size() > TranscriptCache.this.capacity;
+            }
+        };
+    }
+    
+    /**
+     * The student's transcript, from the cache if it is still current
+     */
+    public Transcript get(Student student) {
+        long generation;
+        synchronized (this) {
+            Transcript cached = transcripts.get(student.getId());
+            if (cached != null) {
+                hits++;
+                return cached;
+            }
+            misses++;
+            generation = invalidations;
+        }
+        long start = buildMetrics.start();
+        Transcript transcript = Transcript.of(student);
+        buildMetrics.record(start);
+        synchronized (this) {
+            if (invalidations == generation) {
+                transcripts.put(student.getId(), transcript);
+            }
+        }
+        return transcript;
+    }
+    
+    public synchronized void clear() {
+        transcripts.clear();
+        invalidations++;
+    }
+    
+    public synchronized int size() {
+        return transcripts.size();
+    }
+    
+    public int getCapacity() { return capacity; }
+    public synchronized long getHits() { return hits; }
+    public synchronized long getMisses() { return misses; }
+    
+    private synchronized void invalidate(Student student) {
+        transcripts.remove(student.getId());
+        invalidations++;
+    }
+    
+    // Student changes
+    
+    @Override
+    public void studentUpdated(Student student) {
+        invalidate(student);
+    }
+    
+    @Override
+    public void enrolled(Enrollment enrollment) {
+        invalidate(enrollment.getStudent());
+    }
+    
+    @Override
+    public void unenrolled(Enrollment enrollment) {
+        invalidate(enrollment.getStudent());
+    }
+    
+    @Override
+    public void marksRecorded(Enrollment enrollment, Double previousMarks) {
+        invalidate(enrollment.getStudent());
+    }
+    
+    // Catalog changes
+    
+    /**
+     * Walks the cached transcripts rather than the course roster: the cache is bounded,
+     * and iterating does not count as use, so the LRU order is kept
+     */
+    @Override
+    public synchronized void courseUpdated(Course course) {
+        invalidations++;
+        transcripts.values().removeIf(transcript -> !transcript.isCurrentFor(course));
+    }
+}
\ No newline at end of file
@@ -0,0 +1,121 @@
+package edu.ccrm.io;
+
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.params.ParameterizedTest;
+import org.junit.jupiter.params.provider.ValueSource;
+
+import java.io.IOException;
+import java.io.StringReader;
+import java.util.ArrayList;
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.assertArrayEquals;
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+/**
+ * RFC 4180 edge cases of the streaming reader, including records that straddle its
+ * buffer
+ */
+class CsvReaderTest {
+    private static final String QUOTED = "id,name,note\r\n"
+        + "1,\"Smith, Jane\",\"said \"\"hi\"\"\"\r\n"
+        + "\r\n"
+        + "2,\"two\nlines\",\r\n"
+        + "3,,\"\"\n"
+        + "4,last,no newline";
+    
+    // Buffers of one or a few chars split every CRLF and escaped quote across refills
+    @ParameterizedTest
+    @ValueSource(ints = {1, 2, 3, 7, 64 * 1024})
+    void readsQuotedFieldsAndLineEndingsAtAnyBufferSize(int bufferSize) throws IOException {
+        List<String[]> records = new ArrayList<>();
+        List<Long> lines = new ArrayList<>();
+        try (CsvReader csv = new CsvReader(new StringReader(QUOTED), bufferSize)) {
+            while (csv.next()) {
+                records.add(csv.toArray());
+                lines.add(csv.getLineNumber());
+            }
+        }
+        assertEquals(5, records.size());
+        assertArrayEquals(new String[] {"id", "name", "note"}, records.get(0));
+        assertArrayEquals(new String[] {"1", "Smith, Jane", "said \"hi\""}, records.get(1));
+        assertArrayEquals(new String[] {"2", "two\nlines", ""}, records.get(2));
+        assertArrayEquals(new String[] {"3", "", ""}, records.get(3));
+        assertArrayEquals(new String[] {"4", "last", "no newline"}, records.get(4));
+        // The blank line is skipped but counted, and the quoted line break spans two lines
+        assertEquals(List.of(1L, 2L, 4L, 6L, 7L), lines);
+    }
+    
+    @Test
+    void reportsAnUnterminatedQuoteWithItsLine() {
+        IOException e = assertThrows(IOException.class, () -> {
+            try (CsvReader csv = new CsvReader(new StringReader("a,b\n1,\"open\n2,3\n"))) {
+                while (csv.next()) {
+                    csv.toArray();
+                }
+            }
+        });
+        assertTrue(e.getMessage().contains("line 2"), e.getMessage());
+    }
+    
+    @Test
+    void emptyInputHasNoRecords() throws IOException {
+        try (CsvReader csv = new CsvReader(new StringReader("\n\r\n"))) {
+            assertFalse(csv.next());
+        }
+    }
+    
+    @Test
+    void parsesIntsInPlace() throws IOException {
+        try (CsvReader csv = new CsvReader(new StringReader(" 42 ,-7,+3,2147483647,-2147483648"))) {
+            assertTrue(csv.next());
+            assertEquals(42, csv.getInt(0));
+            assertEquals(-7, csv.getInt(1));
+            assertEquals(3, csv.getInt(2));
+            assertEquals(Integer.MAX_VALUE, csv.getInt(3));
+            assertEquals(Integer.MIN_VALUE, csv.getInt(4));
+        }
+    }
+    
+    @ParameterizedTest
+    @ValueSource(strings = {"", "  ", "-", "4x", "1.5", "2147483648", "12345678901"})
+    void rejectsFieldsThatAreNotInts(String field) throws IOException {
+        try (CsvReader csv = new CsvReader(new StringReader("x," + field + ",y"))) {
+            assertTrue(csv.next());
+            NumberFormatException e = assertThrows(NumberFormatException.class, () -> csv.getInt(1));
+            assertTrue(e.getMessage().contains("line 1"), e.getMessage());
+        }
+    }
+    
+    @Test
+    void comparesFieldsWithoutMaterializingThem() throws IOException {
+        try (CsvReader csv = new CsvReader(new StringReader("CS101,\"CS101\",CS10,"))) {
+            assertTrue(csv.next());
+            assertTrue(csv.fieldEquals(0, "CS101"));
+            assertTrue(csv.fieldEquals(1, "CS101"));
+            assertFalse(csv.fieldEquals(2, "CS101"));
+            assertTrue(csv.isEmpty(3));
+            assertThrows(IndexOutOfBoundsException.class, () -> csv.get(4));
+        }
+    }
+    
+    @Test
+    void appendedFieldsReadBackUnchanged() throws IOException {
+        String[] values = {"plain", "with, comma", "with \"quotes\"", "two\r\nlines", "", " padded "};
+        StringBuilder line = new StringBuilder();
+        for (int i = 0; i < values.length; i++) {
+            if (i > 0) {
+                line.append(',');
+            }
+            CsvReader.appendField(line, values[i]);
+        }
+        try (CsvReader csv = new CsvReader(new StringReader(line + "\n"))) {
+            assertTrue(csv.next());
+            assertArrayEquals(values, csv.toArray());
+            assertFalse(csv.next());
+        }
+    }
+}
\ No newline at end of file
@@ -0,0 +1,142 @@
+package edu.ccrm.io;
+
+import edu.ccrm.domain.Course;
+import edu.ccrm.domain.Enrollment;
+import edu.ccrm.domain.Semester;
+import edu.ccrm.domain.Student;
+import edu.ccrm.service.BulkEnrollmentResult;
+import edu.ccrm.service.CourseService;
+import edu.ccrm.service.DataAccessException;
+import edu.ccrm.service.StudentService;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.time.LocalDate;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertNull;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+/**
+ * Enrollment CSV export and import, through both the streaming importer and the
+ * multi-stage pipeline
+ */
+class EnrollmentCsvTest {
+    private static final String OUT_OF_RANGE = "regNo,courseCode,marks\n"
+        + "R0,C0,150\n"
+        + "R1,C1,-5\n"
+        + "R2,C2,Infinity\n"
+        + "R3,C3,NaN\n"
+        + "R4,C4,88\n";
+    
+    @TempDir
+    Path directory;
+    
+    private StudentService students;
+    private CourseService courses;
+    
+    @BeforeEach
+    void setUp() {
+        students = new StudentService();
+        courses = new CourseService();
+        for (int i = 0; i < 5; i++) {
+            students.addStudent(new Student.Builder()
+                .id("S" + i).regNo("R" + i).fullName("Student, No. " + i).email("s" + i + "@test.edu").build());
+            courses.addCourse(new Course.Builder()
+                .code("C" + i).title("Course \"" + i + "\"").credits(3).instructor("Dr. Csv")
+                .department("Data").semester(Semester.FALL).build());
+        }
+    }
+    
+    @Test
+    void exportedEnrollmentsImportWithTheirMarksAndDates() throws Exception {
+        Student student = students.findByRegNo("R0");
+        students.enrollInCourse(student, courses.findByCode("C0"));
+        students.enrollInCourse(student, courses.findByCode("C1"));
+        students.recordMarks(student, "C0", 92.35);
+        Path file = directory.resolve("enrollments.csv");
+        new FileService().exportEnrollments(students.getAllStudents(), file);
+        
+        StudentService restored = new StudentService();
+        students.getAllStudents().forEach(s -> restored.addStudent(new Student.Builder()
+            .id(s.getId()).regNo(s.getRegNo()).fullName(s.getFullName()).email(s.getEmail()).build()));
+        BulkEnrollmentResult result = new FileService().importEnrollments(file, restored, courses, 1);
+        
+        assertEquals(2, result.getAccepted());
+        assertEquals(0, result.getRejected());
+        Student copy = restored.findByRegNo("R0");
+        Enrollment graded = copy.getEnrollment("C0");
+        assertEquals(92.35, graded.getMarksAsDouble(), 1e-9);
+        assertEquals(student.getEnrollment("C0").getEnrollmentDate(), graded.getEnrollmentDate());
+        assertNull(copy.getEnrollment("C1").getMarks());
+    }
+    
+    @Test
+    void streamingImportCountsOutOfRangeMarksAsInvalid() throws Exception {
+        BulkEnrollmentResult result = new FileService().importEnrollments(write(OUT_OF_RANGE), students, courses, 10);
+        
+        assertEquals(1, result.getAccepted());
+        assertEquals(4, result.getInvalid());
+        assertEquals(4, result.getRejected());
+        assertTrue(result.getMessages().get(0).contains("line 2"), result.getMessages().get(0));
+        assertTrue(result.getMessages().get(3).contains("line 5"), result.getMessages().get(3));
+        assertEquals(0, students.findByRegNo("R0").getEnrollmentCount());
+        assertEquals(88.0, students.findByRegNo("R4").getEnrollment("C4").getMarksAsDouble(), 1e-9);
+    }
+    
+    @Test
+    void pipelineImportRejectsOutOfRangeMarks() throws Exception {
+        ImportPipeline.Result result = new ImportPipeline.Builder().chunkSize(2).build()
+            .run(null, null, write(OUT_OF_RANGE), students, courses);
+        
+        assertEquals(1, result.getCommitted(ImportPipeline.Lane.ENROLLMENTS));
+        assertEquals(4, result.getRejected(ImportPipeline.Lane.ENROLLMENTS));
+        assertTrue(result.getMessages().stream().anyMatch(m -> m.contains("line 4")), result.getMessages().toString());
+        assertEquals(1, students.findByRegNo("R4").getEnrollmentCount());
+    }
+    
+    @Test
+    void unknownReferencesAreCountedWithTheirLine() throws Exception {
+        Path file = write("regNo,courseCode\nR0,C0\nNOBODY,C1\nR1,NOCOURSE\n");
+        BulkEnrollmentResult result = new FileService().importEnrollments(file, students, courses, 10);
+        
+        assertEquals(1, result.getAccepted());
+        assertEquals(2, result.getUnresolved());
+        assertTrue(result.getMessages().get(0).startsWith("Line 3"), result.getMessages().get(0));
+        assertTrue(result.getMessages().get(1).contains("NOCOURSE"), result.getMessages().get(1));
+    }
+    
+    @Test
+    void shortLayoutByStudentIdDefaultsTheDate() throws Exception {
+        Path file = write("studentId,courseCode,marks,grade\nS2,C2,,\nS3,C3,71.5,B\n");
+        BulkEnrollmentResult result = new FileService().importEnrollments(file, students, courses, 10);
+        
+        assertEquals(2, result.getAccepted());
+        assertEquals(LocalDate.now(), students.findById("S2").getEnrollment("C2").getEnrollmentDate());
+        assertNull(students.findById("S2").getEnrollment("C2").getMarks());
+        assertEquals(71.5, students.findById("S3").getEnrollment("C3").getMarksAsDouble(), 1e-9);
+    }
+    
+    @Test
+    void malformedMarksOrDatesStopTheImport() throws Exception {
+        FileService files = new FileService();
+        assertThrows(DataAccessException.class,
+            () -> files.importEnrollments(write("regNo,courseCode,marks\nR0,C0,abc\n"), students, courses, 10));
+        assertThrows(DataAccessException.class,
+            () -> files.importEnrollments(write("regNo,courseCode,enrollmentDate\nR0,C0,2024-13-01\n"),
+                                          students, courses, 10));
+        assertThrows(DataAccessException.class,
+            () -> files.importEnrollments(write("regNo,marks\nR0,50\n"), students, courses, 10));
+    }
+    
+    private Path write(String content) throws Exception {
+        Path file = Files.createTempFile(directory, "enrollments", ".csv");
+        Files.writeString(file, content, StandardCharsets.UTF_8);
+        return file;
+    }
+}
\ No newline at end of file
@@ -0,0 +1,361 @@
+package edu.ccrm.io;
+
+import edu.ccrm.domain.Course;
+import edu.ccrm.domain.Enrollment;
+import edu.ccrm.domain.Semester;
+import edu.ccrm.domain.Student;
+import edu.ccrm.exception.DuplicateEnrollmentException;
+import edu.ccrm.exception.MaxCreditLimitExceededException;
+import edu.ccrm.service.CourseListener;
+import edu.ccrm.service.CourseService;
+import edu.ccrm.service.StudentListener;
+import edu.ccrm.service.StudentService;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+
+import java.nio.ByteBuffer;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.List;
+import java.util.Random;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicLong;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+/**
+ * The change journal: replay of changes made from several threads, write-ahead ordering
+ * against the listeners, recovery from a damaged tail, and compaction while changes are
+ * being made.
+ */
+class JournalServiceTest {
+    private static final int HEADER_SIZE = 8;
+    private static final int COURSES = 12;
+    private static final int STUDENTS = 300;
+    private static final int THREADS = 4;
+    private static final int OPS_PER_THREAD = 1500;
+    private static final int DAMAGED_RECORDS = 16;
+    
+    @TempDir
+    Path directory;
+    
+    @Test
+    void replaysChangesFromSeveralThreadsToTheSameState() throws Exception {
+        Path journalFile = directory.resolve("replay.journal");
+        StudentService students = new StudentService();
+        CourseService courses = new CourseService();
+        JournalService journal = open(journalFile, students, courses);
+        runWorkload(students, courses);
+        long appended = journal.getAppendedCount();
+        journal.close();
+        
+        StudentService replayedStudents = new StudentService();
+        CourseService replayedCourses = new CourseService();
+        JournalService replayed = new JournalService(journalFile, replayedStudents, replayedCourses,
+                                                     new SnapshotService(), 0);
+        int count = replayed.open();
+        replayed.close();
+        assertEquals(appended, count);
+        assertEquals(describe(students, courses), describe(replayedStudents, replayedCourses));
+    }
+    
+    @Test
+    void listenersHearOfAChangeOnlyAfterItIsLogged() throws Exception {
+        StudentService students = new StudentService();
+        CourseService courses = new CourseService();
+        JournalService journal = open(directory.resolve("ahead.journal"), students, courses);
+        
+        // Each callback stands for one logged change, so the journal must have logged at
+        // least as many changes as listeners have heard of
+        AtomicLong heard = new AtomicLong();
+        AtomicLong early = new AtomicLong();
+        Runnable onChange = () -> {
+            long changes = heard.incrementAndGet();
+            if (journal.getAppendedCount() < changes) {
+                early.incrementAndGet();
+            }
+        };
+        students.addListener(new StudentListener() {
+            @Override public void studentAdded(Student student) { onChange.run(); }
+            @Override public void studentUpdated(Student student) { onChange.run(); }
+            @Override public void studentDeactivated(Student student) { onChange.run(); }
+            @Override public void enrolled(Enrollment enrollment) { onChange.run(); }
+            @Override public void unenrolled(Enrollment enrollment) { onChange.run(); }
+            @Override public void marksRecorded(Enrollment enrollment, Double previousMarks) { onChange.run(); }
+        });
+        courses.addListener(new CourseListener() {
+            @Override public void courseAdded(Course course) { onChange.run(); }
+            @Override public void courseUpdated(Course course) { onChange.run(); }
+            @Override public void courseDeactivated(Course course) { onChange.run(); }
+        });
+        
+        runWorkload(students, courses);
+        journal.close();
+        assertTrue(heard.get() > 0);
+        assertEquals(0, early.get(), heard.get() + " changes heard, some before they were logged");
+    }
+    
+    /**
+     * Cut the journal short at and inside each of its last records; every copy must
+     * replay exactly the complete records before the cut
+     */
+    @Test
+    void replaysTheCompleteRecordsOfATornTail() throws Exception {
+        byte[] bytes = writeJournal();
+        List<Integer> boundaries = recordBoundaries(bytes);
+        int first = Math.max(0, boundaries.size() - 1 - DAMAGED_RECORDS);
+        for (int r = first; r < boundaries.size() - 1; r++) {
+            int start = boundaries.get(r);
+            int end = boundaries.get(r + 1);
+            String whole = replayCopy(bytes, start, -1);
+            for (int cut : new int[] {start + 1, start + 4, start + 8, (start + end) / 2, end - 1}) {
+                assertEquals(whole, replayCopy(bytes, cut, -1), "journal cut at byte " + cut);
+            }
+        }
+    }
+    
+    @Test
+    void stopsAtACorruptRecord() throws Exception {
+        byte[] bytes = writeJournal();
+        List<Integer> boundaries = recordBoundaries(bytes);
+        int damaged = Math.max(0, boundaries.size() - 4);
+        String intact = replayCopy(bytes, boundaries.get(damaged), -1);
+        assertEquals(intact, replayCopy(bytes, bytes.length, boundaries.get(damaged) + 8),
+            "record " + damaged + " with a flipped byte");
+    }
+    
+    // Compact repeatedly while the workload runs, then restore snapshot plus journal
+    @Test
+    void compactingWhileChangesAreMadeLosesNone() throws Exception {
+        Path journalFile = directory.resolve("compacted.journal");
+        Path snapshotFile = directory.resolve("compacted.snapshot");
+        StudentService students = new StudentService();
+        CourseService courses = new CourseService();
+        JournalService journal = open(journalFile, students, courses);
+        
+        AtomicInteger compactions = new AtomicInteger();
+        Throwable[] error = new Throwable[1];
+        Thread workload = new Thread(() -> {
+            try {
+                runWorkload(students, courses);
+            } catch (Throwable e) {
+                error[0] = e;
+            }
+        }, "journal-test-workload");
+        Thread compactor = new Thread(() -> {
+            try {
+                while (workload.isAlive()) {
+                    journal.saveToFile(snapshotFile.toString());
+                    compactions.incrementAndGet();
+                    Thread.sleep(5);
+                }
+            } catch (Throwable e) {
+                error[0] = e;
+            }
+        }, "journal-test-compactor");
+        workload.start();
+        compactor.start();
+        workload.join();
+        compactor.join();
+        if (error[0] != null) {
+            throw new AssertionError("Workload or compaction failed", error[0]);
+        }
+        String expected = describe(students, courses);
+        
+        // One more compaction, keeping the journal from before it as a crash would
+        Path uncompacted = directory.resolve("uncompacted.journal");
+        Files.copy(journalFile, uncompacted);
+        journal.saveToFile(snapshotFile.toString());
+        journal.close();
+        
+        assertTrue(compactions.get() > 0);
+        assertEquals(expected, restore(snapshotFile, journalFile), "snapshot plus journal");
+        assertEquals(expected, restore(snapshotFile, uncompacted), "snapshot plus the journal from before compacting");
+    }
+    
+    private byte[] writeJournal() throws Exception {
+        Path file = directory.resolve("source.journal");
+        StudentService students = new StudentService();
+        CourseService courses = new CourseService();
+        JournalService journal = open(file, students, courses);
+        runWorkload(students, courses);
+        journal.close();
+        return Files.readAllBytes(file);
+    }
+    
+    // Offset of each record, then the end of the last one
+    private static List<Integer> recordBoundaries(byte[] bytes) {
+        List<Integer> boundaries = new ArrayList<>();
+        ByteBuffer buffer = ByteBuffer.wrap(bytes);
+        int offset = HEADER_SIZE;
+        while (offset + 8 <= bytes.length) {
+            boundaries.add(offset);
+            offset += 8 + buffer.getInt(offset);
+        }
+        boundaries.add(offset);
+        return boundaries;
+    }
+    
+    /**
+     * Replay a copy of the first length bytes, with the byte at corruptAt flipped if it
+     * is not negative, then append one change and replay again.
+     * @return what was replayed and what the copy looked like afterwards
+     */
+    private String replayCopy(byte[] bytes, int length, int corruptAt) throws Exception {
+        byte[] copy = Arrays.copyOf(bytes, length);
+        if (corruptAt >= 0) {
+            copy[corruptAt] ^= 0x5A;
+        }
+        Path file = directory.resolve("damaged.journal");
+        Files.write(file, copy);
+        
+        StudentService students = new StudentService();
+        CourseService courses = new CourseService();
+        JournalService journal = open(file, students, courses);
+        int replayed = students.getAllStudents().size();
+        long recovered = Files.size(file);
+        String state = describe(students, courses);
+        students.addStudent(new Student.Builder()
+            .id("AFTER").regNo("AFTER").fullName("Added After Recovery").email("after@check.edu").build());
+        journal.close();
+        
+        StudentService reopened = new StudentService();
+        CourseService reopenedCourses = new CourseService();
+        JournalService again = new JournalService(file, reopened, reopenedCourses, new SnapshotService(), 0);
+        int count = again.open();
+        again.close();
+        boolean appendedAfter = reopened.findById("AFTER") != null
+            && reopened.getAllStudents().size() == replayed + 1;
+        return String.format("%d entries, %d bytes kept, state %08x, new change %s", count - 1, recovered,
+            state.hashCode(), appendedAfter ? "replayed" : "lost");
+    }
+    
+    private static String restore(Path snapshotFile, Path journalFile) throws Exception {
+        StudentService students = new StudentService();
+        CourseService courses = new CourseService();
+        new SnapshotService().load(snapshotFile, students, courses);
+        open(journalFile, students, courses).close();
+        return describe(students, courses);
+    }
+    
+    private static JournalService open(Path file, StudentService students, CourseService courses) throws Exception {
+        JournalService journal = new JournalService(file, students, courses, new SnapshotService(), 0);
+        journal.open();
+        return journal;
+    }
+    
+    // Register students and courses, then change them at random from several threads
+    private static void runWorkload(StudentService students, CourseService courses) throws InterruptedException {
+        Semester[] semesters = Semester.values();
+        List<Course> catalog = new ArrayList<>();
+        for (int c = 0; c < COURSES; c++) {
+            Course course = new Course.Builder()
+                .code(String.format("CHK%03d", c))
+                .title("Check Course " + c)
+                .credits(1 + c % 4)
+                .instructor("Dr. Check " + c % 3)
+                .department("Dept " + c % 2)
+                .semester(semesters[c % semesters.length])
+                .build();
+            courses.addCourse(course);
+            catalog.add(course);
+        }
+        
+        runThreads(t -> {
+            for (int s = t; s < STUDENTS; s += THREADS) {
+                students.addStudent(new Student.Builder()
+                    .id(String.format("C%05d", s))
+                    .regNo(String.format("R%05d", s))
+                    .fullName("Check Student " + s)
+                    .email("student" + s + "@check.edu")
+                    .build());
+            }
+        });
+        
+        List<Student> all = students.getAllStudents();
+        runThreads(t -> {
+            Random random = new Random(t);
+            for (int i = 0; i < OPS_PER_THREAD; i++) {
+                Student student = all.get(random.nextInt(all.size()));
+                List<Enrollment> enrollments = student.getEnrollments();
+                int op = random.nextInt(10);
+                if (op < 4) {
+                    try {
+                        students.enrollInCourse(student, catalog.get(random.nextInt(catalog.size())));
+                    } catch (DuplicateEnrollmentException | MaxCreditLimitExceededException e) {
+                        // Rejected before anything was logged
+                    }
+                } else if (op < 6 && !enrollments.isEmpty()) {
+                    Enrollment enrollment = enrollments.get(random.nextInt(enrollments.size()));
+                    students.recordMarks(student, enrollment.getCourse().getCode(), random.nextInt(1001) / 10.0);
+                } else if (op == 6 && !enrollments.isEmpty()) {
+                    students.unenrollFromCourse(student,
+                        enrollments.get(random.nextInt(enrollments.size())).getCourse().getCode());
+                } else if (op == 7) {
+                    students.updateStudent(student.getId(), "Renamed " + t + "-" + i, "renamed" + i + "@check.edu");
+                } else if (op == 8 && random.nextInt(10) == 0) {
+                    students.deactivateStudent(student.getId());
+                } else if (op == 9 && t == 0) {
+                    Course course = catalog.get(random.nextInt(catalog.size()));
+                    courses.updateCourse(course.getCode(), "Revised " + i, 1 + random.nextInt(4),
+                                         course.getInstructor(), course.getDepartment());
+                }
+            }
+        });
+    }
+    
+    // One sorted line per course and per student, enrollments included
+    private static String describe(StudentService students, CourseService courses) {
+        List<String> lines = new ArrayList<>();
+        for (Course course : courses.getAllCourses()) {
+            lines.add(String.join("|", "course", course.getCode(), course.getTitle(),
+                String.valueOf(course.getCredits()), course.getInstructor(), course.getDepartment(),
+                course.getSemester().name(), String.valueOf(course.isActive())));
+        }
+        for (Student student : students.getAllStudents()) {
+            StringBuilder line = new StringBuilder(String.join("|", "student", student.getId(), student.getRegNo(),
+                student.getFullName(), student.getEmail(), String.valueOf(student.getCreatedEpochDay()),
+                String.valueOf(student.isActive())));
+            for (Enrollment enrollment : student.getEnrollments()) {
+                line.append('|').append(enrollment.getCourse().getCode())
+                    .append('@').append(enrollment.getEnrollmentEpochDay())
+                    .append('=').append(enrollment.getMarks());
+            }
+            lines.add(line.toString());
+        }
+        Collections.sort(lines);
+        return String.join("\n", lines);
+    }
+    
+    private interface Worker {
+        void run(int thread) throws Exception;
+    }
+    
+    private static void runThreads(Worker worker) throws InterruptedException {
+        Thread[] running = new Thread[THREADS];
+        Throwable[] errors = new Throwable[THREADS];
+        for (int t = 0; t < THREADS; t++) {
+            int thread = t;
+            running[t] = new Thread(() -> {
+                try {
+                    worker.run(thread);
+                } catch (Throwable e) {
+                    errors[thread] = e;
+                }
+            }, "journal-test-" + t);
+            running[t].start();
+        }
+        for (Thread thread : running) {
+            thread.join();
+        }
+        for (Throwable error : errors) {
+            if (error != null) {
+                throw new AssertionError("Workload failed", error);
+            }
+        }
+    }
+}
\ No newline at end of file
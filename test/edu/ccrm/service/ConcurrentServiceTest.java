@@ -0,0 +1,222 @@
+package edu.ccrm.service;
+
+import edu.ccrm.domain.Course;
+import edu.ccrm.domain.Enrollment;
+import edu.ccrm.domain.Semester;
+import edu.ccrm.domain.Student;
+import edu.ccrm.exception.DuplicateEnrollmentException;
+import edu.ccrm.exception.MaxCreditLimitExceededException;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Random;
+import java.util.Set;
+import java.util.concurrent.atomic.AtomicBoolean;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+/**
+ * The service layer under writers on several threads: the per-student checks hold, and
+ * the GPA aggregates, rosters, enrollment columns and rankings agree with the
+ * enrollments once the writers are done.
+ */
+class ConcurrentServiceTest {
+    private static final int THREADS = 8;
+    private static final int STUDENTS = 200;
+    private static final int OPS_PER_THREAD = 2000;
+    
+    private HeapStudentStore store;
+    private StudentService students;
+    private CourseService courses;
+    private RankingService rankings;
+    private final List<Course> catalog = new ArrayList<>();
+    
+    @BeforeEach
+    void setUp() {
+        store = new HeapStudentStore();
+        students = new StudentService(store, "test");
+        courses = new CourseService();
+        students.addListener(courses);
+        rankings = new RankingService(students, courses, store.getEnrollmentStore());
+        students.addListener(rankings);
+        for (int c = 0; c < 12; c++) {
+            Course course = new Course.Builder()
+                .code(String.format("CON%03d", c))
+                .title("Concurrency " + c)
+                .credits(c < 6 ? 3 : 1 + c % 4)
+                .instructor("Dr. Lock")
+                .department("Dept " + c % 2)
+                .semester(Semester.FALL)
+                .build();
+            courses.addCourse(course);
+            catalog.add(course);
+        }
+    }
+    
+    @Test
+    void oneStudentEnrolledFromManyThreadsKeepsTheCreditLimit() throws Exception {
+        Student student = addStudents(1).get(0);
+        List<Course> threeCredits = catalog.subList(0, 6);
+        List<Course> more = new ArrayList<>(catalog.subList(0, 6));
+        more.addAll(catalog.subList(0, 6));
+        // Twelve attempts per thread at six 3-credit courses: 18 credits is the limit
+        runThreads(t -> {
+            List<Course> order = new ArrayList<>(more);
+            Collections.shuffle(order, new Random(t));
+            for (Course course : order) {
+                try {
+                    students.enrollInCourse(student, course);
+                } catch (DuplicateEnrollmentException | MaxCreditLimitExceededException e) {
+                    // Expected for all but the first attempt at each course
+                }
+            }
+        });
+        
+        assertEquals(18, student.getTotalCreditsAttempted());
+        assertEquals(6, student.getEnrollmentCount());
+        Set<String> codes = new HashSet<>();
+        student.getEnrollments().forEach(e -> assertTrue(codes.add(e.getCourse().getCode())));
+        for (Course course : threeCredits) {
+            assertEquals(1, courses.getHeadcount(course.getCode()), course.getCode());
+        }
+        assertEquals(6, store.getEnrollmentStore().size());
+    }
+    
+    @Test
+    void aggregatesRostersAndRankingsAgreeAfterMixedChanges() throws Exception {
+        List<Student> all = addStudents(STUDENTS);
+        AtomicBoolean writing = new AtomicBoolean(true);
+        Throwable[] readerError = new Throwable[1];
+        // Queries keep running while the writers fill the ranking queue past its limit
+        Thread reader = new Thread(() -> {
+            try {
+                while (writing.get()) {
+                    rankings.getLeaderboard(10);
+                    rankings.getRank(all.get(0).getRegNo());
+                }
+            } catch (Throwable e) {
+                readerError[0] = e;
+            }
+        }, "concurrency-test-reader");
+        reader.start();
+        try {
+            runThreads(t -> {
+                Random random = new Random(t);
+                for (int i = 0; i < OPS_PER_THREAD; i++) {
+                    Student student = all.get(random.nextInt(all.size()));
+                    Course course = catalog.get(random.nextInt(catalog.size()));
+                    int op = random.nextInt(10);
+                    if (op < 5) {
+                        try {
+                            students.enrollInCourse(student, course);
+                        } catch (DuplicateEnrollmentException | MaxCreditLimitExceededException e) {
+                            // Rejected by the per-student checks
+                        }
+                    } else if (op < 8) {
+                        students.recordMarks(student, course.getCode(), random.nextInt(1001) / 10.0);
+                    } else if (op < 9) {
+                        students.unenrollFromCourse(student, course.getCode());
+                    } else if (random.nextInt(20) == 0) {
+                        students.deactivateStudent(student.getId());
+                    }
+                }
+            });
+        } finally {
+            writing.set(false);
+            reader.join();
+        }
+        if (readerError[0] != null) {
+            throw new AssertionError("Ranking query failed", readerError[0]);
+        }
+        
+        Map<String, Integer> headcounts = new HashMap<>();
+        int enrollments = 0;
+        int ranked = 0;
+        for (Student student : all) {
+            double points = 0;
+            int graded = 0;
+            int attempted = 0;
+            for (Enrollment enrollment : student.getEnrollments()) {
+                int credits = enrollment.getCourse().getCredits();
+                attempted += credits;
+                if (enrollment.isGraded()) {
+                    points += enrollment.getGrade().getPoints() * credits;
+                    graded += credits;
+                }
+                headcounts.merge(enrollment.getCourse().getCode(), 1, Integer::sum);
+                enrollments++;
+            }
+            assertTrue(attempted <= 18, student.getRegNo() + " is over the credit limit");
+            assertEquals(attempted, student.getTotalCreditsAttempted(), student.getRegNo());
+            assertEquals(graded == 0 ? 0.0 : points / graded, student.calculateGPA(), 1e-9, student.getRegNo());
+            if (student.isActive() && attempted > 0) {
+                ranked++;
+            }
+        }
+        for (Course course : catalog) {
+            assertEquals(headcounts.getOrDefault(course.getCode(), 0), courses.getHeadcount(course.getCode()),
+                course.getCode());
+        }
+        assertEquals(enrollments, store.getEnrollmentStore().size());
+        
+        assertEquals(ranked, rankings.getRankedCount());
+        List<RankingService.RankedStudent> leaderboard = rankings.getLeaderboard(STUDENTS);
+        for (int i = 0; i < leaderboard.size(); i++) {
+            RankingService.RankedStudent entry = leaderboard.get(i);
+            assertEquals(entry.getStudent().calculateGPA(), entry.getGpa(), 1e-9);
+            if (i > 0) {
+                assertTrue(leaderboard.get(i - 1).getGpa() >= entry.getGpa());
+            }
+        }
+    }
+    
+    private List<Student> addStudents(int count) {
+        List<Student> added = new ArrayList<>();
+        for (int s = 0; s < count; s++) {
+            Student student = new Student.Builder()
+                .id(String.format("T%05d", s))
+                .regNo(String.format("2024%05d", s))
+                .fullName("Thread Student " + s)
+                .email("thread" + s + "@test.edu")
+                .build();
+            students.addStudent(student);
+            added.add(student);
+        }
+        return added;
+    }
+    
+    private interface Worker {
+        void run(int thread) throws Exception;
+    }
+    
+    private static void runThreads(Worker worker) throws InterruptedException {
+        Thread[] running = new Thread[THREADS];
+        Throwable[] errors = new Throwable[THREADS];
+        for (int t = 0; t < THREADS; t++) {
+            int thread = t;
+            running[t] = new Thread(() -> {
+                try {
+                    worker.run(thread);
+                } catch (Throwable e) {
+                    errors[thread] = e;
+                }
+            }, "concurrency-test-" + t);
+            running[t].start();
+        }
+        for (Thread thread : running) {
+            thread.join();
+        }
+        for (Throwable error : errors) {
+            if (error != null) {
+                throw new AssertionError("Worker failed", error);
+            }
+        }
+    }
+}
\ No newline at end of file
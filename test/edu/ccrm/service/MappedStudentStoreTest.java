@@ -0,0 +1,173 @@
+package edu.ccrm.service;
+
+import edu.ccrm.domain.Course;
+import edu.ccrm.domain.Enrollment;
+import edu.ccrm.domain.Semester;
+import edu.ccrm.domain.Student;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertNotNull;
+import static org.junit.jupiter.api.Assertions.assertNull;
+import static org.junit.jupiter.api.Assertions.assertSame;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+/**
+ * The memory-mapped student directory: what survives a reopen, the LRU cache, the
+ * rebuilt index, and the fixed-size field limits
+ */
+class MappedStudentStoreTest {
+    private static final int CACHE = 4;
+    
+    @TempDir
+    Path directory;
+    
+    private CourseService courses;
+    private StudentService alumni;
+    
+    @BeforeEach
+    void setUp() throws IOException {
+        courses = new CourseService();
+        for (int c = 0; c < 4; c++) {
+            courses.addCourse(course("MAP10" + c, 1 + c));
+        }
+        alumni = open();
+    }
+    
+    @AfterEach
+    void tearDown() throws IOException {
+        alumni.close();
+    }
+    
+    @Test
+    void studentsEnrollmentsAndMarksSurviveAReopen() throws Exception {
+        List<Student> added = addStudents(50);
+        for (Student student : added) {
+            alumni.enrollInCourse(student, courses.findByCode("MAP100"));
+            alumni.enrollInCourse(student, courses.findByCode("MAP102"));
+            alumni.recordMarks(student, "MAP102", 40 + added.indexOf(student));
+        }
+        alumni.unenrollFromCourse(added.get(7), "MAP100");
+        alumni.updateStudent(added.get(8).getId(), "Renamed Alumnus", "renamed@alumni.edu");
+        alumni.deactivateStudent(added.get(9).getId());
+        alumni.close();
+        
+        alumni = open();
+        assertEquals(50, alumni.getStudentCount());
+        for (int s = 0; s < added.size(); s++) {
+            Student student = alumni.findByRegNo(added.get(s).getRegNo());
+            assertNotNull(student);
+            assertEquals(s == 7 ? 1 : 2, student.getEnrollmentCount(), student.getRegNo());
+            assertEquals(40.0 + s, student.getEnrollment("MAP102").getMarksAsDouble(), 1e-4);
+            assertEquals(added.get(s).calculateGPA(), student.calculateGPA(), 1e-9);
+        }
+        assertEquals("Renamed Alumnus", alumni.findById(added.get(8).getId()).getFullName());
+        assertEquals("renamed@alumni.edu", alumni.findById(added.get(8).getId()).getEmail());
+        assertFalse(alumni.findById(added.get(9).getId()).isActive());
+    }
+    
+    @Test
+    void aStudentStaysOneObjectWhileHeldBeyondTheCache() {
+        List<Student> added = addStudents(CACHE * 5);
+        MappedStudentStore store = (MappedStudentStore) alumni.getStore();
+        Student held = alumni.findByRegNo(added.get(0).getRegNo());
+        for (Student student : added) {
+            assertEquals(student.getId(), alumni.findByRegNo(student.getRegNo()).getId());
+        }
+        assertTrue(store.getCachedCount() <= CACHE, store.getCachedCount() + " cached");
+        assertSame(held, alumni.findById(held.getId()));
+    }
+    
+    @Test
+    void rebuildsAMissingIndex() throws IOException {
+        List<Student> added = addStudents(30);
+        alumni.close();
+        Files.delete(directory.resolve("index.dat"));
+        
+        alumni = open();
+        for (Student student : added) {
+            assertEquals(student.getRegNo(), alumni.findById(student.getId()).getRegNo());
+            assertEquals(student.getId(), alumni.findByRegNo(student.getRegNo()).getId());
+        }
+        assertNull(alumni.findById("MISSING"));
+    }
+    
+    @Test
+    void enrollmentsInDroppedCoursesKeepTheirCodeAndCredits() throws Exception {
+        Course retired = course("OLD900", 4);
+        Student student = addStudents(1).get(0);
+        alumni.enrollInCourse(student, retired);
+        alumni.recordMarks(student, "OLD900", 95);
+        alumni.close();
+        
+        alumni = open();
+        Enrollment enrollment = alumni.findById(student.getId()).getEnrollment("OLD900");
+        assertNotNull(enrollment);
+        assertEquals("OLD900", enrollment.getCourse().getCode());
+        assertEquals(4, enrollment.getCourse().getCredits());
+        assertEquals(95.0, enrollment.getMarksAsDouble(), 1e-4);
+    }
+    
+    @Test
+    void valuesTooLongForTheRecordsAreRejectedWithoutChanges() {
+        Student student = addStudents(1).get(0);
+        String longRegNo = "R".repeat(MappedStudentStore.MAX_REG_NO_BYTES + 1);
+        assertThrows(IllegalArgumentException.class, () -> alumni.addStudent(new Student.Builder()
+            .id("LONG").regNo(longRegNo).fullName("Too Long").email("long@alumni.edu").build()));
+        assertEquals(1, alumni.getStudentCount());
+        assertNull(alumni.findById("LONG"));
+        
+        Course longCode = course("C".repeat(MappedStudentStore.MAX_COURSE_CODE_BYTES + 1), 3);
+        assertThrows(IllegalArgumentException.class, () -> alumni.enrollInCourse(student, longCode));
+        assertFalse(student.isEnrolledIn(longCode.getCode()));
+        BulkEnrollmentResult result = alumni.enrollAll(List.of(new Enrollment(student, longCode)));
+        assertEquals(1, result.getInvalid());
+        assertEquals(0, student.getEnrollmentCount());
+        
+        String longName = "N".repeat(MappedStudentStore.MAX_NAME_BYTES + 1);
+        assertThrows(IllegalArgumentException.class,
+            () -> alumni.updateStudent(student.getId(), longName, student.getEmail()));
+        assertEquals("Alumnus 0", student.getFullName());
+    }
+    
+    private StudentService open() throws IOException {
+        return new StudentService(new MappedStudentStore(directory, courses::findByCode, CACHE), "alumni-test");
+    }
+    
+    private List<Student> addStudents(int count) {
+        List<Student> added = new ArrayList<>();
+        for (int s = 0; s < count; s++) {
+            Student student = new Student.Builder()
+                .id(String.format("A%05d", s))
+                .regNo(String.format("2019%05d", s))
+                .fullName("Alumnus " + s)
+                .email("alumnus" + s + "@alumni.edu")
+                .build();
+            alumni.addStudent(student);
+            added.add(student);
+        }
+        return added;
+    }
+    
+    private static Course course(String code, int credits) {
+        return new Course.Builder()
+            .code(code)
+            .title("Mapped " + code)
+            .credits(credits)
+            .instructor("Dr. Map")
+            .department("Archive")
+            .semester(Semester.SPRING)
+            .build();
+    }
+}
\ No newline at end of file
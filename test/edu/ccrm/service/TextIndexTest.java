@@ -0,0 +1,127 @@
+package edu.ccrm.service;
+
+import org.junit.jupiter.api.Test;
+
+import java.util.ArrayList;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Locale;
+import java.util.Random;
+import java.util.Set;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+/**
+ * The trigram index: it finds exactly what a scan would, ranks matches as documented and
+ * follows re-indexed items
+ */
+class TextIndexTest {
+    // An item with mutable fields, indexed by identity
+    private static final class Item {
+        String[] fields;
+        
+        Item(String... fields) {
+            this.fields = fields;
+        }
+        
+        @Override
+        public String toString() {
+            return String.join("|", fields);
+        }
+    }
+    
+    private final TextIndex<Item> index = new TextIndex<>(item -> item.fields);
+    
+    @Test
+    void findsWhatAScanFinds() {
+        Random random = new Random(15);
+        String alphabet = "abcdeAB -é";
+        List<Item> items = new ArrayList<>();
+        for (int i = 0; i < 500; i++) {
+            Item item = new Item(randomText(random, alphabet, 12), random.nextInt(4) == 0 ? null
+                : randomText(random, alphabet, 8));
+            items.add(item);
+            index.put(item);
+        }
+        for (int q = 0; q < 300; q++) {
+            String query = randomText(random, alphabet, 1 + random.nextInt(5));
+            Set<Item> expected = new HashSet<>();
+            String needle = query.toLowerCase(Locale.ROOT);
+            for (Item item : items) {
+                for (String field : item.fields) {
+                    if (field != null && field.toLowerCase(Locale.ROOT).contains(needle)) {
+                        expected.add(item);
+                    }
+                }
+            }
+            assertEquals(expected, new HashSet<>(index.search(query, items.size())), "query '" + query + "'");
+        }
+    }
+    
+    @Test
+    void ranksExactThenPrefixThenWordStartThenSubstring() {
+        Item substring = new Item("Oscarlson");
+        Item wordStart = new Item("Ana Carl");
+        Item prefix = new Item("Carlton");
+        Item exact = new Item("Carl");
+        Item secondField = new Item("Beth Moss", "carl");
+        for (Item item : List.of(substring, wordStart, prefix, exact, secondField)) {
+            index.put(item);
+        }
+        // An exact match in the second field scores as a word start in the first does, and
+        // wins on its shorter field
+        assertEquals(List.of(exact, prefix, secondField, wordStart, substring), index.search("CARL", 10));
+        assertEquals(List.of(exact, prefix), index.search("carl", 2));
+    }
+    
+    @Test
+    void tiesGoToTheShorterFieldThenTheEarlierItem() {
+        Item longer = new Item("Data Structures");
+        Item shorter = new Item("Data Mining");
+        Item same = new Item("Data Systems");
+        Item sameLater = new Item("Data Science");
+        for (Item item : List.of(longer, shorter, same, sameLater)) {
+            index.put(item);
+        }
+        assertEquals(List.of(shorter, same, sameLater, longer), index.search("data", 10));
+    }
+    
+    @Test
+    void followsChangedFields() {
+        Item item = new Item("Grace Hopper", "grace@navy.mil");
+        index.put(item);
+        item.fields = new String[] {"Grace Murray", "gmurray@navy.mil"};
+        index.put(item);
+        
+        assertEquals(1, index.size());
+        assertTrue(index.search("hopper", 10).isEmpty());
+        assertEquals(List.of(item), index.search("murray", 10));
+        assertEquals(List.of(item), index.search("gmu", 10));
+    }
+    
+    @Test
+    void doesNotMatchAcrossFields() {
+        index.put(new Item("abc", "def"));
+        assertTrue(index.search("cde", 10).isEmpty());
+        assertTrue(index.search("c d", 10).isEmpty());
+        assertEquals(1, index.search("bc", 10).size());
+    }
+    
+    @Test
+    void emptyQueriesAndLimitsFindNothing() {
+        index.put(new Item("anything"));
+        assertTrue(index.search("", 10).isEmpty());
+        assertTrue(index.search(null, 10).isEmpty());
+        assertTrue(index.search("any", 0).isEmpty());
+        assertTrue(index.search("zzz", 10).isEmpty());
+    }
+    
+    private static String randomText(Random random, String alphabet, int length) {
+        StringBuilder text = new StringBuilder(length);
+        for (int i = 0; i < length; i++) {
+            text.append(alphabet.charAt(random.nextInt(alphabet.length())));
+        }
+        return text.toString();
+    }
+}
\ No newline at end of file